@@ -0,0 +1,41 @@
+package com.segurosargos.hotelbook.config;
+
+import java.time.Duration;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import com.segurosargos.hotelbook.repository.CachingRoomRepository;
+import com.segurosargos.hotelbook.repository.RoomRepository;
+
+/**
+ * Configuracion de la cache local de habitaciones.
+ * Envuelve la implementacion de RoomRepository activa (JPA o en memoria) con
+ * CachingRoomRepository y la expone como bean primario. Se desactiva con
+ * hotelbook.rooms.cache.enabled=false.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "hotelbook.rooms.cache", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class RoomCacheConfig {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RoomCacheConfig.class);
+
+    @Bean
+    @Primary
+    public RoomRepository cachingRoomRepository(
+            @Qualifier(CachingRoomRepository.STORAGE_QUALIFIER) RoomRepository roomStorage,
+            @Value("${hotelbook.rooms.cache.max-size:1000}") int maxSize,
+            @Value("${hotelbook.rooms.cache.ttl:30s}") Duration ttl,
+            MeterRegistry meterRegistry) {
+
+        LOGGER.info("Cache de habitaciones habilitada sobre {}. maxSize={}, ttl={}.",
+                roomStorage.getClass().getSimpleName(), maxSize, ttl);
+
+        return new CachingRoomRepository(roomStorage, maxSize, ttl, meterRegistry);
+    }
+}
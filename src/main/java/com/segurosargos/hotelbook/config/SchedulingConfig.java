@@ -0,0 +1,13 @@
+package com.segurosargos.hotelbook.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Habilita la ejecucion de tareas programadas con @Scheduled, por ejemplo la
+ * reconstruccion nocturna del indice de disponibilidad de habitaciones.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
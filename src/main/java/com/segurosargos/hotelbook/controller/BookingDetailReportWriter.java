@@ -0,0 +1,204 @@
+package com.segurosargos.hotelbook.controller;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+import java.util.function.Consumer;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.segurosargos.hotelbook.dto.BookingDetailResponseDto;
+
+/*
+ * Escribe filas del reporte de detalle de reservas directamente sobre la salida de la
+ * respuesta, una a una, en formato JSON (arreglo), NDJSON (un objeto por línea) o CSV.
+ * Cada cierto número de filas se vacía el buffer para que el cliente las reciba
+ * mientras se sigue leyendo de la base de datos.
+ *
+ * Los errores de escritura se relanzan como UncheckedIOException para poder usar el
+ * escritor como Consumer de las filas.
+ */
+abstract class BookingDetailReportWriter implements Consumer<BookingDetailResponseDto> {
+
+    private static final int FLUSH_EVERY_ROWS = 500;
+
+    private long rows;
+
+    static BookingDetailReportWriter json(OutputStream outputStream, ObjectMapper objectMapper) throws IOException {
+        return new JsonArrayWriter(createGenerator(outputStream, objectMapper));
+    }
+
+    static BookingDetailReportWriter ndjson(OutputStream outputStream, ObjectMapper objectMapper) throws IOException {
+        return new NdjsonWriter(createGenerator(outputStream, objectMapper));
+    }
+
+    static BookingDetailReportWriter csv(OutputStream outputStream) throws IOException {
+        return new CsvWriter(new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8)));
+    }
+
+    @Override
+    public void accept(BookingDetailResponseDto row) {
+        try {
+            writeRow(row);
+            if (++rows % FLUSH_EVERY_ROWS == 0) {
+                flush();
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /*
+     * Escribe el encabezado del formato, si lo tiene.
+     */
+    abstract void start() throws IOException;
+
+    /*
+     * Escribe el cierre del formato y vacía el buffer. No cierra la salida de la respuesta.
+     */
+    abstract void finish() throws IOException;
+
+    abstract void writeRow(BookingDetailResponseDto row) throws IOException;
+
+    abstract void flush() throws IOException;
+
+    private static JsonGenerator createGenerator(OutputStream outputStream, ObjectMapper objectMapper)
+            throws IOException {
+        JsonGenerator generator = objectMapper.createGenerator(outputStream);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        return generator;
+    }
+
+    private static final class JsonArrayWriter extends BookingDetailReportWriter {
+
+        private final JsonGenerator generator;
+
+        private JsonArrayWriter(JsonGenerator generator) {
+            this.generator = generator;
+        }
+
+        @Override
+        void start() throws IOException {
+            generator.writeStartArray();
+        }
+
+        @Override
+        void writeRow(BookingDetailResponseDto row) throws IOException {
+            generator.writeObject(row);
+        }
+
+        @Override
+        void finish() throws IOException {
+            generator.writeEndArray();
+            generator.close();
+        }
+
+        @Override
+        void flush() throws IOException {
+            generator.flush();
+        }
+    }
+
+    private static final class NdjsonWriter extends BookingDetailReportWriter {
+
+        private final JsonGenerator generator;
+
+        private NdjsonWriter(JsonGenerator generator) {
+            this.generator = generator;
+            // El separador entre objetos es el salto de línea que se escribe después de cada uno.
+            this.generator.setRootValueSeparator(null);
+        }
+
+        @Override
+        void start() {
+        }
+
+        @Override
+        void writeRow(BookingDetailResponseDto row) throws IOException {
+            generator.writeObject(row);
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        void finish() throws IOException {
+            generator.close();
+        }
+
+        @Override
+        void flush() throws IOException {
+            generator.flush();
+        }
+    }
+
+    private static final class CsvWriter extends BookingDetailReportWriter {
+
+        private static final String HEADER = "bookingId,roomCode,roomName,guestFirstName,guestLastName,"
+                + "guestEmail,checkInDate,checkOutDate,totalPrice,status";
+
+        private final Writer writer;
+
+        private CsvWriter(Writer writer) {
+            this.writer = writer;
+        }
+
+        @Override
+        void start() throws IOException {
+            writer.write(HEADER);
+            writer.write("\r\n");
+        }
+
+        @Override
+        void writeRow(BookingDetailResponseDto row) throws IOException {
+            writer.write(field(row.getBookingId()));
+            writer.write(',');
+            writer.write(field(row.getRoomCode()));
+            writer.write(',');
+            writer.write(field(row.getRoomName()));
+            writer.write(',');
+            writer.write(field(row.getGuestFirstName()));
+            writer.write(',');
+            writer.write(field(row.getGuestLastName()));
+            writer.write(',');
+            writer.write(field(row.getGuestEmail()));
+            writer.write(',');
+            writer.write(field(row.getCheckInDate()));
+            writer.write(',');
+            writer.write(field(row.getCheckOutDate()));
+            writer.write(',');
+            writer.write(field(row.getTotalPrice() != null ? row.getTotalPrice().toPlainString() : null));
+            writer.write(',');
+            writer.write(field(row.getStatus()));
+            writer.write("\r\n");
+        }
+
+        @Override
+        void finish() throws IOException {
+            writer.flush();
+        }
+
+        @Override
+        void flush() throws IOException {
+            writer.flush();
+        }
+
+        /*
+         * Valor de una columna según RFC 4180: se encierra entre comillas si contiene
+         * comas, comillas o saltos de línea, duplicando las comillas internas.
+         */
+        private static String field(Object value) {
+            if (value == null) {
+                return "";
+            }
+            String text = Objects.toString(value);
+            if (text.indexOf(',') < 0 && text.indexOf('"') < 0
+                    && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+                return text;
+            }
+            return '"' + text.replace("\"", "\"\"") + '"';
+        }
+    }
+}
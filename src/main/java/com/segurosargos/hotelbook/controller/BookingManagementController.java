@@ -1,7 +1,13 @@
 package com.segurosargos.hotelbook.controller;
 
 import com.segurosargos.hotelbook.dto.BookingStatusChangeResponseDto;
+import com.segurosargos.hotelbook.dto.BulkBookingStatusChangeRequestDto;
+import com.segurosargos.hotelbook.dto.BulkBookingStatusChangeResponseDto;
 import com.segurosargos.hotelbook.service.BookingManagementService;
+import com.segurosargos.hotelbook.service.IdempotentResponseStore;
+import java.security.Principal;
+import java.util.function.Supplier;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -9,12 +15,19 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 /*
  * Controlador REST dedicado a exponer operaciones de negocio sobre reservas
  * que requieren consistencia transaccional entre Booking, Guest y Room.
+ *
+ * Las operaciones de confirmación y cancelación aceptan el encabezado opcional
+ * Idempotency-Key. Un reintento con la misma llave devuelve la respuesta original
+ * desde IdempotentResponseStore, con el encabezado Idempotent-Replayed, sin volver
+ * a ejecutar la operación.
  */
 @RestController
 @RequestMapping("/api/bookings")
@@ -24,17 +37,26 @@ public class BookingManagementController {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(BookingManagementController.class);
 
+    static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
+    static final String IDEMPOTENT_REPLAYED_HEADER = "Idempotent-Replayed";
+
     private final BookingManagementService bookingManagementService;
 
+    private final IdempotentResponseStore idempotentResponseStore;
+
     /*
      * Confirma una reserva de forma transaccional. Todos los cambios en la
      * reserva, el huésped y la habitación se aplican o se deshacen en bloque.
      */
     @PostMapping("/{bookingId}/confirm")
-    public ResponseEntity<BookingStatusChangeResponseDto> confirmBooking(@PathVariable Long bookingId) {
+    public ResponseEntity<BookingStatusChangeResponseDto> confirmBooking(
+            @PathVariable Long bookingId,
+            @RequestHeader(name = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+            Principal principal) {
         LOGGER.info("HTTP POST /api/bookings/{}/confirm recibido.", bookingId);
-        BookingStatusChangeResponseDto response = bookingManagementService.confirmBooking(bookingId);
-        return ResponseEntity.ok(response);
+        return respond(idempotencyKey, principal, "confirm", bookingId,
+                () -> bookingManagementService.confirmBooking(bookingId));
     }
 
     /*
@@ -53,9 +75,63 @@ public class BookingManagementController {
      * reserva y el contador de reservas confirmadas del huésped.
      */
     @PostMapping("/{bookingId}/cancel")
-    public ResponseEntity<BookingStatusChangeResponseDto> cancelBooking(@PathVariable Long bookingId) {
+    public ResponseEntity<BookingStatusChangeResponseDto> cancelBooking(
+            @PathVariable Long bookingId,
+            @RequestHeader(name = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+            Principal principal) {
         LOGGER.info("HTTP POST /api/bookings/{}/cancel recibido.", bookingId);
-        BookingStatusChangeResponseDto response = bookingManagementService.cancelBooking(bookingId);
-        return ResponseEntity.ok(response);
+        return respond(idempotencyKey, principal, "cancel", bookingId,
+                () -> bookingManagementService.cancelBooking(bookingId));
+    }
+
+    /*
+     * Confirma varias reservas en una sola transacción, por ejemplo el check-in de un
+     * grupo. Devuelve el resultado de cada reserva; las que no se pueden confirmar se
+     * reportan sin afectar al resto.
+     */
+    @PostMapping("/bulk-confirm")
+    public ResponseEntity<BulkBookingStatusChangeResponseDto> confirmBookings(
+            @Valid @RequestBody BulkBookingStatusChangeRequestDto request,
+            @RequestHeader(name = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+            Principal principal) {
+        LOGGER.info("HTTP POST /api/bookings/bulk-confirm recibido con {} reservas.", request.getBookingIds().size());
+        return respond(idempotencyKey, principal, "bulk-confirm", request.getBookingIds(),
+                () -> bookingManagementService.confirmBookings(request.getBookingIds()));
+    }
+
+    /*
+     * Cancela varias reservas en una sola transacción, por ejemplo las de un tour
+     * cancelado. Devuelve el resultado de cada reserva.
+     */
+    @PostMapping("/bulk-cancel")
+    public ResponseEntity<BulkBookingStatusChangeResponseDto> cancelBookings(
+            @Valid @RequestBody BulkBookingStatusChangeRequestDto request,
+            @RequestHeader(name = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+            Principal principal) {
+        LOGGER.info("HTTP POST /api/bookings/bulk-cancel recibido con {} reservas.", request.getBookingIds().size());
+        return respond(idempotencyKey, principal, "bulk-cancel", request.getBookingIds(),
+                () -> bookingManagementService.cancelBookings(request.getBookingIds()));
+    }
+
+    /*
+     * Ejecuta la operación directamente si no hay llave de idempotencia; si la hay, la
+     * ejecuta a través de IdempotentResponseStore y marca las respuestas repetidas.
+     */
+    private <T> ResponseEntity<T> respond(String idempotencyKey, Principal principal,
+                                          String operation, Object request, Supplier<T> action) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return ResponseEntity.ok(action.get());
+        }
+
+        IdempotentResponseStore.IdempotentResult<T> result = idempotentResponseStore.execute(
+                principal != null ? principal.getName() : "", operation, idempotencyKey, request, action);
+
+        if (result.replayed()) {
+            LOGGER.info("Respuesta repetida para {} con Idempotency-Key {}.", operation, idempotencyKey);
+            return ResponseEntity.ok()
+                    .header(IDEMPOTENT_REPLAYED_HEADER, "true")
+                    .body(result.response());
+        }
+        return ResponseEntity.ok(result.response());
     }
 }
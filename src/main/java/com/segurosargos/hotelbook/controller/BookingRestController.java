@@ -1,16 +1,23 @@
 package com.segurosargos.hotelbook.controller;
 
+import java.io.IOException;
 import java.time.LocalDate;
 import java.util.List;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.segurosargos.hotelbook.dto.BookingDetailResponseDto;
 import com.segurosargos.hotelbook.dto.MonthlyBookingStatsDto;
+import com.segurosargos.hotelbook.service.BookingExportService;
 import com.segurosargos.hotelbook.service.BookingReportService;
 
 /*
@@ -22,10 +29,22 @@ public class BookingRestController {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(BookingRestController.class);
 
+    private static final String TEXT_CSV_VALUE = "text/csv";
+
+    private static final String APPLICATION_GZIP_VALUE = "application/gzip";
+
     private final BookingReportService bookingReportService;
 
-    public BookingRestController(BookingReportService bookingReportService) {
+    private final BookingExportService bookingExportService;
+
+    private final ObjectMapper objectMapper;
+
+    public BookingRestController(BookingReportService bookingReportService,
+                                 BookingExportService bookingExportService,
+                                 ObjectMapper objectMapper) {
         this.bookingReportService = bookingReportService;
+        this.bookingExportService = bookingExportService;
+        this.objectMapper = objectMapper;
     }
 
     /*
@@ -52,6 +71,103 @@ public class BookingRestController {
         return ResponseEntity.ok(details);
     }
 
+    /*
+     * Variante en streaming del reporte detallado para rangos grandes. Las filas se leen
+     * de la base de datos con un cursor y se escriben en la respuesta conforme llegan,
+     * sin construir la lista completa en memoria. El formato se elige con el header
+     * Accept: application/json (arreglo JSON), application/x-ndjson (un objeto por línea)
+     * o text/csv.
+     *
+     * El rango se valida antes de empezar a escribir para poder responder con 400.
+     */
+    @GetMapping(value = "/report/stream", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamBookingDetailsReportAsJson(
+            @RequestParam("startDate") LocalDate startDate,
+            @RequestParam("endDate") LocalDate endDate,
+            @RequestParam(name = "status", required = false) String status) {
+
+        bookingReportService.validateReportRange(startDate, endDate);
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(outputStream -> streamReport(
+                        BookingDetailReportWriter.json(outputStream, objectMapper), startDate, endDate, status));
+    }
+
+    @GetMapping(value = "/report/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamBookingDetailsReportAsNdjson(
+            @RequestParam("startDate") LocalDate startDate,
+            @RequestParam("endDate") LocalDate endDate,
+            @RequestParam(name = "status", required = false) String status) {
+
+        bookingReportService.validateReportRange(startDate, endDate);
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(outputStream -> streamReport(
+                        BookingDetailReportWriter.ndjson(outputStream, objectMapper), startDate, endDate, status));
+    }
+
+    @GetMapping(value = "/report/stream", produces = TEXT_CSV_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamBookingDetailsReportAsCsv(
+            @RequestParam("startDate") LocalDate startDate,
+            @RequestParam("endDate") LocalDate endDate,
+            @RequestParam(name = "status", required = false) String status) {
+
+        bookingReportService.validateReportRange(startDate, endDate);
+
+        ContentDisposition contentDisposition = ContentDisposition.attachment()
+                .filename("bookings-" + startDate + "-" + endDate + ".csv")
+                .build();
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(TEXT_CSV_VALUE + ";charset=UTF-8"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, contentDisposition.toString())
+                .body(outputStream -> streamReport(
+                        BookingDetailReportWriter.csv(outputStream), startDate, endDate, status));
+    }
+
+    /*
+     * Exportación masiva de reservas para análisis: CSV comprimido con gzip generado con
+     * COPY en PostgreSQL. Pensado para rangos muy grandes que se procesan fuera de la
+     * aplicación; devuelve las mismas columnas que el reporte detallado.
+     */
+    @GetMapping(value = "/export", produces = APPLICATION_GZIP_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportBookingDetails(
+            @RequestParam("startDate") LocalDate startDate,
+            @RequestParam("endDate") LocalDate endDate,
+            @RequestParam(name = "status", required = false) String status) {
+
+        bookingReportService.validateReportRange(startDate, endDate);
+        String exportStatus = bookingExportService.resolveExportStatus(status);
+
+        ContentDisposition contentDisposition = ContentDisposition.attachment()
+                .filename("bookings-" + startDate + "-" + endDate + ".csv.gz")
+                .build();
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(APPLICATION_GZIP_VALUE))
+                .header(HttpHeaders.CONTENT_DISPOSITION, contentDisposition.toString())
+                .body(outputStream -> bookingExportService.exportBookingDetailsCsvGzip(
+                        startDate, endDate, exportStatus, outputStream));
+    }
+
+    private void streamReport(BookingDetailReportWriter writer,
+                              LocalDate startDate,
+                              LocalDate endDate,
+                              String status) throws IOException {
+
+        LOGGER.info(
+                "Iniciando reporte de reservas en streaming. startDate={}, endDate={}, status={}.",
+                startDate, endDate, status);
+
+        writer.start();
+        long rows = bookingReportService.streamBookingDetails(startDate, endDate, status, writer);
+        writer.finish();
+
+        LOGGER.info("Reporte de reservas en streaming completado. Total de registros: {}.", rows);
+    }
+
     /*
      * Recupera estadísticas mensuales de reservas para el rango de fechas indicado.
      * De forma opcional, se puede indicar un estatus para filtrar (por ejemplo, CONFIRMED).
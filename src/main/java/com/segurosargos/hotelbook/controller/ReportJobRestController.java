@@ -0,0 +1,78 @@
+package com.segurosargos.hotelbook.controller;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Optional;
+import jakarta.validation.Valid;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import com.segurosargos.hotelbook.dto.ReportJobRequestDto;
+import com.segurosargos.hotelbook.dto.ReportJobResponseDto;
+import com.segurosargos.hotelbook.service.ReportJobService;
+
+/*
+ * Controlador REST para ejecutar reportes de reservas de forma asíncrona.
+ *
+ * El cliente solicita el reporte con POST, recibe el id del job y consulta su estado o
+ * descarga el resultado cuando termina, sin mantener ocupado un hilo del servidor
+ * mientras se calcula.
+ */
+@RestController
+@RequestMapping("/api/reports/jobs")
+public class ReportJobRestController {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReportJobRestController.class);
+
+    private final ReportJobService reportJobService;
+
+    public ReportJobRestController(ReportJobService reportJobService) {
+        this.reportJobService = reportJobService;
+    }
+
+    /*
+     * Solicita un reporte. Responde 202 con el job y la ubicación para consultarlo.
+     */
+    @PostMapping
+    public ResponseEntity<ReportJobResponseDto> submitReportJob(@Valid @RequestBody ReportJobRequestDto request) {
+        LOGGER.info("Recibida solicitud de job de reporte. type={}, startDate={}, endDate={}, status={}.",
+                request.getType(), request.getStartDate(), request.getEndDate(), request.getStatus());
+
+        ReportJobResponseDto job = reportJobService.submit(request);
+
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/reports/jobs/" + job.getJobId()))
+                .body(job);
+    }
+
+    /*
+     * Consulta el estado de un job.
+     */
+    @GetMapping("/{jobId}")
+    public ResponseEntity<ReportJobResponseDto> getReportJob(@PathVariable("jobId") String jobId) {
+        return ResponseEntity.ok(reportJobService.getJob(jobId));
+    }
+
+    /*
+     * Descarga el resultado de un job. Si el job sigue en curso responde 202 con su estado;
+     * si falló responde 409 con el estado y el mensaje de error.
+     */
+    @GetMapping("/{jobId}/result")
+    public ResponseEntity<?> getReportJobResult(@PathVariable("jobId") String jobId) {
+        Optional<List<?>> result = reportJobService.findJobResult(jobId);
+        if (result.isPresent()) {
+            return ResponseEntity.ok(result.get());
+        }
+
+        ReportJobResponseDto job = reportJobService.getJob(jobId);
+        HttpStatus status = "FAILED".equals(job.getState()) ? HttpStatus.CONFLICT : HttpStatus.ACCEPTED;
+        return ResponseEntity.status(status).body(job);
+    }
+}
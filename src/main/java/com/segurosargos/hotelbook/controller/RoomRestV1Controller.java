@@ -4,9 +4,11 @@ import java.math.BigDecimal;
 import java.net.URI;
 import java.time.LocalDate;
 import java.util.List;
+import jakarta.persistence.OptimisticLockException;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -21,13 +23,16 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import com.segurosargos.hotelbook.dto.RoomAvailabilityCalendarDto;
 import com.segurosargos.hotelbook.dto.RoomCreateRequestDto;
 import com.segurosargos.hotelbook.dto.RoomDetailResponseDto;
+import com.segurosargos.hotelbook.dto.RoomNameSuggestionDto;
 import com.segurosargos.hotelbook.dto.RoomOccupancySummaryDto;
 import com.segurosargos.hotelbook.dto.RoomPageResultDto;
 import com.segurosargos.hotelbook.dto.RoomSearchFilterDto;
 import com.segurosargos.hotelbook.dto.RoomSummaryResponseDto;
 import com.segurosargos.hotelbook.dto.RoomUpdateRequestDto;
+import com.segurosargos.hotelbook.service.RoomAvailabilityCalendarService;
 import com.segurosargos.hotelbook.service.RoomService;
 
 /**
@@ -43,8 +48,12 @@ public class RoomRestV1Controller {
 
     private final RoomService roomService;
 
-    public RoomRestV1Controller(RoomService roomService) {
+    private final RoomAvailabilityCalendarService roomAvailabilityCalendarService;
+
+    public RoomRestV1Controller(RoomService roomService,
+                                RoomAvailabilityCalendarService roomAvailabilityCalendarService) {
         this.roomService = roomService;
+        this.roomAvailabilityCalendarService = roomAvailabilityCalendarService;
     }
 
     /**
@@ -61,6 +70,10 @@ public class RoomRestV1Controller {
     /**
      * Recupera una pagina de habitaciones aplicando filtros opcionales por nombre y rango de precio.
      * Si no se especifica ningun filtro, utiliza el listado paginado estandar.
+     *
+     * Si se envia keyset=true o el parametro after, se utiliza paginacion por cursor:
+     * after es el token nextCursor de la pagina anterior y el parametro page se ignora.
+     * En ese modo el total de elementos solo se calcula si includeTotal=true.
      */
     @GetMapping("/search")
     public ResponseEntity<RoomPageResultDto> searchRooms(
@@ -70,24 +83,42 @@ public class RoomRestV1Controller {
             @RequestParam(name = "page", required = false, defaultValue = "0") Integer page,
             @RequestParam(name = "size", required = false, defaultValue = "10") Integer size,
             @RequestParam(name = "sort", required = false, defaultValue = "id") String sort,
-            @RequestParam(name = "direction", required = false, defaultValue = "asc") String direction) {
+            @RequestParam(name = "direction", required = false, defaultValue = "asc") String direction,
+            @RequestParam(name = "keyset", required = false, defaultValue = "false") boolean keyset,
+            @RequestParam(name = "after", required = false) String after,
+            @RequestParam(name = "includeTotal", required = false, defaultValue = "false") boolean includeTotal) {
 
         LOGGER.info(
-                "V1 - Recibida solicitud de busqueda de habitaciones. name={}, minPrice={}, maxPrice={}, page={}, size={}, sort={}, direction={}.",
-                name, minPrice, maxPrice, page, size, sort, direction);
-
-        RoomPageResultDto pageResult = roomService.searchRooms(
-                name,
-                minPrice,
-                maxPrice,
-                page,
-                size,
-                sort,
-                direction
-        );
+                "V1 - Recibida solicitud de busqueda de habitaciones. name={}, minPrice={}, maxPrice={}, page={}, size={}, sort={}, direction={}, keyset={}, after={}.",
+                name, minPrice, maxPrice, page, size, sort, direction, keyset, after);
+
+        RoomPageResultDto pageResult;
+
+        if (keyset || after != null) {
+            pageResult = roomService.searchRoomsByKeyset(
+                    name,
+                    minPrice,
+                    maxPrice,
+                    after,
+                    size,
+                    sort,
+                    direction,
+                    includeTotal
+            );
+        } else {
+            pageResult = roomService.searchRooms(
+                    name,
+                    minPrice,
+                    maxPrice,
+                    page,
+                    size,
+                    sort,
+                    direction
+            );
+        }
 
-        LOGGER.info("V1 - Solicitud de busqueda de habitaciones completada. totalElements={}.",
-                pageResult.getTotalElements());
+        LOGGER.info("V1 - Solicitud de busqueda de habitaciones completada. totalElements={}, nextCursor={}.",
+                pageResult.getTotalElements(), pageResult.getNextCursor());
 
         return ResponseEntity.ok(pageResult);
     }
@@ -123,6 +154,24 @@ public class RoomRestV1Controller {
         return ResponseEntity.ok(pageResult);
     }
 
+    /**
+     * Devuelve sugerencias de habitaciones para autocompletado por nombre,
+     * ordenadas de mayor a menor similitud con el texto recibido.
+     */
+    @GetMapping("/typeahead")
+    public ResponseEntity<List<RoomNameSuggestionDto>> suggestRoomsByName(
+            @RequestParam(name = "q") String query,
+            @RequestParam(name = "limit", required = false, defaultValue = "10") Integer limit) {
+
+        LOGGER.info("V1 - Recibida solicitud de sugerencias de habitaciones. q={}, limit={}.", query, limit);
+
+        List<RoomNameSuggestionDto> suggestions = roomService.suggestRoomsByName(query, limit);
+
+        LOGGER.info("V1 - Solicitud de sugerencias de habitaciones completada. Total: {}.", suggestions.size());
+
+        return ResponseEntity.ok(suggestions);
+    }
+
     /**
      * Recupera el resumen de ocupacion de las habitaciones para una fecha de referencia.
      * Si no se indica la fecha, se utiliza la fecha actual.
@@ -141,11 +190,32 @@ public class RoomRestV1Controller {
         return ResponseEntity.ok(summaries);
     }
 
+    /**
+     * Recupera el calendario de ocupacion de todas las habitaciones para las noches de [from, to).
+     * Cada habitacion incluye una cadena con un caracter por noche ('1' ocupada, '0' libre),
+     * calculada con una sola lectura de las reservas del rango.
+     */
+    @GetMapping("/availability-calendar")
+    public ResponseEntity<RoomAvailabilityCalendarDto> getAvailabilityCalendar(
+            @RequestParam(name = "from") LocalDate from,
+            @RequestParam(name = "to") LocalDate to) {
+
+        LOGGER.info("V1 - Recibida solicitud de calendario de ocupacion. from={}, to={}.", from, to);
+
+        RoomAvailabilityCalendarDto calendar = roomAvailabilityCalendarService.getAvailabilityCalendar(from, to);
+
+        LOGGER.info("V1 - Solicitud de calendario de ocupacion completada. Habitaciones: {}.",
+                calendar.getRooms().size());
+
+        return ResponseEntity.ok(calendar);
+    }
+
     /**
      * Recupera el detalle de una habitacion especifica.
-     * Si el cliente envia el encabezado If-None-Match con un ETag igual a la version
-     * actual del recurso, se responde 304 Not Modified sin cuerpo.
-     * En caso contrario, se devuelve 200 OK con el detalle y el ETag actualizado.
+     * Si el cliente envia el encabezado If-None-Match, primero se consulta solo la version
+     * de la habitacion; si el ETag coincide se responde 304 Not Modified sin cargar ni
+     * serializar el detalle. En caso contrario, se devuelve 200 OK con el detalle y el
+     * ETag, ambos obtenidos de la misma consulta.
      */
     @GetMapping("/{id}")
     public ResponseEntity<RoomDetailResponseDto> getRoomById(
@@ -154,18 +224,21 @@ public class RoomRestV1Controller {
 
         LOGGER.info("V1 - Recibida solicitud para obtener la habitacion con id {}.", id);
 
-        RoomDetailResponseDto responseDto = roomService.getRoomById(id);
-        Integer version = roomService.getRoomVersionById(id);
+        if (ifNoneMatch != null) {
+            String currentEtag = buildRoomEtag(id, roomService.getRoomVersionById(id));
 
-        String eTag = buildRoomEtag(id, version);
-
-        if (ifNoneMatch != null && ifNoneMatch.equals(eTag)) {
-            LOGGER.info("V1 - ETag coincidente para la habitacion con id {}. Respondiendo 304 Not Modified.", id);
-            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
-                    .eTag(eTag)
-                    .build();
+            if (etagMatches(ifNoneMatch, currentEtag)) {
+                LOGGER.info("V1 - ETag coincidente para la habitacion con id {}. Respondiendo 304 Not Modified.", id);
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                        .eTag(currentEtag)
+                        .build();
+            }
         }
 
+        RoomDetailResponseDto responseDto = roomService.getRoomById(id);
+
+        String eTag = buildRoomEtag(id, responseDto.getVersion());
+
         LOGGER.info("V1 - Solicitud para obtener la habitacion con id {} completada. ETag={}.", id, eTag);
 
         return ResponseEntity.ok()
@@ -199,10 +272,12 @@ public class RoomRestV1Controller {
 
     /**
      * Actualiza una habitacion existente identificada por su id.
-     * Si el cliente envia el encabezado If-Match y el ETag no coincide con la
-     * version actual, se responde 412 Precondition Failed.
-     * Si no se envia If-Match, se aplica un update "best effort" y se devuelve
-     * el nuevo ETag en la respuesta.
+     * Si el cliente envia el encabezado If-Match, la version del ETag se envia tal cual al
+     * servicio y se valida en el propio UPDATE (id = ? AND version = ?); si otra operacion
+     * modifico la habitacion, se responde 412 Precondition Failed con el ETag vigente.
+     * Si no se envia If-Match (o se envia *), se aplica un update "best effort" y un
+     * conflicto concurrente se reporta como 409 desde GlobalExceptionHandler.
+     * El nuevo ETag se construye con la version devuelta por la actualizacion.
      */
     @PutMapping("/{id}")
     @PreAuthorize("hasAnyRole('ADMIN','STAFF')")
@@ -213,23 +288,14 @@ public class RoomRestV1Controller {
 
         LOGGER.info("V1 - Recibida solicitud para actualizar la habitacion con id {}.", id);
 
-        // Obtener la version actual y construir el ETag vigente
-        Integer currentVersion = roomService.getRoomVersionById(id);
-        String currentEtag = buildRoomEtag(id, currentVersion);
+        Integer expectedVersion = null;
 
-        // Si el cliente envia If-Match, aplicamos control de concurrencia optimista
-        if (ifMatch != null) {
-            if (!currentEtag.equals(ifMatch)) {
-                LOGGER.warn(
-                        "V1 - ETag no coincide para la habitacion con id {}. If-Match={}, ETag actual={}. Devolviendo 412.",
-                        id, ifMatch, currentEtag);
-
-                // Se devuelve el ETag actual para que el cliente pueda reintentar con la version correcta
-                return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED)
-                        .eTag(currentEtag)
-                        .build();
-            } else {
-                LOGGER.info("V1 - ETag coincidente para la habitacion con id {}. Continuando con la actualizacion.", id);
+        if (ifMatch != null && !"*".equals(ifMatch.trim())) {
+            expectedVersion = parseEtagVersion(id, ifMatch);
+            if (expectedVersion == null) {
+                LOGGER.warn("V1 - If-Match no corresponde a la habitacion con id {}. If-Match={}. Devolviendo 412.",
+                        id, ifMatch);
+                return preconditionFailed(id);
             }
         } else {
             LOGGER.info(
@@ -237,11 +303,19 @@ public class RoomRestV1Controller {
                     id);
         }
 
-        RoomDetailResponseDto responseDto = roomService.updateRoom(id, requestDto);
+        RoomDetailResponseDto responseDto;
+        try {
+            responseDto = roomService.updateRoom(id, requestDto, expectedVersion);
+        } catch (OptimisticLockException | OptimisticLockingFailureException ex) {
+            if (expectedVersion == null) {
+                throw ex;
+            }
+            LOGGER.warn("V1 - ETag no coincide para la habitacion con id {}. If-Match={}. Devolviendo 412.",
+                    id, ifMatch);
+            return preconditionFailed(id);
+        }
 
-        // Recuperamos la nueva version tras la actualizacion para emitir un ETag actualizado
-        Integer newVersion = roomService.getRoomVersionById(id);
-        String newEtag = buildRoomEtag(id, newVersion);
+        String newEtag = buildRoomEtag(id, responseDto.getVersion());
 
         LOGGER.info("V1 - Habitacion actualizada con id {}. Nuevo ETag={}.", responseDto.getId(), newEtag);
 
@@ -272,4 +346,62 @@ public class RoomRestV1Controller {
     private String buildRoomEtag(Long id, Integer version) {
         return "room-" + id + "-v" + (version == null ? 0 : version);
     }
+
+    /**
+     * Construye la respuesta 412 Precondition Failed con el ETag vigente para que el
+     * cliente pueda reintentar con la version correcta. Solo se consulta la version en
+     * este camino de error.
+     */
+    private ResponseEntity<RoomDetailResponseDto> preconditionFailed(Long id) {
+        String currentEtag = buildRoomEtag(id, roomService.getRoomVersionById(id));
+        return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED)
+                .eTag(currentEtag)
+                .build();
+    }
+
+    /**
+     * Extrae la version de un ETag de habitacion con formato room-{id}-v{version}.
+     * Devuelve null si el valor no tiene ese formato o pertenece a otra habitacion.
+     */
+    private Integer parseEtagVersion(Long id, String headerValue) {
+        String prefix = "room-" + id + "-v";
+        String normalized = normalizeEtag(headerValue);
+        if (!normalized.startsWith(prefix)) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(normalized.substring(prefix.length()));
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Indica si el valor de un encabezado condicional coincide con el ETag indicado.
+     * Acepta el comodin *, listas separadas por comas y etiquetas con o sin comillas
+     * o prefijo W/, ya que los clientes suelen reenviar el ETag tal como lo recibieron.
+     */
+    private boolean etagMatches(String headerValue, String eTag) {
+        for (String candidate : headerValue.split(",")) {
+            String normalized = normalizeEtag(candidate);
+            if ("*".equals(normalized) || normalized.equals(eTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Quita espacios, el prefijo W/ y las comillas de un ETag recibido en un encabezado.
+     */
+    private String normalizeEtag(String value) {
+        String normalized = value.trim();
+        if (normalized.startsWith("W/")) {
+            normalized = normalized.substring(2);
+        }
+        if (normalized.length() >= 2 && normalized.startsWith("\"") && normalized.endsWith("\"")) {
+            normalized = normalized.substring(1, normalized.length() - 1);
+        }
+        return normalized;
+    }
 }
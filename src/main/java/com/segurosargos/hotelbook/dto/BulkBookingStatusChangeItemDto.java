@@ -0,0 +1,36 @@
+package com.segurosargos.hotelbook.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/*
+ * Resultado del cambio de estatus de una reserva dentro de una operación masiva.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkBookingStatusChangeItemDto {
+
+    /*
+     * Identificador de la reserva.
+     */
+    private Long bookingId;
+
+    /*
+     * Resultado: UPDATED, NOT_FOUND, INVALID_STATUS o CONFLICT.
+     */
+    private String outcome;
+
+    /*
+     * Descripción del motivo cuando la reserva no se modificó.
+     */
+    private String message;
+
+    /*
+     * Detalle del cambio cuando la reserva se modificó.
+     */
+    private BookingStatusChangeResponseDto change;
+}
@@ -0,0 +1,27 @@
+package com.segurosargos.hotelbook.dto;
+
+import java.util.List;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/*
+ * DTO de entrada para confirmar o cancelar varias reservas en una sola operación.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkBookingStatusChangeRequestDto {
+
+    /*
+     * Identificadores de las reservas a modificar. Los ids repetidos se procesan una vez.
+     */
+    @NotEmpty(message = "Debe indicar al menos una reserva.")
+    @Size(max = 500, message = "No se pueden modificar más de 500 reservas por solicitud.")
+    private List<@NotNull(message = "Los ids de reserva no pueden ser nulos.") Long> bookingIds;
+}
@@ -0,0 +1,37 @@
+package com.segurosargos.hotelbook.dto;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/*
+ * DTO de respuesta de una operación masiva de confirmación o cancelación de reservas.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkBookingStatusChangeResponseDto {
+
+    /*
+     * Número de reservas distintas solicitadas.
+     */
+    private int requested;
+
+    /*
+     * Número de reservas modificadas.
+     */
+    private int updated;
+
+    /*
+     * Número de reservas que no se modificaron.
+     */
+    private int rejected;
+
+    /*
+     * Resultado por reserva, en el orden de la solicitud.
+     */
+    private List<BulkBookingStatusChangeItemDto> results;
+}
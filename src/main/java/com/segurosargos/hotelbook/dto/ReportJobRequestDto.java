@@ -0,0 +1,41 @@
+package com.segurosargos.hotelbook.dto;
+
+import java.time.LocalDate;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/*
+ * DTO de entrada para solicitar la ejecución asíncrona de un reporte de reservas.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReportJobRequestDto {
+
+    /*
+     * Tipo de reporte a ejecutar.
+     */
+    @NotNull(message = "El tipo de reporte es obligatorio.")
+    private ReportJobType type;
+
+    /*
+     * Fecha de inicio del rango del reporte.
+     */
+    @NotNull(message = "La fecha de inicio es obligatoria.")
+    private LocalDate startDate;
+
+    /*
+     * Fecha de fin del rango del reporte.
+     */
+    @NotNull(message = "La fecha de fin es obligatoria.")
+    private LocalDate endDate;
+
+    /*
+     * Estatus opcional para filtrar las reservas; si no se indica se usa CONFIRMED.
+     */
+    private String status;
+}
@@ -0,0 +1,73 @@
+package com.segurosargos.hotelbook.dto;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/*
+ * DTO de respuesta con el estado de un job de reporte.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReportJobResponseDto {
+
+    /*
+     * Identificador del job; se usa para consultar su estado y descargar el resultado.
+     */
+    private String jobId;
+
+    /*
+     * Tipo de reporte.
+     */
+    private ReportJobType type;
+
+    /*
+     * Fecha de inicio del rango del reporte.
+     */
+    private LocalDate startDate;
+
+    /*
+     * Fecha de fin del rango del reporte.
+     */
+    private LocalDate endDate;
+
+    /*
+     * Estatus de reservas que se reporta.
+     */
+    private String status;
+
+    /*
+     * Estado del job: QUEUED, RUNNING, COMPLETED o FAILED.
+     */
+    private String state;
+
+    /*
+     * Momento en que se solicitó el job.
+     */
+    private Instant submittedAt;
+
+    /*
+     * Momento en que terminó el job, con o sin error.
+     */
+    private Instant completedAt;
+
+    /*
+     * Momento a partir del cual el resultado deja de estar disponible.
+     */
+    private Instant expiresAt;
+
+    /*
+     * Número de filas del resultado cuando el job terminó correctamente.
+     */
+    private Integer rowCount;
+
+    /*
+     * Descripción del error cuando el job falló.
+     */
+    private String errorMessage;
+}
@@ -0,0 +1,17 @@
+package com.segurosargos.hotelbook.dto;
+
+/*
+ * Tipos de reporte que se pueden ejecutar como job asíncrono.
+ */
+public enum ReportJobType {
+
+    /*
+     * Reporte detallado de reservas (equivalente a GET /api/bookings/report).
+     */
+    BOOKING_DETAILS,
+
+    /*
+     * Estadísticas mensuales de reservas (equivalente a GET /api/bookings/monthly-stats).
+     */
+    MONTHLY_STATS
+}
@@ -0,0 +1,36 @@
+package com.segurosargos.hotelbook.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+import lombok.Builder;
+import lombok.Data;
+
+/*
+ * Calendario de ocupación de todas las habitaciones para el rango [from, to).
+ * Cada habitación trae su ocupación codificada como una cadena con un carácter por
+ * noche, en lugar de un objeto por habitación y día.
+ */
+@Data
+@Builder
+public class RoomAvailabilityCalendarDto {
+
+    /*
+     * Primera noche del calendario (inclusiva).
+     */
+    private LocalDate from;
+
+    /*
+     * Fecha de fin del calendario (exclusiva).
+     */
+    private LocalDate to;
+
+    /*
+     * Número de noches del calendario; es la longitud de cada cadena de ocupación.
+     */
+    private int days;
+
+    /*
+     * Ocupación por habitación, ordenada por código.
+     */
+    private List<RoomAvailabilityCalendarRowDto> rooms;
+}
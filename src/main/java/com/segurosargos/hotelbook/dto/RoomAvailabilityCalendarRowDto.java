@@ -0,0 +1,39 @@
+package com.segurosargos.hotelbook.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+/*
+ * Fila del calendario de ocupación para una habitación.
+ */
+@Data
+@Builder
+public class RoomAvailabilityCalendarRowDto {
+
+    /*
+     * Identificador interno de la habitación.
+     */
+    private Long roomId;
+
+    /*
+     * Código único de la habitación, por ejemplo "STD-101".
+     */
+    private String roomCode;
+
+    /*
+     * Nombre descriptivo de la habitación.
+     */
+    private String roomName;
+
+    /*
+     * Ocupación noche a noche desde la fecha inicial del calendario: '1' si la habitación
+     * tiene una reserva confirmada esa noche y '0' si está libre.
+     * Por ejemplo "0011100" para una estancia de tres noches a partir del tercer día.
+     */
+    private String occupancy;
+
+    /*
+     * Número de noches ocupadas dentro del rango.
+     */
+    private int occupiedDays;
+}
@@ -1,6 +1,7 @@
 package com.segurosargos.hotelbook.dto;
 
 import java.math.BigDecimal;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Builder;
 import lombok.Data;
 
@@ -41,4 +42,11 @@ public class RoomDetailResponseDto {
      * Indicador de si la habitación está activa en el catálogo.
      */
     private boolean active;
+
+    /*
+     * Versión de la habitación con la que se construyó el detalle.
+     * No se expone en el JSON; se utiliza para generar el ETag de la respuesta.
+     */
+    @JsonIgnore
+    private Integer version;
 }
@@ -0,0 +1,34 @@
+package com.segurosargos.hotelbook.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+/*
+ * Sugerencia de habitación para el autocompletado (typeahead) por nombre.
+ * Las sugerencias se devuelven ordenadas por similitud descendente.
+ */
+@Data
+@Builder
+public class RoomNameSuggestionDto {
+
+    /*
+     * Identificador interno de la habitación.
+     */
+    private Long id;
+
+    /*
+     * Código de la habitación.
+     */
+    private String code;
+
+    /*
+     * Nombre descriptivo de la habitación.
+     */
+    private String name;
+
+    /*
+     * Similitud entre el nombre y el texto buscado, entre 0 y 1.
+     * Es nula cuando el texto es demasiado corto y se usa búsqueda por prefijo.
+     */
+    private Double score;
+}
@@ -1,9 +1,12 @@
 package com.segurosargos.hotelbook.dto;
 
 import java.util.List;
+import com.fasterxml.jackson.annotation.JsonInclude;
 
 /**
  * Representa una página de habitaciones para ser utilizada en las vistas MVC.
+ * En la paginación por keyset, totalElements y totalPages pueden ser nulos si el
+ * cliente no solicitó el conteo, y nextCursor contiene el token de la página siguiente.
  */
 public class RoomPageResultDto {
 
@@ -13,9 +16,9 @@ public class RoomPageResultDto {
 
     private final int pageSize;
 
-    private final long totalElements;
+    private final Long totalElements;
 
-    private final int totalPages;
+    private final Integer totalPages;
 
     private final boolean first;
 
@@ -25,15 +28,30 @@ public class RoomPageResultDto {
 
     private final String direction;
 
+    private final String nextCursor;
+
     public RoomPageResultDto(List<RoomSummaryResponseDto> rooms,
                              int pageNumber,
                              int pageSize,
-                             long totalElements,
-                             int totalPages,
+                             Long totalElements,
+                             Integer totalPages,
                              boolean first,
                              boolean last,
                              String sort,
                              String direction) {
+        this(rooms, pageNumber, pageSize, totalElements, totalPages, first, last, sort, direction, null);
+    }
+
+    public RoomPageResultDto(List<RoomSummaryResponseDto> rooms,
+                             int pageNumber,
+                             int pageSize,
+                             Long totalElements,
+                             Integer totalPages,
+                             boolean first,
+                             boolean last,
+                             String sort,
+                             String direction,
+                             String nextCursor) {
         this.rooms = rooms;
         this.pageNumber = pageNumber;
         this.pageSize = pageSize;
@@ -43,6 +61,7 @@ public class RoomPageResultDto {
         this.last = last;
         this.sort = sort;
         this.direction = direction;
+        this.nextCursor = nextCursor;
     }
 
     public List<RoomSummaryResponseDto> getRooms() {
@@ -57,11 +76,13 @@ public class RoomPageResultDto {
         return pageSize;
     }
 
-    public long getTotalElements() {
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public Long getTotalElements() {
         return totalElements;
     }
 
-    public int getTotalPages() {
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public Integer getTotalPages() {
         return totalPages;
     }
 
@@ -80,4 +101,9 @@ public class RoomPageResultDto {
     public String getDirection() {
         return direction;
     }
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public String getNextCursor() {
+        return nextCursor;
+    }
 }
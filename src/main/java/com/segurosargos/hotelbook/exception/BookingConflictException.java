@@ -0,0 +1,15 @@
+package com.segurosargos.hotelbook.exception;
+
+/*
+ * Excepción de dominio para indicar que una reserva entra en conflicto con otra,
+ * por ejemplo al confirmar una estancia que se solapa con una reserva ya confirmada
+ * en la misma habitación.
+ */
+public class BookingConflictException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public BookingConflictException(String message) {
+        super(message);
+    }
+}
@@ -6,6 +6,7 @@ import jakarta.persistence.OptimisticLockException;
 import jakarta.servlet.http.HttpServletRequest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -105,6 +106,98 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(status).body(body);
     }
 
+    /*
+     * Manejo de conflictos entre reservas, por ejemplo una confirmación que se solapa
+     * con otra reserva confirmada de la misma habitación.
+     * Se traduce a un estado HTTP 409 Conflict.
+     */
+    @ExceptionHandler(BookingConflictException.class)
+    public ResponseEntity<ErrorResponseDto> handleBookingConflict(
+            BookingConflictException ex,
+            HttpServletRequest request) {
+
+        HttpStatus status = HttpStatus.CONFLICT;
+
+        ErrorResponseDto body = ErrorResponseDto.builder()
+                .status(status.value())
+                .error(status.getReasonPhrase())
+                .message(ex.getMessage())
+                .path(request.getRequestURI())
+                .build();
+
+        LOGGER.warn("Conflicto de reserva en {}: {}", request.getRequestURI(), ex.getMessage());
+
+        return ResponseEntity.status(status).body(body);
+    }
+
+    /*
+     * Manejo de llaves Idempotency-Key reutilizadas con una solicitud distinta.
+     * Se traduce a un estado HTTP 422 Unprocessable Entity.
+     */
+    @ExceptionHandler(IdempotencyKeyReuseException.class)
+    public ResponseEntity<ErrorResponseDto> handleIdempotencyKeyReuse(
+            IdempotencyKeyReuseException ex,
+            HttpServletRequest request) {
+
+        HttpStatus status = HttpStatus.UNPROCESSABLE_ENTITY;
+
+        ErrorResponseDto body = ErrorResponseDto.builder()
+                .status(status.value())
+                .error(status.getReasonPhrase())
+                .message(ex.getMessage())
+                .path(request.getRequestURI())
+                .build();
+
+        LOGGER.warn("Llave de idempotencia reutilizada en {}: {}", request.getRequestURI(), ex.getMessage());
+
+        return ResponseEntity.status(status).body(body);
+    }
+
+    /*
+     * Manejo de jobs de reporte inexistentes o cuyo resultado ya expiró.
+     */
+    @ExceptionHandler(ReportJobNotFoundException.class)
+    public ResponseEntity<ErrorResponseDto> handleReportJobNotFound(
+            ReportJobNotFoundException ex,
+            HttpServletRequest request) {
+
+        HttpStatus status = HttpStatus.NOT_FOUND;
+
+        ErrorResponseDto body = ErrorResponseDto.builder()
+                .status(status.value())
+                .error(status.getReasonPhrase())
+                .message(ex.getMessage())
+                .path(request.getRequestURI())
+                .build();
+
+        LOGGER.warn("Job de reporte no encontrado en {}: {}", request.getRequestURI(), ex.getMessage());
+
+        return ResponseEntity.status(status).body(body);
+    }
+
+    /*
+     * Manejo de solicitudes de reporte rechazadas porque la cola de jobs está llena.
+     * Se traduce a un estado HTTP 503 Service Unavailable para que el cliente reintente.
+     */
+    @ExceptionHandler(ReportJobRejectedException.class)
+    public ResponseEntity<ErrorResponseDto> handleReportJobRejected(
+            ReportJobRejectedException ex,
+            HttpServletRequest request) {
+
+        HttpStatus status = HttpStatus.SERVICE_UNAVAILABLE;
+
+        ErrorResponseDto body = ErrorResponseDto.builder()
+                .status(status.value())
+                .error(status.getReasonPhrase())
+                .message(ex.getMessage())
+                .path(request.getRequestURI())
+                .build();
+
+        LOGGER.warn("Job de reporte rechazado en {}: {}", request.getRequestURI(), ex.getMessage());
+
+        return ResponseEntity.status(status).body(body);
+    }
+
     /*
      * Manejo de conflictos de concurrencia optimista sobre entidades de JPA.
      * Se traduce a un estado HTTP 409 Conflict con un mensaje claro.
@@ -131,6 +224,30 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(status).body(body);
     }
 
+    /*
+     * Manejo de violaciones de restricciones de integridad, por ejemplo un código de
+     * habitación duplicado que llega a la base de datos por una alta concurrente.
+     * Se traduce a un estado HTTP 409 Conflict.
+     */
+    @ExceptionHandler(DataIntegrityViolationException.class)
+    public ResponseEntity<ErrorResponseDto> handleDataIntegrityViolation(
+            DataIntegrityViolationException ex,
+            HttpServletRequest request) {
+
+        HttpStatus status = HttpStatus.CONFLICT;
+
+        ErrorResponseDto body = ErrorResponseDto.builder()
+                .status(status.value())
+                .error(status.getReasonPhrase())
+                .message("La operación entra en conflicto con datos existentes, por ejemplo un código de habitación duplicado.")
+                .path(request.getRequestURI())
+                .build();
+
+        LOGGER.warn("Violación de integridad de datos en {}: {}", request.getRequestURI(), ex.getMessage());
+
+        return ResponseEntity.status(status).body(body);
+    }
+
     /*
      * Manejo de errores de autorización de Spring Security.
      * Mapea AccessDenied/AuthorizationDenied a 403 Forbidden.
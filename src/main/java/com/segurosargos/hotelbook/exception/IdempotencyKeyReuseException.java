@@ -0,0 +1,14 @@
+package com.segurosargos.hotelbook.exception;
+
+/*
+ * Excepción para indicar que una llave Idempotency-Key ya se usó con una solicitud
+ * distinta (otra operación sobre otras reservas).
+ */
+public class IdempotencyKeyReuseException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public IdempotencyKeyReuseException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,14 @@
+package com.segurosargos.hotelbook.exception;
+
+/*
+ * Excepción de dominio para indicar que un job de reporte no existe o su resultado
+ * ya expiró.
+ */
+public class ReportJobNotFoundException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public ReportJobNotFoundException(String message) {
+        super(message);
+    }
+}
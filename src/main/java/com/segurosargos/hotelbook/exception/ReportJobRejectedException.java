@@ -0,0 +1,14 @@
+package com.segurosargos.hotelbook.exception;
+
+/*
+ * Excepción para indicar que un job de reporte no se pudo encolar porque la cola de
+ * ejecución está llena. El cliente puede reintentar más tarde.
+ */
+public class ReportJobRejectedException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public ReportJobRejectedException(String message) {
+        super(message);
+    }
+}
@@ -24,7 +24,8 @@ public class BookingEntity {
      * Identificador único de la reserva.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "bookings_id_seq")
+    @SequenceGenerator(name = "bookings_id_seq", sequenceName = "bookings_id_seq", allocationSize = 50)
     @Column(name = "id")
     private Long id;
 
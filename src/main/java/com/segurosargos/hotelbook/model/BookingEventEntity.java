@@ -0,0 +1,75 @@
+package com.segurosargos.hotelbook.model;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/*
+ * Entidad JPA de la tabla booking_events: un cambio de estatus de una reserva escrito
+ * en la misma transacción que el cambio (outbox). Las filas no se modifican después
+ * de insertarse.
+ */
+@Entity
+@Table(name = "booking_events")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookingEventEntity {
+
+    /*
+     * Identificador del evento. Se toma de la secuencia uno a uno y antes del commit, por lo que
+     * no refleja el orden de confirmación.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "booking_events_id_seq")
+    @SequenceGenerator(name = "booking_events_id_seq", sequenceName = "booking_events_id_seq", allocationSize = 1)
+    @Column(name = "id")
+    private Long id;
+
+    /*
+     * Reserva que cambió de estatus.
+     */
+    @Column(name = "booking_id", nullable = false, updatable = false)
+    private Long bookingId;
+
+    /*
+     * Habitación de la reserva.
+     */
+    @Column(name = "room_id", updatable = false)
+    private Long roomId;
+
+    /*
+     * Fecha de check-in de la reserva.
+     */
+    @Column(name = "check_in_date", nullable = false, updatable = false)
+    private LocalDate checkInDate;
+
+    /*
+     * Fecha de check-out de la reserva.
+     */
+    @Column(name = "check_out_date", nullable = false, updatable = false)
+    private LocalDate checkOutDate;
+
+    /*
+     * Estatus anterior de la reserva.
+     */
+    @Column(name = "previous_status", length = 50, updatable = false)
+    private String previousStatus;
+
+    /*
+     * Estatus nuevo de la reserva.
+     */
+    @Column(name = "new_status", nullable = false, length = 50, updatable = false)
+    private String newStatus;
+
+    /*
+     * Momento en que se registró el evento.
+     */
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private Instant createdAt;
+}
@@ -0,0 +1,41 @@
+package com.segurosargos.hotelbook.model;
+
+import java.time.Instant;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/*
+ * Entidad JPA de la tabla booking_event_offsets: id hasta el que se entregaron todos los
+ * eventos de booking_events a un consumidor de una instancia.
+ */
+@Entity
+@Table(name = "booking_event_offsets")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookingEventOffsetEntity {
+
+    /*
+     * Llave del consumidor: BookingEventListener.consumerName, "@" y el id de la instancia.
+     */
+    @Id
+    @Column(name = "consumer", length = 100)
+    private String consumer;
+
+    /*
+     * Id del último evento entregado al consumidor.
+     */
+    @Column(name = "last_event_id", nullable = false)
+    private long lastEventId;
+
+    /*
+     * Momento de la última actualización del offset; se renueva aunque el offset no
+     * cambie mientras la instancia siga activa.
+     */
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+}
@@ -0,0 +1,55 @@
+package com.segurosargos.hotelbook.model;
+
+import java.math.BigDecimal;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/*
+ * Entidad JPA con las estadísticas agregadas de reservas de un mes para un estatus.
+ * El mes corresponde a la fecha de check-in de las reservas.
+ */
+@Entity
+@Table(name = "booking_monthly_stats")
+@IdClass(BookingMonthlyStatsId.class)
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookingMonthlyStatsEntity {
+
+    /*
+     * Estatus de las reservas agregadas, por ejemplo CONFIRMED.
+     */
+    @Id
+    @Column(name = "status", nullable = false, length = 50)
+    private String status;
+
+    /*
+     * Año de check-in.
+     */
+    @Id
+    @Column(name = "stats_year", nullable = false)
+    private Integer statsYear;
+
+    /*
+     * Mes de check-in (1-12).
+     */
+    @Id
+    @Column(name = "stats_month", nullable = false)
+    private Integer statsMonth;
+
+    /*
+     * Número de reservas del mes con el estatus indicado.
+     */
+    @Column(name = "booking_count", nullable = false)
+    private long bookingCount;
+
+    /*
+     * Suma de total_price de esas reservas.
+     */
+    @Column(name = "total_revenue", nullable = false, precision = 14, scale = 2)
+    private BigDecimal totalRevenue;
+}
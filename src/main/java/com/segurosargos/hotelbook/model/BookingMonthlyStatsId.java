@@ -0,0 +1,23 @@
+package com.segurosargos.hotelbook.model;
+
+import java.io.Serializable;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/*
+ * Llave compuesta de BookingMonthlyStatsEntity: estatus, año y mes de check-in.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookingMonthlyStatsId implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private String status;
+
+    private Integer statsYear;
+
+    private Integer statsMonth;
+}
@@ -24,7 +24,8 @@ public class GuestEntity {
      * Identificador único del huésped.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "guests_id_seq")
+    @SequenceGenerator(name = "guests_id_seq", sequenceName = "guests_id_seq", allocationSize = 50)
     @Column(name = "id")
     private Long id;
 
@@ -60,8 +61,11 @@ public class GuestEntity {
 
     /*
      * Número de reservas confirmadas asociadas a este huésped.
+     *
+     * No se escribe al guardar la entidad: se mantiene con UPDATE atómicos de
+     * GuestRepository.addToConfirmedBookingsCount para no perder incrementos concurrentes.
      */
-    @Column(name = "confirmed_bookings_count", nullable = false)
+    @Column(name = "confirmed_bookings_count", nullable = false, updatable = false)
     @Default
     private Integer confirmedBookingsCount = 0;
 
@@ -13,7 +13,7 @@ import lombok.NoArgsConstructor;
  * Más adelante se podrá persistir en una base de datos relacional.
  */
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 public class Room {
@@ -53,4 +53,11 @@ public class Room {
      */
     @JsonIgnore
     private String internalNotes;
+
+    /*
+     * Versión de la habitación para concurrencia optimista y generación de ETags.
+     * Es nula en habitaciones que aún no se han persistido.
+     */
+    @JsonIgnore
+    private Integer version;
 }
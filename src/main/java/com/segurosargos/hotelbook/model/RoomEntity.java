@@ -26,7 +26,8 @@ public class RoomEntity {
      * Identificador único de la habitación.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "rooms_id_seq")
+    @SequenceGenerator(name = "rooms_id_seq", sequenceName = "rooms_id_seq", allocationSize = 50)
     @Column(name = "id")
     private Long id;
 
@@ -0,0 +1,55 @@
+package com.segurosargos.hotelbook.repository;
+
+import java.time.Instant;
+import java.util.List;
+import com.segurosargos.hotelbook.model.BookingEventEntity;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+/*
+ * Repositorio Spring Data JPA para el outbox booking_events.
+ */
+public interface BookingEventJpaRepository extends JpaRepository<BookingEventEntity, Long> {
+
+    /*
+     * Recupera, en orden de id, los eventos posteriores a afterId. El tamaño del lote lo
+     * fija el Pageable. Un id menor que afterId puede volverse visible después; el
+     * dispatcher lo busca aparte como hueco.
+     */
+    @Query(
+            "select e from BookingEventEntity e " +
+                    "where e.id > :afterId " +
+                    "order by e.id"
+    )
+    List<BookingEventEntity> findBatchAfter(
+            @Param("afterId") long afterId,
+            Pageable pageable);
+
+    /*
+     * Id del primer evento registrado a partir de createdSince, o null si no hay ninguno.
+     */
+    @Query("select min(e.id) from BookingEventEntity e where e.createdAt >= :createdSince")
+    Long findMinIdCreatedSince(@Param("createdSince") Instant createdSince);
+
+    /*
+     * Id del último evento registrado, o null si la tabla está vacía.
+     */
+    @Query("select max(e.id) from BookingEventEntity e")
+    Long findMaxId();
+
+    /*
+     * Elimina los eventos con id menor o igual a maxId registrados antes de createdBefore.
+     */
+    @Modifying
+    @Query(
+            "delete from BookingEventEntity e " +
+                    "where e.id <= :maxId " +
+                    "and e.createdAt < :createdBefore"
+    )
+    int deleteDeliveredBefore(
+            @Param("maxId") long maxId,
+            @Param("createdBefore") Instant createdBefore);
+}
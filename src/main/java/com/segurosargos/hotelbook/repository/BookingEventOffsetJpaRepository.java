@@ -0,0 +1,28 @@
+package com.segurosargos.hotelbook.repository;
+
+import java.time.Instant;
+import com.segurosargos.hotelbook.model.BookingEventOffsetEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+/*
+ * Repositorio Spring Data JPA para los offsets de los consumidores de booking_events.
+ */
+public interface BookingEventOffsetJpaRepository extends JpaRepository<BookingEventOffsetEntity, String> {
+
+    /*
+     * Menor offset entre todos los consumidores registrados, o null si no hay ninguno.
+     */
+    @Query("select min(o.lastEventId) from BookingEventOffsetEntity o")
+    Long findMinLastEventId();
+
+    /*
+     * Elimina los offsets que no se actualizan desde updatedBefore, es decir, los de
+     * instancias que ya no están activas.
+     */
+    @Modifying
+    @Query("delete from BookingEventOffsetEntity o where o.updatedAt < :updatedBefore")
+    int deleteUpdatedBefore(@Param("updatedBefore") Instant updatedBefore);
+}
@@ -1,11 +1,16 @@
 package com.segurosargos.hotelbook.repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 import com.segurosargos.hotelbook.model.BookingEntity;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 /*
@@ -21,6 +26,10 @@ public interface BookingJpaRepository extends JpaRepository<BookingEntity, Long>
      * Si el parámetro status es nulo, se devuelven reservas con cualquier estatus.
      * Si se indica un valor, por ejemplo "CONFIRMED", solo se devuelven las reservas
      * cuyo estatus coincide exactamente.
+     *
+     * La condición checkInDate <= endDate se deduce de checkOutDate <= endDate, pero se
+     * escribe explícita para que PostgreSQL descarte las particiones mensuales de
+     * bookings fuera del rango.
      */
     @Query(
             "select " +
@@ -38,6 +47,7 @@ public interface BookingJpaRepository extends JpaRepository<BookingEntity, Long>
                     "join b.room r " +
                     "join b.guest g " +
                     "where b.checkInDate >= :startDate " +
+                    "and b.checkInDate <= :endDate " +
                     "and b.checkOutDate <= :endDate " +
                     "and (:status is null or b.status = :status) " +
                     "order by b.checkInDate, r.code"
@@ -47,6 +57,44 @@ public interface BookingJpaRepository extends JpaRepository<BookingEntity, Long>
             @Param("endDate") LocalDate endDate,
             @Param("status") String status);
 
+    /*
+     * Variante de findBookingDetailsBetweenDatesAndStatus que devuelve las filas como un
+     * Stream a medida que llegan de la base de datos, en lugar de cargarlas todas en una
+     * lista. El fetch size hace que el driver lea por bloques con un cursor (en PostgreSQL
+     * solo dentro de una transacción) y las filas se marcan de solo lectura.
+     *
+     * El Stream debe consumirse y cerrarse dentro de una transacción de solo lectura.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query(
+            "select " +
+                    "b.id as bookingId, " +
+                    "r.code as roomCode, " +
+                    "r.name as roomName, " +
+                    "g.firstName as guestFirstName, " +
+                    "g.lastName as guestLastName, " +
+                    "g.email as guestEmail, " +
+                    "b.checkInDate as checkInDate, " +
+                    "b.checkOutDate as checkOutDate, " +
+                    "b.totalPrice as totalPrice, " +
+                    "b.status as status " +
+                    "from BookingEntity b " +
+                    "join b.room r " +
+                    "join b.guest g " +
+                    "where b.checkInDate >= :startDate " +
+                    "and b.checkInDate <= :endDate " +
+                    "and b.checkOutDate <= :endDate " +
+                    "and (:status is null or b.status = :status) " +
+                    "order by b.checkInDate, r.code"
+    )
+    Stream<BookingDetailView> streamBookingDetailsBetweenDatesAndStatus(
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate,
+            @Param("status") String status);
+
     /*
      * Recupera estadísticas mensuales de reservas en el rango de fechas indicado.
      * Agrupa por año y mes de la fecha de check-in.
@@ -102,4 +150,84 @@ public interface BookingJpaRepository extends JpaRepository<BookingEntity, Long>
                     "join fetch b.guest g"
     )
     List<BookingEntity> findAllWithRoomAndGuestFetchJoin();
+
+    /*
+     * Recupera las reservas con los ids indicados junto con su habitación y su huésped
+     * en una sola consulta. Se usa en los cambios de estatus masivos.
+     */
+    @Query(
+            "select b " +
+                    "from BookingEntity b " +
+                    "join fetch b.room r " +
+                    "join fetch b.guest g " +
+                    "where b.id in :ids"
+    )
+    List<BookingEntity> findAllWithRoomAndGuestByIdIn(@Param("ids") Collection<Long> ids);
+
+    /*
+     * Recupera la habitación y las fechas de las reservas con el estatus indicado que se
+     * solapan con el rango [startDate, endDate). Solo se leen las columnas necesarias.
+     */
+    @Query(
+            "select " +
+                    "b.id as bookingId, " +
+                    "b.room.id as roomId, " +
+                    "b.checkInDate as checkInDate, " +
+                    "b.checkOutDate as checkOutDate " +
+                    "from BookingEntity b " +
+                    "where b.status = :status " +
+                    "and b.checkInDate < :endDate " +
+                    "and b.checkOutDate > :startDate"
+    )
+    List<BookingStayView> findStaysOverlapping(
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate,
+            @Param("status") String status);
+
+    /*
+     * Variante de findStaysOverlapping restringida a una sola habitación.
+     */
+    @Query(
+            "select " +
+                    "b.id as bookingId, " +
+                    "b.room.id as roomId, " +
+                    "b.checkInDate as checkInDate, " +
+                    "b.checkOutDate as checkOutDate " +
+                    "from BookingEntity b " +
+                    "where b.room.id = :roomId " +
+                    "and b.status = :status " +
+                    "and b.checkInDate < :endDate " +
+                    "and b.checkOutDate > :startDate"
+    )
+    List<BookingStayView> findStaysOverlappingForRoom(
+            @Param("roomId") Long roomId,
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate,
+            @Param("status") String status);
+
+    /*
+     * Indica si la habitación tiene otra reserva con el estatus indicado que se solape
+     * con [checkInDate, checkOutDate). Se excluye la propia reserva.
+     */
+    @Query(
+            "select count(b) > 0 " +
+                    "from BookingEntity b " +
+                    "where b.room.id = :roomId " +
+                    "and b.id <> :bookingId " +
+                    "and b.status = :status " +
+                    "and b.checkInDate < :checkOutDate " +
+                    "and b.checkOutDate > :checkInDate"
+    )
+    boolean existsOverlappingStay(
+            @Param("roomId") Long roomId,
+            @Param("bookingId") Long bookingId,
+            @Param("checkInDate") LocalDate checkInDate,
+            @Param("checkOutDate") LocalDate checkOutDate,
+            @Param("status") String status);
+
+    /*
+     * Devuelve la fecha de check-in más antigua registrada, o null si no hay reservas.
+     */
+    @Query("select min(b.checkInDate) from BookingEntity b")
+    LocalDate findEarliestCheckInDate();
 }
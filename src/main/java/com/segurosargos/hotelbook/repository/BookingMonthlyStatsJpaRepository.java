@@ -0,0 +1,127 @@
+package com.segurosargos.hotelbook.repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import com.segurosargos.hotelbook.model.BookingMonthlyStatsEntity;
+import com.segurosargos.hotelbook.model.BookingMonthlyStatsId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+/*
+ * Repositorio Spring Data JPA para la tabla de agregados booking_monthly_stats.
+ *
+ * Los meses se expresan como una llave year * 12 + (month - 1) para poder filtrar
+ * rangos de meses con una sola comparación.
+ */
+public interface BookingMonthlyStatsJpaRepository
+        extends JpaRepository<BookingMonthlyStatsEntity, BookingMonthlyStatsId> {
+
+    /*
+     * Recupera los agregados del estatus indicado para los meses del rango [fromKey, toKey].
+     * Se omiten los meses sin reservas.
+     */
+    @Query(
+            "select " +
+                    "s.statsYear as year, " +
+                    "s.statsMonth as month, " +
+                    "s.bookingCount as bookingCount, " +
+                    "s.totalRevenue as totalRevenue " +
+                    "from BookingMonthlyStatsEntity s " +
+                    "where s.status = :status " +
+                    "and s.statsYear * 12 + s.statsMonth - 1 between :fromKey and :toKey " +
+                    "and s.bookingCount > 0 " +
+                    "order by s.statsYear, s.statsMonth"
+    )
+    List<MonthlyBookingStatsView> findStatsBetweenMonthKeys(
+            @Param("fromKey") int fromKey,
+            @Param("toKey") int toKey,
+            @Param("status") String status);
+
+    /*
+     * Crea la fila del mes y estatus con contadores en cero si todavía no existe. Se usa
+     * cuando addToStats no encontró la fila que debía actualizar.
+     *
+     * Dos transacciones que crean a la vez la misma fila pueden chocar con la llave
+     * primaria; por eso BookingMonthlyStatsJob crea de antemano las filas de los meses
+     * próximos y este insert solo actúa en meses lejanos o estatus nuevos.
+     */
+    @Modifying
+    @Query(
+            value = "insert into booking_monthly_stats "
+                    + "    (status, stats_year, stats_month, booking_count, total_revenue) "
+                    + "select :status, :year, :month, 0, 0 "
+                    + "where not exists ("
+                    + "    select 1 from booking_monthly_stats s "
+                    + "    where s.status = :status "
+                    + "      and s.stats_year = :year "
+                    + "      and s.stats_month = :month)",
+            nativeQuery = true
+    )
+    int insertEmptyStatsIfMissing(
+            @Param("status") String status,
+            @Param("year") int year,
+            @Param("month") int month);
+
+    /*
+     * Suma los deltas indicados al agregado del mes y estatus. Devuelve 0 si la fila no
+     * existe, también cuando refreshMonths la eliminó mientras se esperaba su bloqueo.
+     */
+    @Modifying
+    @Query(
+            "update BookingMonthlyStatsEntity s " +
+                    "set s.bookingCount = s.bookingCount + :countDelta, " +
+                    "s.totalRevenue = s.totalRevenue + :revenueDelta " +
+                    "where s.status = :status " +
+                    "and s.statsYear = :year " +
+                    "and s.statsMonth = :month"
+    )
+    int addToStats(
+            @Param("status") String status,
+            @Param("year") int year,
+            @Param("month") int month,
+            @Param("countDelta") long countDelta,
+            @Param("revenueDelta") BigDecimal revenueDelta);
+
+    /*
+     * Elimina los agregados de los meses del rango [fromKey, toKey] para todos los estatus.
+     */
+    @Modifying
+    @Query(
+            "delete from BookingMonthlyStatsEntity s " +
+                    "where s.statsYear * 12 + s.statsMonth - 1 between :fromKey and :toKey"
+    )
+    int deleteStatsBetweenMonthKeys(
+            @Param("fromKey") int fromKey,
+            @Param("toKey") int toKey);
+
+    /*
+     * Recalcula desde bookings los agregados de las reservas con check-in en
+     * [startDate, endDate) y los inserta. Debe ejecutarse después de
+     * deleteStatsBetweenMonthKeys para el mismo rango.
+     */
+    @Modifying
+    @Query(
+            value = "insert into booking_monthly_stats "
+                    + "    (status, stats_year, stats_month, booking_count, total_revenue) "
+                    + "select "
+                    + "    b.status, "
+                    + "    cast(extract(year from b.check_in_date) as int), "
+                    + "    cast(extract(month from b.check_in_date) as int), "
+                    + "    count(b.id), "
+                    + "    coalesce(sum(b.total_price), 0) "
+                    + "from bookings b "
+                    + "where b.check_in_date >= :startDate "
+                    + "  and b.check_in_date < :endDate "
+                    + "group by "
+                    + "    b.status, "
+                    + "    cast(extract(year from b.check_in_date) as int), "
+                    + "    cast(extract(month from b.check_in_date) as int)",
+            nativeQuery = true
+    )
+    int insertStatsAggregatedFromBookings(
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate);
+}
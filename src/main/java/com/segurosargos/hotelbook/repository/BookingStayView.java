@@ -0,0 +1,30 @@
+package com.segurosargos.hotelbook.repository;
+
+import java.time.LocalDate;
+
+/*
+ * Proyección de solo lectura con la habitación y el rango de fechas de una reserva.
+ * Se utiliza para construir estructuras de disponibilidad sin cargar entidades completas.
+ */
+public interface BookingStayView {
+
+    /*
+     * Identificador de la reserva.
+     */
+    Long getBookingId();
+
+    /*
+     * Identificador de la habitación reservada.
+     */
+    Long getRoomId();
+
+    /*
+     * Fecha de entrada (inclusiva).
+     */
+    LocalDate getCheckInDate();
+
+    /*
+     * Fecha de salida (exclusiva).
+     */
+    LocalDate getCheckOutDate();
+}
@@ -0,0 +1,315 @@
+package com.segurosargos.hotelbook.repository;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import com.segurosargos.hotelbook.model.Room;
+
+/*
+ * Decorador de RoomRepository que agrega una caché local de lectura (read-through)
+ * para findById y findAll sobre cualquier implementación: JPA o en memoria. Las
+ * búsquedas filtradas se delegan sin caché.
+ *
+ * - Las entradas se indexan por id y guardan la versión de la habitación; una lectura
+ *   con una versión más vieja nunca reemplaza a una más nueva.
+ * - El tamaño es acotado (LRU) y cada entrada expira después del TTL configurado.
+ * - save y deleteById invalidan la habitación y el listado completo, y vuelven a
+ *   invalidar al terminar la transacción en curso para no conservar lecturas hechas
+ *   antes del commit. Un conflicto de versión también invalida la entrada.
+ * - Dentro de una transacción de escritura las lecturas van directo al repositorio,
+ *   para que las actualizaciones partan siempre de la versión vigente.
+ *
+ * Los aciertos, fallos y expulsiones se publican como métricas cache.gets y
+ * cache.evictions con la etiqueta cache=rooms.
+ */
+public class CachingRoomRepository implements RoomRepository {
+
+    /*
+     * Calificador de la implementación de almacenamiento que envuelve este decorador.
+     */
+    public static final String STORAGE_QUALIFIER = "roomStorage";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CachingRoomRepository.class);
+
+    private static final String CACHE_NAME = "rooms";
+
+    private final RoomRepository delegate;
+
+    private final int maxSize;
+
+    private final long ttlNanos;
+
+    private final LongSupplier nanoClock;
+
+    private final Counter hits;
+
+    private final Counter misses;
+
+    private final Counter evictions;
+
+    /*
+     * Entradas por id en orden de acceso. Se protege con el monitor de esta instancia.
+     */
+    private final LinkedHashMap<Long, CachedRoom> entries;
+
+    /*
+     * Listado completo en caché; nulo si no está cargado o fue invalidado.
+     */
+    private CachedRoomList allRooms;
+
+    /*
+     * Se incrementa en cada escritura. Una lectura del repositorio solo se guarda en
+     * caché si no hubo escrituras mientras se ejecutaba.
+     */
+    private long generation;
+
+    public CachingRoomRepository(RoomRepository delegate,
+                                 int maxSize,
+                                 Duration ttl,
+                                 MeterRegistry meterRegistry) {
+        this(delegate, maxSize, ttl, meterRegistry, System::nanoTime);
+    }
+
+    CachingRoomRepository(RoomRepository delegate,
+                          int maxSize,
+                          Duration ttl,
+                          MeterRegistry meterRegistry,
+                          LongSupplier nanoClock) {
+        this.delegate = delegate;
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+        this.nanoClock = nanoClock;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, CachedRoom> eldest) {
+                boolean evict = size() > CachingRoomRepository.this.maxSize;
+                if (evict) {
+                    evictions.increment();
+                }
+                return evict;
+            }
+        };
+
+        this.hits = Counter.builder("cache.gets")
+                .tag("cache", CACHE_NAME)
+                .tag("result", "hit")
+                .description("Lecturas de habitaciones resueltas desde la caché")
+                .register(meterRegistry);
+        this.misses = Counter.builder("cache.gets")
+                .tag("cache", CACHE_NAME)
+                .tag("result", "miss")
+                .description("Lecturas de habitaciones que tuvieron que ir al repositorio")
+                .register(meterRegistry);
+        this.evictions = Counter.builder("cache.evictions")
+                .tag("cache", CACHE_NAME)
+                .description("Habitaciones expulsadas de la caché por tamaño o expiración")
+                .register(meterRegistry);
+        Gauge.builder("cache.size", this, CachingRoomRepository::size)
+                .tag("cache", CACHE_NAME)
+                .description("Número de habitaciones en la caché")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Optional<Room> findById(Long id) {
+        if (isWriteTransactionActive()) {
+            return delegate.findById(id);
+        }
+
+        long readGeneration;
+        synchronized (this) {
+            CachedRoom cached = entries.get(id);
+            if (cached != null && !isExpired(cached.loadedAt())) {
+                hits.increment();
+                return Optional.of(copyOf(cached.room()));
+            }
+            if (cached != null) {
+                entries.remove(id);
+                evictions.increment();
+            }
+            readGeneration = generation;
+        }
+
+        misses.increment();
+        Optional<Room> loaded = delegate.findById(id);
+        loaded.ifPresent(room -> putIfCurrent(room, readGeneration));
+        return loaded.map(CachingRoomRepository::copyOf);
+    }
+
+    @Override
+    public List<Room> findAll() {
+        if (isWriteTransactionActive()) {
+            return delegate.findAll();
+        }
+
+        long readGeneration;
+        synchronized (this) {
+            if (allRooms != null && !isExpired(allRooms.loadedAt())) {
+                hits.increment();
+                return copyAll(allRooms.rooms());
+            }
+            readGeneration = generation;
+        }
+
+        misses.increment();
+        List<Room> rooms = delegate.findAll();
+
+        // Si el catálogo supera el tamaño de la caché no se guarda el listado completo.
+        if (rooms.size() <= maxSize) {
+            synchronized (this) {
+                if (readGeneration == generation) {
+                    allRooms = new CachedRoomList(copyAll(rooms), nanoClock.getAsLong());
+                }
+            }
+        }
+        return rooms;
+    }
+
+    @Override
+    public Room save(Room room) {
+        Room saved;
+        try {
+            saved = delegate.save(room);
+        } catch (OptimisticLockingFailureException ex) {
+            LOGGER.debug("Conflicto de versión al guardar la habitación con id {}. Se invalida la caché.",
+                    room.getId());
+            invalidate(room.getId());
+            throw ex;
+        }
+        invalidateNowAndAfterTransaction(saved.getId());
+        return saved;
+    }
+
+    @Override
+    public void deleteById(Long id) {
+        delegate.deleteById(id);
+        invalidateNowAndAfterTransaction(id);
+    }
+
+    @Override
+    public Page<Room> findAll(Pageable pageable) {
+        return delegate.findAll(pageable);
+    }
+
+    @Override
+    public boolean existsByCodeIgnoreCase(String code) {
+        return delegate.existsByCodeIgnoreCase(code);
+    }
+
+    @Override
+    public List<Room> findByNameContainingIgnoreCase(String name) {
+        return delegate.findByNameContainingIgnoreCase(name);
+    }
+
+    @Override
+    public List<Room> findByBasePricePerNightBetween(BigDecimal minPrice, BigDecimal maxPrice) {
+        return delegate.findByBasePricePerNightBetween(minPrice, maxPrice);
+    }
+
+    @Override
+    public Page<Room> search(RoomSearchCriteria criteria, Pageable pageable) {
+        return delegate.search(criteria, pageable);
+    }
+
+    @Override
+    public List<Room> searchAfter(RoomSearchCriteria criteria, RoomKeyset after, Sort sort, int limit) {
+        return delegate.searchAfter(criteria, after, sort, limit);
+    }
+
+    @Override
+    public long count(RoomSearchCriteria criteria) {
+        return delegate.count(criteria);
+    }
+
+    @Override
+    public List<RoomNameMatchView> findByNameSimilarity(String normalizedQuery, int limit) {
+        return delegate.findByNameSimilarity(normalizedQuery, limit);
+    }
+
+    /*
+     * Elimina una habitación de la caché junto con el listado completo.
+     */
+    public synchronized void invalidate(Long id) {
+        generation++;
+        allRooms = null;
+        if (id != null) {
+            entries.remove(id);
+        }
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    /*
+     * Guarda la habitación leída si no hubo escrituras durante la lectura y si no
+     * existe ya en caché una versión más nueva.
+     */
+    private synchronized void putIfCurrent(Room room, long readGeneration) {
+        if (readGeneration != generation) {
+            return;
+        }
+        CachedRoom existing = entries.get(room.getId());
+        if (existing != null && versionOf(existing.room()) > versionOf(room)) {
+            return;
+        }
+        entries.put(room.getId(), new CachedRoom(copyOf(room), nanoClock.getAsLong()));
+    }
+
+    private void invalidateNowAndAfterTransaction(Long id) {
+        invalidate(id);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    invalidate(id);
+                }
+            });
+        }
+    }
+
+    private boolean isWriteTransactionActive() {
+        return TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+
+    private boolean isExpired(long loadedAt) {
+        return nanoClock.getAsLong() - loadedAt >= ttlNanos;
+    }
+
+    private static long versionOf(Room room) {
+        return room.getVersion() == null ? -1L : room.getVersion();
+    }
+
+    private static List<Room> copyAll(List<Room> rooms) {
+        return rooms.stream()
+                .map(CachingRoomRepository::copyOf)
+                .collect(Collectors.toList());
+    }
+
+    private static Room copyOf(Room room) {
+        return room.toBuilder().build();
+    }
+
+    private record CachedRoom(Room room, long loadedAt) {
+    }
+
+    private record CachedRoomList(List<Room> rooms, long loadedAt) {
+    }
+}
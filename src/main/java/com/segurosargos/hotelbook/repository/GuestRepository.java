@@ -3,6 +3,9 @@ package com.segurosargos.hotelbook.repository;
 import com.segurosargos.hotelbook.model.GuestEntity;
 import java.util.Optional;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 /*
  * Repositorio Spring Data JPA para la entidad GuestEntity.
@@ -13,4 +16,22 @@ public interface GuestRepository extends JpaRepository<GuestEntity, Long> {
      * Busca un huésped por su correo electrónico.
      */
     Optional<GuestEntity> findByEmail(String email);
+
+    /*
+     * Suma delta al contador de reservas confirmadas del huésped con un único UPDATE,
+     * sin leer antes la fila. Las transacciones concurrentes sobre el mismo huésped solo
+     * esperan el bloqueo de la fila, sin perder incrementos.
+     *
+     * El contador nunca baja de cero: greatest lo limita en el propio UPDATE, de modo que
+     * el resultado solo es 0 si el huésped no existe.
+     */
+    @Modifying
+    @Query(
+            "update GuestEntity g " +
+                    "set g.confirmedBookingsCount = greatest(g.confirmedBookingsCount + :delta, 0) " +
+                    "where g.id = :guestId"
+    )
+    int addToConfirmedBookingsCount(
+            @Param("guestId") Long guestId,
+            @Param("delta") int delta);
 }
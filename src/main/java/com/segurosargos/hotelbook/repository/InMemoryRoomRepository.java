@@ -2,89 +2,180 @@ package com.segurosargos.hotelbook.repository;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.NavigableMap;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Repository;
 import com.segurosargos.hotelbook.model.Room;
 
 /*
  * Implementación en memoria de RoomRepository.
  * Usa un mapa concurrente y un contador atómico para generar ids.
- * Esta implementación es adecuada para ejercicios y pruebas simples.
  * Se activa solo cuando está presente el perfil "inmemory".
+ *
+ * Además del almacenamiento principal mantiene índices secundarios que se actualizan
+ * en save y deleteById, de modo que las consultas no recorren todas las habitaciones:
+ * - priceIndex: precio base -> ids, ordenado, para búsquedas por rango de precio.
+ * - nameTrigramIndex: trigrama del nombre en minúsculas -> ids, para búsquedas por texto contenido.
+ * - codeIndex: código en minúsculas -> id, que garantiza la unicidad del código.
+ *
+ * Las escrituras se serializan para que los índices queden consistentes entre sí
+ * y para validar la versión de la habitación igual que la implementación JPA;
+ * las lecturas no se bloquean. Se guardan y devuelven copias de Room para que una
+ * modificación fuera del repositorio no desincronice los índices.
  */
 @Repository
+@Qualifier(CachingRoomRepository.STORAGE_QUALIFIER)
 @Profile("inmemory")
 public class InMemoryRoomRepository implements RoomRepository {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(InMemoryRoomRepository.class);
 
-    private final ConcurrentMap<Long, Room> storage = new ConcurrentHashMap<>();
+    private static final int GRAM_SIZE = 3;
+
+    private final ConcurrentMap<Long, IndexedRoom> storage = new ConcurrentHashMap<>();
+
+    private final ConcurrentSkipListMap<BigDecimal, Set<Long>> priceIndex = new ConcurrentSkipListMap<>();
+
+    private final ConcurrentMap<String, Set<Long>> nameTrigramIndex = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, Long> codeIndex = new ConcurrentHashMap<>();
 
     private final AtomicLong sequence = new AtomicLong(0L);
 
     @Override
-    public Room save(Room room) {
+    public synchronized Room save(Room room) {
+        String normalizedCode = normalize(room.getCode());
+        Long codeOwner = normalizedCode == null ? null : codeIndex.get(normalizedCode);
+        if (codeOwner != null && !codeOwner.equals(room.getId())) {
+            throw new DuplicateKeyException(
+                    "Ya existe una habitación en memoria con el código " + room.getCode() + ".");
+        }
+
         if (room.getId() == null) {
             Long newId = sequence.incrementAndGet();
             room.setId(newId);
+            room.setVersion(0);
             LOGGER.debug("Creando nueva habitación en memoria con id {}.", newId);
         } else {
             LOGGER.debug("Actualizando habitación en memoria con id {}.", room.getId());
+            IndexedRoom current = storage.get(room.getId());
+            Integer currentVersion = current == null ? null : current.room().getVersion();
+            if (room.getVersion() != null && currentVersion != null && !room.getVersion().equals(currentVersion)) {
+                throw new ObjectOptimisticLockingFailureException(Room.class, room.getId());
+            }
+            room.setVersion(currentVersion == null ? 0 : currentVersion + 1);
+        }
+
+        IndexedRoom indexed = new IndexedRoom(copyOf(room), normalize(room.getName()), normalizedCode);
+        IndexedRoom previous = storage.put(room.getId(), indexed);
+        if (previous != null) {
+            unindex(room.getId(), previous);
         }
-        storage.put(room.getId(), room);
+        index(room.getId(), indexed);
+
         LOGGER.debug("Habitación guardada en memoria con id {}.", room.getId());
         return room;
     }
 
     @Override
     public Optional<Room> findById(Long id) {
-        Room room = storage.get(id);
-        if (room == null) {
+        IndexedRoom indexed = storage.get(id);
+        if (indexed == null) {
             LOGGER.debug("No se encontró habitación en memoria con id {}.", id);
         } else {
             LOGGER.debug("Se encontró habitación en memoria con id {}.", id);
         }
-        return Optional.ofNullable(room);
+        return Optional.ofNullable(indexed).map(entry -> copyOf(entry.room()));
     }
 
     @Override
     public List<Room> findAll() {
-        List<Room> rooms = new ArrayList<>(storage.values());
+        List<Room> rooms = storage.values().stream()
+                .map(entry -> copyOf(entry.room()))
+                .collect(Collectors.toList());
         LOGGER.debug("Se recuperaron {} habitaciones desde la memoria.", rooms.size());
         return rooms;
     }
 
     @Override
-    public void deleteById(Long id) {
-        Room removed = storage.remove(id);
+    public Page<Room> findAll(Pageable pageable) {
+        List<Room> rooms = storage.values().stream()
+                .map(IndexedRoom::room)
+                .collect(Collectors.toList());
+        Comparator<Room> comparator = buildComparator(pageable.getSort());
+        rooms.sort(comparator);
+
+        if (pageable.isUnpaged()) {
+            return new PageImpl<>(copyAll(rooms), pageable, rooms.size());
+        }
+
+        int fromIndex = (int) Math.min(pageable.getOffset(), rooms.size());
+        int toIndex = Math.min(fromIndex + pageable.getPageSize(), rooms.size());
+        List<Room> content = copyAll(rooms.subList(fromIndex, toIndex));
+
+        LOGGER.debug("Se recuperó la página {} con {} habitaciones desde la memoria. totalElements={}.",
+                pageable.getPageNumber(), content.size(), rooms.size());
+        return new PageImpl<>(content, pageable, rooms.size());
+    }
+
+    @Override
+    public synchronized void deleteById(Long id) {
+        IndexedRoom removed = storage.remove(id);
         if (removed == null) {
             LOGGER.debug("No se encontró habitación para eliminar en memoria con id {}.", id);
         } else {
+            unindex(id, removed);
             LOGGER.debug("Habitación eliminada de memoria con id {}.", id);
         }
     }
 
+    @Override
+    public boolean existsByCodeIgnoreCase(String code) {
+        String normalizedCode = normalize(code);
+        boolean exists = normalizedCode != null && codeIndex.containsKey(normalizedCode);
+        LOGGER.debug("Existe habitación en memoria con el código '{}': {}.", code, exists);
+        return exists;
+    }
+
     @Override
     public List<Room> findByNameContainingIgnoreCase(String name) {
         if (name == null || name.isBlank()) {
             return findAll();
         }
         String normalized = name.toLowerCase(Locale.ROOT).trim();
-        List<Room> result = storage.values().stream()
-                .filter(room -> room.getName() != null)
-                .filter(room -> room.getName().toLowerCase(Locale.ROOT).contains(normalized))
+
+        Collection<Long> candidateIds = findNameCandidates(normalized);
+
+        List<Room> result = candidateIds.stream()
+                .map(storage::get)
+                .filter(Objects::nonNull)
+                .filter(entry -> entry.lowerName() != null && entry.lowerName().contains(normalized))
+                .map(entry -> copyOf(entry.room()))
                 .collect(Collectors.toList());
-        LOGGER.debug("Se encontraron {} habitaciones en memoria que coinciden con el nombre '{}'.",
-                result.size(), name);
+        LOGGER.debug("Se encontraron {} habitaciones en memoria que coinciden con el nombre '{}' ({} candidatas).",
+                result.size(), name, candidateIds.size());
         return result;
     }
 
@@ -93,17 +184,319 @@ public class InMemoryRoomRepository implements RoomRepository {
         if (minPrice == null && maxPrice == null) {
             return findAll();
         }
-        BigDecimal effectiveMin = minPrice == null ? BigDecimal.ZERO : minPrice;
-        BigDecimal effectiveMax = maxPrice == null ? BigDecimal.valueOf(Long.MAX_VALUE) : maxPrice;
 
-        List<Room> result = storage.values().stream()
-                .filter(room -> room.getBasePricePerNight() != null)
-                .filter(room -> room.getBasePricePerNight().compareTo(effectiveMin) >= 0)
-                .filter(room -> room.getBasePricePerNight().compareTo(effectiveMax) <= 0)
+        List<Room> result = findPriceCandidates(minPrice, maxPrice).stream()
+                .map(storage::get)
+                .filter(Objects::nonNull)
+                .map(entry -> copyOf(entry.room()))
                 .collect(Collectors.toList());
         LOGGER.debug(
                 "Se encontraron {} habitaciones en memoria dentro del rango de precio [{}, {}].",
-                result.size(), effectiveMin, effectiveMax);
+                result.size(), minPrice, maxPrice);
+        return result;
+    }
+
+    @Override
+    public Page<Room> search(RoomSearchCriteria criteria, Pageable pageable) {
+        List<Room> rooms = findMatching(criteria);
+        rooms.sort(buildComparator(pageable.getSort()));
+
+        if (pageable.isUnpaged()) {
+            return new PageImpl<>(copyAll(rooms), pageable, rooms.size());
+        }
+
+        int fromIndex = (int) Math.min(pageable.getOffset(), rooms.size());
+        int toIndex = Math.min(fromIndex + pageable.getPageSize(), rooms.size());
+        List<Room> content = copyAll(rooms.subList(fromIndex, toIndex));
+
+        LOGGER.debug("Búsqueda de habitaciones en memoria. criteria={}, page={}, totalElements={}.",
+                criteria, pageable.getPageNumber(), rooms.size());
+        return new PageImpl<>(content, pageable, rooms.size());
+    }
+
+    /*
+     * El keyset se compara con el mismo comparador del orden: se arma una habitación de
+     * referencia con el último valor y el último id, y se conservan las que van después.
+     */
+    @Override
+    public List<Room> searchAfter(RoomSearchCriteria criteria, RoomKeyset after, Sort sort, int limit) {
+        Comparator<Room> comparator = buildComparator(sort);
+        Room position = after == null ? null : positionOf(after);
+
+        return findMatching(criteria).stream()
+                .filter(room -> position == null || comparator.compare(room, position) > 0)
+                .sorted(comparator)
+                .limit(limit)
+                .map(InMemoryRoomRepository::copyOf)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public long count(RoomSearchCriteria criteria) {
+        return findMatching(criteria).size();
+    }
+
+    /*
+     * Calcula en memoria una similitud equivalente a word_similarity de pg_trgm (ver
+     * RoomNameSimilarity). Se devuelven las habitaciones que alcanzan el umbral.
+     */
+    @Override
+    public List<RoomNameMatchView> findByNameSimilarity(String normalizedQuery, int limit) {
+        Set<String> queryGrams = RoomNameSimilarity.paddedTrigramsOf(normalizedQuery);
+        if (queryGrams.isEmpty()) {
+            return List.of();
+        }
+
+        List<RoomNameMatchView> matches = new ArrayList<>();
+        for (IndexedRoom entry : storage.values()) {
+            if (entry.lowerName() == null) {
+                continue;
+            }
+            double score = RoomNameSimilarity.score(queryGrams, entry.lowerName());
+            if (score >= RoomNameSimilarity.THRESHOLD) {
+                matches.add(new RoomNameSimilarity.Match(
+                        entry.room().getId(), entry.room().getCode(), entry.room().getName(), score));
+            }
+        }
+
+        matches.sort(Comparator.comparing(RoomNameMatchView::getScore).reversed()
+                .thenComparing(RoomNameMatchView::getId));
+        return matches.size() > limit ? new ArrayList<>(matches.subList(0, limit)) : matches;
+    }
+
+    /*
+     * Habitaciones que cumplen los filtros de búsqueda, sin copiar ni ordenar.
+     * Los candidatos salen del índice de trigramas o del índice de precio, el que
+     * devuelva menos ids, y se confirman después con ambos filtros.
+     */
+    private List<Room> findMatching(RoomSearchCriteria criteria) {
+        String nameContains = normalize(criteria.nameContains());
+        boolean hasName = nameContains != null && !nameContains.isEmpty();
+        boolean hasPriceRange = criteria.minPrice() != null || criteria.maxPrice() != null;
+
+        Collection<Long> candidateIds = storage.keySet();
+        if (hasName) {
+            candidateIds = findNameCandidates(nameContains);
+        }
+        if (hasPriceRange) {
+            Collection<Long> priceCandidates = findPriceCandidates(criteria.minPrice(), criteria.maxPrice());
+            if (priceCandidates.size() < candidateIds.size()) {
+                candidateIds = priceCandidates;
+            }
+        }
+
+        List<Room> result = candidateIds.stream()
+                .map(storage::get)
+                .filter(Objects::nonNull)
+                .filter(entry -> !hasName || (entry.lowerName() != null && entry.lowerName().contains(nameContains)))
+                .map(IndexedRoom::room)
+                .filter(room -> isInPriceRange(room, criteria.minPrice(), criteria.maxPrice()))
+                .collect(Collectors.toList());
+        LOGGER.debug("Búsqueda en memoria con {} candidatas de los índices y {} coincidencias. criteria={}.",
+                candidateIds.size(), result.size(), criteria);
         return result;
     }
+
+    /*
+     * Obtiene los ids del índice de precio dentro del rango indicado. Un límite nulo
+     * deja el rango abierto de ese lado.
+     */
+    private Collection<Long> findPriceCandidates(BigDecimal minPrice, BigDecimal maxPrice) {
+        NavigableMap<BigDecimal, Set<Long>> range;
+        if (minPrice == null && maxPrice == null) {
+            range = priceIndex;
+        } else if (minPrice == null) {
+            range = priceIndex.headMap(maxPrice, true);
+        } else if (maxPrice == null) {
+            range = priceIndex.tailMap(minPrice, true);
+        } else if (minPrice.compareTo(maxPrice) > 0) {
+            return Set.of();
+        } else {
+            range = priceIndex.subMap(minPrice, true, maxPrice, true);
+        }
+
+        List<Long> ids = new ArrayList<>();
+        range.values().forEach(ids::addAll);
+        return ids;
+    }
+
+    private static boolean isInPriceRange(Room room, BigDecimal minPrice, BigDecimal maxPrice) {
+        BigDecimal price = room.getBasePricePerNight();
+        if (minPrice == null && maxPrice == null) {
+            return true;
+        }
+        return price != null
+                && (minPrice == null || price.compareTo(minPrice) >= 0)
+                && (maxPrice == null || price.compareTo(maxPrice) <= 0);
+    }
+
+    /*
+     * Habitación de referencia con el valor de la propiedad de orden y el id del keyset.
+     */
+    private static Room positionOf(RoomKeyset keyset) {
+        Room.RoomBuilder position = Room.builder().id(keyset.lastId());
+        Object value = keyset.lastValue();
+        if (value != null) {
+            switch (keyset.property()) {
+                case "code" -> position.code((String) value);
+                case "name" -> position.name((String) value);
+                case "capacity" -> position.capacity((Integer) value);
+                case "basePricePerNight" -> position.basePricePerNight((BigDecimal) value);
+                case "active" -> position.active((Boolean) value);
+                default -> {
+                }
+            }
+        }
+        return position.build();
+    }
+
+    /*
+     * Obtiene los ids candidatos para una búsqueda por texto contenido en el nombre.
+     * Con textos de al menos tres caracteres se intersectan las listas de ids de cada
+     * trigrama, empezando por la más corta; los candidatos se confirman después con
+     * contains sobre el nombre ya normalizado. Con textos más cortos no hay trigrama
+     * que consultar y se revisan los nombres normalizados de todas las habitaciones.
+     */
+    private Collection<Long> findNameCandidates(String normalized) {
+        if (normalized.length() < GRAM_SIZE) {
+            return storage.keySet();
+        }
+
+        List<Set<Long>> postings = new ArrayList<>();
+        for (String gram : trigramsOf(normalized)) {
+            Set<Long> ids = nameTrigramIndex.get(gram);
+            if (ids == null) {
+                return Set.of();
+            }
+            postings.add(ids);
+        }
+        postings.sort(Comparator.comparingInt(Set::size));
+
+        Set<Long> candidates = new HashSet<>(postings.get(0));
+        for (int i = 1; i < postings.size() && !candidates.isEmpty(); i++) {
+            candidates.retainAll(postings.get(i));
+        }
+        return candidates;
+    }
+
+    private void index(Long id, IndexedRoom entry) {
+        if (entry.room().getBasePricePerNight() != null) {
+            priceIndex.computeIfAbsent(entry.room().getBasePricePerNight(), key -> ConcurrentHashMap.newKeySet())
+                    .add(id);
+        }
+        if (entry.lowerName() != null) {
+            for (String gram : trigramsOf(entry.lowerName())) {
+                nameTrigramIndex.computeIfAbsent(gram, key -> ConcurrentHashMap.newKeySet()).add(id);
+            }
+        }
+        if (entry.lowerCode() != null) {
+            codeIndex.put(entry.lowerCode(), id);
+        }
+    }
+
+    private void unindex(Long id, IndexedRoom entry) {
+        if (entry.room().getBasePricePerNight() != null) {
+            removeFromPostings(priceIndex, entry.room().getBasePricePerNight(), id);
+        }
+        if (entry.lowerName() != null) {
+            for (String gram : trigramsOf(entry.lowerName())) {
+                removeFromPostings(nameTrigramIndex, gram, id);
+            }
+        }
+        if (entry.lowerCode() != null) {
+            codeIndex.remove(entry.lowerCode(), id);
+        }
+    }
+
+    /*
+     * Quita un id de la lista asociada a una clave y elimina la clave si la lista queda vacía.
+     */
+    private static <K> void removeFromPostings(ConcurrentMap<K, Set<Long>> postingsIndex, K key, Long id) {
+        postingsIndex.computeIfPresent(key, (k, ids) -> {
+            ids.remove(id);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    private static Set<String> trigramsOf(String text) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM_SIZE <= text.length(); i++) {
+            grams.add(text.substring(i, i + GRAM_SIZE));
+        }
+        return grams;
+    }
+
+    private static String normalize(String value) {
+        return value == null ? null : value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static List<Room> copyAll(List<Room> rooms) {
+        return rooms.stream()
+                .map(InMemoryRoomRepository::copyOf)
+                .collect(Collectors.toList());
+    }
+
+    private static Room copyOf(Room room) {
+        return room.toBuilder().build();
+    }
+
+    /*
+     * Traduce un Sort de Spring Data a un comparador equivalente sobre el modelo Room,
+     * de forma que la paginación en memoria respete el mismo contrato que la de JPA.
+     * Si no se indica orden, se ordena por id.
+     */
+    private Comparator<Room> buildComparator(Sort sort) {
+        Comparator<Room> comparator = null;
+
+        for (Sort.Order order : sort) {
+            Comparator<Room> orderComparator = buildPropertyComparator(order);
+            comparator = comparator == null ? orderComparator : comparator.thenComparing(orderComparator);
+        }
+
+        if (comparator == null) {
+            comparator = Comparator.comparing(Room::getId, Comparator.nullsLast(Long::compareTo));
+        }
+        return comparator;
+    }
+
+    private Comparator<Room> buildPropertyComparator(Sort.Order order) {
+        Comparator<String> stringOrder = order.isIgnoreCase()
+                ? String.CASE_INSENSITIVE_ORDER
+                : Comparator.naturalOrder();
+
+        Comparator<Room> comparator;
+        switch (order.getProperty()) {
+            case "code":
+                comparator = Comparator.comparing(Room::getCode, Comparator.nullsLast(stringOrder));
+                break;
+            case "name":
+                comparator = Comparator.comparing(Room::getName, Comparator.nullsLast(stringOrder));
+                break;
+            case "capacity":
+                comparator = Comparator.comparing(Room::getCapacity,
+                        Comparator.nullsLast(Integer::compareTo));
+                break;
+            case "basePricePerNight":
+                comparator = Comparator.comparing(Room::getBasePricePerNight,
+                        Comparator.nullsLast(BigDecimal::compareTo));
+                break;
+            case "active":
+                comparator = Comparator.comparing(Room::isActive);
+                break;
+            case "id":
+                comparator = Comparator.comparing(Room::getId, Comparator.nullsLast(Long::compareTo));
+                break;
+            default:
+                throw new IllegalArgumentException(
+                        "No se puede ordenar habitaciones en memoria por la propiedad " + order.getProperty() + ".");
+        }
+        return order.isDescending() ? comparator.reversed() : comparator;
+    }
+
+    /*
+     * Copia almacenada de una habitación junto con su nombre y código ya normalizados,
+     * para no recalcular minúsculas en cada consulta.
+     */
+    private record IndexedRoom(Room room, String lowerName, String lowerCode) {
+    }
 }
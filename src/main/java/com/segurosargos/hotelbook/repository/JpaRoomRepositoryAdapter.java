@@ -1,11 +1,26 @@
 package com.segurosargos.hotelbook.repository;
 
 import java.math.BigDecimal;
+import java.sql.DatabaseMetaData;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
+import javax.sql.DataSource;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Repository;
 import com.segurosargos.hotelbook.model.Room;
 import com.segurosargos.hotelbook.model.RoomEntity;
@@ -13,33 +28,64 @@ import com.segurosargos.hotelbook.model.RoomEntity;
 /*
  * Implementación de RoomRepository basada en JPA y PostgreSQL.
  * Adapta el modelo Room usado por las capas superiores a la entidad RoomEntity.
+ * No se registra con el perfil "inmemory", donde RoomRepository lo implementa InMemoryRoomRepository.
  */
 @Repository
+@Qualifier(CachingRoomRepository.STORAGE_QUALIFIER)
+@Profile("!inmemory")
 public class JpaRoomRepositoryAdapter implements RoomRepository {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(JpaRoomRepositoryAdapter.class);
 
+    /*
+     * Máximo de habitaciones que se leen para ordenar por similitud en Java cuando la base
+     * de datos no tiene pg_trgm.
+     */
+    private static final int MAX_SIMILARITY_CANDIDATES = 500;
+
     private final RoomJpaRepository roomJpaRepository;
 
-    public JpaRoomRepositoryAdapter(RoomJpaRepository roomJpaRepository) {
+    private final DataSource dataSource;
+
+    private volatile Boolean trigramSimilarityAvailable;
+
+    public JpaRoomRepositoryAdapter(RoomJpaRepository roomJpaRepository, DataSource dataSource) {
         this.roomJpaRepository = roomJpaRepository;
+        this.dataSource = dataSource;
     }
 
+    /*
+     * Persiste la habitación. Las habitaciones nuevas se insertan con save. Las existentes
+     * se actualizan con un único UPDATE ... WHERE id = ? AND version = ?, sin fusionar una
+     * entidad desprendida: si no se modifica ninguna fila, la versión del modelo ya no es
+     * la vigente y se lanza ObjectOptimisticLockingFailureException. Solo cuando la
+     * versión no se conoce se consulta la vigente.
+     */
     @Override
     public Room save(Room room) {
         RoomEntity entityToSave = mapToEntity(room);
 
-        if (entityToSave.getId() != null && entityToSave.getVersion() == null) {
-            RoomEntity current = roomJpaRepository.findById(entityToSave.getId())
+        if (entityToSave.getId() == null) {
+            Room savedRoom = mapToModel(roomJpaRepository.saveAndFlush(entityToSave));
+            LOGGER.debug("Habitación creada en base de datos con id {} y código {}.",
+                    savedRoom.getId(), savedRoom.getCode());
+            return savedRoom;
+        }
+
+        if (entityToSave.getVersion() == null) {
+            entityToSave.setVersion(roomJpaRepository.findVersionById(entityToSave.getId())
                     .orElseThrow(() -> new IllegalStateException(
                             "No se encontró la habitación con id " + entityToSave.getId()
-                                    + " al intentar actualizar."));
-            entityToSave.setVersion(current.getVersion());
+                                    + " al intentar actualizar.")));
         }
 
-        RoomEntity savedEntity = roomJpaRepository.save(entityToSave);
-        Room savedRoom = mapToModel(savedEntity);
-        LOGGER.debug("Habitación persistida en base de datos con id {} y código {}.",
+        if (roomJpaRepository.updateIfVersionMatches(entityToSave) == 0) {
+            throw new ObjectOptimisticLockingFailureException(RoomEntity.class, entityToSave.getId());
+        }
+
+        Room savedRoom = mapToModel(entityToSave);
+        savedRoom.setVersion(entityToSave.getVersion() + 1);
+        LOGGER.debug("Habitación actualizada en base de datos con id {} y código {}.",
                 savedRoom.getId(), savedRoom.getCode());
         return savedRoom;
     }
@@ -59,12 +105,27 @@ public class JpaRoomRepositoryAdapter implements RoomRepository {
                 .collect(Collectors.toList());
     }
 
+    @Override
+    public Page<Room> findAll(Pageable pageable) {
+        Page<RoomEntity> entities = roomJpaRepository.findAll(pageable);
+        LOGGER.debug("Se recuperó la página {} con {} habitaciones desde la base de datos. totalElements={}.",
+                pageable.getPageNumber(), entities.getNumberOfElements(), entities.getTotalElements());
+        return entities.map(this::mapToModel);
+    }
+
     @Override
     public void deleteById(Long id) {
         LOGGER.debug("Eliminando habitación en base de datos con id {}.", id);
         roomJpaRepository.deleteById(id);
     }
 
+    @Override
+    public boolean existsByCodeIgnoreCase(String code) {
+        boolean exists = roomJpaRepository.existsByCodeIgnoreCase(code);
+        LOGGER.debug("Existe habitación en base de datos con el código '{}': {}.", code, exists);
+        return exists;
+    }
+
     @Override
     public List<Room> findByNameContainingIgnoreCase(String name) {
         List<RoomEntity> entities = roomJpaRepository.findByNameContainingIgnoreCase(name);
@@ -86,6 +147,88 @@ public class JpaRoomRepositoryAdapter implements RoomRepository {
                 .collect(Collectors.toList());
     }
 
+    @Override
+    public Page<Room> search(RoomSearchCriteria criteria, Pageable pageable) {
+        Page<RoomEntity> entities = roomJpaRepository.findAll(toSpecification(criteria), pageable);
+        LOGGER.debug("Búsqueda de habitaciones en base de datos. criteria={}, page={}, totalElements={}.",
+                criteria, pageable.getPageNumber(), entities.getTotalElements());
+        return entities.map(this::mapToModel);
+    }
+
+    @Override
+    public List<Room> searchAfter(RoomSearchCriteria criteria, RoomKeyset after, Sort sort, int limit) {
+        Specification<RoomEntity> specification = toSpecification(criteria);
+        if (after != null) {
+            specification = specification.and(RoomSpecifications.keysetAfter(
+                    after.property(), after.ignoreCase(), after.descending(), after.lastValue(), after.lastId()));
+        }
+        return roomJpaRepository.findBy(specification, query -> query.sortBy(sort).limit(limit).all())
+                .stream()
+                .map(this::mapToModel)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public long count(RoomSearchCriteria criteria) {
+        return roomJpaRepository.count(toSpecification(criteria));
+    }
+
+    /*
+     * En PostgreSQL delega en la consulta nativa con pg_trgm. En otras bases de datos (H2
+     * en el perfil test) no existen word_similarity ni el operador <%, así que se buscan
+     * los nombres que contienen el texto con lower(name) LIKE y se ordenan en Java con la
+     * misma similitud por trigramas. Esta variante no encuentra nombres con errores de
+     * escritura, solo los que contienen el texto.
+     */
+    @Override
+    public List<RoomNameMatchView> findByNameSimilarity(String normalizedQuery, int limit) {
+        if (isTrigramSimilarityAvailable()) {
+            return roomJpaRepository.findByNameSimilarity(normalizedQuery, limit);
+        }
+
+        Set<String> queryGrams = RoomNameSimilarity.paddedTrigramsOf(normalizedQuery);
+        List<RoomEntity> candidates = roomJpaRepository.findAll(
+                RoomSpecifications.nameContainsIgnoreCase(normalizedQuery),
+                PageRequest.of(0, MAX_SIMILARITY_CANDIDATES, Sort.by("id"))).getContent();
+
+        return candidates.stream()
+                .map(entity -> new RoomNameSimilarity.Match(entity.getId(), entity.getCode(), entity.getName(),
+                        RoomNameSimilarity.score(queryGrams, entity.getName().toLowerCase(Locale.ROOT))))
+                .sorted(Comparator.comparing(RoomNameMatchView::getScore).reversed()
+                        .thenComparing(RoomNameMatchView::getId))
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    /*
+     * Indica, consultando una sola vez los metadatos de la conexión, si la base de datos
+     * es PostgreSQL, donde V6 instala pg_trgm.
+     */
+    private boolean isTrigramSimilarityAvailable() {
+        Boolean available = trigramSimilarityAvailable;
+        if (available == null) {
+            try {
+                String product = JdbcUtils.extractDatabaseMetaData(dataSource, DatabaseMetaData::getDatabaseProductName);
+                available = "PostgreSQL".equals(product);
+            } catch (MetaDataAccessException ex) {
+                throw new IllegalStateException("No se pudo determinar el motor de base de datos.", ex);
+            }
+            trigramSimilarityAvailable = available;
+            LOGGER.info("Sugerencias por nombre con {}.", available ? "pg_trgm" : "LIKE y similitud calculada en Java");
+        }
+        return available;
+    }
+
+    /*
+     * Traduce los filtros de búsqueda a una Specification; los filtros nulos no se aplican.
+     */
+    private static Specification<RoomEntity> toSpecification(RoomSearchCriteria criteria) {
+        return Specification
+                .where(RoomSpecifications.nameContainsIgnoreCase(criteria.nameContains()))
+                .and(RoomSpecifications.basePriceGreaterOrEqual(criteria.minPrice()))
+                .and(RoomSpecifications.basePriceLessOrEqual(criteria.maxPrice()));
+    }
+
     private RoomEntity mapToEntity(Room room) {
         if (room == null) {
             return null;
@@ -98,6 +241,7 @@ public class JpaRoomRepositoryAdapter implements RoomRepository {
                 .basePricePerNight(room.getBasePricePerNight())
                 .active(room.isActive())
                 .internalNotes(room.getInternalNotes())
+                .version(room.getVersion())
                 .build();
     }
 
@@ -113,6 +257,7 @@ public class JpaRoomRepositoryAdapter implements RoomRepository {
                 .basePricePerNight(entity.getBasePricePerNight())
                 .active(entity.isActive())
                 .internalNotes(entity.getInternalNotes())
+                .version(entity.getVersion())
                 .build();
     }
 }
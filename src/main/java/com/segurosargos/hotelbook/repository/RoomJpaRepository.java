@@ -2,10 +2,15 @@ package com.segurosargos.hotelbook.repository;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 import com.segurosargos.hotelbook.model.RoomEntity;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
@@ -20,6 +25,54 @@ public interface RoomJpaRepository extends JpaRepository<RoomEntity, Long>,
      */
     List<RoomEntity> findByNameContainingIgnoreCase(String name);
 
+    /*
+     * Actualiza los datos editables de la habitación solo si su versión sigue siendo la
+     * indicada, e incrementa la versión en el mismo UPDATE. Devuelve 0 si la habitación no
+     * existe o si otra transacción la modificó antes.
+     *
+     * No toca last_booking_date, que mantiene el flujo de reservas. Se sincroniza el
+     * contexto de persistencia antes y se limpia después para que una lectura posterior
+     * en la misma transacción no devuelva la entidad anterior.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(
+            "update RoomEntity r " +
+                    "set r.code = :#{#room.code}, " +
+                    "r.name = :#{#room.name}, " +
+                    "r.capacity = :#{#room.capacity}, " +
+                    "r.basePricePerNight = :#{#room.basePricePerNight}, " +
+                    "r.active = :#{#room.active}, " +
+                    "r.internalNotes = :#{#room.internalNotes}, " +
+                    "r.version = r.version + 1 " +
+                    "where r.id = :#{#room.id} " +
+                    "and r.version = :#{#room.version}"
+    )
+    int updateIfVersionMatches(@Param("room") RoomEntity room);
+
+    /*
+     * Indica si existe una habitación con el código indicado, ignorando mayúsculas/minúsculas.
+     * Se compara sobre lower(code) para que PostgreSQL use el índice único uq_rooms_code_lower;
+     * la consulta derivada de Spring Data usaría upper() y no aprovecharía el índice.
+     */
+    @Query("select count(r) > 0 from RoomEntity r where lower(r.code) = lower(:code)")
+    boolean existsByCodeIgnoreCase(@Param("code") String code);
+
+    /*
+     * Bloquea las filas de las habitaciones indicadas (SELECT ... FOR UPDATE) hasta el fin
+     * de la transacción, en orden de id para que dos transacciones no se bloqueen
+     * mutuamente. Es el punto de serialización por habitación al confirmar reservas.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select r from RoomEntity r where r.id in :ids order by r.id")
+    List<RoomEntity> lockAllByIdIn(@Param("ids") Collection<Long> ids);
+
+    /*
+     * Recupera únicamente la versión de una habitación, sin cargar la entidad.
+     * Se usa para validar ETags en peticiones condicionales.
+     */
+    @Query("select r.version from RoomEntity r where r.id = :id")
+    Optional<Integer> findVersionById(@Param("id") Long id);
+
     /*
      * Busca habitaciones cuyo precio base por noche esté dentro del rango indicado.
      */
@@ -50,4 +103,45 @@ public interface RoomJpaRepository extends JpaRepository<RoomEntity, Long>,
     )
     List<RoomOccupancyView> findRoomOccupancySummaryByReferenceDate(
             @Param("referenceDate") LocalDate referenceDate);
+
+    /*
+     * Busca habitaciones cuyo nombre contiene una palabra o fragmento similar al texto
+     * indicado, ordenadas de mayor a menor similitud por trigramas. Consulta nativa
+     * específica de PostgreSQL.
+     *
+     * Se usa word_similarity en lugar de similarity: similarity compara el nombre
+     * completo, de modo que un prefijo corto como "sui" frente a "Suite Junior" no
+     * alcanza el umbral y no devuelve nada. El operador <% también se resuelve con el
+     * índice GIN idx_rooms_name_lower_trgm y respeta pg_trgm.word_similarity_threshold
+     * (0.6 por defecto). Con otras bases de datos JpaRoomRepositoryAdapter no la invoca.
+     */
+    @Query(
+            value = "select "
+                    + "    r.id as id, "
+                    + "    r.code as code, "
+                    + "    r.name as name, "
+                    + "    word_similarity(:query, lower(r.name)) as score "
+                    + "from rooms r "
+                    + "where :query <% lower(r.name) "
+                    + "order by score desc, r.id "
+                    + "limit :limit",
+            nativeQuery = true
+    )
+    List<RoomNameMatchView> findByNameSimilarity(
+            @Param("query") String query,
+            @Param("limit") int limit);
+
+    /*
+     * Recupera id, código y nombre de todas las habitaciones ordenadas por código,
+     * sin cargar el resto de columnas ni la colección de reservas.
+     */
+    @Query(
+            "select " +
+                    "r.id as id, " +
+                    "r.code as code, " +
+                    "r.name as name " +
+                    "from RoomEntity r " +
+                    "order by r.code"
+    )
+    List<RoomLabelView> findAllLabelsOrderByCode();
 }
@@ -0,0 +1,12 @@
+package com.segurosargos.hotelbook.repository;
+
+/*
+ * Posición de la última habitación entregada en una paginación por keyset (seek): la
+ * página siguiente empieza después de (lastValue, lastId) según el orden por
+ * (property, id).
+ *
+ * Si ignoreCase es true, property se compara sin distinguir mayúsculas/minúsculas,
+ * igual que el orden.
+ */
+public record RoomKeyset(String property, boolean ignoreCase, boolean descending, Object lastValue, Long lastId) {
+}
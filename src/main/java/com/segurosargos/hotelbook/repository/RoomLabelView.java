@@ -0,0 +1,23 @@
+package com.segurosargos.hotelbook.repository;
+
+/*
+ * Proyección de solo lectura con los datos que identifican a una habitación
+ * en listados y encabezados.
+ */
+public interface RoomLabelView {
+
+    /*
+     * Identificador interno de la habitación.
+     */
+    Long getId();
+
+    /*
+     * Código único de la habitación.
+     */
+    String getCode();
+
+    /*
+     * Nombre descriptivo de la habitación.
+     */
+    String getName();
+}
@@ -0,0 +1,28 @@
+package com.segurosargos.hotelbook.repository;
+
+/*
+ * Proyección de solo lectura con los datos mínimos de una habitación
+ * devuelta por la búsqueda por similitud de nombre.
+ */
+public interface RoomNameMatchView {
+
+    /*
+     * Identificador interno de la habitación.
+     */
+    Long getId();
+
+    /*
+     * Código único de la habitación.
+     */
+    String getCode();
+
+    /*
+     * Nombre descriptivo de la habitación.
+     */
+    String getName();
+
+    /*
+     * Similitud por trigramas entre el nombre y el texto buscado, entre 0 y 1.
+     */
+    Double getScore();
+}
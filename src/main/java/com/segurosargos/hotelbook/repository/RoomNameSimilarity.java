@@ -0,0 +1,81 @@
+package com.segurosargos.hotelbook.repository;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/*
+ * Similitud por trigramas entre un texto buscado y el nombre de una habitación,
+ * equivalente a word_similarity de pg_trgm: la fracción de trigramas del texto, con las
+ * palabras rellenadas con espacios, que aparecen en el nombre.
+ *
+ * La usan las implementaciones de RoomRepository que no pueden delegar en pg_trgm: el
+ * repositorio en memoria y el adaptador JPA cuando la base de datos no es PostgreSQL.
+ */
+final class RoomNameSimilarity {
+
+    /*
+     * Umbral por defecto de pg_trgm.word_similarity_threshold.
+     */
+    static final double THRESHOLD = 0.6;
+
+    private static final int GRAM_SIZE = 3;
+
+    private RoomNameSimilarity() {
+    }
+
+    /*
+     * Trigramas de cada palabra del texto con dos espacios al inicio y uno al final,
+     * como los calcula pg_trgm.
+     */
+    static Set<String> paddedTrigramsOf(String text) {
+        Set<String> grams = new HashSet<>();
+        for (String word : text.split("[^\\p{L}\\p{N}]+")) {
+            if (!word.isEmpty()) {
+                String padded = "  " + word + " ";
+                for (int i = 0; i + GRAM_SIZE <= padded.length(); i++) {
+                    grams.add(padded.substring(i, i + GRAM_SIZE));
+                }
+            }
+        }
+        return grams;
+    }
+
+    /*
+     * Fracción de los trigramas del texto buscado que aparecen en el nombre, entre 0 y 1.
+     * El nombre debe venir en minúsculas.
+     */
+    static double score(Set<String> queryGrams, String lowerName) {
+        if (queryGrams.isEmpty() || lowerName == null) {
+            return 0.0;
+        }
+        Set<String> nameGrams = paddedTrigramsOf(lowerName);
+        long shared = queryGrams.stream().filter(nameGrams::contains).count();
+        return (double) shared / queryGrams.size();
+    }
+
+    /*
+     * Resultado de findByNameSimilarity calculado en Java.
+     */
+    record Match(Long id, String code, String name, Double score) implements RoomNameMatchView {
+
+        @Override
+        public Long getId() {
+            return id;
+        }
+
+        @Override
+        public String getCode() {
+            return code;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public Double getScore() {
+            return score;
+        }
+    }
+}
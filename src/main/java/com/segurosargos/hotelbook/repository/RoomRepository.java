@@ -3,6 +3,9 @@ package com.segurosargos.hotelbook.repository;
 import java.math.BigDecimal;
 import java.util.List;
 import java.util.Optional;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import com.segurosargos.hotelbook.model.Room;
 
 /*
@@ -28,11 +31,23 @@ public interface RoomRepository {
      */
     List<Room> findAll();
 
+    /*
+     * Regresa una página de habitaciones ordenada según el Pageable indicado.
+     * Solo se recuperan las habitaciones de la página solicitada y el total de registros.
+     */
+    Page<Room> findAll(Pageable pageable);
+
     /*
      * Elimina una habitación por su id.
      */
     void deleteById(Long id);
 
+    /*
+     * Indica si ya existe una habitación con el código indicado, ignorando mayúsculas/minúsculas.
+     * Se resuelve con un índice sobre el código, sin recorrer todas las habitaciones.
+     */
+    boolean existsByCodeIgnoreCase(String code);
+
     /*
      * Busca habitaciones cuyo nombre contenga el texto indicado, ignorando mayúsculas/minúsculas.
      */
@@ -42,4 +57,27 @@ public interface RoomRepository {
      * Busca habitaciones cuyo precio base por noche esté dentro del rango indicado.
      */
     List<Room> findByBasePricePerNightBetween(BigDecimal minPrice, BigDecimal maxPrice);
+
+    /*
+     * Regresa una página de las habitaciones que cumplen los filtros indicados, ordenada
+     * según el Pageable. Los filtros, el orden y la paginación los resuelve el repositorio.
+     */
+    Page<Room> search(RoomSearchCriteria criteria, Pageable pageable);
+
+    /*
+     * Regresa hasta limit habitaciones que cumplen los filtros, ordenadas según sort y,
+     * si after no es nulo, posteriores a esa posición (paginación por keyset).
+     */
+    List<Room> searchAfter(RoomSearchCriteria criteria, RoomKeyset after, Sort sort, int limit);
+
+    /*
+     * Cuenta las habitaciones que cumplen los filtros indicados.
+     */
+    long count(RoomSearchCriteria criteria);
+
+    /*
+     * Busca hasta limit habitaciones cuyo nombre se parece al texto indicado (ya en
+     * minúsculas), ordenadas de mayor a menor similitud por trigramas.
+     */
+    List<RoomNameMatchView> findByNameSimilarity(String normalizedQuery, int limit);
 }
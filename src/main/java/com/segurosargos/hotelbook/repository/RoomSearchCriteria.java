@@ -0,0 +1,18 @@
+package com.segurosargos.hotelbook.repository;
+
+import java.math.BigDecimal;
+
+/*
+ * Filtros de la búsqueda simple de habitaciones: texto contenido en el nombre, sin
+ * distinguir mayúsculas/minúsculas, y rango de precio base por noche. Los filtros
+ * nulos o vacíos no se aplican.
+ */
+public record RoomSearchCriteria(String nameContains, BigDecimal minPrice, BigDecimal maxPrice) {
+
+    /*
+     * Indica si no hay ningún filtro que aplicar.
+     */
+    public boolean isEmpty() {
+        return (nameContains == null || nameContains.isBlank()) && minPrice == null && maxPrice == null;
+    }
+}
@@ -2,6 +2,9 @@ package com.segurosargos.hotelbook.repository;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.Collection;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Predicate;
 import org.springframework.data.jpa.domain.Specification;
 import com.segurosargos.hotelbook.model.BookingEntity;
 import com.segurosargos.hotelbook.model.RoomEntity;
@@ -19,6 +22,8 @@ public final class RoomSpecifications {
     /*
      * Filtra por texto contenido en el nombre de la habitación, ignorando mayúsculas/minúsculas.
      * Si el parámetro es nulo o vacío, no aplica ningún filtro.
+     * En PostgreSQL el predicado lower(name) LIKE '%texto%' se resuelve con el índice
+     * de trigramas idx_rooms_name_lower_trgm cuando el texto tiene al menos tres caracteres.
      */
     public static Specification<RoomEntity> nameContainsIgnoreCase(String nameContains) {
         return (root, query, criteriaBuilder) -> {
@@ -116,4 +121,65 @@ public final class RoomSpecifications {
             return criteriaBuilder.not(criteriaBuilder.exists(subquery));
         };
     }
+
+    /*
+     * Excluye las habitaciones cuyos ids se indican.
+     * Si la colección es nula o vacía, no aplica ningún filtro.
+     * Cada id es un parámetro de la consulta; hibernate.query.in_clause_parameter_padding
+     * redondea la lista a potencias de dos para que el plan se reutilice entre tamaños.
+     */
+    public static Specification<RoomEntity> idNotIn(Collection<Long> excludedIds) {
+        return (root, query, criteriaBuilder) -> {
+            if (excludedIds == null || excludedIds.isEmpty()) {
+                return criteriaBuilder.conjunction();
+            }
+            return criteriaBuilder.not(root.get("id").in(excludedIds));
+        };
+    }
+
+    /*
+     * Predicado de paginación por keyset (seek). Devuelve solo las habitaciones que van
+     * después de la última fila entregada según el orden (propiedad, id):
+     * (propiedad > último valor) o (propiedad = último valor y id > último id),
+     * invirtiendo las comparaciones cuando el orden es descendente.
+     *
+     * Si ignoreCase es true, la propiedad se compara sobre lower(), igual que el orden.
+     * Si lastId es nulo, no aplica ningún filtro (primera página).
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static Specification<RoomEntity> keysetAfter(String property,
+                                                        boolean ignoreCase,
+                                                        boolean descending,
+                                                        Object lastValue,
+                                                        Long lastId) {
+        return (root, query, criteriaBuilder) -> {
+            if (lastId == null) {
+                return criteriaBuilder.conjunction();
+            }
+
+            Expression<Long> idPath = root.get("id");
+            Predicate idAfter = descending
+                    ? criteriaBuilder.lessThan(idPath, lastId)
+                    : criteriaBuilder.greaterThan(idPath, lastId);
+
+            if (property == null || "id".equals(property) || lastValue == null) {
+                return idAfter;
+            }
+
+            Expression key = root.get(property);
+            if (ignoreCase) {
+                key = criteriaBuilder.lower(key);
+            }
+            Comparable value = (Comparable) lastValue;
+
+            Predicate keyAfter = descending
+                    ? criteriaBuilder.lessThan(key, value)
+                    : criteriaBuilder.greaterThan(key, value);
+
+            return criteriaBuilder.or(
+                    keyAfter,
+                    criteriaBuilder.and(criteriaBuilder.equal(key, value), idAfter)
+            );
+        };
+    }
 }
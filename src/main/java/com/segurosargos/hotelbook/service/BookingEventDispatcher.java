@@ -0,0 +1,301 @@
+package com.segurosargos.hotelbook.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+import com.segurosargos.hotelbook.model.BookingEventEntity;
+import com.segurosargos.hotelbook.model.BookingEventOffsetEntity;
+import com.segurosargos.hotelbook.repository.BookingEventJpaRepository;
+import com.segurosargos.hotelbook.repository.BookingEventOffsetJpaRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/*
+ * Entrega los eventos del outbox booking_events a los BookingEventListener registrados.
+ *
+ * - Cada instancia entrega todos los eventos a sus propios consumidores, que mantienen
+ *   estado en memoria. El offset de cada consumidor se guarda con la llave
+ *   consumerName@instance-id, de modo que las instancias no se pisan entre sí.
+ * - Cada cierto intervalo lee, por consumidor, los eventos posteriores a la última
+ *   posición leída en lotes ordenados por id y se los entrega.
+ * - Los ids salen de la secuencia antes del commit, así que una transacción lenta puede
+ *   confirmar un id menor que otro ya entregado. Cada id que falta entre dos eventos
+ *   leídos se registra como hueco; en cada ronda se vuelven a buscar los huecos y los
+ *   eventos que aparecen se entregan junto con los nuevos. Un hueco que sigue vacío tras
+ *   gap-timeout se descarta (la transacción se revirtió o nunca llegó a insertar).
+ * - El offset guardado es el mayor id tal que todos los anteriores se entregaron o se
+ *   descartaron: no pasa de un hueco pendiente. Se guarda al cambiar y, aunque no cambie,
+ *   al menos una vez por minuto para indicar que la instancia sigue activa.
+ * - Si un consumidor falla, su posición no avanza y el lote se reintenta en la siguiente
+ *   ronda; los demás consumidores siguen recibiendo eventos.
+ * - Un job periódico elimina los eventos ya entregados a todos los consumidores activos
+ *   que superan el tiempo de retención. Los offsets que no se actualizan durante la
+ *   retención son de instancias detenidas y se eliminan antes de calcular el mínimo.
+ *
+ * Un consumidor sin offset guardado (lo normal tras arrancar, porque instance-id es
+ * aleatorio salvo que se configure) empieza por los eventos registrados en los últimos
+ * gap-timeout: los anteriores ya están confirmados y los recoge la carga inicial del
+ * consumidor desde la base de datos. Si instance-id es fijo, el consumidor sigue desde
+ * su offset y los eventos posteriores a un hueco pueden repetirse.
+ */
+@Component
+public class BookingEventDispatcher {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BookingEventDispatcher.class);
+
+    /*
+     * Máximo de ids faltantes que se registran como huecos en un solo salto. Un salto
+     * mayor solo ocurre al empezar desde un offset cuyos eventos siguientes ya se
+     * depuraron, y esos ids no van a aparecer.
+     */
+    private static final int MAX_GAP_SPAN = 10_000;
+
+    /*
+     * Intervalo máximo entre dos escrituras del offset de un consumidor activo.
+     */
+    private static final long HEARTBEAT_NANOS = Duration.ofMinutes(1).toNanos();
+
+    private final BookingEventJpaRepository bookingEventJpaRepository;
+
+    private final BookingEventOffsetJpaRepository bookingEventOffsetJpaRepository;
+
+    private final List<BookingEventListener> listeners;
+
+    private final int batchSize;
+
+    private final Duration gapTimeout;
+
+    private final Duration retention;
+
+    private final String instanceId;
+
+    private final LongSupplier nanoClock;
+
+    /*
+     * Posición de lectura y huecos pendientes de cada consumidor en esta instancia.
+     */
+    private final Map<String, ConsumerCursor> cursors = new ConcurrentHashMap<>();
+
+    @Autowired
+    public BookingEventDispatcher(BookingEventJpaRepository bookingEventJpaRepository,
+                                  BookingEventOffsetJpaRepository bookingEventOffsetJpaRepository,
+                                  ObjectProvider<BookingEventListener> listeners,
+                                  @Value("${hotelbook.booking-events.batch-size:200}") int batchSize,
+                                  @Value("${hotelbook.booking-events.gap-timeout:5m}") Duration gapTimeout,
+                                  @Value("${hotelbook.booking-events.retention:7d}") Duration retention,
+                                  @Value("${hotelbook.instance-id:${random.uuid}}") String instanceId) {
+        this(bookingEventJpaRepository, bookingEventOffsetJpaRepository, listeners,
+                batchSize, gapTimeout, retention, instanceId, System::nanoTime);
+    }
+
+    BookingEventDispatcher(BookingEventJpaRepository bookingEventJpaRepository,
+                           BookingEventOffsetJpaRepository bookingEventOffsetJpaRepository,
+                           ObjectProvider<BookingEventListener> listeners,
+                           int batchSize,
+                           Duration gapTimeout,
+                           Duration retention,
+                           String instanceId,
+                           LongSupplier nanoClock) {
+        this.bookingEventJpaRepository = bookingEventJpaRepository;
+        this.bookingEventOffsetJpaRepository = bookingEventOffsetJpaRepository;
+        this.listeners = listeners.orderedStream().toList();
+        this.batchSize = batchSize;
+        this.gapTimeout = gapTimeout;
+        this.retention = retention;
+        this.instanceId = instanceId;
+        this.nanoClock = nanoClock;
+    }
+
+    /*
+     * Entrega a cada consumidor los eventos pendientes.
+     */
+    @Scheduled(fixedDelayString = "${hotelbook.booking-events.poll-interval:1s}")
+    public void dispatchPending() {
+        for (BookingEventListener listener : listeners) {
+            dispatchTo(listener);
+        }
+    }
+
+    /*
+     * Elimina los eventos entregados a los consumidores de todas las instancias activas y
+     * anteriores a la retención. Sin consumidores activos solo cuenta la antigüedad.
+     */
+    @Scheduled(cron = "${hotelbook.booking-events.prune-cron:0 15 4 * * *}")
+    @Transactional
+    public void pruneDelivered() {
+        Instant cutoff = Instant.now().minus(retention);
+        int staleOffsets = bookingEventOffsetJpaRepository.deleteUpdatedBefore(cutoff);
+        Long slowestOffset = bookingEventOffsetJpaRepository.findMinLastEventId();
+        long maxId = slowestOffset != null ? slowestOffset : Long.MAX_VALUE;
+        int deleted = bookingEventJpaRepository.deleteDeliveredBefore(maxId, cutoff);
+
+        LOGGER.info("Eventos de reservas depurados del outbox. eliminados={}, offsetsInactivos={}.",
+                deleted, staleOffsets);
+    }
+
+    private void dispatchTo(BookingEventListener listener) {
+        String consumer = listener.consumerName() + "@" + instanceId;
+        long now = nanoClock.getAsLong();
+        ConsumerCursor cursor = cursors.computeIfAbsent(consumer, key -> openCursor(key, now));
+
+        expireGaps(consumer, cursor, now);
+
+        List<BookingEventEntity> late = cursor.gaps.isEmpty()
+                ? List.of()
+                : bookingEventJpaRepository.findAllById(List.copyOf(cursor.gaps.keySet()));
+
+        while (true) {
+            List<BookingEventEntity> fresh = bookingEventJpaRepository.findBatchAfter(
+                    cursor.readPosition, PageRequest.of(0, batchSize));
+            if (fresh.isEmpty() && late.isEmpty()) {
+                break;
+            }
+
+            List<BookingEventEntity> batch = new ArrayList<>(late.size() + fresh.size());
+            batch.addAll(late);
+            batch.addAll(fresh);
+            batch.sort(Comparator.comparing(BookingEventEntity::getId));
+
+            try {
+                listener.onBookingEvents(batch);
+            } catch (RuntimeException ex) {
+                LOGGER.warn("El consumidor {} falló al procesar los eventos {}..{}; se reintentará.",
+                        consumer, batch.get(0).getId(), batch.get(batch.size() - 1).getId(), ex);
+                saveOffset(consumer, cursor, now);
+                return;
+            }
+
+            for (BookingEventEntity event : late) {
+                cursor.gaps.remove(event.getId());
+            }
+            late = List.of();
+            advance(consumer, cursor, fresh, now);
+            saveOffset(consumer, cursor, now);
+
+            LOGGER.debug("Entregados {} eventos de reservas a {}. posición={}, huecos={}.",
+                    batch.size(), consumer, cursor.readPosition, cursor.gaps.size());
+
+            if (fresh.size() < batchSize) {
+                break;
+            }
+        }
+
+        // Los huecos que vencieron sin eventos nuevos también mueven el offset; si no cambia,
+        // se renueva updated_at cuando toca.
+        saveOffset(consumer, cursor, now);
+    }
+
+    /*
+     * Mueve la posición de lectura al último evento nuevo y registra como huecos los ids
+     * que faltan entre los eventos leídos.
+     */
+    private void advance(String consumer, ConsumerCursor cursor, List<BookingEventEntity> fresh, long now) {
+        long expected = cursor.readPosition + 1;
+        for (BookingEventEntity event : fresh) {
+            long missing = event.getId() - expected;
+            if (missing > MAX_GAP_SPAN) {
+                LOGGER.info("Salto de {} ids antes del evento {} para {}; no se registran como huecos.",
+                        missing, event.getId(), consumer);
+            } else {
+                for (long id = expected; id < event.getId(); id++) {
+                    cursor.gaps.put(id, now);
+                }
+            }
+            expected = event.getId() + 1;
+        }
+        if (!fresh.isEmpty()) {
+            cursor.readPosition = fresh.get(fresh.size() - 1).getId();
+        }
+    }
+
+    /*
+     * Descarta los huecos que siguen vacíos después de gap-timeout.
+     */
+    private void expireGaps(String consumer, ConsumerCursor cursor, long now) {
+        Iterator<Map.Entry<Long, Long>> iterator = cursor.gaps.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Long, Long> gap = iterator.next();
+            if (now - gap.getValue() >= gapTimeout.toNanos()) {
+                iterator.remove();
+                LOGGER.warn("El id {} de booking_events no apareció en el tiempo de espera; {} deja de esperarlo.",
+                        gap.getKey(), consumer);
+            }
+        }
+    }
+
+    /*
+     * Guarda el offset si cambió o si pasó más de un minuto desde la última escritura.
+     */
+    private void saveOffset(String consumer, ConsumerCursor cursor, long now) {
+        long offset = cursor.gaps.isEmpty() ? cursor.readPosition : cursor.gaps.firstKey() - 1;
+        if (offset == cursor.savedOffset && now - cursor.savedAt < HEARTBEAT_NANOS) {
+            return;
+        }
+        bookingEventOffsetJpaRepository.save(BookingEventOffsetEntity.builder()
+                .consumer(consumer)
+                .lastEventId(offset)
+                .updatedAt(Instant.now())
+                .build());
+        cursor.savedOffset = offset;
+        cursor.savedAt = now;
+    }
+
+    /*
+     * Crea la posición de un consumidor desde su offset guardado o, si no lo tiene, desde
+     * los eventos registrados en los últimos gap-timeout, y registra el offset de inmediato
+     * para que la depuración lo tenga en cuenta.
+     */
+    private ConsumerCursor openCursor(String consumer, long now) {
+        Optional<BookingEventOffsetEntity> saved = bookingEventOffsetJpaRepository.findById(consumer);
+        if (saved.isPresent()) {
+            return new ConsumerCursor(saved.get().getLastEventId(), now);
+        }
+
+        Long firstRecentId = bookingEventJpaRepository.findMinIdCreatedSince(Instant.now().minus(gapTimeout));
+        Long lastId = bookingEventJpaRepository.findMaxId();
+        long start = firstRecentId != null ? firstRecentId - 1 : (lastId != null ? lastId : 0L);
+
+        LOGGER.info("Consumidor de eventos de reservas {} registrado desde el id {}.", consumer, start);
+        ConsumerCursor cursor = new ConsumerCursor(start, now);
+        cursor.savedOffset = -1L;
+        saveOffset(consumer, cursor, now);
+        return cursor;
+    }
+
+    /*
+     * Estado de entrega de un consumidor: último id leído, ids faltantes por debajo de él
+     * con el momento en que se detectaron y último offset guardado, con el momento en que
+     * se guardó.
+     */
+    private static final class ConsumerCursor {
+
+        private final TreeMap<Long, Long> gaps = new TreeMap<>();
+
+        private long readPosition;
+
+        private long savedOffset;
+
+        private long savedAt;
+
+        private ConsumerCursor(long offset, long now) {
+            this.readPosition = offset;
+            this.savedOffset = offset;
+            this.savedAt = now;
+        }
+    }
+}
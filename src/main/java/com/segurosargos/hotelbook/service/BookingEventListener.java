@@ -0,0 +1,34 @@
+package com.segurosargos.hotelbook.service;
+
+import java.util.List;
+import com.segurosargos.hotelbook.model.BookingEventEntity;
+
+/*
+ * Consumidor de los eventos del outbox booking_events. Los beans que implementan esta
+ * interfaz se registran solos en BookingEventDispatcher.
+ *
+ * Cada instancia de la aplicación recibe todos los eventos, así que el consumidor sirve
+ * para mantener estructuras en memoria de esa instancia. Al arrancar solo recibe los
+ * eventos registrados en los últimos gap-timeout: su estado inicial debe cargarse desde
+ * la base de datos.
+ *
+ * La entrega es al menos una vez: si onBookingEvents lanza una excepción, o la
+ * aplicación se detiene antes de guardar el offset, el lote se vuelve a entregar. Los
+ * consumidores deben tolerar eventos repetidos. Un evento confirmado tarde puede llegar
+ * con un id menor que otros ya entregados, así que no basta con comparar contra el
+ * último id aplicado: hay que deduplicar por id de evento o aplicar cambios idempotentes.
+ */
+public interface BookingEventListener {
+
+    /*
+     * Nombre único y estable del consumidor; junto con el id de la instancia es la llave
+     * de su offset.
+     */
+    String consumerName();
+
+    /*
+     * Procesa un lote de eventos ordenado por id; puede incluir eventos tardíos con id
+     * menor que los de lotes anteriores.
+     */
+    void onBookingEvents(List<BookingEventEntity> events);
+}
@@ -0,0 +1,255 @@
+package com.segurosargos.hotelbook.service;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.Locale;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+import javax.sql.DataSource;
+import org.postgresql.PGConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Service;
+import com.segurosargos.hotelbook.exception.InvalidBookingException;
+
+/*
+ * Servicio de exportación masiva de reservas en CSV comprimido con gzip, pensado para
+ * rangos de millones de filas que se procesan fuera de la aplicación.
+ *
+ * - En PostgreSQL se usa COPY (...) TO STDOUT: el servidor genera el CSV y el driver lo
+ *   copia directamente a la salida, sin crear objetos por fila.
+ * - En otros motores (H2 en pruebas) se recorre un ResultSet con fetch size y se escribe
+ *   el mismo CSV fila por fila.
+ *
+ * Las columnas salen de los mismos joins que findBookingDetailsBetweenDatesAndStatus.
+ * Al terminar se registra el volumen escrito y el throughput en MB/s.
+ */
+@Service
+public class BookingExportService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BookingExportService.class);
+
+    private static final String DEFAULT_STATUS = "CONFIRMED";
+
+    /*
+     * COPY no admite parámetros, así que el estatus se incluye como literal en la sentencia
+     * y solo se aceptan valores con este formato.
+     */
+    private static final Pattern STATUS_PATTERN = Pattern.compile("[A-Z_]{1,50}");
+
+    private static final int FETCH_SIZE = 1000;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final String HEADER = "booking_id,room_code,room_name,guest_first_name,guest_last_name,"
+            + "guest_email,check_in_date,check_out_date,total_price,status";
+
+    private static final String SELECT_BOOKING_DETAILS = "select "
+            + "    b.id as booking_id, "
+            + "    r.code as room_code, "
+            + "    r.name as room_name, "
+            + "    g.first_name as guest_first_name, "
+            + "    g.last_name as guest_last_name, "
+            + "    g.email as guest_email, "
+            + "    b.check_in_date as check_in_date, "
+            + "    b.check_out_date as check_out_date, "
+            + "    b.total_price as total_price, "
+            + "    b.status as status "
+            + "from bookings b "
+            + "join rooms r on r.id = b.room_id "
+            + "join guests g on g.id = b.guest_id "
+            + "where b.check_in_date >= %s "
+            + "  and b.check_out_date <= %s "
+            + "  and b.status = %s "
+            + "order by b.check_in_date, r.code";
+
+    private final DataSource dataSource;
+
+    public BookingExportService(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    /*
+     * Valida y normaliza el estatus de la exportación: sin estatus se exporta
+     * CONFIRMED; el resto se pasa a mayúsculas y debe cumplir STATUS_PATTERN.
+     * El controlador lo llama antes de construir la respuesta para que un estatus
+     * inválido se rechace con 400 y no después de enviar los encabezados.
+     */
+    public String resolveExportStatus(String status) {
+        String effectiveStatus = status != null && !status.isBlank()
+                ? status.trim().toUpperCase(Locale.ROOT)
+                : DEFAULT_STATUS;
+        if (!STATUS_PATTERN.matcher(effectiveStatus).matches()) {
+            throw new InvalidBookingException("El estatus indicado no es válido para la exportación.");
+        }
+        return effectiveStatus;
+    }
+
+    /*
+     * Escribe en outputStream el CSV comprimido de las reservas del rango indicado y
+     * devuelve el número de filas exportadas. No cierra outputStream.
+     */
+    public long exportBookingDetailsCsvGzip(LocalDate startDate,
+                                           LocalDate endDate,
+                                           String status,
+                                           OutputStream outputStream) throws IOException {
+
+        String effectiveStatus = resolveExportStatus(status);
+
+        LOGGER.info("Iniciando exportación de reservas. startDate={}, endDate={}, status={}.",
+                startDate, endDate, effectiveStatus);
+
+        long startNanos = System.nanoTime();
+        CountingOutputStream compressedBytes = new CountingOutputStream(outputStream);
+        GZIPOutputStream gzip = new GZIPOutputStream(compressedBytes, BUFFER_SIZE);
+        CountingOutputStream csvBytes = new CountingOutputStream(new BufferedOutputStream(gzip, BUFFER_SIZE));
+
+        long rows;
+        String mode;
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        try {
+            if (connection.isWrapperFor(PGConnection.class)) {
+                mode = "COPY";
+                rows = copyOut(connection, startDate, endDate, effectiveStatus, csvBytes);
+            } else {
+                mode = "JDBC";
+                rows = writeWithCursor(connection, startDate, endDate, effectiveStatus, csvBytes);
+            }
+        } catch (SQLException ex) {
+            throw new IllegalStateException("No fue posible exportar las reservas.", ex);
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+
+        csvBytes.flush();
+        gzip.finish();
+        gzip.flush();
+
+        double seconds = Math.max(System.nanoTime() - startNanos, 1L) / 1_000_000_000.0;
+        LOGGER.info(
+                "Exportación de reservas completada ({}). filas={}, csvBytes={}, gzipBytes={}, "
+                        + "segundos={}, throughputCsv={} MB/s.",
+                mode, rows, csvBytes.getCount(), compressedBytes.getCount(),
+                String.format("%.3f", seconds),
+                String.format("%.2f", csvBytes.getCount() / (1024.0 * 1024.0) / seconds));
+
+        return rows;
+    }
+
+    private long copyOut(Connection connection,
+                         LocalDate startDate,
+                         LocalDate endDate,
+                         String status,
+                         OutputStream csvOutput) throws SQLException, IOException {
+
+        String query = String.format(SELECT_BOOKING_DETAILS,
+                dateLiteral(startDate), dateLiteral(endDate), "'" + status + "'");
+
+        return connection.unwrap(PGConnection.class)
+                .getCopyAPI()
+                .copyOut("COPY (" + query + ") TO STDOUT WITH (FORMAT csv, HEADER)", csvOutput);
+    }
+
+    private long writeWithCursor(Connection connection,
+                                 LocalDate startDate,
+                                 LocalDate endDate,
+                                 String status,
+                                 OutputStream csvOutput) throws SQLException, IOException {
+
+        Writer writer = new BufferedWriter(new OutputStreamWriter(csvOutput, StandardCharsets.UTF_8), BUFFER_SIZE);
+        writer.write(HEADER);
+        writer.write('\n');
+
+        long rows = 0;
+        String query = String.format(SELECT_BOOKING_DETAILS, "?", "?", "?");
+        try (PreparedStatement statement = connection.prepareStatement(query)) {
+            statement.setFetchSize(FETCH_SIZE);
+            statement.setObject(1, startDate);
+            statement.setObject(2, endDate);
+            statement.setString(3, status);
+
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    writer.write(Long.toString(resultSet.getLong(1)));
+                    for (int column = 2; column <= 6; column++) {
+                        writer.write(',');
+                        writer.write(csvField(resultSet.getString(column)));
+                    }
+                    writer.write(',');
+                    writer.write(resultSet.getObject(7, LocalDate.class).toString());
+                    writer.write(',');
+                    writer.write(resultSet.getObject(8, LocalDate.class).toString());
+                    writer.write(',');
+                    BigDecimal totalPrice = resultSet.getBigDecimal(9);
+                    writer.write(totalPrice != null ? totalPrice.toPlainString() : "");
+                    writer.write(',');
+                    writer.write(csvField(resultSet.getString(10)));
+                    writer.write('\n');
+                    rows++;
+                }
+            }
+        }
+        writer.flush();
+        return rows;
+    }
+
+    private static String dateLiteral(LocalDate date) {
+        return "date '" + date + "'";
+    }
+
+    /*
+     * Mismo criterio de comillas que COPY en formato CSV: se encierra el valor entre
+     * comillas si contiene coma, comillas o saltos de línea.
+     */
+    static String csvField(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0
+                && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    /*
+     * Cuenta los bytes que pasan por el stream para calcular el throughput.
+     */
+    private static final class CountingOutputStream extends FilterOutputStream {
+
+        private long count;
+
+        private CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        private long getCount() {
+            return count;
+        }
+    }
+}
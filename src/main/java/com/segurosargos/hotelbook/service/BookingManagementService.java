@@ -1,12 +1,31 @@
 package com.segurosargos.hotelbook.service;
 
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Consumer;
 import com.segurosargos.hotelbook.dto.BookingStatusChangeResponseDto;
+import com.segurosargos.hotelbook.dto.BulkBookingStatusChangeItemDto;
+import com.segurosargos.hotelbook.dto.BulkBookingStatusChangeResponseDto;
+import com.segurosargos.hotelbook.exception.BookingConflictException;
 import com.segurosargos.hotelbook.exception.BookingNotFoundException;
 import com.segurosargos.hotelbook.exception.InvalidBookingException;
 import com.segurosargos.hotelbook.model.BookingEntity;
+import com.segurosargos.hotelbook.model.BookingEventEntity;
 import com.segurosargos.hotelbook.model.GuestEntity;
 import com.segurosargos.hotelbook.model.RoomEntity;
+import com.segurosargos.hotelbook.repository.BookingEventJpaRepository;
 import com.segurosargos.hotelbook.repository.BookingJpaRepository;
+import com.segurosargos.hotelbook.repository.GuestRepository;
+import com.segurosargos.hotelbook.repository.RoomJpaRepository;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -17,6 +36,23 @@ import org.springframework.transaction.annotation.Transactional;
 /*
  * Servicio de gestión de reservas enfocado en flujos transaccionales que
  * modifican de forma consistente la información de Booking, Guest y Room.
+ *
+ * El contador de reservas confirmadas del huésped no se modifica en la entidad: se
+ * actualiza con un UPDATE atómico al final de la transacción, para que las reservas
+ * concurrentes de un mismo huésped solo compitan por el bloqueo de su fila durante el
+ * commit y no pierdan incrementos.
+ *
+ * Cada cambio de estatus deja además una fila en el outbox booking_events dentro de la
+ * misma transacción; BookingEventDispatcher la entrega después a los consumidores.
+ *
+ * Al confirmar se bloquea la fila de la habitación (SELECT ... FOR UPDATE) y, con el
+ * bloqueo tomado, se busca en la base de datos otra reserva confirmada que se solape.
+ * Así dos confirmaciones de la misma habitación desde instancias distintas se
+ * serializan aunque las estancias caigan en particiones mensuales distintas de
+ * bookings, donde las restricciones de exclusión por partición no las detectan.
+ * En la confirmación masiva, los solapes entre reservas de la misma solicitud, que aún
+ * no están confirmadas en la base de datos, se detectan con un árbol de intervalos por
+ * habitación que solo vive durante la llamada.
  */
 @Service
 @RequiredArgsConstructor
@@ -26,11 +62,23 @@ public class BookingManagementService {
 
     private final BookingJpaRepository bookingJpaRepository;
 
+    private final BookingMonthlyStatsService bookingMonthlyStatsService;
+
+    private final GuestRepository guestRepository;
+
+    private final RoomJpaRepository roomJpaRepository;
+
+    private final BookingEventJpaRepository bookingEventJpaRepository;
+
     /*
      * Confirma una reserva identificada por su id. La operación actualiza:
      * - El estatus de la reserva a CONFIRMED.
      * - El contador de reservas confirmadas del huésped asociado.
      * - La fecha de última reserva confirmada en la habitación asociada.
+     * - Los agregados mensuales de booking_monthly_stats.
+     *
+     * Antes de confirmar se verifica que la estancia no se solape con otra reserva
+     * confirmada de la misma habitación; si se solapa se lanza BookingConflictException.
      *
      * Todos los cambios se aplican dentro de una única transacción.
      */
@@ -57,6 +105,7 @@ public class BookingManagementService {
      * - El estatus de la reserva a CANCELLED.
      * - El contador de reservas confirmadas del huésped, decrementando en uno
      *   si la reserva estaba previamente confirmada.
+     * - Los agregados mensuales de booking_monthly_stats.
      *
      * Los cambios se aplican dentro de una única transacción.
      */
@@ -72,47 +121,101 @@ public class BookingManagementService {
             throw new InvalidBookingException("La reserva con id " + bookingId + " ya está cancelada.");
         }
 
-        booking.setStatus("CANCELLED");
+        applyCancellation(booking);
 
-        GuestEntity guest = booking.getGuest();
-        if (guest != null && "CONFIRMED".equalsIgnoreCase(previousStatus)) {
-            Integer currentCount = guest.getConfirmedBookingsCount();
-            if (currentCount == null) {
-                currentCount = 0;
+        bookingJpaRepository.save(booking);
+        bookingMonthlyStatsService.applyStatusChange(
+                booking.getCheckInDate(), booking.getTotalPrice(), previousStatus, booking.getStatus());
+        publishStatusChange(booking, previousStatus);
+        updateConfirmedBookingsCounts(List.of(booking), Collections.singletonMap(booking.getId(), previousStatus));
+
+        BookingStatusChangeResponseDto response = toStatusChangeResponse(booking, previousStatus);
+
+        LOGGER.info("Cancelación de la reserva con id {} completada. Estatus previo={}, nuevo estatus={}.",
+                bookingId, previousStatus, booking.getStatus());
+
+        return response;
+    }
+
+    /*
+     * Confirma varias reservas en una sola transacción y devuelve el resultado de cada una.
+     *
+     * Las reservas se cargan con su huésped y su habitación en una sola consulta. Primero
+     * se validan todas; las que no existen, ya están confirmadas o se solapan con otra
+     * reserva confirmada (incluidas las aceptadas antes en la misma solicitud) se reportan
+     * y no se modifican. Después se aplican los cambios en
+     * memoria y se escriben con un único flush, que Hibernate envía en lotes JDBC.
+     */
+    @Transactional
+    @PreAuthorize("hasAnyRole('ADMIN','STAFF')")
+    public BulkBookingStatusChangeResponseDto confirmBookings(List<Long> bookingIds) {
+        LOGGER.info("Iniciando confirmación masiva de {} reservas.", bookingIds.size());
+
+        Set<Long> ids = new LinkedHashSet<>(bookingIds);
+        Map<Long, BookingEntity> bookings = loadBookings(ids);
+        Map<Long, BulkBookingStatusChangeItemDto> results = new HashMap<>();
+        List<BookingEntity> accepted = new ArrayList<>();
+        Map<Long, StayIntervalTree> acceptedStays = new HashMap<>();
+
+        lockRooms(bookings.values());
+
+        for (Long id : ids) {
+            BookingEntity booking = bookings.get(id);
+            if (booking == null) {
+                results.put(id, rejectedItem(id, "NOT_FOUND", "No se encontró la reserva con id " + id));
+                continue;
+            }
+            if ("CONFIRMED".equalsIgnoreCase(booking.getStatus())) {
+                results.put(id, rejectedItem(id, "INVALID_STATUS", "La reserva con id " + id + " ya está confirmada."));
+                continue;
             }
-            if (currentCount > 0) {
-                guest.setConfirmedBookingsCount(currentCount - 1);
+            RoomEntity room = booking.getRoom();
+            if (room != null) {
+                try {
+                    verifyNoConfirmedOverlap(booking);
+                    reserveInRequest(acceptedStays, booking);
+                } catch (BookingConflictException ex) {
+                    results.put(id, rejectedItem(id, "CONFLICT", ex.getMessage()));
+                    continue;
+                }
             }
+            accepted.add(booking);
         }
 
-        bookingJpaRepository.save(booking);
+        applyBulkChanges(accepted, this::applyConfirmation, results);
 
-        GuestEntity effectiveGuest = booking.getGuest();
-        RoomEntity room = booking.getRoom();
+        return toBulkResponse(ids, results, accepted.size());
+    }
 
-        Long guestId = effectiveGuest != null ? effectiveGuest.getId() : null;
-        String guestEmail = effectiveGuest != null ? effectiveGuest.getEmail() : null;
-        Integer confirmedCount = effectiveGuest != null ? effectiveGuest.getConfirmedBookingsCount() : null;
+    /*
+     * Cancela varias reservas en una sola transacción y devuelve el resultado de cada una.
+     * Las reservas inexistentes o ya canceladas se reportan y no se modifican; el resto
+     * se actualiza en memoria y se escribe con un único flush en lotes JDBC.
+     */
+    @Transactional
+    @PreAuthorize("hasAnyRole('ADMIN','STAFF')")
+    public BulkBookingStatusChangeResponseDto cancelBookings(List<Long> bookingIds) {
+        LOGGER.info("Iniciando cancelación masiva de {} reservas.", bookingIds.size());
 
-        Long roomId = room != null ? room.getId() : null;
-        String roomCode = room != null ? room.getCode() : null;
+        Set<Long> ids = new LinkedHashSet<>(bookingIds);
+        Map<Long, BookingEntity> bookings = loadBookings(ids);
+        Map<Long, BulkBookingStatusChangeItemDto> results = new HashMap<>();
+        List<BookingEntity> accepted = new ArrayList<>();
 
-        BookingStatusChangeResponseDto response = BookingStatusChangeResponseDto.builder()
-                .bookingId(booking.getId())
-                .previousStatus(previousStatus)
-                .newStatus(booking.getStatus())
-                .guestId(guestId)
-                .guestEmail(guestEmail)
-                .guestConfirmedBookingsCount(confirmedCount)
-                .roomId(roomId)
-                .roomCode(roomCode)
-                .roomLastBookingDate(room != null ? room.getLastBookingDate() : null)
-                .build();
+        for (Long id : ids) {
+            BookingEntity booking = bookings.get(id);
+            if (booking == null) {
+                results.put(id, rejectedItem(id, "NOT_FOUND", "No se encontró la reserva con id " + id));
+            } else if ("CANCELLED".equalsIgnoreCase(booking.getStatus())) {
+                results.put(id, rejectedItem(id, "INVALID_STATUS", "La reserva con id " + id + " ya está cancelada."));
+            } else {
+                accepted.add(booking);
+            }
+        }
 
-        LOGGER.info("Cancelación de la reserva con id {} completada. Estatus previo={}, nuevo estatus={}.",
-                bookingId, previousStatus, booking.getStatus());
+        applyBulkChanges(accepted, this::applyCancellation, results);
 
-        return response;
+        return toBulkResponse(ids, results, accepted.size());
     }
 
     /*
@@ -132,54 +235,250 @@ public class BookingManagementService {
             throw new InvalidBookingException("La reserva con id " + bookingId + " ya está confirmada.");
         }
 
-        booking.setStatus("CONFIRMED");
+        RoomEntity room = booking.getRoom();
+        if (room != null) {
+            roomJpaRepository.lockAllByIdIn(List.of(room.getId()));
+            verifyNoConfirmedOverlap(booking);
+        }
 
-        GuestEntity guest = booking.getGuest();
-        if (guest != null) {
-            Integer currentCount = guest.getConfirmedBookingsCount();
-            if (currentCount == null) {
-                currentCount = 0;
+        applyConfirmation(booking);
+
+        bookingJpaRepository.save(booking);
+        bookingMonthlyStatsService.applyStatusChange(
+                booking.getCheckInDate(), booking.getTotalPrice(), previousStatus, booking.getStatus());
+        publishStatusChange(booking, previousStatus);
+        updateConfirmedBookingsCounts(List.of(booking), Collections.singletonMap(booking.getId(), previousStatus));
+
+        if (simulateError) {
+            LOGGER.error("Se lanzará una excepción intencional para demostrar el rollback de la transacción.");
+            throw new IllegalStateException("Falla intencional después de confirmar la reserva con id " + bookingId);
+        }
+
+        BookingStatusChangeResponseDto response = toStatusChangeResponse(booking, previousStatus);
+
+        LOGGER.info("Confirmación de la reserva con id {} completada. Estatus previo={}, nuevo estatus={}.",
+                bookingId, previousStatus, booking.getStatus());
+
+        return response;
+    }
+
+    /*
+     * Bloquea, en orden de id, las habitaciones de las reservas indicadas.
+     */
+    private void lockRooms(Collection<BookingEntity> bookings) {
+        Set<Long> roomIds = new TreeSet<>();
+        for (BookingEntity booking : bookings) {
+            if (booking.getRoom() != null) {
+                roomIds.add(booking.getRoom().getId());
             }
-            guest.setConfirmedBookingsCount(currentCount + 1);
         }
+        if (!roomIds.isEmpty()) {
+            roomJpaRepository.lockAllByIdIn(roomIds);
+        }
+    }
+
+    /*
+     * Con la habitación ya bloqueada, comprueba en la base de datos que ninguna otra
+     * reserva confirmada se solape con la estancia. Lanza BookingConflictException si
+     * la hay.
+     */
+    private void verifyNoConfirmedOverlap(BookingEntity booking) {
+        Long roomId = booking.getRoom().getId();
+        if (bookingJpaRepository.existsOverlappingStay(roomId, booking.getId(),
+                booking.getCheckInDate(), booking.getCheckOutDate(), "CONFIRMED")) {
+            throw new BookingConflictException(
+                    "La reserva con id " + booking.getId() + " se solapa con otra reserva confirmada de la habitación "
+                            + roomId + " entre " + booking.getCheckInDate() + " y " + booking.getCheckOutDate() + ".");
+        }
+    }
+
+    /*
+     * Registra la estancia entre las aceptadas de una confirmación masiva. Lanza
+     * BookingConflictException si se solapa con otra reserva aceptada antes en la misma
+     * solicitud para la misma habitación.
+     */
+    private void reserveInRequest(Map<Long, StayIntervalTree> acceptedStays, BookingEntity booking) {
+        Long roomId = booking.getRoom().getId();
+        long start = booking.getCheckInDate().toEpochDay();
+        long end = booking.getCheckOutDate().toEpochDay();
+        StayIntervalTree stays = acceptedStays.computeIfAbsent(roomId, id -> new StayIntervalTree());
+
+        Long conflictingBookingId = stays.findOverlap(start, end, booking.getId());
+        if (conflictingBookingId != null) {
+            throw new BookingConflictException(
+                    "La reserva con id " + booking.getId() + " se solapa con la reserva " + conflictingBookingId
+                            + " de la misma solicitud en la habitación " + roomId + " entre "
+                            + booking.getCheckInDate() + " y " + booking.getCheckOutDate() + ".");
+        }
+        stays.insert(booking.getId(), start, end);
+    }
+
+    /*
+     * Cambios en memoria de una confirmación: estatus y fecha de última reserva de la
+     * habitación. El contador del huésped se actualiza en updateConfirmedBookingsCounts.
+     */
+    private void applyConfirmation(BookingEntity booking) {
+        booking.setStatus("CONFIRMED");
 
         RoomEntity room = booking.getRoom();
         if (room != null) {
             room.setLastBookingDate(booking.getCheckInDate());
         }
+    }
 
-        bookingJpaRepository.save(booking);
+    /*
+     * Cambio en memoria de una cancelación: estatus. Si la reserva estaba confirmada, el
+     * contador del huésped se descuenta en updateConfirmedBookingsCounts.
+     */
+    private void applyCancellation(BookingEntity booking) {
+        booking.setStatus("CANCELLED");
+    }
 
-        if (simulateError) {
-            LOGGER.error("Se lanzará una excepción intencional para demostrar el rollback de la transacción.");
-            throw new IllegalStateException("Falla intencional después de confirmar la reserva con id " + bookingId);
+    /*
+     * Suma a cada huésped la diferencia de reservas confirmadas que dejan los cambios de
+     * estatus, con un UPDATE atómico por huésped en orden de id para que dos transacciones
+     * no se bloqueen mutuamente.
+     *
+     * No se vuelve a leer el contador: para la respuesta se aplica el mismo delta, con el
+     * mismo mínimo de cero, al valor que se cargó con la reserva. Si otra transacción
+     * cambió el contador entre esa lectura y el UPDATE, la respuesta no lo refleja, pero
+     * la fila sí queda con el valor correcto.
+     */
+    private void updateConfirmedBookingsCounts(List<BookingEntity> bookings, Map<Long, String> previousStatuses) {
+        Map<Long, Integer> deltas = new TreeMap<>();
+        Map<Long, GuestEntity> guests = new HashMap<>();
+
+        for (BookingEntity booking : bookings) {
+            GuestEntity guest = booking.getGuest();
+            int delta = confirmedCount(booking.getStatus()) - confirmedCount(previousStatuses.get(booking.getId()));
+            if (guest != null && delta != 0) {
+                deltas.merge(guest.getId(), delta, Integer::sum);
+                guests.put(guest.getId(), guest);
+            }
         }
 
-        GuestEntity effectiveGuest = booking.getGuest();
-        RoomEntity effectiveRoom = booking.getRoom();
+        deltas.values().removeIf(delta -> delta == 0);
 
-        Long guestId = effectiveGuest != null ? effectiveGuest.getId() : null;
-        String guestEmail = effectiveGuest != null ? effectiveGuest.getEmail() : null;
-        Integer confirmedCount = effectiveGuest != null ? effectiveGuest.getConfirmedBookingsCount() : null;
+        for (Map.Entry<Long, Integer> entry : deltas.entrySet()) {
+            if (guestRepository.addToConfirmedBookingsCount(entry.getKey(), entry.getValue()) == 0) {
+                LOGGER.warn("No se encontró el huésped {} para ajustar su contador de reservas confirmadas.",
+                        entry.getKey());
+                continue;
+            }
+            GuestEntity guest = guests.get(entry.getKey());
+            int current = guest.getConfirmedBookingsCount() != null ? guest.getConfirmedBookingsCount() : 0;
+            guest.setConfirmedBookingsCount(Math.max(current + entry.getValue(), 0));
+        }
+    }
+
+    private static int confirmedCount(String status) {
+        return "CONFIRMED".equalsIgnoreCase(status) ? 1 : 0;
+    }
 
-        Long roomId = effectiveRoom != null ? effectiveRoom.getId() : null;
-        String roomCode = effectiveRoom != null ? effectiveRoom.getCode() : null;
+    private Map<Long, BookingEntity> loadBookings(Set<Long> ids) {
+        Map<Long, BookingEntity> bookings = new HashMap<>();
+        for (BookingEntity booking : bookingJpaRepository.findAllWithRoomAndGuestByIdIn(ids)) {
+            bookings.put(booking.getId(), booking);
+        }
+        return bookings;
+    }
 
-        BookingStatusChangeResponseDto response = BookingStatusChangeResponseDto.builder()
+    /*
+     * Aplica el cambio a cada reserva aceptada, escribe todo con un único flush y después
+     * actualiza los agregados mensuales y los contadores de los huéspedes y publica los
+     * eventos de cambio de estatus.
+     */
+    private void applyBulkChanges(List<BookingEntity> accepted,
+                                  Consumer<BookingEntity> change,
+                                  Map<Long, BulkBookingStatusChangeItemDto> results) {
+        List<BookingMonthlyStatsService.StatusChange> statsChanges = new ArrayList<>(accepted.size());
+        Map<Long, String> previousStatuses = new HashMap<>();
+
+        for (BookingEntity booking : accepted) {
+            String previousStatus = booking.getStatus();
+            previousStatuses.put(booking.getId(), previousStatus);
+            change.accept(booking);
+            statsChanges.add(new BookingMonthlyStatsService.StatusChange(
+                    booking.getCheckInDate(), booking.getTotalPrice(), previousStatus, booking.getStatus()));
+        }
+
+        bookingJpaRepository.flush();
+        bookingMonthlyStatsService.applyStatusChanges(statsChanges);
+        updateConfirmedBookingsCounts(accepted, previousStatuses);
+
+        for (BookingEntity booking : accepted) {
+            String previousStatus = previousStatuses.get(booking.getId());
+            publishStatusChange(booking, previousStatus);
+            results.put(booking.getId(), BulkBookingStatusChangeItemDto.builder()
+                    .bookingId(booking.getId())
+                    .outcome("UPDATED")
+                    .change(toStatusChangeResponse(booking, previousStatus))
+                    .build());
+        }
+    }
+
+    private BulkBookingStatusChangeItemDto rejectedItem(Long bookingId, String outcome, String message) {
+        return BulkBookingStatusChangeItemDto.builder()
+                .bookingId(bookingId)
+                .outcome(outcome)
+                .message(message)
+                .build();
+    }
+
+    private BulkBookingStatusChangeResponseDto toBulkResponse(Set<Long> ids,
+                                                              Map<Long, BulkBookingStatusChangeItemDto> results,
+                                                              int updated) {
+        List<BulkBookingStatusChangeItemDto> orderedResults = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            orderedResults.add(results.get(id));
+        }
+
+        LOGGER.info("Cambio de estatus masivo completado. solicitadas={}, modificadas={}, rechazadas={}.",
+                ids.size(), updated, ids.size() - updated);
+
+        return BulkBookingStatusChangeResponseDto.builder()
+                .requested(ids.size())
+                .updated(updated)
+                .rejected(ids.size() - updated)
+                .results(orderedResults)
+                .build();
+    }
+
+    private BookingStatusChangeResponseDto toStatusChangeResponse(BookingEntity booking, String previousStatus) {
+        GuestEntity guest = booking.getGuest();
+        RoomEntity room = booking.getRoom();
+
+        return BookingStatusChangeResponseDto.builder()
                 .bookingId(booking.getId())
                 .previousStatus(previousStatus)
                 .newStatus(booking.getStatus())
-                .guestId(guestId)
-                .guestEmail(guestEmail)
-                .guestConfirmedBookingsCount(confirmedCount)
-                .roomId(roomId)
-                .roomCode(roomCode)
-                .roomLastBookingDate(effectiveRoom != null ? effectiveRoom.getLastBookingDate() : null)
+                .guestId(guest != null ? guest.getId() : null)
+                .guestEmail(guest != null ? guest.getEmail() : null)
+                .guestConfirmedBookingsCount(guest != null ? guest.getConfirmedBookingsCount() : null)
+                .roomId(room != null ? room.getId() : null)
+                .roomCode(room != null ? room.getCode() : null)
+                .roomLastBookingDate(room != null ? room.getLastBookingDate() : null)
                 .build();
+    }
 
-        LOGGER.info("Confirmación de la reserva con id {} completada. Estatus previo={}, nuevo estatus={}.",
-                bookingId, previousStatus, booking.getStatus());
+    /*
+     * Registra el cambio de estatus de la reserva en el outbox booking_events; el INSERT
+     * se envía con el flush de la transacción, junto con el resto de escrituras. Las
+     * estructuras derivadas en memoria lo reciben de BookingEventDispatcher en cada
+     * instancia, solo si la transacción se confirma.
+     */
+    private void publishStatusChange(BookingEntity booking, String previousStatus) {
+        RoomEntity room = booking.getRoom();
+        Long roomId = room != null ? room.getId() : null;
 
-        return response;
+        bookingEventJpaRepository.save(BookingEventEntity.builder()
+                .bookingId(booking.getId())
+                .roomId(roomId)
+                .checkInDate(booking.getCheckInDate())
+                .checkOutDate(booking.getCheckOutDate())
+                .previousStatus(previousStatus)
+                .newStatus(booking.getStatus())
+                .createdAt(Instant.now())
+                .build());
     }
 }
@@ -0,0 +1,49 @@
+package com.segurosargos.hotelbook.service;
+
+import java.time.YearMonth;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/*
+ * Tareas de mantenimiento de la tabla booking_monthly_stats.
+ *
+ * - Al arrancar, si la tabla está vacía se rellena con todo el historial de bookings;
+ *   a partir de ese momento los reportes leen los agregados.
+ * - Cada noche se recalculan el mes anterior y el mes en curso para incorporar
+ *   cambios hechos fuera de la aplicación (cargas o correcciones directas en la base).
+ * - En ambos casos se crean de antemano las filas vacías de los meses próximos.
+ */
+@Component
+public class BookingMonthlyStatsJob {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BookingMonthlyStatsJob.class);
+
+    private static final int UPCOMING_MONTHS = 18;
+
+    private final BookingMonthlyStatsService bookingMonthlyStatsService;
+
+    public BookingMonthlyStatsJob(BookingMonthlyStatsService bookingMonthlyStatsService) {
+        this.bookingMonthlyStatsService = bookingMonthlyStatsService;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!bookingMonthlyStatsService.hasStats()) {
+            LOGGER.info("La tabla booking_monthly_stats está vacía. Se ejecuta el backfill desde bookings.");
+            bookingMonthlyStatsService.backfill();
+        }
+        bookingMonthlyStatsService.ensureUpcomingMonths(UPCOMING_MONTHS);
+        bookingMonthlyStatsService.markReady();
+    }
+
+    @Scheduled(cron = "${hotelbook.monthly-stats.refresh-cron:0 30 3 * * *}")
+    public void refreshRecentMonths() {
+        YearMonth currentMonth = YearMonth.now();
+        bookingMonthlyStatsService.refreshMonths(currentMonth.minusMonths(1), currentMonth);
+        bookingMonthlyStatsService.ensureUpcomingMonths(UPCOMING_MONTHS);
+    }
+}
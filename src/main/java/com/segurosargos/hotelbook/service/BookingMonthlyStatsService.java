@@ -0,0 +1,228 @@
+package com.segurosargos.hotelbook.service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import com.segurosargos.hotelbook.repository.BookingJpaRepository;
+import com.segurosargos.hotelbook.repository.BookingMonthlyStatsJpaRepository;
+import com.segurosargos.hotelbook.repository.MonthlyBookingStatsView;
+
+/*
+ * Servicio que mantiene la tabla de agregados booking_monthly_stats.
+ *
+ * - applyStatusChange mueve una reserva del agregado de su estatus previo al del nuevo
+ *   estatus, dentro de la misma transacción que cambia la reserva.
+ * - refreshMonths recalcula desde bookings los agregados de un rango de meses; el
+ *   backfill inicial y la actualización nocturna se apoyan en él.
+ *
+ * Las filas de agregados se comparten entre todas las reservas de un mes, así que se
+ * actualizan siempre en el mismo orden (mes y después estatus), tanto para una reserva
+ * como para un lote: dos transacciones que tocan las mismas filas esperan una a la otra
+ * en lugar de bloquearse mutuamente. Si el UPDATE no encuentra la fila, porque todavía
+ * no existe o porque refreshMonths la borró mientras se esperaba su bloqueo, se crea la
+ * fila y se repite el UPDATE; así el delta no se pierde.
+ *
+ * Mientras no se haya verificado que la tabla está poblada, isReady devuelve false y
+ * los reportes usan la agregación directa sobre bookings.
+ */
+@Service
+public class BookingMonthlyStatsService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BookingMonthlyStatsService.class);
+
+    /*
+     * Estatus que maneja la aplicación; se usan para crear de antemano las filas de los meses próximos.
+     */
+    private static final List<String> KNOWN_STATUSES = List.of("CREATED", "CONFIRMED", "CANCELLED");
+
+    private static final int MAX_UPDATE_ATTEMPTS = 3;
+
+    private final BookingMonthlyStatsJpaRepository bookingMonthlyStatsJpaRepository;
+
+    private final BookingJpaRepository bookingJpaRepository;
+
+    private volatile boolean ready;
+
+    public BookingMonthlyStatsService(BookingMonthlyStatsJpaRepository bookingMonthlyStatsJpaRepository,
+                                      BookingJpaRepository bookingJpaRepository) {
+        this.bookingMonthlyStatsJpaRepository = bookingMonthlyStatsJpaRepository;
+        this.bookingJpaRepository = bookingJpaRepository;
+    }
+
+    /*
+     * Aplica al agregado mensual el cambio de estatus de una reserva. Debe invocarse dentro
+     * de la transacción que modifica la reserva para que ambos cambios se confirmen o
+     * reviertan juntos.
+     */
+    @Transactional
+    public void applyStatusChange(LocalDate checkInDate,
+                                  BigDecimal totalPrice,
+                                  String previousStatus,
+                                  String newStatus) {
+        applyStatusChanges(List.of(new StatusChange(checkInDate, totalPrice, previousStatus, newStatus)));
+    }
+
+    /*
+     * Variante de applyStatusChange para varios cambios a la vez: los deltas se acumulan
+     * por estatus y mes, de modo que se ejecuta una actualización por agregado afectado
+     * en lugar de dos por reserva. Las filas se actualizan en el orden de StatsKey.
+     */
+    @Transactional
+    public void applyStatusChanges(List<StatusChange> changes) {
+        Map<StatsKey, StatsDelta> deltas = new TreeMap<>();
+        for (StatusChange change : changes) {
+            if (change.checkInDate() == null || change.newStatus() == null
+                    || change.newStatus().equals(change.previousStatus())) {
+                continue;
+            }
+            YearMonth month = YearMonth.from(change.checkInDate());
+            BigDecimal revenue = change.totalPrice() != null ? change.totalPrice() : BigDecimal.ZERO;
+            if (change.previousStatus() != null) {
+                accumulate(deltas, new StatsKey(change.previousStatus(), month), -1, revenue.negate());
+            }
+            accumulate(deltas, new StatsKey(change.newStatus(), month), 1, revenue);
+        }
+
+        for (Map.Entry<StatsKey, StatsDelta> entry : deltas.entrySet()) {
+            StatsDelta delta = entry.getValue();
+            if (delta.count != 0 || delta.revenue.signum() != 0) {
+                addToStats(entry.getKey(), delta.count, delta.revenue);
+            }
+        }
+    }
+
+    /*
+     * Recupera los agregados del estatus indicado para los meses [from, to].
+     */
+    @Transactional(readOnly = true)
+    public List<MonthlyBookingStatsView> findStats(YearMonth from, YearMonth to, String status) {
+        return bookingMonthlyStatsJpaRepository.findStatsBetweenMonthKeys(monthKey(from), monthKey(to), status);
+    }
+
+    /*
+     * Recalcula desde bookings los agregados de los meses [from, to] para todos los estatus.
+     */
+    @Transactional
+    public void refreshMonths(YearMonth from, YearMonth to) {
+        if (from.isAfter(to)) {
+            return;
+        }
+        int deleted = bookingMonthlyStatsJpaRepository.deleteStatsBetweenMonthKeys(monthKey(from), monthKey(to));
+        int inserted = bookingMonthlyStatsJpaRepository.insertStatsAggregatedFromBookings(
+                from.atDay(1), to.plusMonths(1).atDay(1));
+
+        LOGGER.info("Agregados mensuales de reservas recalculados para [{}, {}]. eliminados={}, insertados={}.",
+                from, to, deleted, inserted);
+    }
+
+    /*
+     * Puebla la tabla de agregados con todo el historial de bookings, hasta el mes en curso.
+     */
+    @Transactional
+    public void backfill() {
+        LocalDate earliest = bookingJpaRepository.findEarliestCheckInDate();
+        YearMonth currentMonth = YearMonth.now();
+        YearMonth from = earliest != null ? YearMonth.from(earliest) : currentMonth;
+        refreshMonths(from.isAfter(currentMonth) ? currentMonth : from, currentMonth);
+    }
+
+    /*
+     * Crea, con contadores en cero, las filas que falten para el mes en curso y los
+     * monthsAhead meses siguientes en cada estatus conocido. Así las actualizaciones
+     * incrementales de esos meses solo ejecutan el UPDATE sobre una fila existente.
+     */
+    @Transactional
+    public void ensureUpcomingMonths(int monthsAhead) {
+        YearMonth month = YearMonth.now();
+        for (int offset = 0; offset <= monthsAhead; offset++, month = month.plusMonths(1)) {
+            for (String status : KNOWN_STATUSES) {
+                bookingMonthlyStatsJpaRepository.insertEmptyStatsIfMissing(
+                        status, month.getYear(), month.getMonthValue());
+            }
+        }
+    }
+
+    /*
+     * Indica si la tabla de agregados tiene datos.
+     */
+    @Transactional(readOnly = true)
+    public boolean hasStats() {
+        return bookingMonthlyStatsJpaRepository.count() > 0;
+    }
+
+    /*
+     * Indica si los reportes pueden leer los agregados de la tabla.
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    public void markReady() {
+        ready = true;
+    }
+
+    /*
+     * Suma los deltas a la fila del agregado. Si el UPDATE no afecta ninguna fila, crea la
+     * fila vacía y lo repite.
+     */
+    private void addToStats(StatsKey key, long countDelta, BigDecimal revenueDelta) {
+        int year = key.month().getYear();
+        int month = key.month().getMonthValue();
+        for (int attempt = 1; attempt <= MAX_UPDATE_ATTEMPTS; attempt++) {
+            if (bookingMonthlyStatsJpaRepository.addToStats(key.status(), year, month, countDelta, revenueDelta) > 0) {
+                return;
+            }
+            LOGGER.debug("No existe la fila de agregados {} {}; se crea y se repite la actualización. intento={}.",
+                    key.status(), key.month(), attempt);
+            bookingMonthlyStatsJpaRepository.insertEmptyStatsIfMissing(key.status(), year, month);
+        }
+        throw new IllegalStateException("No se pudo actualizar el agregado mensual " + key.status() + " "
+                + key.month() + " tras " + MAX_UPDATE_ATTEMPTS + " intentos.");
+    }
+
+    private static void accumulate(Map<StatsKey, StatsDelta> deltas, StatsKey key,
+                                   long countDelta, BigDecimal revenueDelta) {
+        StatsDelta delta = deltas.computeIfAbsent(key, k -> new StatsDelta());
+        delta.count += countDelta;
+        delta.revenue = delta.revenue.add(revenueDelta);
+    }
+
+    static int monthKey(YearMonth month) {
+        return month.getYear() * 12 + month.getMonthValue() - 1;
+    }
+
+    /*
+     * Cambio de estatus de una reserva para applyStatusChanges.
+     */
+    public record StatusChange(LocalDate checkInDate, BigDecimal totalPrice, String previousStatus, String newStatus) {
+    }
+
+    /*
+     * Fila de agregados; el orden natural (mes y después estatus) es el orden de bloqueo.
+     */
+    private record StatsKey(String status, YearMonth month) implements Comparable<StatsKey> {
+
+        private static final Comparator<StatsKey> ORDER =
+                Comparator.comparing(StatsKey::month).thenComparing(StatsKey::status);
+
+        @Override
+        public int compareTo(StatsKey other) {
+            return ORDER.compare(this, other);
+        }
+    }
+
+    private static final class StatsDelta {
+
+        private long count;
+
+        private BigDecimal revenue = BigDecimal.ZERO;
+    }
+}
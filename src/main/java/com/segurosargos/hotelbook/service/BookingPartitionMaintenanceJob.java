@@ -0,0 +1,223 @@
+package com.segurosargos.hotelbook.service;
+
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/*
+ * Mantenimiento de las particiones mensuales de bookings (ver V11 de PostgreSQL).
+ *
+ * - Crea por adelantado las particiones del mes en curso y de los monthsAhead meses
+ *   siguientes. Si la partición default ya tiene reservas de ese mes, se mueven a la
+ *   nueva partición antes de adjuntarla.
+ * - Si retentionMonths es mayor que cero, separa (DETACH) las particiones anteriores a
+ *   ese número de meses. La tabla separada se conserva como archivo con el mismo
+ *   nombre; sus reservas dejan de aparecer en las consultas sobre bookings, aunque los
+ *   agregados de booking_monthly_stats de esos meses se mantienen.
+ *
+ * Varias instancias pueden ejecutar el mantenimiento a la vez (al arrancar o con el
+ * cron). Cada creación y cada separación toma pg_advisory_xact_lock con una llave fija
+ * y, con el bloqueo tomado, vuelve a comprobar si la partición sigue pendiente; la
+ * instancia que llega después encuentra el trabajo hecho y no falla.
+ *
+ * En bases sin particionado (H2) no hace nada.
+ */
+@Component
+public class BookingPartitionMaintenanceJob {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BookingPartitionMaintenanceJob.class);
+
+    private static final Pattern PARTITION_NAME = Pattern.compile("bookings_p(\\d{6})");
+
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+
+    /*
+     * Llave del bloqueo consultivo que serializa el mantenimiento entre instancias.
+     */
+    private static final long MAINTENANCE_LOCK_KEY = 0x626f6f6b696e6773L;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final int monthsAhead;
+
+    private final int retentionMonths;
+
+    public BookingPartitionMaintenanceJob(JdbcTemplate jdbcTemplate,
+                                          PlatformTransactionManager transactionManager,
+                                          @Value("${hotelbook.bookings.partitions.months-ahead:12}") int monthsAhead,
+                                          @Value("${hotelbook.bookings.partitions.retention-months:0}") int retentionMonths) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.monthsAhead = monthsAhead;
+        this.retentionMonths = retentionMonths;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        maintainPartitions();
+    }
+
+    @Scheduled(cron = "${hotelbook.bookings.partitions.maintenance-cron:0 40 3 * * *}")
+    public void scheduledMaintenance() {
+        maintainPartitions();
+    }
+
+    /*
+     * Crea las particiones que falten y separa las que superan la retención configurada.
+     */
+    public void maintainPartitions() {
+        if (!isBookingsPartitioned()) {
+            LOGGER.debug("bookings no es una tabla particionada. No se realiza mantenimiento de particiones.");
+            return;
+        }
+
+        Set<YearMonth> existing = findPartitionMonths();
+        YearMonth currentMonth = YearMonth.now();
+
+        int created = 0;
+        for (int offset = 0; offset <= monthsAhead; offset++) {
+            YearMonth month = currentMonth.plusMonths(offset);
+            if (!existing.contains(month) && createPartition(month)) {
+                created++;
+            }
+        }
+
+        int detached = 0;
+        if (retentionMonths > 0) {
+            YearMonth oldestRetained = currentMonth.minusMonths(retentionMonths);
+            for (YearMonth month : existing) {
+                if (month.isBefore(oldestRetained) && detachPartition(month)) {
+                    detached++;
+                }
+            }
+        }
+
+        LOGGER.info("Mantenimiento de particiones de bookings completado. creadas={}, separadas={}.",
+                created, detached);
+    }
+
+    private boolean isBookingsPartitioned() {
+        String product = jdbcTemplate.execute(
+                (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+        if (!"PostgreSQL".equals(product)) {
+            return false;
+        }
+        Boolean partitioned = jdbcTemplate.queryForObject(
+                "select exists ("
+                        + "select 1 from pg_partitioned_table pt "
+                        + "join pg_class c on c.oid = pt.partrelid "
+                        + "where c.relname = 'bookings' and pg_table_is_visible(c.oid))",
+                Boolean.class);
+        return Boolean.TRUE.equals(partitioned);
+    }
+
+    private Set<YearMonth> findPartitionMonths() {
+        List<String> names = jdbcTemplate.queryForList(
+                "select c.relname from pg_inherits i "
+                        + "join pg_class c on c.oid = i.inhrelid "
+                        + "join pg_class p on p.oid = i.inhparent "
+                        + "where p.relname = 'bookings' and pg_table_is_visible(p.oid)",
+                String.class);
+
+        Set<YearMonth> months = new TreeSet<>();
+        for (String name : names) {
+            Matcher matcher = PARTITION_NAME.matcher(name);
+            if (matcher.matches()) {
+                months.add(YearMonth.parse(matcher.group(1), PARTITION_SUFFIX));
+            }
+        }
+        return months;
+    }
+
+    /*
+     * Indica si la partición existe y está adjunta a bookings.
+     */
+    private boolean isAttached(String partition) {
+        Boolean attached = jdbcTemplate.queryForObject(
+                "select exists ("
+                        + "select 1 from pg_inherits i "
+                        + "join pg_class c on c.oid = i.inhrelid "
+                        + "join pg_class p on p.oid = i.inhparent "
+                        + "where p.relname = 'bookings' and c.relname = ? and pg_table_is_visible(p.oid))",
+                Boolean.class, partition);
+        return Boolean.TRUE.equals(attached);
+    }
+
+    private void lockMaintenance() {
+        jdbcTemplate.queryForList("select pg_advisory_xact_lock(?)", MAINTENANCE_LOCK_KEY);
+    }
+
+    /*
+     * Crea la partición del mes como tabla independiente, le mueve las reservas del mes
+     * que estén en la partición default y la adjunta a bookings, todo en una transacción.
+     * Devuelve false si otra instancia ya la había creado.
+     */
+    private boolean createPartition(YearMonth month) {
+        String partition = partitionName(month);
+        String from = month.atDay(1).toString();
+        String to = month.plusMonths(1).atDay(1).toString();
+        String range = "check_in_date >= date '" + from + "' and check_in_date < date '" + to + "'";
+
+        return Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+            lockMaintenance();
+            if (isAttached(partition)) {
+                LOGGER.debug("La partición {} ya fue creada por otra instancia.", partition);
+                return false;
+            }
+
+            jdbcTemplate.execute("create table " + partition
+                    + " (like bookings including defaults including constraints)");
+            int moved = jdbcTemplate.update("insert into " + partition
+                    + " select * from bookings_default where " + range);
+            jdbcTemplate.update("delete from bookings_default where " + range);
+            jdbcTemplate.execute("alter table bookings attach partition " + partition
+                    + " for values from ('" + from + "') to ('" + to + "')");
+            jdbcTemplate.execute("alter table " + partition
+                    + " add constraint ex_" + partition + "_no_overlap exclude using gist ("
+                    + "room_id with =, daterange(check_in_date, check_out_date, '[)') with &&"
+                    + ") where (status = 'CONFIRMED')");
+
+            LOGGER.info("Partición {} creada. Reservas movidas desde bookings_default: {}.", partition, moved);
+            return true;
+        }));
+    }
+
+    /*
+     * Separa la partición del mes. Devuelve false si otra instancia ya la había separado.
+     */
+    private boolean detachPartition(YearMonth month) {
+        String partition = partitionName(month);
+        return Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+            lockMaintenance();
+            if (!isAttached(partition)) {
+                LOGGER.debug("La partición {} ya fue separada por otra instancia.", partition);
+                return false;
+            }
+
+            jdbcTemplate.execute("alter table bookings detach partition " + partition);
+            LOGGER.info("Partición {} separada de bookings; se conserva como tabla de archivo.", partition);
+            return true;
+        }));
+    }
+
+    static String partitionName(YearMonth month) {
+        return "bookings_p" + month.format(PARTITION_SUFFIX);
+    }
+}
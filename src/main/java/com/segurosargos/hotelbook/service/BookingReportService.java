@@ -1,11 +1,17 @@
 package com.segurosargos.hotelbook.service;
 
 import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import com.segurosargos.hotelbook.dto.BookingDetailResponseDto;
 import com.segurosargos.hotelbook.dto.MonthlyBookingStatsDto;
 import com.segurosargos.hotelbook.repository.BookingDetailView;
@@ -24,12 +30,16 @@ public class BookingReportService {
     /*
      * Estatus por defecto para filtrar reservas cuando no se indica explícitamente.
      */
-    private static final String DEFAULT_STATUS = "CONFIRMED";
+    static final String DEFAULT_STATUS = "CONFIRMED";
 
     private final BookingJpaRepository bookingJpaRepository;
 
-    public BookingReportService(BookingJpaRepository bookingJpaRepository) {
+    private final BookingMonthlyStatsService bookingMonthlyStatsService;
+
+    public BookingReportService(BookingJpaRepository bookingJpaRepository,
+                                BookingMonthlyStatsService bookingMonthlyStatsService) {
         this.bookingJpaRepository = bookingJpaRepository;
+        this.bookingMonthlyStatsService = bookingMonthlyStatsService;
     }
 
     /*
@@ -58,9 +68,57 @@ public class BookingReportService {
                 .collect(Collectors.toList());
     }
 
+    /*
+     * Recorre los detalles de reserva del rango indicado sin cargarlos en memoria: cada
+     * fila se convierte y se entrega a rowConsumer en cuanto llega de la base de datos.
+     * Devuelve el número de filas entregadas.
+     *
+     * Se ejecuta en una transacción de solo lectura porque el cursor del driver solo
+     * existe mientras la transacción está abierta.
+     */
+    @Transactional(readOnly = true)
+    public long streamBookingDetails(LocalDate startDate,
+                                     LocalDate endDate,
+                                     String status,
+                                     Consumer<BookingDetailResponseDto> rowConsumer) {
+
+        LOGGER.info(
+                "Transmitiendo detalles de reservas. startDate={}, endDate={}, status={}.",
+                startDate, endDate, status);
+
+        validateReportRange(startDate, endDate);
+
+        String effectiveStatus = status != null && !status.isBlank() ? status : DEFAULT_STATUS;
+
+        long rows = 0;
+        try (Stream<BookingDetailView> views = bookingJpaRepository
+                .streamBookingDetailsBetweenDatesAndStatus(startDate, endDate, effectiveStatus)) {
+            Iterator<BookingDetailView> iterator = views.iterator();
+            while (iterator.hasNext()) {
+                rowConsumer.accept(mapToBookingDetailResponseDto(iterator.next()));
+                rows++;
+            }
+        }
+
+        LOGGER.info("Se transmitieron {} reservas para el reporte de detalle.", rows);
+        return rows;
+    }
+
+    /*
+     * Valida el rango de fechas de un reporte. Permite validar antes de empezar a escribir
+     * una respuesta en streaming, cuando todavía se puede responder con un error.
+     */
+    public void validateReportRange(LocalDate startDate, LocalDate endDate) {
+        validateDateRange(startDate, endDate);
+    }
+
     /*
      * Recupera estadísticas mensuales de reservas para el rango de fechas indicado.
      * Si no se indica estatus, se utiliza un estatus por defecto.
+     *
+     * Los meses cerrados que caen completos dentro del rango se leen de la tabla de
+     * agregados booking_monthly_stats. El mes en curso y los meses que el rango cubre
+     * solo en parte se calculan con la agregación directa sobre bookings.
      */
     public List<MonthlyBookingStatsDto> getMonthlyStats(LocalDate startDate,
                                                         LocalDate endDate,
@@ -74,8 +132,37 @@ public class BookingReportService {
 
         String effectiveStatus = status != null && !status.isBlank() ? status : DEFAULT_STATUS;
 
-        List<MonthlyBookingStatsView> views = bookingJpaRepository
-                .findMonthlyStatsBetweenDatesAndStatus(startDate, endDate, effectiveStatus);
+        YearMonth firstRollupMonth = startDate.getDayOfMonth() == 1
+                ? YearMonth.from(startDate)
+                : YearMonth.from(startDate).plusMonths(1);
+        YearMonth lastRollupMonth = endDate.equals(YearMonth.from(endDate).atEndOfMonth())
+                ? YearMonth.from(endDate)
+                : YearMonth.from(endDate).minusMonths(1);
+        YearMonth lastClosedMonth = YearMonth.now().minusMonths(1);
+        if (lastRollupMonth.isAfter(lastClosedMonth)) {
+            lastRollupMonth = lastClosedMonth;
+        }
+
+        List<MonthlyBookingStatsView> views = new ArrayList<>();
+        if (!bookingMonthlyStatsService.isReady() || firstRollupMonth.isAfter(lastRollupMonth)) {
+            views.addAll(bookingJpaRepository
+                    .findMonthlyStatsBetweenDatesAndStatus(startDate, endDate, effectiveStatus));
+        } else {
+            LocalDate rollupStart = firstRollupMonth.atDay(1);
+            LocalDate afterRollup = lastRollupMonth.plusMonths(1).atDay(1);
+
+            if (startDate.isBefore(rollupStart)) {
+                views.addAll(bookingJpaRepository.findMonthlyStatsBetweenDatesAndStatus(
+                        startDate, rollupStart.minusDays(1), effectiveStatus));
+            }
+            views.addAll(bookingMonthlyStatsService.findStats(firstRollupMonth, lastRollupMonth, effectiveStatus));
+            if (!afterRollup.isAfter(endDate)) {
+                views.addAll(bookingJpaRepository.findMonthlyStatsBetweenDatesAndStatus(
+                        afterRollup, endDate, effectiveStatus));
+            }
+
+            LOGGER.info("Meses [{}, {}] leídos desde booking_monthly_stats.", firstRollupMonth, lastRollupMonth);
+        }
 
         LOGGER.info("Se recuperaron {} filas de estadísticas mensuales.", views.size());
 
@@ -0,0 +1,154 @@
+package com.segurosargos.hotelbook.service;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import com.segurosargos.hotelbook.exception.IdempotencyKeyReuseException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/*
+ * Almacén local de respuestas recientes indexadas por llave Idempotency-Key, para que
+ * los reintentos de un cliente devuelvan la respuesta original sin repetir la operación
+ * ni consultar la base de datos.
+ *
+ * - Cada llave se asocia al usuario, a la operación y a la solicitud que la usaron por
+ *   primera vez; reutilizarla con otra solicitud lanza IdempotencyKeyReuseException.
+ * - Una solicitud repetida mientras la original sigue en curso espera su resultado.
+ * - Solo se guardan las respuestas exitosas: si la operación falla la llave se libera
+ *   y el siguiente reintento vuelve a ejecutarla.
+ * - El tamaño es acotado (LRU) y cada entrada expira después del TTL configurado.
+ */
+@Component
+public class IdempotentResponseStore {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(IdempotentResponseStore.class);
+
+    private final int maxSize;
+
+    private final long ttlNanos;
+
+    private final LongSupplier nanoClock;
+
+    /*
+     * Entradas en orden de acceso. Se protege con el monitor de esta instancia.
+     */
+    private final LinkedHashMap<StoreKey, Entry> entries;
+
+    @Autowired
+    public IdempotentResponseStore(@Value("${hotelbook.idempotency.max-size:10000}") int maxSize,
+                                   @Value("${hotelbook.idempotency.ttl:1h}") Duration ttl) {
+        this(maxSize, ttl, System::nanoTime);
+    }
+
+    IdempotentResponseStore(int maxSize, Duration ttl, LongSupplier nanoClock) {
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+        this.nanoClock = nanoClock;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<StoreKey, Entry> eldest) {
+                return size() > IdempotentResponseStore.this.maxSize;
+            }
+        };
+    }
+
+    /*
+     * Ejecuta action y guarda su respuesta bajo (principal, key). Si la llave
+     * ya tiene una respuesta vigente para la misma solicitud, la devuelve sin ejecutar
+     * action. request identifica la solicitud, por ejemplo el id de la reserva, y debe
+     * implementar equals.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> IdempotentResult<T> execute(String principal, String operation, String key,
+                                           Object request, Supplier<T> action) {
+        StoreKey storeKey = new StoreKey(principal, key);
+
+        while (true) {
+            Entry entry;
+            boolean owner = false;
+
+            synchronized (this) {
+                entry = entries.get(storeKey);
+                if (entry != null && nanoClock.getAsLong() - entry.createdAtNanos >= ttlNanos) {
+                    entries.remove(storeKey);
+                    entry = null;
+                }
+                if (entry == null) {
+                    entry = new Entry(operation, request, nanoClock.getAsLong());
+                    entries.put(storeKey, entry);
+                    owner = true;
+                } else if (!entry.operation.equals(operation) || !entry.request.equals(request)) {
+                    throw new IdempotencyKeyReuseException(
+                            "La llave Idempotency-Key " + key + " ya se usó con otra solicitud.");
+                }
+            }
+
+            if (owner) {
+                return new IdempotentResult<>(run(storeKey, entry, action), false);
+            }
+
+            try {
+                T response = (T) entry.response.join();
+                LOGGER.debug("Respuesta repetida para la llave {} de la operación {}.", key, operation);
+                return new IdempotentResult<>(response, true);
+            } catch (CompletionException ex) {
+                // La ejecución original falló y liberó la llave; se vuelve a intentar.
+            }
+        }
+    }
+
+    private <T> T run(StoreKey storeKey, Entry entry, Supplier<T> action) {
+        try {
+            T response = action.get();
+            entry.response.complete(response);
+            return response;
+        } catch (RuntimeException | Error ex) {
+            synchronized (this) {
+                entries.remove(storeKey, entry);
+            }
+            entry.response.completeExceptionally(ex);
+            throw ex;
+        }
+    }
+
+    /*
+     * Número de llaves guardadas, incluidas las expiradas que aún no se han desalojado.
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /*
+     * Respuesta de execute e indicador de si proviene del almacén.
+     */
+    public record IdempotentResult<T>(T response, boolean replayed) {
+    }
+
+    private record StoreKey(String principal, String key) {
+    }
+
+    private static final class Entry {
+
+        private final String operation;
+
+        private final Object request;
+
+        private final long createdAtNanos;
+
+        private final CompletableFuture<Object> response = new CompletableFuture<>();
+
+        private Entry(String operation, Object request, long createdAtNanos) {
+            this.operation = operation;
+            this.request = request;
+            this.createdAtNanos = createdAtNanos;
+        }
+    }
+}
@@ -0,0 +1,379 @@
+package com.segurosargos.hotelbook.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import com.segurosargos.hotelbook.dto.ReportJobRequestDto;
+import com.segurosargos.hotelbook.dto.ReportJobResponseDto;
+import com.segurosargos.hotelbook.dto.ReportJobType;
+import com.segurosargos.hotelbook.exception.ReportJobNotFoundException;
+import com.segurosargos.hotelbook.exception.ReportJobRejectedException;
+
+/*
+ * Ejecución asíncrona de reportes de reservas.
+ *
+ * - Un reporte se solicita con submit y se ejecuta en un pool de hilos acotado con una
+ *   cola de tamaño fijo; si la cola está llena la solicitud se rechaza en lugar de
+ *   acumular trabajo sin límite.
+ * - Los jobs se indexan por (tipo, fecha inicio, fecha fin, estatus). Una solicitud
+ *   idéntica a otra en curso se une a ella y una solicitud idéntica a otra ya terminada
+ *   reutiliza su resultado mientras no expire el TTL. Los jobs fallidos no se reutilizan.
+ * - Un job periódico elimina los resultados expirados.
+ * - El total de filas retenidas en los resultados está acotado por max-retained-rows:
+ *   al superarlo se descartan primero los jobs completados más antiguos, aunque su
+ *   TTL no haya vencido.
+ *
+ * Métricas: report.jobs.queue.depth y report.jobs.active (gauges), report.jobs.requests
+ * por outcome (executed, coalesced, cached, rejected), report.jobs.wait (tiempo en cola)
+ * y report.jobs.latency (desde la solicitud hasta el resultado) por tipo y outcome, y
+ * report.jobs.evicted (resultados descartados por el límite de filas retenidas).
+ */
+@Service
+public class ReportJobService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReportJobService.class);
+
+    private final BookingReportService bookingReportService;
+
+    private final MeterRegistry meterRegistry;
+
+    private final ThreadPoolExecutor executor;
+
+    private final Duration resultTtl;
+
+    private final long maxRetainedRows;
+
+    private final ConcurrentHashMap<String, ReportJob> jobsById = new ConcurrentHashMap<>();
+
+    /*
+     * Job vigente (en curso o con resultado no expirado) para cada combinación de parámetros.
+     */
+    private final ConcurrentHashMap<ReportJobKey, ReportJob> jobsByKey = new ConcurrentHashMap<>();
+
+    /*
+     * Jobs completados con resultado retenido, del más antiguo al más reciente, y total de
+     * filas de esos resultados. Ambos se protegen con el monitor de retainedJobs.
+     */
+    private final ArrayDeque<RetainedResult> retainedJobs = new ArrayDeque<>();
+
+    private long retainedRows;
+
+    public ReportJobService(BookingReportService bookingReportService,
+                            MeterRegistry meterRegistry,
+                            @Value("${hotelbook.report-jobs.threads:2}") int threads,
+                            @Value("${hotelbook.report-jobs.queue-capacity:20}") int queueCapacity,
+                            @Value("${hotelbook.report-jobs.result-ttl:10m}") Duration resultTtl,
+                            @Value("${hotelbook.report-jobs.max-retained-rows:200000}") long maxRetainedRows) {
+        this.bookingReportService = bookingReportService;
+        this.meterRegistry = meterRegistry;
+        this.resultTtl = resultTtl;
+        this.maxRetainedRows = maxRetainedRows;
+        this.executor = new ThreadPoolExecutor(
+                threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new CustomizableThreadFactory("report-job-"),
+                new ThreadPoolExecutor.AbortPolicy());
+
+        Gauge.builder("report.jobs.queue.depth", executor, pool -> pool.getQueue().size())
+                .description("Jobs de reporte en espera de un hilo")
+                .register(meterRegistry);
+        Gauge.builder("report.jobs.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Jobs de reporte en ejecución")
+                .register(meterRegistry);
+    }
+
+    /*
+     * Solicita un reporte. Devuelve el job que lo atiende: uno nuevo, uno idéntico en curso
+     * o uno idéntico ya terminado cuyo resultado sigue vigente.
+     */
+    public ReportJobResponseDto submit(ReportJobRequestDto request) {
+        bookingReportService.validateReportRange(request.getStartDate(), request.getEndDate());
+
+        String effectiveStatus = request.getStatus() != null && !request.getStatus().isBlank()
+                ? request.getStatus()
+                : BookingReportService.DEFAULT_STATUS;
+        ReportJobKey key = new ReportJobKey(
+                request.getType(), request.getStartDate(), request.getEndDate(), effectiveStatus);
+
+        Instant now = Instant.now();
+        ReportJob[] created = new ReportJob[1];
+        ReportJob job = jobsByKey.compute(key, (k, existing) -> {
+            if (existing != null && existing.isReusable(now)) {
+                return existing;
+            }
+            created[0] = new ReportJob(UUID.randomUUID().toString(), k, now);
+            return created[0];
+        });
+
+        if (created[0] == null) {
+            String outcome = job.isFinished() ? "cached" : "coalesced";
+            countRequest(outcome);
+            LOGGER.info("Solicitud de reporte {} atendida por el job {} ({}).", key, job.id, outcome);
+            return toDto(job);
+        }
+
+        jobsById.put(job.id, job);
+        try {
+            executor.execute(() -> run(job));
+        } catch (RejectedExecutionException ex) {
+            jobsByKey.remove(key, job);
+            jobsById.remove(job.id);
+            countRequest("rejected");
+            LOGGER.warn("Cola de jobs de reporte llena. Se rechaza la solicitud {}.", key);
+            throw new ReportJobRejectedException(
+                    "Hay demasiados reportes en proceso. Intente de nuevo en unos momentos.");
+        }
+
+        countRequest("executed");
+        LOGGER.info("Job de reporte {} encolado para {}.", job.id, key);
+        return toDto(job);
+    }
+
+    /*
+     * Recupera el estado de un job.
+     */
+    public ReportJobResponseDto getJob(String jobId) {
+        return toDto(findLiveJob(jobId));
+    }
+
+    /*
+     * Recupera el resultado de un job si ya terminó correctamente.
+     */
+    public Optional<List<?>> findJobResult(String jobId) {
+        ReportJob job = findLiveJob(jobId);
+        return Optional.ofNullable(job.result);
+    }
+
+    /*
+     * Elimina los jobs terminados cuyo resultado ya expiró.
+     */
+    @Scheduled(fixedDelayString = "${hotelbook.report-jobs.cleanup-interval-ms:60000}")
+    public void purgeExpiredJobs() {
+        Instant now = Instant.now();
+        int purged = 0;
+        for (ReportJob job : jobsById.values()) {
+            if (job.isExpired(now)) {
+                jobsById.remove(job.id, job);
+                jobsByKey.remove(job.key, job);
+                release(job);
+                purged++;
+            }
+        }
+        if (purged > 0) {
+            LOGGER.debug("Se eliminaron {} jobs de reporte expirados.", purged);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void run(ReportJob job) {
+        Instant startedAt = Instant.now();
+        job.markRunning();
+        Timer.builder("report.jobs.wait")
+                .tag("type", job.key.type().name())
+                .register(meterRegistry)
+                .record(Duration.between(job.submittedAt, startedAt));
+
+        String outcome = "completed";
+        try {
+            List<?> result = execute(job.key);
+            Instant completedAt = Instant.now();
+            // Se hace espacio antes de publicar el resultado, para que al verse el job
+            // COMPLETED el límite de filas retenidas ya se haya aplicado.
+            retain(job, result.size());
+            job.complete(result, completedAt, completedAt.plus(resultTtl));
+            LOGGER.info("Job de reporte {} completado con {} filas.", job.id, result.size());
+        } catch (RuntimeException ex) {
+            outcome = "failed";
+            Instant completedAt = Instant.now();
+            job.fail(ex.getMessage(), completedAt, completedAt.plus(resultTtl));
+            jobsByKey.remove(job.key, job);
+            LOGGER.error("Job de reporte {} falló.", job.id, ex);
+        } finally {
+            Timer.builder("report.jobs.latency")
+                    .tag("type", job.key.type().name())
+                    .tag("outcome", outcome)
+                    .register(meterRegistry)
+                    .record(Duration.between(job.submittedAt, Instant.now()));
+        }
+    }
+
+    private List<?> execute(ReportJobKey key) {
+        return switch (key.type()) {
+            case BOOKING_DETAILS -> bookingReportService.getBookingDetails(
+                    key.startDate(), key.endDate(), key.status());
+            case MONTHLY_STATS -> bookingReportService.getMonthlyStats(
+                    key.startDate(), key.endDate(), key.status());
+        };
+    }
+
+    /*
+     * Registra el resultado de un job completado y, si el total de filas retenidas supera
+     * maxRetainedRows, descarta los jobs completados más antiguos hasta volver al límite.
+     * El job recién completado se conserva aunque por sí solo supere el límite.
+     */
+    private void retain(ReportJob job, int rows) {
+        List<ReportJob> evicted = new ArrayList<>();
+        long rowsAfterEviction;
+        synchronized (retainedJobs) {
+            retainedJobs.addLast(new RetainedResult(job, rows));
+            retainedRows += rows;
+            while (retainedRows > maxRetainedRows && retainedJobs.size() > 1) {
+                RetainedResult oldest = retainedJobs.removeFirst();
+                retainedRows -= oldest.rows();
+                evicted.add(oldest.job());
+            }
+            rowsAfterEviction = retainedRows;
+        }
+
+        for (ReportJob oldest : evicted) {
+            jobsById.remove(oldest.id, oldest);
+            jobsByKey.remove(oldest.key, oldest);
+        }
+        if (!evicted.isEmpty()) {
+            meterRegistry.counter("report.jobs.evicted").increment(evicted.size());
+            LOGGER.info("Se descartaron {} resultados de reportes por el límite de {} filas retenidas. Filas retenidas: {}.",
+                    evicted.size(), maxRetainedRows, rowsAfterEviction);
+        }
+    }
+
+    /*
+     * Deja de contar las filas de un job eliminado, si su resultado estaba retenido.
+     */
+    private void release(ReportJob job) {
+        synchronized (retainedJobs) {
+            Iterator<RetainedResult> iterator = retainedJobs.iterator();
+            while (iterator.hasNext()) {
+                RetainedResult retained = iterator.next();
+                if (retained.job() == job) {
+                    iterator.remove();
+                    retainedRows -= retained.rows();
+                    return;
+                }
+            }
+        }
+    }
+
+    private ReportJob findLiveJob(String jobId) {
+        ReportJob job = jobsById.get(jobId);
+        if (job == null || job.isExpired(Instant.now())) {
+            throw new ReportJobNotFoundException("No se encontró el job de reporte con id " + jobId + ".");
+        }
+        return job;
+    }
+
+    private void countRequest(String outcome) {
+        meterRegistry.counter("report.jobs.requests", "outcome", outcome).increment();
+    }
+
+    private ReportJobResponseDto toDto(ReportJob job) {
+        List<?> result = job.result;
+        return ReportJobResponseDto.builder()
+                .jobId(job.id)
+                .type(job.key.type())
+                .startDate(job.key.startDate())
+                .endDate(job.key.endDate())
+                .status(job.key.status())
+                .state(job.state.name())
+                .submittedAt(job.submittedAt)
+                .completedAt(job.completedAt)
+                .expiresAt(job.expiresAt)
+                .rowCount(result != null ? result.size() : null)
+                .errorMessage(job.errorMessage)
+                .build();
+    }
+
+    private record ReportJobKey(ReportJobType type, LocalDate startDate, LocalDate endDate, String status) {
+    }
+
+    private record RetainedResult(ReportJob job, int rows) {
+    }
+
+    private enum ReportJobState {
+        QUEUED, RUNNING, COMPLETED, FAILED
+    }
+
+    private static final class ReportJob {
+
+        private final String id;
+
+        private final ReportJobKey key;
+
+        private final Instant submittedAt;
+
+        private volatile ReportJobState state = ReportJobState.QUEUED;
+
+        private volatile Instant completedAt;
+
+        private volatile Instant expiresAt;
+
+        private volatile List<?> result;
+
+        private volatile String errorMessage;
+
+        private ReportJob(String id, ReportJobKey key, Instant submittedAt) {
+            this.id = id;
+            this.key = key;
+            this.submittedAt = submittedAt;
+        }
+
+        private void markRunning() {
+            state = ReportJobState.RUNNING;
+        }
+
+        private void complete(List<?> rows, Instant now, Instant expiry) {
+            result = List.copyOf(rows);
+            completedAt = now;
+            expiresAt = expiry;
+            state = ReportJobState.COMPLETED;
+        }
+
+        private void fail(String message, Instant now, Instant expiry) {
+            errorMessage = message;
+            completedAt = now;
+            expiresAt = expiry;
+            state = ReportJobState.FAILED;
+        }
+
+        private boolean isFinished() {
+            return state == ReportJobState.COMPLETED || state == ReportJobState.FAILED;
+        }
+
+        private boolean isExpired(Instant now) {
+            Instant expiry = expiresAt;
+            return expiry != null && !now.isBefore(expiry);
+        }
+
+        /*
+         * Un job sirve para una solicitud idéntica mientras está en curso o si terminó
+         * correctamente y su resultado no ha expirado.
+         */
+        private boolean isReusable(Instant now) {
+            return state != ReportJobState.FAILED && !isExpired(now);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.segurosargos.hotelbook.service;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import com.segurosargos.hotelbook.dto.RoomAvailabilityCalendarDto;
+import com.segurosargos.hotelbook.dto.RoomAvailabilityCalendarRowDto;
+import com.segurosargos.hotelbook.exception.InvalidBookingException;
+import com.segurosargos.hotelbook.repository.BookingJpaRepository;
+import com.segurosargos.hotelbook.repository.BookingStayView;
+import com.segurosargos.hotelbook.repository.RoomJpaRepository;
+import com.segurosargos.hotelbook.repository.RoomLabelView;
+
+/*
+ * Servicio que construye el calendario de ocupación de todas las habitaciones para
+ * un rango de fechas.
+ *
+ * En lugar de calcular el resumen de ocupación día por día, se leen una sola vez las
+ * habitaciones y las reservas CONFIRMED que se solapan con el rango, y se marca cada
+ * estancia sobre una fila de caracteres por habitación.
+ */
+@Service
+public class RoomAvailabilityCalendarService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RoomAvailabilityCalendarService.class);
+
+    private static final String CONFIRMED = "CONFIRMED";
+
+    private static final int MAX_CALENDAR_DAYS = 366;
+
+    private static final char FREE = '0';
+
+    private static final char OCCUPIED = '1';
+
+    private final RoomJpaRepository roomJpaRepository;
+
+    private final BookingJpaRepository bookingJpaRepository;
+
+    public RoomAvailabilityCalendarService(RoomJpaRepository roomJpaRepository,
+                                           BookingJpaRepository bookingJpaRepository) {
+        this.roomJpaRepository = roomJpaRepository;
+        this.bookingJpaRepository = bookingJpaRepository;
+    }
+
+    /*
+     * Construye el calendario de ocupación para las noches de [from, to).
+     */
+    @Transactional(readOnly = true)
+    public RoomAvailabilityCalendarDto getAvailabilityCalendar(LocalDate from, LocalDate to) {
+        validateRange(from, to);
+
+        int days = (int) ChronoUnit.DAYS.between(from, to);
+        LOGGER.info("Construyendo calendario de ocupación. from={}, to={}, noches={}.", from, to, days);
+
+        List<RoomLabelView> rooms = roomJpaRepository.findAllLabelsOrderByCode();
+        Map<Long, char[]> grid = new HashMap<>(rooms.size() * 2);
+        for (RoomLabelView room : rooms) {
+            char[] row = new char[days];
+            Arrays.fill(row, FREE);
+            grid.put(room.getId(), row);
+        }
+
+        List<BookingStayView> stays = bookingJpaRepository.findStaysOverlapping(from, to, CONFIRMED);
+        for (BookingStayView stay : stays) {
+            char[] row = grid.get(stay.getRoomId());
+            if (row == null) {
+                continue;
+            }
+            int fromIndex = (int) Math.max(0, ChronoUnit.DAYS.between(from, stay.getCheckInDate()));
+            int toIndex = (int) Math.min(days, ChronoUnit.DAYS.between(from, stay.getCheckOutDate()));
+            if (fromIndex < toIndex) {
+                Arrays.fill(row, fromIndex, toIndex, OCCUPIED);
+            }
+        }
+
+        List<RoomAvailabilityCalendarRowDto> rows = new ArrayList<>(rooms.size());
+        for (RoomLabelView room : rooms) {
+            char[] row = grid.get(room.getId());
+            rows.add(RoomAvailabilityCalendarRowDto.builder()
+                    .roomId(room.getId())
+                    .roomCode(room.getCode())
+                    .roomName(room.getName())
+                    .occupancy(new String(row))
+                    .occupiedDays(countOccupied(row))
+                    .build());
+        }
+
+        LOGGER.info("Calendario de ocupación construido. habitaciones={}, reservas={}.", rooms.size(), stays.size());
+
+        return RoomAvailabilityCalendarDto.builder()
+                .from(from)
+                .to(to)
+                .days(days)
+                .rooms(rows)
+                .build();
+    }
+
+    private void validateRange(LocalDate from, LocalDate to) {
+        if (from == null || to == null) {
+            throw new InvalidBookingException("Las fechas from y to son obligatorias para el calendario de ocupación.");
+        }
+        if (!from.isBefore(to)) {
+            throw new InvalidBookingException("La fecha from debe ser anterior a la fecha to.");
+        }
+        if (ChronoUnit.DAYS.between(from, to) > MAX_CALENDAR_DAYS) {
+            throw new InvalidBookingException(
+                    "El calendario de ocupación admite como máximo " + MAX_CALENDAR_DAYS + " noches.");
+        }
+    }
+
+    private static int countOccupied(char[] row) {
+        int count = 0;
+        for (char day : row) {
+            if (day == OCCUPIED) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
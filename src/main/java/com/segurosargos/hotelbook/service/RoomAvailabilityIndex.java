@@ -0,0 +1,252 @@
+package com.segurosargos.hotelbook.service;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import com.segurosargos.hotelbook.model.BookingEventEntity;
+import com.segurosargos.hotelbook.repository.BookingJpaRepository;
+import com.segurosargos.hotelbook.repository.BookingStayView;
+
+/*
+ * Índice de disponibilidad en memoria por habitación.
+ *
+ * Para cada habitación se mantiene un BitSet con un bit por día dentro de un horizonte
+ * móvil (desde unos días antes de hoy hasta horizonDays después); el bit está encendido si
+ * la habitación tiene una reserva CONFIRMED que ocupa esa noche. Saber si una habitación
+ * está libre en [desde, hasta) se reduce a un AND palabra a palabra entre su BitSet y la
+ * máscara del rango (BitSet.intersects), sin consultar la tabla de reservas.
+ *
+ * El índice se construye al arrancar la aplicación, se reconstruye cada noche para
+ * desplazar el horizonte y se actualiza con los eventos del outbox booking_events que
+ * entrega BookingEventDispatcher. Así cada instancia ve los cambios confirmados en
+ * cualquier otra, con el retraso del intervalo de sondeo del dispatcher. Los BitSet
+ * publicados nunca se modifican: cada cambio crea una copia, de modo que las lecturas no
+ * necesitan bloqueo.
+ */
+@Component
+public class RoomAvailabilityIndex implements BookingEventListener {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RoomAvailabilityIndex.class);
+
+    private static final String CONFIRMED = "CONFIRMED";
+
+    private final BookingJpaRepository bookingJpaRepository;
+
+    private final int pastDays;
+
+    private final int horizonDays;
+
+    private volatile Horizon horizon;
+
+    private volatile boolean rebuilding;
+
+    /*
+     * Habitaciones cuyo estado cambió mientras se reconstruía el índice; se vuelven a
+     * calcular desde la base de datos al terminar la reconstrucción.
+     */
+    private final Set<Long> touchedDuringRebuild = ConcurrentHashMap.newKeySet();
+
+    public RoomAvailabilityIndex(BookingJpaRepository bookingJpaRepository,
+                                 @Value("${hotelbook.availability.past-days:7}") int pastDays,
+                                 @Value("${hotelbook.availability.horizon-days:400}") int horizonDays) {
+        this.bookingJpaRepository = bookingJpaRepository;
+        this.pastDays = pastDays;
+        this.horizonDays = horizonDays;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    /*
+     * Reconstrucción nocturna para desplazar el horizonte y corregir cualquier desviación.
+     */
+    @Scheduled(cron = "${hotelbook.availability.rebuild-cron:0 15 3 * * *}")
+    public void scheduledRebuild() {
+        rebuild();
+    }
+
+    /*
+     * Construye el índice completo a partir de las reservas CONFIRMED dentro del horizonte.
+     */
+    public synchronized void rebuild() {
+        rebuilding = true;
+        touchedDuringRebuild.clear();
+        try {
+            LocalDate start = LocalDate.now().minusDays(pastDays);
+            LocalDate end = start.plusDays((long) pastDays + horizonDays);
+            long startedAt = System.nanoTime();
+
+            List<BookingStayView> stays = bookingJpaRepository.findStaysOverlapping(start, end, CONFIRMED);
+
+            Horizon rebuilt = new Horizon(start, end);
+            for (BookingStayView stay : stays) {
+                rebuilt.rooms.compute(stay.getRoomId(), (roomId, bits) -> {
+                    BitSet target = bits == null ? new BitSet(rebuilt.days) : bits;
+                    rebuilt.mark(target, stay.getCheckInDate(), stay.getCheckOutDate());
+                    return target;
+                });
+            }
+            horizon = rebuilt;
+
+            LOGGER.info("Índice de disponibilidad construido. horizonte=[{}, {}), reservas={}, habitaciones={}, tiempo={} ms.",
+                    start, end, stays.size(), rebuilt.rooms.size(), (System.nanoTime() - startedAt) / 1_000_000);
+        } finally {
+            rebuilding = false;
+        }
+
+        for (Long roomId : Set.copyOf(touchedDuringRebuild)) {
+            reloadRoom(roomId);
+        }
+        touchedDuringRebuild.clear();
+    }
+
+    /*
+     * Devuelve los ids de las habitaciones con alguna reserva CONFIRMED en [from, to).
+     * Si el índice no está construido o el rango queda fuera del horizonte, devuelve
+     * Optional.empty() para que el llamador use la consulta en base de datos.
+     */
+    public Optional<Set<Long>> findBookedRoomIds(LocalDate from, LocalDate to) {
+        Horizon current = horizon;
+        if (current == null || from == null || to == null || !from.isBefore(to) || !current.covers(from, to)) {
+            return Optional.empty();
+        }
+
+        BitSet mask = new BitSet(current.days);
+        current.mark(mask, from, to);
+
+        Set<Long> booked = new HashSet<>();
+        for (Map.Entry<Long, BitSet> entry : current.rooms.entrySet()) {
+            if (entry.getValue().intersects(mask)) {
+                booked.add(entry.getKey());
+            }
+        }
+        return Optional.of(booked);
+    }
+
+    @Override
+    public String consumerName() {
+        return "room-availability-index";
+    }
+
+    /*
+     * Aplica un lote de cambios de estatus confirmados. Al confirmar se encienden los días
+     * de la estancia; las habitaciones con reservas que salen de CONFIRMED se recalculan
+     * desde la base de datos al final del lote, una sola vez cada una, porque otra reserva
+     * podría ocupar los mismos días. Volver a aplicar un evento ya aplicado no cambia el
+     * resultado.
+     */
+    @Override
+    public void onBookingEvents(List<BookingEventEntity> events) {
+        Set<Long> roomsToReload = new LinkedHashSet<>();
+
+        for (BookingEventEntity event : events) {
+            if (event.getRoomId() == null) {
+                continue;
+            }
+            if (rebuilding) {
+                touchedDuringRebuild.add(event.getRoomId());
+            }
+
+            Horizon current = horizon;
+            if (current == null) {
+                continue;
+            }
+
+            boolean nowConfirmed = CONFIRMED.equalsIgnoreCase(event.getNewStatus());
+            boolean wasConfirmed = CONFIRMED.equalsIgnoreCase(event.getPreviousStatus());
+
+            if (nowConfirmed && !wasConfirmed) {
+                current.rooms.compute(event.getRoomId(), (roomId, bits) -> {
+                    BitSet updated = bits == null ? new BitSet(current.days) : (BitSet) bits.clone();
+                    current.mark(updated, event.getCheckInDate(), event.getCheckOutDate());
+                    return updated;
+                });
+                LOGGER.debug("Índice de disponibilidad: habitación {} ocupada en [{}, {}).",
+                        event.getRoomId(), event.getCheckInDate(), event.getCheckOutDate());
+            } else if (wasConfirmed && !nowConfirmed) {
+                roomsToReload.add(event.getRoomId());
+            }
+        }
+
+        for (Long roomId : roomsToReload) {
+            reloadRoom(roomId);
+        }
+    }
+
+    /*
+     * Recalcula el BitSet de una habitación a partir de sus reservas CONFIRMED.
+     */
+    private void reloadRoom(Long roomId) {
+        Horizon current = horizon;
+        if (current == null) {
+            return;
+        }
+
+        List<BookingStayView> stays = bookingJpaRepository.findStaysOverlappingForRoom(
+                roomId, current.start, current.end, CONFIRMED);
+
+        BitSet bits = new BitSet(current.days);
+        for (BookingStayView stay : stays) {
+            current.mark(bits, stay.getCheckInDate(), stay.getCheckOutDate());
+        }
+
+        if (bits.isEmpty()) {
+            current.rooms.remove(roomId);
+        } else {
+            current.rooms.put(roomId, bits);
+        }
+        LOGGER.debug("Índice de disponibilidad: habitación {} recalculada con {} reservas.", roomId, stays.size());
+    }
+
+    /*
+     * Horizonte de fechas [start, end) con los BitSet de ocupación por habitación.
+     */
+    private static final class Horizon {
+
+        private final LocalDate start;
+
+        private final LocalDate end;
+
+        private final int days;
+
+        private final ConcurrentMap<Long, BitSet> rooms = new ConcurrentHashMap<>();
+
+        private Horizon(LocalDate start, LocalDate end) {
+            this.start = start;
+            this.end = end;
+            this.days = (int) ChronoUnit.DAYS.between(start, end);
+        }
+
+        private boolean covers(LocalDate from, LocalDate to) {
+            return !from.isBefore(start) && !to.isAfter(end);
+        }
+
+        /*
+         * Enciende en el BitSet los días de [from, to) que caen dentro del horizonte.
+         */
+        private void mark(BitSet bits, LocalDate from, LocalDate to) {
+            int fromIndex = (int) Math.max(0, ChronoUnit.DAYS.between(start, from));
+            int toIndex = (int) Math.min(days, ChronoUnit.DAYS.between(start, to));
+            if (fromIndex < toIndex) {
+                bits.set(fromIndex, toIndex);
+            }
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.segurosargos.hotelbook.service;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Locale;
+import com.segurosargos.hotelbook.exception.InvalidBookingException;
+import com.segurosargos.hotelbook.model.Room;
+
+/*
+ * Cursor opaco para la paginación por keyset (seek) de habitaciones.
+ * Codifica la propiedad y dirección de orden junto con el último valor de la
+ * clave de orden y el último id devueltos, de forma que la siguiente página
+ * se recupera con un predicado (clave, id) > (último valor, último id) en lugar
+ * de un OFFSET.
+ *
+ * El formato interno es "propiedad|dirección|id|valor" codificado en Base64 URL.
+ * El valor va al final porque es el único campo que puede contener separadores.
+ */
+final class RoomKeysetCursor {
+
+    private static final String SEPARATOR = "|";
+
+    private final String property;
+
+    private final boolean descending;
+
+    private final Long lastId;
+
+    private final Object lastValue;
+
+    private RoomKeysetCursor(String property, boolean descending, Long lastId, Object lastValue) {
+        this.property = property;
+        this.descending = descending;
+        this.lastId = lastId;
+        this.lastValue = lastValue;
+    }
+
+    /*
+     * Construye el cursor que apunta a la página siguiente a la que termina en la habitación indicada.
+     */
+    static RoomKeysetCursor after(Room lastRoom, String property, boolean descending) {
+        return new RoomKeysetCursor(property, descending, lastRoom.getId(), extractValue(lastRoom, property));
+    }
+
+    /*
+     * Decodifica un cursor recibido del cliente y valida que corresponda al mismo orden
+     * solicitado. Un cursor generado con otro orden no puede reutilizarse.
+     */
+    static RoomKeysetCursor decode(String token, String expectedProperty, boolean expectedDescending) {
+        String decoded;
+        try {
+            decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException ex) {
+            throw new InvalidBookingException("El cursor de paginación indicado no es válido.");
+        }
+
+        String[] parts = decoded.split("\\|", 4);
+        if (parts.length != 4) {
+            throw new InvalidBookingException("El cursor de paginación indicado no es válido.");
+        }
+
+        String property = parts[0];
+        boolean descending = "desc".equals(parts[1]);
+
+        if (!property.equals(expectedProperty) || descending != expectedDescending) {
+            throw new InvalidBookingException(
+                    "El cursor de paginación no corresponde al orden solicitado. Reinicie la búsqueda sin cursor.");
+        }
+
+        try {
+            Long lastId = Long.valueOf(parts[2]);
+            Object lastValue = parseValue(property, parts[3]);
+            return new RoomKeysetCursor(property, descending, lastId, lastValue);
+        } catch (NumberFormatException ex) {
+            throw new InvalidBookingException("El cursor de paginación indicado no es válido.");
+        }
+    }
+
+    String encode() {
+        String raw = property + SEPARATOR
+                + (descending ? "desc" : "asc") + SEPARATOR
+                + lastId + SEPARATOR
+                + (lastValue == null ? "" : lastValue.toString());
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    String getProperty() {
+        return property;
+    }
+
+    boolean isDescending() {
+        return descending;
+    }
+
+    Long getLastId() {
+        return lastId;
+    }
+
+    Object getLastValue() {
+        return lastValue;
+    }
+
+    /*
+     * Extrae el valor de la clave de orden de una habitación. Los campos de texto se
+     * normalizan a minúsculas porque el orden en base de datos se hace sobre lower().
+     */
+    private static Object extractValue(Room room, String property) {
+        switch (property) {
+            case "code":
+                return room.getCode() == null ? null : room.getCode().toLowerCase(Locale.ROOT);
+            case "name":
+                return room.getName() == null ? null : room.getName().toLowerCase(Locale.ROOT);
+            case "capacity":
+                return room.getCapacity();
+            case "basePricePerNight":
+                return room.getBasePricePerNight();
+            case "active":
+                return room.isActive();
+            default:
+                return null;
+        }
+    }
+
+    private static Object parseValue(String property, String rawValue) {
+        switch (property) {
+            case "code":
+            case "name":
+                return rawValue;
+            case "capacity":
+                return Integer.valueOf(rawValue);
+            case "basePricePerNight":
+                return new BigDecimal(rawValue);
+            case "active":
+                return Boolean.valueOf(rawValue);
+            case "id":
+                return null;
+            default:
+                throw new InvalidBookingException("El cursor de paginación indicado no es válido.");
+        }
+    }
+}
@@ -0,0 +1,286 @@
+package com.segurosargos.hotelbook.service;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import com.segurosargos.hotelbook.model.BookingEventEntity;
+import com.segurosargos.hotelbook.repository.BookingJpaRepository;
+import com.segurosargos.hotelbook.repository.BookingStayView;
+
+/*
+ * Contadores de ocupación por día y habitación mantenidos en memoria.
+ *
+ * Para cada noche dentro de una ventana móvil se guarda cuántas reservas CONFIRMED
+ * ocupan cada habitación, de modo que el resumen de ocupación de una fecha es una
+ * búsqueda en un mapa en lugar de un LEFT JOIN con GROUP BY sobre bookings.
+ *
+ * - Se construyen al arrancar y cada noche (para desplazar la ventana) a partir de bookings.
+ * - Se actualizan con los eventos del outbox booking_events que entrega
+ *   BookingEventDispatcher, así que reflejan las confirmaciones y cancelaciones de
+ *   todas las instancias con el retraso del intervalo de sondeo del dispatcher. Solo
+ *   llegan cambios confirmados; un rollback no altera los contadores.
+ * - Las estancias se registran por id de reserva, así aplicar dos veces el mismo evento
+ *   no cuenta dos veces la misma reserva.
+ * - Un job periódico recalcula los contadores desde la base de datos, los compara con
+ *   los vigentes y, si difieren, registra la diferencia y adopta el recálculo.
+ */
+@Component
+public class RoomOccupancyCounters implements BookingEventListener {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RoomOccupancyCounters.class);
+
+    private static final String CONFIRMED = "CONFIRMED";
+
+    private static final int MAX_REBUILD_ATTEMPTS = 3;
+
+    private final BookingJpaRepository bookingJpaRepository;
+
+    private final int pastDays;
+
+    private final int horizonDays;
+
+    private Window window;
+
+    /*
+     * Se incrementa con cada evento recibido; permite repetir una reconstrucción o descartar una
+     * verificación de consistencia si hubo cambios mientras se recalculaba desde la base de datos.
+     */
+    private long generation;
+
+    public RoomOccupancyCounters(BookingJpaRepository bookingJpaRepository,
+                                 @Value("${hotelbook.occupancy.past-days:90}") int pastDays,
+                                 @Value("${hotelbook.occupancy.horizon-days:400}") int horizonDays) {
+        this.bookingJpaRepository = bookingJpaRepository;
+        this.pastDays = pastDays;
+        this.horizonDays = horizonDays;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    /*
+     * Reconstrucción nocturna para desplazar la ventana de fechas.
+     */
+    @Scheduled(cron = "${hotelbook.occupancy.rebuild-cron:0 20 3 * * *}")
+    public void scheduledRebuild() {
+        rebuild();
+    }
+
+    /*
+     * Construye los contadores a partir de las reservas CONFIRMED dentro de la ventana.
+     * Si llegan eventos mientras se lee la base de datos, la lectura se repite para no
+     * perder cambios confirmados después de ella; tras varios intentos se publica de todos
+     * modos y la verificación de consistencia corrige cualquier diferencia.
+     */
+    public void rebuild() {
+        LocalDate start = LocalDate.now().minusDays(pastDays);
+        for (int attempt = 1; ; attempt++) {
+            long loadedGeneration;
+            synchronized (this) {
+                loadedGeneration = generation;
+            }
+
+            Window rebuilt = load(start);
+
+            synchronized (this) {
+                if (generation == loadedGeneration || attempt >= MAX_REBUILD_ATTEMPTS) {
+                    window = rebuilt;
+                    generation++;
+                    LOGGER.info("Contadores de ocupación construidos. ventana=[{}, {}), reservas={}, intentos={}.",
+                            rebuilt.start, rebuilt.end, rebuilt.stays.size(), attempt);
+                    return;
+                }
+            }
+        }
+    }
+
+    /*
+     * Devuelve el número de reservas CONFIRMED por habitación en la fecha indicada; las
+     * habitaciones sin reservas no aparecen en el mapa. Si los contadores no están
+     * construidos o la fecha queda fuera de la ventana devuelve Optional.empty().
+     */
+    public synchronized Optional<Map<Long, Integer>> findCountsByRoom(LocalDate date) {
+        if (window == null || date == null || !window.covers(date)) {
+            return Optional.empty();
+        }
+        Map<Long, Integer> counts = window.counts.get(date);
+        return Optional.of(counts == null ? Map.of() : Map.copyOf(counts));
+    }
+
+    @Override
+    public String consumerName() {
+        return "room-occupancy-counters";
+    }
+
+    /*
+     * Aplica un lote de cambios de estatus confirmados, en orden de id.
+     */
+    @Override
+    public synchronized void onBookingEvents(List<BookingEventEntity> events) {
+        for (BookingEventEntity event : events) {
+            boolean wasConfirmed = CONFIRMED.equalsIgnoreCase(event.getPreviousStatus());
+            boolean nowConfirmed = CONFIRMED.equalsIgnoreCase(event.getNewStatus());
+            if (wasConfirmed == nowConfirmed || event.getBookingId() == null || event.getRoomId() == null) {
+                continue;
+            }
+
+            generation++;
+            if (window == null) {
+                continue;
+            }
+            if (nowConfirmed) {
+                window.add(new Stay(event.getBookingId(), event.getRoomId(),
+                        event.getCheckInDate(), event.getCheckOutDate()));
+            } else {
+                window.remove(event.getBookingId());
+            }
+        }
+    }
+
+    /*
+     * Verificación periódica: recalcula los contadores desde bookings y los compara con
+     * los vigentes. Devuelve el número de pares (día, habitación) que no coinciden, o -1
+     * si la verificación se omitió porque hubo cambios durante el recálculo.
+     */
+    @Scheduled(cron = "${hotelbook.occupancy.consistency-check-cron:0 50 * * * *}")
+    public int verifyConsistency() {
+        Window current;
+        long checkedGeneration;
+        synchronized (this) {
+            if (window == null) {
+                return -1;
+            }
+            current = window;
+            checkedGeneration = generation;
+        }
+
+        Window recomputed = load(current.start);
+
+        synchronized (this) {
+            if (window != current || generation != checkedGeneration) {
+                LOGGER.debug("Verificación de contadores de ocupación omitida: hubo cambios durante el recálculo.");
+                return -1;
+            }
+            int mismatches = countMismatches(recomputed.counts, current.counts);
+            if (mismatches > 0) {
+                LOGGER.warn("Los contadores de ocupación difieren del recálculo en {} pares día/habitación. "
+                        + "Se adoptan los valores recalculados.", mismatches);
+                window = recomputed;
+                generation++;
+            } else {
+                LOGGER.debug("Contadores de ocupación consistentes con bookings.");
+            }
+            return mismatches;
+        }
+    }
+
+    private Window load(LocalDate start) {
+        LocalDate end = start.plusDays((long) pastDays + horizonDays);
+        List<BookingStayView> views = bookingJpaRepository.findStaysOverlapping(start, end, CONFIRMED);
+
+        Window loaded = new Window(start, end);
+        for (BookingStayView view : views) {
+            loaded.add(new Stay(view.getBookingId(), view.getRoomId(), view.getCheckInDate(), view.getCheckOutDate()));
+        }
+        return loaded;
+    }
+
+    /*
+     * Cuenta los pares (día, habitación) cuyo contador difiere entre ambos mapas,
+     * incluidos los que solo existen en uno de ellos.
+     */
+    private static int countMismatches(Map<LocalDate, Map<Long, Integer>> expected,
+                                       Map<LocalDate, Map<Long, Integer>> actual) {
+        int mismatches = 0;
+        for (Map.Entry<LocalDate, Map<Long, Integer>> day : expected.entrySet()) {
+            Map<Long, Integer> actualDay = actual.getOrDefault(day.getKey(), Map.of());
+            for (Map.Entry<Long, Integer> room : day.getValue().entrySet()) {
+                if (!room.getValue().equals(actualDay.get(room.getKey()))) {
+                    mismatches++;
+                }
+            }
+        }
+        for (Map.Entry<LocalDate, Map<Long, Integer>> day : actual.entrySet()) {
+            Map<Long, Integer> expectedDay = expected.getOrDefault(day.getKey(), Map.of());
+            for (Long roomId : day.getValue().keySet()) {
+                if (!expectedDay.containsKey(roomId)) {
+                    mismatches++;
+                }
+            }
+        }
+        return mismatches;
+    }
+
+    private record Stay(Long bookingId, Long roomId, LocalDate checkInDate, LocalDate checkOutDate) {
+    }
+
+    /*
+     * Ventana de fechas [start, end) con las estancias registradas y los contadores
+     * derivados de ellas. Se protege con el monitor de RoomOccupancyCounters.
+     */
+    private static final class Window {
+
+        private final LocalDate start;
+
+        private final LocalDate end;
+
+        private final Map<Long, Stay> stays = new HashMap<>();
+
+        private final Map<LocalDate, Map<Long, Integer>> counts = new HashMap<>();
+
+        private Window(LocalDate start, LocalDate end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        private boolean covers(LocalDate date) {
+            return !date.isBefore(start) && date.isBefore(end);
+        }
+
+        private void add(Stay stay) {
+            if (stay.bookingId() == null || stay.checkInDate() == null || stay.checkOutDate() == null
+                    || stays.putIfAbsent(stay.bookingId(), stay) != null) {
+                return;
+            }
+            apply(stay, 1);
+        }
+
+        private void remove(Long bookingId) {
+            Stay stay = stays.remove(bookingId);
+            if (stay != null) {
+                apply(stay, -1);
+            }
+        }
+
+        /*
+         * Suma delta al contador de la habitación en cada noche de la estancia dentro de la ventana.
+         */
+        private void apply(Stay stay, int delta) {
+            LocalDate from = stay.checkInDate().isBefore(start) ? start : stay.checkInDate();
+            LocalDate to = stay.checkOutDate().isAfter(end) ? end : stay.checkOutDate();
+            for (LocalDate day = from; day.isBefore(to); day = day.plusDays(1)) {
+                Map<Long, Integer> dayCounts = counts.computeIfAbsent(day, key -> new HashMap<>());
+                int updated = dayCounts.getOrDefault(stay.roomId(), 0) + delta;
+                if (updated > 0) {
+                    dayCounts.put(stay.roomId(), updated);
+                } else {
+                    dayCounts.remove(stay.roomId());
+                    if (dayCounts.isEmpty()) {
+                        counts.remove(day);
+                    }
+                }
+            }
+        }
+    }
+}
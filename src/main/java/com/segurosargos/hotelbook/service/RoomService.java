@@ -4,15 +4,25 @@ import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.Comparator;
 import java.util.List;
-import java.util.Objects;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import com.segurosargos.hotelbook.dto.RoomCreateRequestDto;
 import com.segurosargos.hotelbook.dto.RoomDetailResponseDto;
+import com.segurosargos.hotelbook.dto.RoomNameSuggestionDto;
 import com.segurosargos.hotelbook.dto.RoomOccupancySummaryDto;
 import com.segurosargos.hotelbook.dto.RoomPageResultDto;
 import com.segurosargos.hotelbook.dto.RoomSearchFilterDto;
@@ -23,8 +33,11 @@ import com.segurosargos.hotelbook.exception.InvalidBookingException;
 import com.segurosargos.hotelbook.model.Room;
 import com.segurosargos.hotelbook.model.RoomEntity;
 import com.segurosargos.hotelbook.repository.RoomJpaRepository;
+import com.segurosargos.hotelbook.repository.RoomKeyset;
+import com.segurosargos.hotelbook.repository.RoomNameMatchView;
 import com.segurosargos.hotelbook.repository.RoomOccupancyView;
 import com.segurosargos.hotelbook.repository.RoomRepository;
+import com.segurosargos.hotelbook.repository.RoomSearchCriteria;
 import com.segurosargos.hotelbook.repository.RoomSpecifications;
 
 /*
@@ -39,13 +52,28 @@ public class RoomService {
 
     private static final BigDecimal MAX_BASE_PRICE_PER_NIGHT = BigDecimal.valueOf(50000);
 
+    private static final int MIN_SIMILARITY_QUERY_LENGTH = 3;
+
+    private static final int MAX_SUGGESTIONS = 50;
+
+    private static final int MAX_EXCLUDED_ROOM_IDS = 500;
+
     private final RoomRepository roomRepository;
 
     private final RoomJpaRepository roomJpaRepository;
 
-    public RoomService(RoomRepository roomRepository, RoomJpaRepository roomJpaRepository) {
+    private final RoomAvailabilityIndex roomAvailabilityIndex;
+
+    private final RoomOccupancyCounters roomOccupancyCounters;
+
+    public RoomService(RoomRepository roomRepository,
+                       RoomJpaRepository roomJpaRepository,
+                       RoomAvailabilityIndex roomAvailabilityIndex,
+                       RoomOccupancyCounters roomOccupancyCounters) {
         this.roomRepository = roomRepository;
         this.roomJpaRepository = roomJpaRepository;
+        this.roomAvailabilityIndex = roomAvailabilityIndex;
+        this.roomOccupancyCounters = roomOccupancyCounters;
     }
 
     /*
@@ -76,9 +104,26 @@ public class RoomService {
     /*
      * Actualiza una habitación existente identificada por su id.
      */
+    @Transactional
     @PreAuthorize("hasAnyRole('ADMIN','STAFF')")
     public RoomDetailResponseDto updateRoom(Long id, RoomUpdateRequestDto requestDto) {
-        LOGGER.info("Actualizando habitación con id {}.", id);
+        return updateRoom(id, requestDto, null);
+    }
+
+    /*
+     * Actualiza una habitación existente validando la versión esperada por el cliente.
+     * La versión se lleva directamente al campo @Version de la entidad, de modo que el
+     * UPDATE se ejecuta con la condición id = ? AND version = ? y un conflicto se reporta
+     * como OptimisticLockingFailureException. Si expectedVersion es nula, se usa la versión
+     * leída dentro de la misma transacción.
+     *
+     * El detalle devuelto incluye la nueva versión, por lo que no hace falta otra consulta
+     * para construir el ETag de la respuesta.
+     */
+    @Transactional
+    @PreAuthorize("hasAnyRole('ADMIN','STAFF')")
+    public RoomDetailResponseDto updateRoom(Long id, RoomUpdateRequestDto requestDto, Integer expectedVersion) {
+        LOGGER.info("Actualizando habitación con id {}. expectedVersion={}.", id, expectedVersion);
 
         Room existing = roomRepository.findById(id)
                 .orElseThrow(() -> new BookingNotFoundException(
@@ -90,10 +135,13 @@ public class RoomService {
         existing.setCapacity(requestDto.getCapacity());
         existing.setBasePricePerNight(requestDto.getBasePricePerNight());
         existing.setActive(Boolean.TRUE.equals(requestDto.getActive()));
+        if (expectedVersion != null) {
+            existing.setVersion(expectedVersion);
+        }
 
         Room saved = roomRepository.save(existing);
 
-        LOGGER.info("Habitación actualizada con id {}.", saved.getId());
+        LOGGER.info("Habitación actualizada con id {}. Nueva versión {}.", saved.getId(), saved.getVersion());
 
         return mapToDetailResponse(saved);
     }
@@ -115,17 +163,15 @@ public class RoomService {
 
     /*
      * Obtiene la version actual de una habitacion por su id para soporte de concurrencia
-     * optimista y generacion de ETag.
+     * optimista y generacion de ETag. Solo consulta la columna version, sin cargar la entidad.
      */
     public Integer getRoomVersionById(Long id) {
         LOGGER.info("Recuperando version de la habitacion con id {}.", id);
 
-        RoomEntity entity = roomJpaRepository.findById(id)
+        Integer version = roomJpaRepository.findVersionById(id)
                 .orElseThrow(() -> new BookingNotFoundException(
                         "No se encontró la habitación con id " + id));
 
-        Integer version = entity.getVersion();
-
         LOGGER.info("Version actual de la habitacion con id {} es {}.", id, version);
 
         return version;
@@ -148,7 +194,8 @@ public class RoomService {
 
     /*
      * Recupera una página de habitaciones ordenadas según los criterios indicados.
-     * Este método simula la paginación que luego realizará Spring Data JPA.
+     * La paginación y el orden se delegan al repositorio, de forma que solo se
+     * recuperan las habitaciones de la página solicitada y el total de registros.
      */
     public RoomPageResultDto getRoomsPage(int page, int size, String sort, String direction) {
         LOGGER.info("Recuperando página de habitaciones. page={}, size={}, sort={}, direction={}.",
@@ -157,25 +204,16 @@ public class RoomService {
         int normalizedPage = Math.max(page, 0);
         int normalizedSize = size <= 0 ? 10 : size;
 
-        List<Room> allRooms = roomRepository.findAll();
-
-        Comparator<Room> comparator = buildRoomComparator(sort);
+        Page<Room> roomPage = fetchRoomPage(roomRepository::findAll,
+                normalizedPage, normalizedSize, buildRoomSort(sort, direction));
 
-        if (comparator != null) {
-            if ("desc".equalsIgnoreCase(direction)) {
-                comparator = comparator.reversed();
-            }
-            allRooms = allRooms.stream()
-                    .sorted(comparator)
-                    .collect(Collectors.toList());
-        }
-
-        return buildPageResult(allRooms, normalizedPage, normalizedSize, sort, direction);
+        return buildPageResult(roomPage, sort, direction);
     }
 
     /*
      * Recupera una página de habitaciones aplicando filtros opcionales por nombre y rango de precio.
-     * Si no se especifica ningún filtro, delega en getRoomsPage.
+     * Si no se especifica ningún filtro, delega en getRoomsPage. En caso contrario, los
+     * filtros, el orden y la paginación se resuelven en una única búsqueda del repositorio.
      */
     public RoomPageResultDto searchRooms(String nameFilter,
                                          BigDecimal minPrice,
@@ -200,44 +238,146 @@ public class RoomService {
         int normalizedPage = Math.max(page, 0);
         int normalizedSize = size <= 0 ? 10 : size;
 
-        List<Room> filteredRooms;
+        // Todos los filtros se combinan en una sola búsqueda del repositorio con orden y paginación.
+        RoomSearchCriteria criteria = new RoomSearchCriteria(nameFilter, minPrice, maxPrice);
 
-        if (hasName && !hasPriceRange) {
-            String normalizedName = nameFilter.trim();
-            filteredRooms = roomRepository.findByNameContainingIgnoreCase(normalizedName);
-        } else if (!hasName && hasPriceRange) {
-            BigDecimal effectiveMin = minPrice == null ? BigDecimal.ZERO : minPrice;
-            BigDecimal effectiveMax = maxPrice == null ? MAX_BASE_PRICE_PER_NIGHT : maxPrice;
-            filteredRooms = roomRepository.findByBasePricePerNightBetween(effectiveMin, effectiveMax);
-        } else {
-            String normalizedName = nameFilter.trim();
-            BigDecimal effectiveMin = minPrice == null ? BigDecimal.ZERO : minPrice;
-            BigDecimal effectiveMax = maxPrice == null ? MAX_BASE_PRICE_PER_NIGHT : maxPrice;
-            List<Room> roomsByName = roomRepository.findByNameContainingIgnoreCase(normalizedName);
-            filteredRooms = roomsByName.stream()
-                    .filter(room -> room.getBasePricePerNight() != null)
-                    .filter(room -> room.getBasePricePerNight().compareTo(effectiveMin) >= 0)
-                    .filter(room -> room.getBasePricePerNight().compareTo(effectiveMax) <= 0)
-                    .collect(Collectors.toList());
+        Page<Room> roomPage = fetchRoomPage(
+                pageable -> roomRepository.search(criteria, pageable),
+                normalizedPage, normalizedSize, buildRoomSort(sort, direction));
+
+        return buildPageResult(roomPage, sort, direction);
+    }
+
+    /*
+     * Recupera una página de habitaciones en modo keyset (seek) aplicando los mismos
+     * filtros opcionales que searchRooms. En lugar de un número de página se recibe el
+     * cursor opaco devuelto en la página anterior, de modo que la base de datos no tiene
+     * que recorrer y descartar las filas previas como ocurre con OFFSET.
+     *
+     * El conteo total solo se ejecuta si includeTotal es true, para que los recorridos
+     * profundos no paguen un COUNT en cada página.
+     */
+    public RoomPageResultDto searchRoomsByKeyset(String nameFilter,
+                                                 BigDecimal minPrice,
+                                                 BigDecimal maxPrice,
+                                                 String after,
+                                                 int size,
+                                                 String sort,
+                                                 String direction,
+                                                 boolean includeTotal) {
+
+        LOGGER.info(
+                "Buscando habitaciones por keyset. nameFilter={}, minPrice={}, maxPrice={}, after={}, size={}, sort={}, direction={}, includeTotal={}.",
+                nameFilter, minPrice, maxPrice, after, size, sort, direction, includeTotal);
+
+        int normalizedSize = size <= 0 ? 10 : size;
+        String property = resolveSortProperty(sort);
+        boolean descending = "desc".equalsIgnoreCase(direction);
+        boolean hasCursor = after != null && !after.isBlank();
+
+        RoomSearchCriteria criteria = new RoomSearchCriteria(nameFilter, minPrice, maxPrice);
+
+        RoomKeyset keyset = null;
+        if (hasCursor) {
+            RoomKeysetCursor cursor = RoomKeysetCursor.decode(after.trim(), property, descending);
+            keyset = new RoomKeyset(
+                    property,
+                    isCaseInsensitiveSortProperty(property),
+                    descending,
+                    cursor.getLastValue(),
+                    cursor.getLastId());
+        }
+
+        Sort roomSort = buildRoomSort(sort, direction);
+
+        // Se pide una fila adicional para saber si existe una página siguiente sin ejecutar un COUNT.
+        List<Room> rooms = roomRepository.searchAfter(criteria, keyset, roomSort, normalizedSize + 1);
+
+        boolean hasNext = rooms.size() > normalizedSize;
+        if (hasNext) {
+            rooms = rooms.subList(0, normalizedSize);
         }
 
-        Comparator<Room> comparator = buildRoomComparator(sort);
+        String nextCursor = hasNext
+                ? RoomKeysetCursor.after(rooms.get(rooms.size() - 1), property, descending).encode()
+                : null;
+
+        Long totalElements = null;
+        Integer totalPages = null;
+        if (includeTotal) {
+            totalElements = roomRepository.count(criteria);
+            totalPages = totalElements == 0 ? 0
+                    : (int) ((totalElements + normalizedSize - 1) / normalizedSize);
+        }
+
+        List<RoomSummaryResponseDto> content = rooms.stream()
+                .map(this::mapToSummaryResponse)
+                .collect(Collectors.toList());
+
+        LOGGER.info("Página keyset de habitaciones construida. size={}, elementos={}, hasNext={}, totalElements={}.",
+                normalizedSize, content.size(), hasNext, totalElements);
 
-        if (comparator != null) {
-            if ("desc".equalsIgnoreCase(direction)) {
-                comparator = comparator.reversed();
-            }
-            filteredRooms = filteredRooms.stream()
-                    .sorted(comparator)
+        return new RoomPageResultDto(
+                content,
+                0,
+                normalizedSize,
+                totalElements,
+                totalPages,
+                !hasCursor,
+                !hasNext,
+                sort,
+                direction,
+                nextCursor
+        );
+    }
+
+    /*
+     * Sugiere habitaciones cuyo nombre se parece al texto indicado, ordenadas por similitud
+     * de trigramas, para el autocompletado del listado de habitaciones.
+     *
+     * Con menos de tres caracteres no se puede formar un trigrama completo y la similitud
+     * no discrimina, por lo que en ese caso se devuelven las habitaciones cuyo nombre
+     * contiene el texto, ordenadas alfabéticamente y sin puntuación.
+     */
+    public List<RoomNameSuggestionDto> suggestRoomsByName(String query, int limit) {
+        LOGGER.info("Buscando sugerencias de habitaciones por nombre. query={}, limit={}.", query, limit);
+
+        if (query == null || query.trim().isEmpty()) {
+            return List.of();
+        }
+
+        String normalizedQuery = query.trim().toLowerCase(Locale.ROOT);
+        int normalizedLimit = limit <= 0 ? 10 : Math.min(limit, MAX_SUGGESTIONS);
+
+        List<RoomNameSuggestionDto> suggestions;
+
+        if (normalizedQuery.length() < MIN_SIMILARITY_QUERY_LENGTH) {
+            Sort nameSort = Sort.by(Sort.Order.asc("name").ignoreCase(), Sort.Order.asc("id"));
+            suggestions = roomRepository.searchAfter(
+                            new RoomSearchCriteria(normalizedQuery, null, null), null, nameSort, normalizedLimit)
+                    .stream()
+                    .map(room -> RoomNameSuggestionDto.builder()
+                            .id(room.getId())
+                            .code(room.getCode())
+                            .name(room.getName())
+                            .build())
+                    .collect(Collectors.toList());
+        } else {
+            suggestions = roomRepository.findByNameSimilarity(normalizedQuery, normalizedLimit)
+                    .stream()
+                    .map(this::mapToRoomNameSuggestionDto)
                     .collect(Collectors.toList());
         }
 
-        return buildPageResult(filteredRooms, normalizedPage, normalizedSize, sort, direction);
+        LOGGER.info("Sugerencias de habitaciones construidas. query={}, total={}.", query, suggestions.size());
+
+        return suggestions;
     }
 
     /*
      * Recupera una página de habitaciones aplicando un conjunto avanzado de filtros
      * basado en Specifications. Todos los campos del filtro son opcionales.
+     * La Specification se ejecuta paginada y ordenada junto con su consulta de conteo.
      */
     public RoomPageResultDto searchRoomsAdvanced(RoomSearchFilterDto filter,
                                                  int page,
@@ -263,35 +403,26 @@ public class RoomService {
                 .and(RoomSpecifications.basePriceGreaterOrEqual(filter.getMinBasePricePerNight()))
                 .and(RoomSpecifications.basePriceLessOrEqual(filter.getMaxBasePricePerNight()))
                 .and(RoomSpecifications.onlyActive(filter.getOnlyActive()))
-                .and(RoomSpecifications.availableBetween(filter.getAvailableFrom(),
-                        filter.getAvailableTo()));
+                .and(buildAvailabilitySpecification(filter.getAvailableFrom(), filter.getAvailableTo()));
 
-        List<RoomEntity> entities = roomJpaRepository.findAll(specification);
-
-        LOGGER.info("La consulta avanzada recuperó {} habitaciones desde la base de datos.",
-                entities.size());
-
-        List<Room> rooms = entities.stream()
-                .map(this::mapToModel)
-                .collect(Collectors.toList());
+        // El orden y la paginación se resuelven en SQL.
+        Page<Room> roomPage = fetchRoomPage(
+                pageable -> roomJpaRepository.findAll(specification, pageable).map(this::mapToModel),
+                normalizedPage, normalizedSize, buildRoomSort(sort, direction));
 
-        Comparator<Room> comparator = buildRoomComparator(sort);
+        LOGGER.info("La consulta avanzada recuperó {} de {} habitaciones desde la base de datos.",
+                roomPage.getNumberOfElements(), roomPage.getTotalElements());
 
-        if (comparator != null) {
-            if ("desc".equalsIgnoreCase(direction)) {
-                comparator = comparator.reversed();
-            }
-            rooms = rooms.stream()
-                    .sorted(comparator)
-                    .collect(Collectors.toList());
-        }
-
-        return buildPageResult(rooms, normalizedPage, normalizedSize, sort, direction);
+        return buildPageResult(roomPage, sort, direction);
     }
 
     /*
      * Recupera un resumen de ocupación por habitación para una fecha de referencia.
      * Si la fecha de referencia es nula, se utiliza la fecha actual del sistema.
+     *
+     * Si la fecha está dentro de la ventana de RoomOccupancyCounters, el número de reservas
+     * activas se toma de los contadores y las habitaciones del repositorio (con caché); en
+     * otro caso se calcula con la consulta agrupada sobre bookings.
      */
     public List<RoomOccupancySummaryDto> getRoomOccupancySummary(LocalDate referenceDate) {
         LOGGER.info("Recuperando resumen de ocupación de habitaciones para la fecha {}.",
@@ -299,6 +430,18 @@ public class RoomService {
 
         LocalDate effectiveDate = referenceDate != null ? referenceDate : LocalDate.now();
 
+        Optional<Map<Long, Integer>> counts = roomOccupancyCounters.findCountsByRoom(effectiveDate);
+        if (counts.isPresent()) {
+            List<RoomOccupancySummaryDto> summaries = roomRepository.findAll().stream()
+                    .sorted(Comparator.comparing(Room::getCode, Comparator.nullsLast(Comparator.naturalOrder())))
+                    .map(room -> mapToRoomOccupancySummaryDto(room, counts.get().getOrDefault(room.getId(), 0)))
+                    .collect(Collectors.toList());
+
+            LOGGER.info("Resumen de ocupación construido desde los contadores para {} habitaciones.",
+                    summaries.size());
+            return summaries;
+        }
+
         List<RoomOccupancyView> views = roomJpaRepository
                 .findRoomOccupancySummaryByReferenceDate(effectiveDate);
 
@@ -326,87 +469,138 @@ public class RoomService {
     }
 
     /*
-     * Construye un comparador para ordenar habitaciones según el campo indicado.
+     * Construye el Sort de Spring Data a partir de los parámetros de orden de la API
+     * para que el orden se resuelva en la base de datos. Los campos de texto se ordenan sin
+     * distinguir mayúsculas/minúsculas y se agrega el id como criterio de desempate
+     * para que la paginación sea determinista.
      */
-    private Comparator<Room> buildRoomComparator(String sort) {
-        if (sort == null || sort.isBlank()) {
-            return Comparator.comparing(Room::getId, Comparator.nullsLast(Long::compareTo));
+    private Sort buildRoomSort(String sort, String direction) {
+        Sort.Direction sortDirection = "desc".equalsIgnoreCase(direction)
+                ? Sort.Direction.DESC
+                : Sort.Direction.ASC;
+
+        String property = resolveSortProperty(sort);
+        Sort.Order idOrder = new Sort.Order(sortDirection, "id");
+
+        if ("id".equals(property)) {
+            return Sort.by(idOrder);
         }
 
-        String normalizedSort = sort.trim().toLowerCase();
+        Sort.Order primaryOrder = new Sort.Order(sortDirection, property);
+        if (isCaseInsensitiveSortProperty(property)) {
+            primaryOrder = primaryOrder.ignoreCase();
+        }
+
+        return Sort.by(primaryOrder, idOrder);
+    }
+
+    /*
+     * Traduce el nombre de orden recibido en la API a la propiedad de RoomEntity.
+     * Los valores no reconocidos se ordenan por id.
+     */
+    private String resolveSortProperty(String sort) {
+        String normalizedSort = sort == null ? "" : sort.trim().toLowerCase();
 
         switch (normalizedSort) {
             case "code":
-                return Comparator.comparing(
-                        Room::getCode,
-                        Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER));
+                return "code";
             case "name":
-                return Comparator.comparing(
-                        Room::getName,
-                        Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER));
+                return "name";
             case "capacity":
-                return Comparator.comparing(
-                        Room::getCapacity,
-                        Comparator.nullsLast(Integer::compareTo));
+                return "capacity";
             case "price":
             case "basepricepernight":
-                return Comparator.comparing(
-                        Room::getBasePricePerNight,
-                        Comparator.nullsLast(BigDecimal::compareTo));
+                return "basePricePerNight";
             case "active":
-                return Comparator.comparing(Room::isActive);
+                return "active";
             case "id":
             default:
-                return Comparator.comparing(
-                        Room::getId,
-                        Comparator.nullsLast(Long::compareTo));
+                return "id";
         }
     }
 
+    private boolean isCaseInsensitiveSortProperty(String property) {
+        return "code".equals(property) || "name".equals(property);
+    }
+
     /*
-     * Construye un resultado de página a partir de una lista ya filtrada y ordenada.
+     * Construye el filtro de disponibilidad. Si el rango cae dentro del horizonte del índice
+     * de disponibilidad, las habitaciones ocupadas se obtienen de sus bitsets en memoria y
+     * se excluyen por id; en caso contrario se usa la subconsulta NOT EXISTS sobre bookings.
+     * Los bitsets reciben los cambios de todas las instancias por el outbox booking_events,
+     * con el retraso del intervalo de sondeo de BookingEventDispatcher.
+     *
+     * La exclusión por id envía un parámetro por habitación ocupada, así que solo se usa
+     * hasta MAX_EXCLUDED_ROOM_IDS ids; con más, la lista acercaría el límite de parámetros
+     * de PostgreSQL y la subconsulta resulta más barata que enviarla.
      */
-    private RoomPageResultDto buildPageResult(List<Room> rooms,
-                                              int page,
-                                              int size,
-                                              String sort,
-                                              String direction) {
-
-        long totalElements = rooms.size();
-        int totalPages = totalElements == 0 ? 0
-                : (int) ((totalElements + size - 1) / size);
-
-        int normalizedPage = page;
-        if (totalPages > 0 && normalizedPage >= totalPages) {
-            normalizedPage = totalPages - 1;
+    private Specification<RoomEntity> buildAvailabilitySpecification(LocalDate availableFrom,
+                                                                     LocalDate availableTo) {
+        if (availableFrom == null || availableTo == null) {
+            return RoomSpecifications.availableBetween(availableFrom, availableTo);
+        }
+
+        Optional<Set<Long>> bookedRoomIds = roomAvailabilityIndex.findBookedRoomIds(availableFrom, availableTo);
+        if (bookedRoomIds.isEmpty()) {
+            LOGGER.debug("Rango [{}, {}) fuera del índice de disponibilidad. Se usa la subconsulta en base de datos.",
+                    availableFrom, availableTo);
+            return RoomSpecifications.availableBetween(availableFrom, availableTo);
         }
 
-        int fromIndex = normalizedPage * size;
-        int toIndex = Math.min(fromIndex + size, (int) totalElements);
+        if (bookedRoomIds.get().size() > MAX_EXCLUDED_ROOM_IDS) {
+            LOGGER.debug("Índice de disponibilidad: {} habitaciones ocupadas en [{}, {}), más que el límite {}. "
+                            + "Se usa la subconsulta en base de datos.",
+                    bookedRoomIds.get().size(), availableFrom, availableTo, MAX_EXCLUDED_ROOM_IDS);
+            return RoomSpecifications.availableBetween(availableFrom, availableTo);
+        }
 
-        List<RoomSummaryResponseDto> content;
+        LOGGER.debug("Índice de disponibilidad: {} habitaciones ocupadas en [{}, {}).",
+                bookedRoomIds.get().size(), availableFrom, availableTo);
+        return RoomSpecifications.idNotIn(bookedRoomIds.get());
+    }
 
-        if (fromIndex >= toIndex || totalElements == 0) {
-            content = List.of();
-        } else {
-            content = rooms.subList(fromIndex, toIndex).stream()
-                    .map(this::mapToSummaryResponse)
-                    .collect(Collectors.toList());
+    /*
+     * Recupera una página con el fetcher indicado. Si la página solicitada excede el
+     * total de páginas, se recupera la última página disponible.
+     */
+    private Page<Room> fetchRoomPage(Function<Pageable, Page<Room>> pageFetcher,
+                                     int page,
+                                     int size,
+                                     Sort sort) {
+        Page<Room> roomPage = pageFetcher.apply(PageRequest.of(page, size, sort));
+
+        if (roomPage.getTotalPages() > 0 && page >= roomPage.getTotalPages()) {
+            LOGGER.info("La página {} excede el total de páginas {}. Se recupera la última página.",
+                    page, roomPage.getTotalPages());
+            roomPage = pageFetcher.apply(PageRequest.of(roomPage.getTotalPages() - 1, size, sort));
         }
 
-        boolean first = totalPages == 0 || normalizedPage == 0;
-        boolean last = totalPages == 0 || normalizedPage >= totalPages - 1;
+        return roomPage;
+    }
+
+    /*
+     * Construye un resultado de página a partir de una página ya recuperada y ordenada
+     * por el repositorio.
+     */
+    private RoomPageResultDto buildPageResult(Page<Room> roomPage, String sort, String direction) {
+        List<RoomSummaryResponseDto> content = roomPage.getContent().stream()
+                .map(this::mapToSummaryResponse)
+                .collect(Collectors.toList());
+
+        boolean first = roomPage.getTotalPages() == 0 || roomPage.isFirst();
+        boolean last = roomPage.getTotalPages() == 0 || roomPage.isLast();
 
         LOGGER.info(
                 "Página de habitaciones construida. page={}, size={}, totalElements={}, totalPages={}.",
-                normalizedPage, size, totalElements, totalPages);
+                roomPage.getNumber(), roomPage.getSize(), roomPage.getTotalElements(),
+                roomPage.getTotalPages());
 
         return new RoomPageResultDto(
                 content,
-                normalizedPage,
-                size,
-                totalElements,
-                totalPages,
+                roomPage.getNumber(),
+                roomPage.getSize(),
+                roomPage.getTotalElements(),
+                roomPage.getTotalPages(),
                 first,
                 last,
                 sort,
@@ -428,13 +622,9 @@ public class RoomService {
             throw new InvalidBookingException("El código de la habitación es obligatorio.");
         }
 
-        boolean codeAlreadyExists = roomRepository.findAll().stream()
-                .map(Room::getCode)
-                .filter(Objects::nonNull)
-                .map(String::trim)
-                .anyMatch(existingCode -> existingCode.equalsIgnoreCase(normalizedCode));
-
-        if (codeAlreadyExists) {
+        // La comprobación da un mensaje claro en el caso común; si dos altas concurrentes la pasan
+        // a la vez, el índice único sobre el código rechaza la segunda al guardar.
+        if (roomRepository.existsByCodeIgnoreCase(normalizedCode)) {
             throw new InvalidBookingException(
                     "Ya existe una habitación registrada con el código " + normalizedCode + ".");
         }
@@ -488,6 +678,7 @@ public class RoomService {
                 .capacity(room.getCapacity())
                 .basePricePerNight(room.getBasePricePerNight())
                 .active(room.isActive())
+                .version(room.getVersion())
                 .build();
     }
 
@@ -501,6 +692,25 @@ public class RoomService {
                 .build();
     }
 
+    private RoomOccupancySummaryDto mapToRoomOccupancySummaryDto(Room room, int activeBookingsCount) {
+        return RoomOccupancySummaryDto.builder()
+                .roomId(room.getId())
+                .roomCode(room.getCode())
+                .roomName(room.getName())
+                .basePricePerNight(room.getBasePricePerNight())
+                .activeBookingsCount(activeBookingsCount)
+                .build();
+    }
+
+    private RoomNameSuggestionDto mapToRoomNameSuggestionDto(RoomNameMatchView view) {
+        return RoomNameSuggestionDto.builder()
+                .id(view.getId())
+                .code(view.getCode())
+                .name(view.getName())
+                .score(view.getScore())
+                .build();
+    }
+
     private Room mapToModel(RoomEntity entity) {
         if (entity == null) {
             return null;
@@ -513,6 +723,7 @@ public class RoomService {
                 .basePricePerNight(entity.getBasePricePerNight())
                 .active(entity.isActive())
                 .internalNotes(entity.getInternalNotes())
+                .version(entity.getVersion())
                 .build();
     }
 }
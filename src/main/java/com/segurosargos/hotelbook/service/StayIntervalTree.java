@@ -0,0 +1,195 @@
+package com.segurosargos.hotelbook.service;
+
+/*
+ * Árbol de intervalos semiabiertos [inicio, fin) sobre días (epoch day), implementado
+ * como un árbol AVL ordenado por (inicio, id) y aumentado con el fin máximo de cada
+ * subárbol. Permite insertar, eliminar y encontrar un intervalo que se solape con un
+ * rango en O(log n), aunque existan intervalos solapados entre sí.
+ *
+ * No es seguro para acceso concurrente; el llamador debe sincronizar.
+ */
+final class StayIntervalTree {
+
+    private Node root;
+
+    private int size;
+
+    /*
+     * Inserta el intervalo [start, end) identificado por id.
+     */
+    void insert(long id, long start, long end) {
+        root = insert(root, id, start, end);
+        size++;
+    }
+
+    /*
+     * Elimina el intervalo identificado por id que comienza en start.
+     * Devuelve true si existía.
+     */
+    boolean remove(long id, long start) {
+        int before = size;
+        root = remove(root, id, start);
+        return size < before;
+    }
+
+    /*
+     * Devuelve el id de algún intervalo que se solape con [start, end), distinto de
+     * excludedId, o null si no hay solapamiento.
+     */
+    Long findOverlap(long start, long end, long excludedId) {
+        return findOverlap(root, start, end, excludedId);
+    }
+
+    int size() {
+        return size;
+    }
+
+    private Long findOverlap(Node node, long start, long end, long excludedId) {
+        if (node == null || node.maxEnd <= start) {
+            return null;
+        }
+        Long found = findOverlap(node.left, start, end, excludedId);
+        if (found != null) {
+            return found;
+        }
+        if (node.start < end && node.end > start && node.id != excludedId) {
+            return node.id;
+        }
+        // Los nodos de la derecha comienzan en node.start o después; si ya comienzan
+        // en end o después no pueden solaparse.
+        if (node.start >= end) {
+            return null;
+        }
+        return findOverlap(node.right, start, end, excludedId);
+    }
+
+    private Node insert(Node node, long id, long start, long end) {
+        if (node == null) {
+            return new Node(id, start, end);
+        }
+        if (compare(start, id, node) < 0) {
+            node.left = insert(node.left, id, start, end);
+        } else {
+            node.right = insert(node.right, id, start, end);
+        }
+        return rebalance(node);
+    }
+
+    private Node remove(Node node, long id, long start) {
+        if (node == null) {
+            return null;
+        }
+        int comparison = compare(start, id, node);
+        if (comparison < 0) {
+            node.left = remove(node.left, id, start);
+        } else if (comparison > 0) {
+            node.right = remove(node.right, id, start);
+        } else {
+            size--;
+            if (node.left == null) {
+                return node.right;
+            }
+            if (node.right == null) {
+                return node.left;
+            }
+            Node successor = node.right;
+            while (successor.left != null) {
+                successor = successor.left;
+            }
+            node.right = removeMin(node.right);
+            successor.right = node.right;
+            successor.left = node.left;
+            return rebalance(successor);
+        }
+        return rebalance(node);
+    }
+
+    private Node removeMin(Node node) {
+        if (node.left == null) {
+            return node.right;
+        }
+        node.left = removeMin(node.left);
+        return rebalance(node);
+    }
+
+    private static int compare(long start, long id, Node node) {
+        int byStart = Long.compare(start, node.start);
+        return byStart != 0 ? byStart : Long.compare(id, node.id);
+    }
+
+    private static Node rebalance(Node node) {
+        update(node);
+        int balance = height(node.left) - height(node.right);
+        if (balance > 1) {
+            if (height(node.left.left) < height(node.left.right)) {
+                node.left = rotateLeft(node.left);
+            }
+            return rotateRight(node);
+        }
+        if (balance < -1) {
+            if (height(node.right.right) < height(node.right.left)) {
+                node.right = rotateRight(node.right);
+            }
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    private static Node rotateRight(Node node) {
+        Node pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private static void update(Node node) {
+        node.height = 1 + Math.max(height(node.left), height(node.right));
+        long maxEnd = node.end;
+        if (node.left != null) {
+            maxEnd = Math.max(maxEnd, node.left.maxEnd);
+        }
+        if (node.right != null) {
+            maxEnd = Math.max(maxEnd, node.right.maxEnd);
+        }
+        node.maxEnd = maxEnd;
+    }
+
+    private static int height(Node node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static final class Node {
+
+        private final long id;
+
+        private final long start;
+
+        private final long end;
+
+        private long maxEnd;
+
+        private int height = 1;
+
+        private Node left;
+
+        private Node right;
+
+        private Node(long id, long start, long end) {
+            this.id = id;
+            this.start = start;
+            this.end = end;
+            this.maxEnd = end;
+        }
+    }
+}
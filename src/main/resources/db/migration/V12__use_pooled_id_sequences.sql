@@ -0,0 +1,20 @@
+/*
+ * Las entidades dejan de usar IDENTITY y toman sus ids de las secuencias de las columnas
+ * BIGSERIAL con el optimizador pooled de Hibernate: cada nextval reserva un bloque de 50
+ * ids que la aplicación asigna en memoria. Con IDENTITY cada INSERT se ejecutaba al
+ * momento para conocer el id generado, lo que impedía agruparlos en lotes JDBC.
+ *
+ * El incremento de cada secuencia debe coincidir con el allocationSize de
+ * @SequenceGenerator. Con el optimizador pooled, el valor devuelto por nextval es el
+ * límite superior del bloque; como V3 dejó cada secuencia en el id máximo de su tabla,
+ * el primer bloque empieza justo después de los ids existentes.
+ *
+ * Los INSERT que no indican id (DEFAULT nextval) siguen siendo válidos: consumen un
+ * valor completo de la secuencia y ese bloque ya no se entrega a la aplicación.
+ */
+
+ALTER SEQUENCE rooms_id_seq INCREMENT BY 50;
+
+ALTER SEQUENCE guests_id_seq INCREMENT BY 50;
+
+ALTER SEQUENCE bookings_id_seq INCREMENT BY 50;
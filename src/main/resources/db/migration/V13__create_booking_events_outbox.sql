@@ -0,0 +1,32 @@
+/*
+ * Outbox de cambios de estatus de reservas. BookingManagementService inserta una fila
+ * en booking_events dentro de la misma transacción que modifica la reserva, de modo que
+ * el evento existe si y solo si el cambio se confirmó.
+ *
+ * BookingEventDispatcher lee las filas en orden de id y las entrega a los oyentes
+ * registrados en cada instancia; booking_event_offsets guarda, por consumidor e
+ * instancia, el id hasta el que se entregaron todos los eventos. No hay llave foránea a bookings: la tabla es un registro de
+ * eventos y bookings está particionada por mes.
+ *
+ * La secuencia incrementa de 1 en 1: con ids reservados en bloques, una instancia
+ * confirma ids muy por debajo de los que ya entregó otra y los huecos duran más.
+ */
+
+CREATE SEQUENCE booking_events_id_seq START WITH 1 INCREMENT BY 1;
+
+CREATE TABLE booking_events (
+    id BIGINT PRIMARY KEY,
+    booking_id BIGINT NOT NULL,
+    room_id BIGINT,
+    check_in_date DATE NOT NULL,
+    check_out_date DATE NOT NULL,
+    previous_status VARCHAR(50),
+    new_status VARCHAR(50) NOT NULL,
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL
+);
+
+CREATE TABLE booking_event_offsets (
+    consumer VARCHAR(100) PRIMARY KEY,
+    last_event_id BIGINT NOT NULL,
+    updated_at TIMESTAMP WITH TIME ZONE NOT NULL
+);
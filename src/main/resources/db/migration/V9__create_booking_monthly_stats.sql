@@ -0,0 +1,14 @@
+/*
+ * Tabla de agregados mensuales de reservas por (año, mes de check-in, estatus).
+ * Se mantiene de forma incremental con cada cambio de estatus y se rellena desde
+ * bookings con el job de backfill (BookingMonthlyStatsJob), de modo que el reporte
+ * mensual lee filas ya agregadas en lugar de recorrer bookings con extract().
+ */
+create table booking_monthly_stats (
+    stats_year    integer        not null,
+    stats_month   integer        not null,
+    status        varchar(50)    not null,
+    booking_count bigint         not null default 0,
+    total_revenue numeric(14, 2) not null default 0,
+    constraint pk_booking_monthly_stats primary key (status, stats_year, stats_month)
+);
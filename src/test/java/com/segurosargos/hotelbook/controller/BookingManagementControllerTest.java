@@ -2,11 +2,15 @@ package com.segurosargos.hotelbook.controller;
 
 import com.segurosargos.hotelbook.config.SecurityConfig;
 import com.segurosargos.hotelbook.dto.BookingStatusChangeResponseDto;
+import com.segurosargos.hotelbook.dto.BulkBookingStatusChangeItemDto;
+import com.segurosargos.hotelbook.dto.BulkBookingStatusChangeResponseDto;
 import com.segurosargos.hotelbook.exception.BookingNotFoundException;
 import com.segurosargos.hotelbook.service.BookingManagementService;
+import com.segurosargos.hotelbook.service.IdempotentResponseStore;
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.util.Base64;
+import java.util.List;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -20,7 +24,10 @@ import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
 import static org.hamcrest.Matchers.is;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -31,7 +38,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
  */
 @ExtendWith(SpringExtension.class)
 @WebMvcTest(controllers = BookingManagementController.class)
-@Import(SecurityConfig.class)
+@Import({SecurityConfig.class, IdempotentResponseStore.class})
 class BookingManagementControllerTest {
 
     @Autowired
@@ -139,6 +146,87 @@ class BookingManagementControllerTest {
                 .andExpect(jsonPath("$.error", is("Not Found")));
     }
 
+    @Test
+    @DisplayName("POST /api/bookings/{id}/confirm repetido con la misma Idempotency-Key devuelve la respuesta guardada")
+    void confirmBooking_withRepeatedIdempotencyKey_replaysResponseWithoutCallingService() throws Exception {
+        BookingStatusChangeResponseDto response = BookingStatusChangeResponseDto.builder()
+                .bookingId(31L)
+                .previousStatus("CREATED")
+                .newStatus("CONFIRMED")
+                .build();
+
+        Mockito.when(bookingManagementService.confirmBooking(eq(31L))).thenReturn(response);
+
+        mockMvc.perform(post("/api/bookings/{bookingId}/confirm", 31L)
+                        .header("Authorization", basicAuth("staff", "staff123"))
+                        .header("Idempotency-Key", "retry-31"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Idempotent-Replayed"));
+
+        mockMvc.perform(post("/api/bookings/{bookingId}/confirm", 31L)
+                        .header("Authorization", basicAuth("staff", "staff123"))
+                        .header("Idempotency-Key", "retry-31"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Idempotent-Replayed", "true"))
+                .andExpect(jsonPath("$.bookingId", is(31)))
+                .andExpect(jsonPath("$.newStatus", is("CONFIRMED")));
+
+        verify(bookingManagementService, times(1)).confirmBooking(31L);
+    }
+
+    @Test
+    @DisplayName("POST /api/bookings/{id}/cancel con una Idempotency-Key usada en otra reserva devuelve 422")
+    void cancelBooking_withIdempotencyKeyUsedForOtherBooking_returns422() throws Exception {
+        Mockito.when(bookingManagementService.cancelBooking(eq(32L)))
+                .thenReturn(BookingStatusChangeResponseDto.builder().bookingId(32L).newStatus("CANCELLED").build());
+
+        mockMvc.perform(post("/api/bookings/{bookingId}/cancel", 32L)
+                        .header("Authorization", basicAuth("admin", "admin123"))
+                        .header("Idempotency-Key", "retry-32"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(post("/api/bookings/{bookingId}/cancel", 33L)
+                        .header("Authorization", basicAuth("admin", "admin123"))
+                        .header("Idempotency-Key", "retry-32"))
+                .andExpect(status().isUnprocessableEntity())
+                .andExpect(jsonPath("$.status", is(422)));
+
+        verify(bookingManagementService, times(0)).cancelBooking(33L);
+    }
+
+    @Test
+    @DisplayName("POST /api/bookings/bulk-confirm con rol STAFF devuelve 200 y el resultado por reserva")
+    void confirmBookings_withStaffRole_returns200AndResults() throws Exception {
+        BulkBookingStatusChangeResponseDto response = BulkBookingStatusChangeResponseDto.builder()
+                .requested(2)
+                .updated(1)
+                .rejected(1)
+                .results(List.of(
+                        BulkBookingStatusChangeItemDto.builder().bookingId(5L).outcome("UPDATED").build(),
+                        BulkBookingStatusChangeItemDto.builder().bookingId(6L).outcome("NOT_FOUND").build()))
+                .build();
+
+        Mockito.when(bookingManagementService.confirmBookings(eq(List.of(5L, 6L)))).thenReturn(response);
+
+        mockMvc.perform(post("/api/bookings/bulk-confirm")
+                        .header("Authorization", basicAuth("staff", "staff123"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"bookingIds\":[5,6]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.updated", is(1)))
+                .andExpect(jsonPath("$.results[1].outcome", is("NOT_FOUND")));
+    }
+
+    @Test
+    @DisplayName("POST /api/bookings/bulk-cancel sin ids devuelve 400")
+    void cancelBookings_withoutIds_returns400() throws Exception {
+        mockMvc.perform(post("/api/bookings/bulk-cancel")
+                        .header("Authorization", basicAuth("staff", "staff123"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"bookingIds\":[]}"))
+                .andExpect(status().isBadRequest());
+    }
+
     private String basicAuth(String username, String password) {
         String token = username + ":" + password;
         byte[] encodedBytes = Base64.getEncoder().encode(token.getBytes(StandardCharsets.UTF_8));
@@ -0,0 +1,248 @@
+package com.segurosargos.hotelbook.controller;
+
+import com.segurosargos.hotelbook.config.SecurityConfig;
+import com.segurosargos.hotelbook.dto.BookingDetailResponseDto;
+import com.segurosargos.hotelbook.exception.InvalidBookingException;
+import com.segurosargos.hotelbook.service.BookingExportService;
+import com.segurosargos.hotelbook.service.BookingReportService;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Base64;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import org.assertj.core.api.Assertions;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Pruebas HTTP para BookingRestController utilizando MockMvc.
+ * Se valida el reporte de reservas en streaming en sus formatos JSON, NDJSON y CSV,
+ * y la exportacion masiva en CSV comprimido.
+ */
+@ExtendWith(SpringExtension.class)
+@WebMvcTest(controllers = BookingRestController.class)
+@Import(SecurityConfig.class)
+class BookingRestControllerTest {
+
+    private static final LocalDate START = LocalDate.of(2025, 1, 1);
+
+    private static final LocalDate END = LocalDate.of(2025, 1, 31);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private BookingReportService bookingReportService;
+
+    @MockBean
+    private BookingExportService bookingExportService;
+
+    @Test
+    @DisplayName("GET /api/bookings/report/stream en JSON devuelve un arreglo con todas las filas")
+    void streamReport_asJson_writesArray() throws Exception {
+        CountDownLatch requestReturned = stubStreamedRows();
+
+        MvcResult result = mockMvc.perform(streamRequest(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        requestReturned.countDown();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].bookingId").value(1))
+                .andExpect(jsonPath("$[0].checkInDate").value("2025-01-10"))
+                .andExpect(jsonPath("$[1].guestLastName").value("Perez, Jr."));
+    }
+
+    @Test
+    @DisplayName("GET /api/bookings/report/stream en NDJSON devuelve un objeto por linea")
+    void streamReport_asNdjson_writesOneObjectPerLine() throws Exception {
+        CountDownLatch requestReturned = stubStreamedRows();
+
+        MvcResult result = mockMvc.perform(streamRequest(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        requestReturned.countDown();
+
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andReturn()
+                .getResponse()
+                .getContentAsString(StandardCharsets.UTF_8);
+
+        String[] lines = body.split("\n");
+        Assertions.assertThat(lines).hasSize(2);
+        Assertions.assertThat(lines[0]).startsWith("{\"bookingId\":1,");
+        Assertions.assertThat(lines[1]).startsWith("{\"bookingId\":2,");
+    }
+
+    @Test
+    @DisplayName("GET /api/bookings/report/stream en CSV escribe encabezado y escapa los valores")
+    void streamReport_asCsv_writesHeaderAndEscapedRows() throws Exception {
+        CountDownLatch requestReturned = stubStreamedRows();
+
+        MvcResult result = mockMvc.perform(streamRequest(MediaType.parseMediaType("text/csv")))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        requestReturned.countDown();
+
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Disposition",
+                        Matchers.containsString("bookings-2025-01-01-2025-01-31.csv")))
+                .andReturn()
+                .getResponse()
+                .getContentAsString(StandardCharsets.UTF_8);
+
+        Assertions.assertThat(body.split("\r\n")).containsExactly(
+                "bookingId,roomCode,roomName,guestFirstName,guestLastName,guestEmail,"
+                        + "checkInDate,checkOutDate,totalPrice,status",
+                "1,R-101,Standard,Ana,Lopez,ana@example.com,2025-01-10,2025-01-12,200.00,CONFIRMED",
+                "2,R-102,\"Suite \"\"Deluxe\"\"\",Luis,\"Perez, Jr.\",luis@example.com,"
+                        + "2025-01-15,2025-01-18,900.00,CONFIRMED");
+    }
+
+    @Test
+    @DisplayName("GET /api/bookings/report/stream con rango invalido devuelve 400 sin iniciar el streaming")
+    void streamReport_withInvalidRange_returns400() throws Exception {
+        Mockito.doThrow(new InvalidBookingException("La fecha de inicio no puede ser posterior a la fecha de fin."))
+                .when(bookingReportService).validateReportRange(END, START);
+
+        mockMvc.perform(get("/api/bookings/report/stream")
+                        .param("startDate", END.toString())
+                        .param("endDate", START.toString())
+                        .accept(MediaType.APPLICATION_JSON)
+                        .header("Authorization", basicAuth("viewer", "viewer123")))
+                .andExpect(status().isBadRequest());
+
+        Mockito.verify(bookingReportService, Mockito.never())
+                .streamBookingDetails(any(), any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("GET /api/bookings/export devuelve el archivo gzip generado por el servicio de exportacion")
+    void exportBookingDetails_writesGzipAttachment() throws Exception {
+        byte[] payload = {31, -117, 8, 0};
+        CountDownLatch requestReturned = new CountDownLatch(1);
+        Mockito.when(bookingExportService.resolveExportStatus("cancelled")).thenReturn("CANCELLED");
+        Mockito.when(bookingExportService.exportBookingDetailsCsvGzip(eq(START), eq(END), eq("CANCELLED"), any()))
+                .thenAnswer(invocation -> {
+                    requestReturned.await(5, TimeUnit.SECONDS);
+                    OutputStream outputStream = invocation.getArgument(3);
+                    outputStream.write(payload);
+                    return 1L;
+                });
+
+        MvcResult result = mockMvc.perform(get("/api/bookings/export")
+                        .param("startDate", START.toString())
+                        .param("endDate", END.toString())
+                        .param("status", "cancelled")
+                        .header("Authorization", basicAuth("viewer", "viewer123")))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        requestReturned.countDown();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/gzip"))
+                .andExpect(header().string("Content-Disposition",
+                        Matchers.containsString("bookings-2025-01-01-2025-01-31.csv.gz")))
+                .andExpect(content().bytes(payload));
+    }
+
+    @Test
+    @DisplayName("GET /api/bookings/export con estatus invalido responde 400 sin iniciar la exportacion")
+    void exportBookingDetails_withInvalidStatus_returnsBadRequest() throws Exception {
+        Mockito.when(bookingExportService.resolveExportStatus("CONFIRMED'--"))
+                .thenThrow(new InvalidBookingException("El estatus indicado no es válido para la exportación."));
+
+        mockMvc.perform(get("/api/bookings/export")
+                        .param("startDate", START.toString())
+                        .param("endDate", END.toString())
+                        .param("status", "CONFIRMED'--")
+                        .header("Authorization", basicAuth("viewer", "viewer123")))
+                .andExpect(request().asyncNotStarted())
+                .andExpect(status().isBadRequest());
+
+        Mockito.verify(bookingExportService, Mockito.never())
+                .exportBookingDetailsCsvGzip(any(), any(), any(), any());
+    }
+
+    /*
+     * Las filas se escriben hasta que la prueba libera el latch devuelto, después de que
+     * la primera petición terminó de recorrer los filtros. Así la escritura asíncrona no
+     * compite con los filtros que aún modifican la respuesta simulada.
+     */
+    private CountDownLatch stubStreamedRows() {
+        CountDownLatch requestReturned = new CountDownLatch(1);
+        Mockito.when(bookingReportService.streamBookingDetails(eq(START), eq(END), isNull(), any()))
+                .thenAnswer(invocation -> {
+                    requestReturned.await(5, TimeUnit.SECONDS);
+                    Consumer<BookingDetailResponseDto> consumer = invocation.getArgument(3);
+                    consumer.accept(row(1L, "R-101", "Standard", "Ana", "Lopez", "ana@example.com",
+                            LocalDate.of(2025, 1, 10), "200.00"));
+                    consumer.accept(row(2L, "R-102", "Suite \"Deluxe\"", "Luis", "Perez, Jr.", "luis@example.com",
+                            LocalDate.of(2025, 1, 15), "900.00"));
+                    return 2L;
+                });
+        return requestReturned;
+    }
+
+    private RequestBuilder streamRequest(MediaType accept) {
+        return get("/api/bookings/report/stream")
+                .param("startDate", START.toString())
+                .param("endDate", END.toString())
+                .accept(accept)
+                .header("Authorization", basicAuth("viewer", "viewer123"));
+    }
+
+    private BookingDetailResponseDto row(Long id, String roomCode, String roomName, String firstName,
+                                         String lastName, String email, LocalDate checkIn, String price) {
+        return BookingDetailResponseDto.builder()
+                .bookingId(id)
+                .roomCode(roomCode)
+                .roomName(roomName)
+                .guestFirstName(firstName)
+                .guestLastName(lastName)
+                .guestEmail(email)
+                .checkInDate(checkIn)
+                .checkOutDate(checkIn.plusDays(id == 1L ? 2 : 3))
+                .totalPrice(new BigDecimal(price))
+                .status("CONFIRMED")
+                .build();
+    }
+
+    private String basicAuth(String username, String password) {
+        String token = username + ":" + password;
+        byte[] encodedBytes = Base64.getEncoder().encode(token.getBytes(StandardCharsets.UTF_8));
+        return "Basic " + new String(encodedBytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,129 @@
+package com.segurosargos.hotelbook.controller;
+
+import com.segurosargos.hotelbook.config.SecurityConfig;
+import com.segurosargos.hotelbook.dto.MonthlyBookingStatsDto;
+import com.segurosargos.hotelbook.dto.ReportJobResponseDto;
+import com.segurosargos.hotelbook.dto.ReportJobType;
+import com.segurosargos.hotelbook.exception.ReportJobRejectedException;
+import com.segurosargos.hotelbook.service.ReportJobService;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Base64;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import static org.mockito.ArgumentMatchers.any;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Pruebas HTTP para ReportJobRestController utilizando MockMvc.
+ * Se valida la solicitud de jobs de reporte y la descarga de su resultado.
+ */
+@ExtendWith(SpringExtension.class)
+@WebMvcTest(controllers = ReportJobRestController.class)
+@Import(SecurityConfig.class)
+class ReportJobRestControllerTest {
+
+    private static final String BODY = "{\"type\":\"MONTHLY_STATS\",\"startDate\":\"2025-01-01\","
+            + "\"endDate\":\"2025-06-30\"}";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private ReportJobService reportJobService;
+
+    @Test
+    @DisplayName("POST /api/reports/jobs con usuario viewer devuelve 202 y la ubicacion del job")
+    void submitReportJob_withViewer_returns202() throws Exception {
+        Mockito.when(reportJobService.submit(any())).thenReturn(job("QUEUED"));
+
+        mockMvc.perform(post("/api/reports/jobs")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(BODY)
+                        .header("Authorization", basicAuth("viewer", "viewer123")))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "/api/reports/jobs/job-1"))
+                .andExpect(jsonPath("$.jobId").value("job-1"))
+                .andExpect(jsonPath("$.state").value("QUEUED"));
+    }
+
+    @Test
+    @DisplayName("POST /api/reports/jobs sin tipo de reporte devuelve 400")
+    void submitReportJob_withoutType_returns400() throws Exception {
+        mockMvc.perform(post("/api/reports/jobs")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"startDate\":\"2025-01-01\",\"endDate\":\"2025-06-30\"}")
+                        .header("Authorization", basicAuth("viewer", "viewer123")))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("POST /api/reports/jobs con la cola llena devuelve 503")
+    void submitReportJob_whenQueueIsFull_returns503() throws Exception {
+        Mockito.when(reportJobService.submit(any()))
+                .thenThrow(new ReportJobRejectedException("Hay demasiados reportes en proceso."));
+
+        mockMvc.perform(post("/api/reports/jobs")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(BODY)
+                        .header("Authorization", basicAuth("viewer", "viewer123")))
+                .andExpect(status().isServiceUnavailable());
+    }
+
+    @Test
+    @DisplayName("GET /api/reports/jobs/{id}/result devuelve 202 mientras el job sigue en curso")
+    void getReportJobResult_whenRunning_returns202() throws Exception {
+        Mockito.when(reportJobService.findJobResult("job-1")).thenReturn(Optional.empty());
+        Mockito.when(reportJobService.getJob("job-1")).thenReturn(job("RUNNING"));
+
+        mockMvc.perform(get("/api/reports/jobs/job-1/result")
+                        .header("Authorization", basicAuth("viewer", "viewer123")))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.state").value("RUNNING"));
+    }
+
+    @Test
+    @DisplayName("GET /api/reports/jobs/{id}/result devuelve 200 con las filas cuando el job termino")
+    void getReportJobResult_whenCompleted_returnsRows() throws Exception {
+        MonthlyBookingStatsDto row = MonthlyBookingStatsDto.builder().year(2025).month(1).bookingCount(3L).build();
+        Mockito.when(reportJobService.findJobResult("job-1")).thenReturn(Optional.of(List.of(row)));
+
+        mockMvc.perform(get("/api/reports/jobs/job-1/result")
+                        .header("Authorization", basicAuth("viewer", "viewer123")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].month").value(1))
+                .andExpect(jsonPath("$[0].bookingCount").value(3));
+    }
+
+    private ReportJobResponseDto job(String state) {
+        return ReportJobResponseDto.builder()
+                .jobId("job-1")
+                .type(ReportJobType.MONTHLY_STATS)
+                .startDate(LocalDate.of(2025, 1, 1))
+                .endDate(LocalDate.of(2025, 6, 30))
+                .status("CONFIRMED")
+                .state(state)
+                .build();
+    }
+
+    private String basicAuth(String username, String password) {
+        String token = username + ":" + password;
+        byte[] encodedBytes = Base64.getEncoder().encode(token.getBytes(StandardCharsets.UTF_8));
+        return "Basic " + new String(encodedBytes, StandardCharsets.UTF_8);
+    }
+}
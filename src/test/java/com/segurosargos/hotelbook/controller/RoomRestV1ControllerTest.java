@@ -2,15 +2,20 @@ package com.segurosargos.hotelbook.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.segurosargos.hotelbook.config.SecurityConfig;
+import com.segurosargos.hotelbook.dto.RoomAvailabilityCalendarDto;
+import com.segurosargos.hotelbook.dto.RoomAvailabilityCalendarRowDto;
 import com.segurosargos.hotelbook.dto.RoomCreateRequestDto;
 import com.segurosargos.hotelbook.dto.RoomDetailResponseDto;
+import com.segurosargos.hotelbook.dto.RoomPageResultDto;
 import com.segurosargos.hotelbook.dto.RoomSummaryResponseDto;
 import com.segurosargos.hotelbook.dto.RoomUpdateRequestDto;
 import com.segurosargos.hotelbook.exception.BookingNotFoundException;
+import com.segurosargos.hotelbook.service.RoomAvailabilityCalendarService;
 import com.segurosargos.hotelbook.service.RoomService;
 import jakarta.persistence.OptimisticLockException;
 import java.math.BigDecimal;
 import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.util.Base64;
 import java.util.List;
 import org.hamcrest.Matchers;
@@ -28,6 +33,7 @@ import org.springframework.test.web.servlet.MockMvc;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
@@ -52,6 +58,9 @@ class RoomRestV1ControllerTest {
     @MockBean
     private RoomService roomService;
 
+    @MockBean
+    private RoomAvailabilityCalendarService roomAvailabilityCalendarService;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -120,6 +129,44 @@ class RoomRestV1ControllerTest {
                 .andExpect(jsonPath("$.capacity", is(4)));
     }
 
+    @Test
+    @DisplayName("GET /api/v1/rooms/{id} con If-None-Match vigente devuelve 304 sin cargar la habitacion")
+    void getRoomById_whenEtagMatches_returns304WithoutLoadingRoom() throws Exception {
+        Mockito.when(roomService.getRoomVersionById(10L)).thenReturn(3);
+
+        mockMvc.perform(get("/api/v1/rooms/{id}", 10L)
+                        .header("Authorization", basicAuth("viewer", "viewer123"))
+                        .header("If-None-Match", "\"room-10-v3\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"room-10-v3\""));
+
+        Mockito.verify(roomService, Mockito.never()).getRoomById(anyLong());
+    }
+
+    @Test
+    @DisplayName("GET /api/v1/rooms/{id} sin If-None-Match toma el ETag del detalle sin consultar la version aparte")
+    void getRoomById_withoutConditionalHeader_buildsEtagFromDetail() throws Exception {
+        RoomDetailResponseDto detail = RoomDetailResponseDto.builder()
+                .id(10L)
+                .code("R-201")
+                .name("Suite")
+                .capacity(4)
+                .basePricePerNight(new BigDecimal("250.00"))
+                .active(true)
+                .version(4)
+                .build();
+
+        Mockito.when(roomService.getRoomById(10L)).thenReturn(detail);
+
+        mockMvc.perform(get("/api/v1/rooms/{id}", 10L)
+                        .header("Authorization", basicAuth("viewer", "viewer123")))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"room-10-v4\""))
+                .andExpect(jsonPath("$.version").doesNotExist());
+
+        Mockito.verify(roomService, Mockito.never()).getRoomVersionById(anyLong());
+    }
+
     @Test
     @DisplayName("GET /api/v1/rooms/{id} devuelve 404 cuando la habitacion no existe")
     void getRoomById_whenRoomDoesNotExist_returns404() throws Exception {
@@ -185,6 +232,44 @@ class RoomRestV1ControllerTest {
                 .andExpect(jsonPath("$.error", is("Bad Request")));
     }
 
+    @Test
+    @DisplayName("PUT /api/v1/rooms/{id} con If-Match envia la version al servicio y devuelve el nuevo ETag")
+    void updateRoom_withIfMatch_passesVersionAndReturnsNewEtag() throws Exception {
+        RoomDetailResponseDto updated = RoomDetailResponseDto.builder()
+                .id(40L)
+                .code("R-400")
+                .name("Business Updated")
+                .capacity(2)
+                .basePricePerNight(new BigDecimal("210.00"))
+                .active(true)
+                .version(4)
+                .build();
+
+        Mockito.when(roomService.updateRoom(eq(40L), any(RoomUpdateRequestDto.class), eq(3)))
+                .thenReturn(updated);
+
+        String requestBody = """
+                {
+                  "name": "Business Updated",
+                  "capacity": 2,
+                  "basePricePerNight": 210.00,
+                  "active": true
+                }
+                """;
+
+        mockMvc.perform(put("/api/v1/rooms/{id}", 40L)
+                        .header("Authorization", basicAuth("staff", "staff123"))
+                        .header("If-Match", "\"room-40-v3\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(requestBody))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"room-40-v4\""))
+                .andExpect(jsonPath("$.name", is("Business Updated")));
+
+        Mockito.verify(roomService, Mockito.never()).getRoomVersionById(anyLong());
+        Mockito.verify(roomService, Mockito.never()).getRoomById(anyLong());
+    }
+
     @Test
     @DisplayName("PUT /api/v1/rooms/{id} con conflicto de concurrencia devuelve 412")
     void updateRoom_whenOptimisticLockingOccurs_returns412() throws Exception {
@@ -199,7 +284,7 @@ class RoomRestV1ControllerTest {
 
         Mockito.when(roomService.getRoomById(40L)).thenReturn(current);
 
-        Mockito.when(roomService.updateRoom(eq(40L), any(RoomUpdateRequestDto.class)))
+        Mockito.when(roomService.updateRoom(eq(40L), any(RoomUpdateRequestDto.class), eq(1)))
                 .thenThrow(new OptimisticLockException("Simulated concurrent update"));
 
         String requestBody = """
@@ -220,6 +305,69 @@ class RoomRestV1ControllerTest {
                 .andExpect(header().string("ETag", "\"room-40-v0\""));
     }
 
+    @Test
+    @DisplayName("GET /api/v1/rooms/search con after usa paginacion keyset y devuelve nextCursor sin total")
+    void searchRooms_withCursor_usesKeysetPagination() throws Exception {
+        RoomSummaryResponseDto room = RoomSummaryResponseDto.builder()
+                .id(3L)
+                .code("R-103")
+                .name("Suite")
+                .capacity(2)
+                .basePricePerNight(new BigDecimal("300.00"))
+                .active(true)
+                .build();
+
+        RoomPageResultDto pageResult = new RoomPageResultDto(
+                List.of(room), 0, 1, null, null, false, false, "name", "asc", "next-token");
+
+        Mockito.when(roomService.searchRoomsByKeyset(
+                        eq("suite"), eq(null), eq(null), eq("prev-token"), eq(1), eq("name"), eq("asc"), eq(false)))
+                .thenReturn(pageResult);
+
+        mockMvc.perform(get("/api/v1/rooms/search")
+                        .param("name", "suite")
+                        .param("size", "1")
+                        .param("sort", "name")
+                        .param("after", "prev-token")
+                        .header("Authorization", basicAuth("viewer", "viewer123")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rooms", hasSize(1)))
+                .andExpect(jsonPath("$.rooms[0].code", is("R-103")))
+                .andExpect(jsonPath("$.nextCursor", is("next-token")))
+                .andExpect(jsonPath("$.totalElements").doesNotExist());
+    }
+
+    @Test
+    @DisplayName("GET /api/v1/rooms/availability-calendar devuelve una cadena de ocupacion por habitacion")
+    void getAvailabilityCalendar_withViewer_returnsCompactRows() throws Exception {
+        RoomAvailabilityCalendarDto calendar = RoomAvailabilityCalendarDto.builder()
+                .from(LocalDate.of(2025, 3, 1))
+                .to(LocalDate.of(2025, 3, 6))
+                .days(5)
+                .rooms(List.of(RoomAvailabilityCalendarRowDto.builder()
+                        .roomId(1L)
+                        .roomCode("R-101")
+                        .roomName("Standard")
+                        .occupancy("01100")
+                        .occupiedDays(2)
+                        .build()))
+                .build();
+
+        Mockito.when(roomAvailabilityCalendarService.getAvailabilityCalendar(
+                        LocalDate.of(2025, 3, 1), LocalDate.of(2025, 3, 6)))
+                .thenReturn(calendar);
+
+        mockMvc.perform(get("/api/v1/rooms/availability-calendar")
+                        .param("from", "2025-03-01")
+                        .param("to", "2025-03-06")
+                        .header("Authorization", basicAuth("viewer", "viewer123")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.days", is(5)))
+                .andExpect(jsonPath("$.rooms", hasSize(1)))
+                .andExpect(jsonPath("$.rooms[0].roomCode", is("R-101")))
+                .andExpect(jsonPath("$.rooms[0].occupancy", is("01100")));
+    }
+
     @Test
     @DisplayName("POST /api/v1/rooms con usuario viewer devuelve 403 por falta de rol")
     void createRoom_withViewerRole_returns403() throws Exception {
@@ -0,0 +1,114 @@
+package com.segurosargos.hotelbook.repository;
+
+import com.segurosargos.hotelbook.model.BookingEntity;
+import com.segurosargos.hotelbook.model.GuestEntity;
+import com.segurosargos.hotelbook.model.RoomEntity;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+/**
+ * Pruebas con @DataJpaTest para BookingMonthlyStatsJpaRepository.
+ * Se valida el recalculo desde bookings y la actualizacion incremental de los agregados.
+ */
+@ExtendWith(SpringExtension.class)
+@DataJpaTest
+@ActiveProfiles("test")
+class BookingMonthlyStatsJpaRepositoryTest {
+
+    private static final int JANUARY_2025 = 2025 * 12;
+
+    private static final int MARCH_2025 = 2025 * 12 + 2;
+
+    @Autowired
+    private BookingMonthlyStatsJpaRepository bookingMonthlyStatsJpaRepository;
+
+    @Autowired
+    private BookingJpaRepository bookingJpaRepository;
+
+    @Autowired
+    private RoomJpaRepository roomJpaRepository;
+
+    @Autowired
+    private GuestRepository guestRepository;
+
+    @Test
+    @DisplayName("insertStatsAggregatedFromBookings agrupa las reservas por mes de check-in y estatus")
+    void insertStatsAggregatedFromBookings_groupsByMonthAndStatus() {
+        RoomEntity room = new RoomEntity();
+        room.setCode("R-501");
+        room.setName("Business");
+        room.setCapacity(2);
+        room.setBasePricePerNight(new BigDecimal("180.00"));
+        room.setActive(true);
+        room = roomJpaRepository.save(room);
+
+        GuestEntity guest = guestRepository.save(GuestEntity.builder()
+                .firstName("Ana")
+                .lastName("Lopez")
+                .email("ana.lopez@example.com")
+                .confirmedBookingsCount(0)
+                .build());
+
+        bookingJpaRepository.save(booking(room, guest, LocalDate.of(2025, 1, 10), "500.00", "CONFIRMED"));
+        bookingJpaRepository.save(booking(room, guest, LocalDate.of(2025, 1, 20), "300.00", "CONFIRMED"));
+        bookingJpaRepository.save(booking(room, guest, LocalDate.of(2025, 1, 25), "800.00", "CANCELLED"));
+        bookingJpaRepository.save(booking(room, guest, LocalDate.of(2025, 3, 5), "200.00", "CONFIRMED"));
+
+        bookingMonthlyStatsJpaRepository.deleteStatsBetweenMonthKeys(JANUARY_2025, MARCH_2025);
+        int inserted = bookingMonthlyStatsJpaRepository.insertStatsAggregatedFromBookings(
+                LocalDate.of(2025, 1, 1), LocalDate.of(2025, 4, 1));
+
+        List<MonthlyBookingStatsView> confirmed = bookingMonthlyStatsJpaRepository
+                .findStatsBetweenMonthKeys(JANUARY_2025, MARCH_2025, "CONFIRMED");
+
+        Assertions.assertThat(inserted).isEqualTo(3);
+        Assertions.assertThat(confirmed).hasSize(2);
+        Assertions.assertThat(confirmed.get(0).getMonth()).isEqualTo(1);
+        Assertions.assertThat(confirmed.get(0).getBookingCount()).isEqualTo(2L);
+        Assertions.assertThat(confirmed.get(0).getTotalRevenue()).isEqualByComparingTo("800.00");
+        Assertions.assertThat(confirmed.get(1).getMonth()).isEqualTo(3);
+        Assertions.assertThat(confirmed.get(1).getBookingCount()).isEqualTo(1L);
+    }
+
+    @Test
+    @DisplayName("insertEmptyStatsIfMissing y addToStats mueven una reserva entre estatus")
+    void addToStats_movesBookingBetweenStatuses() {
+        bookingMonthlyStatsJpaRepository.insertEmptyStatsIfMissing("CREATED", 2025, 3);
+        bookingMonthlyStatsJpaRepository.addToStats("CREATED", 2025, 3, 1, new BigDecimal("200.00"));
+
+        bookingMonthlyStatsJpaRepository.insertEmptyStatsIfMissing("CREATED", 2025, 3);
+        bookingMonthlyStatsJpaRepository.addToStats("CREATED", 2025, 3, -1, new BigDecimal("-200.00"));
+        bookingMonthlyStatsJpaRepository.insertEmptyStatsIfMissing("CONFIRMED", 2025, 3);
+        bookingMonthlyStatsJpaRepository.addToStats("CONFIRMED", 2025, 3, 1, new BigDecimal("200.00"));
+
+        Assertions.assertThat(bookingMonthlyStatsJpaRepository
+                .findStatsBetweenMonthKeys(MARCH_2025, MARCH_2025, "CREATED")).isEmpty();
+
+        List<MonthlyBookingStatsView> confirmed = bookingMonthlyStatsJpaRepository
+                .findStatsBetweenMonthKeys(MARCH_2025, MARCH_2025, "CONFIRMED");
+        Assertions.assertThat(confirmed).hasSize(1);
+        Assertions.assertThat(confirmed.get(0).getYear()).isEqualTo(2025);
+        Assertions.assertThat(confirmed.get(0).getBookingCount()).isEqualTo(1L);
+        Assertions.assertThat(confirmed.get(0).getTotalRevenue()).isEqualByComparingTo("200.00");
+    }
+
+    private BookingEntity booking(RoomEntity room, GuestEntity guest, LocalDate checkIn, String price, String status) {
+        return BookingEntity.builder()
+                .checkInDate(checkIn)
+                .checkOutDate(checkIn.plusDays(2))
+                .totalPrice(new BigDecimal(price))
+                .status(status)
+                .room(room)
+                .guest(guest)
+                .build();
+    }
+}
@@ -0,0 +1,187 @@
+package com.segurosargos.hotelbook.repository;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Verifica con EXPLAIN que las consultas frecuentes sobre bookings se resuelven con los
+ * indices de V10__add_booking_query_indexes en lugar de recorrer la tabla completa.
+ *
+ * Se ejecuta contra una base PostgreSQL con las migraciones y los datos semilla aplicados.
+ * Con tan pocas filas el planificador elegiria un Seq Scan aunque exista el indice, por lo
+ * que se desactiva enable_seqscan: si aun asi aparece un Seq Scan sobre bookings es porque
+ * ningun indice sirve para la consulta.
+ *
+ * bookings esta particionada por mes de check-in (V11), asi que los planes nombran las
+ * particiones (bookings_pYYYYMM, bookings_default) y no la tabla padre: se consideran de
+ * bookings todas las relaciones cuyo nombre empieza por "bookings". Para las consultas
+ * acotadas por check_in_date se verifica ademas que el plan solo lea las particiones
+ * del rango.
+ *
+ * Solo se ejecuta de forma explicita:
+ *   ./mvnw test -Dtest=BookingQueryPlanTest -Dhotelbook.explain.jdbc-url=jdbc:postgresql://localhost:5432/hotelbook
+ * (usuario y password opcionales con -Dhotelbook.explain.username y -Dhotelbook.explain.password).
+ */
+@EnabledIfSystemProperty(named = "hotelbook.explain.jdbc-url", matches = ".+")
+class BookingQueryPlanTest {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BookingQueryPlanTest.class);
+
+    /*
+     * Equivalente SQL de BookingJpaRepository.findBookingDetailsBetweenDatesAndStatus.
+     */
+    private static final String BOOKING_DETAILS = "select b.id, r.code, r.name, g.first_name, g.last_name, g.email, "
+            + "b.check_in_date, b.check_out_date, b.total_price, b.status "
+            + "from bookings b "
+            + "join rooms r on r.id = b.room_id "
+            + "join guests g on g.id = b.guest_id "
+            + "where b.check_in_date >= date '2025-01-01' "
+            + "and b.check_out_date <= date '2025-12-31' "
+            + "and b.status = 'CONFIRMED' "
+            + "order by b.check_in_date, r.code";
+
+    /*
+     * Equivalente SQL de RoomJpaRepository.findRoomOccupancySummaryByReferenceDate.
+     */
+    private static final String OCCUPANCY_SUMMARY = "select r.id, r.code, r.name, r.base_price_per_night, count(b.id) "
+            + "from rooms r "
+            + "left join bookings b on b.room_id = r.id "
+            + "and b.status = 'CONFIRMED' "
+            + "and b.check_in_date <= date '2025-02-15' "
+            + "and b.check_out_date > date '2025-02-15' "
+            + "group by r.id, r.code, r.name, r.base_price_per_night "
+            + "order by r.code";
+
+    /*
+     * Equivalente SQL de la subconsulta de RoomSpecifications.availableBetween.
+     */
+    private static final String AVAILABLE_BETWEEN = "select r.id from rooms r "
+            + "where not exists ("
+            + "select 1 from bookings b "
+            + "where b.room_id = r.id "
+            + "and b.status = 'CONFIRMED' "
+            + "and b.check_in_date < date '2025-02-16' "
+            + "and b.check_out_date > date '2025-02-14')";
+
+    /*
+     * Recorrido por rango de check-in sin estatus, como el recalculo de agregados mensuales.
+     */
+    private static final String CHECK_IN_RANGE = "select b.status, count(b.id), sum(b.total_price) "
+            + "from bookings b "
+            + "where b.check_in_date >= date '2025-01-01' "
+            + "and b.check_in_date < date '2025-04-01' "
+            + "group by b.status";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    @DisplayName("Las consultas de reportes y disponibilidad no recorren bookings con Seq Scan")
+    void hotQueries_doNotSeqScanBookings() throws Exception {
+        try (Connection connection = DriverManager.getConnection(
+                System.getProperty("hotelbook.explain.jdbc-url"),
+                System.getProperty("hotelbook.explain.username", "appuser"),
+                System.getProperty("hotelbook.explain.password", "apppass"))) {
+
+            connection.setAutoCommit(false);
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("set local enable_seqscan = off");
+            }
+
+            assertNoSeqScanOnBookings(connection, "findBookingDetailsBetweenDatesAndStatus", BOOKING_DETAILS);
+            assertNoSeqScanOnBookings(connection, "findRoomOccupancySummaryByReferenceDate", OCCUPANCY_SUMMARY);
+            assertNoSeqScanOnBookings(connection, "availableBetween", AVAILABLE_BETWEEN);
+            assertNoSeqScanOnBookings(connection, "rango de check-in", CHECK_IN_RANGE);
+
+            // El reporte detallado solo acota el check-in por abajo: no lee meses anteriores.
+            Assertions.assertThat(scannedBookingsPartitions(explain(connection, BOOKING_DETAILS)))
+                    .as("Particiones leidas por findBookingDetailsBetweenDatesAndStatus")
+                    .isNotEmpty()
+                    .allSatisfy(partition -> Assertions.assertThat(partition)
+                            .satisfiesAnyOf(
+                                    name -> Assertions.assertThat(name).isEqualTo("bookings_default"),
+                                    name -> Assertions.assertThat(name).isGreaterThanOrEqualTo("bookings_p202501")));
+            Assertions.assertThat(scannedBookingsPartitions(explain(connection, CHECK_IN_RANGE)))
+                    .as("Particiones leidas por el rango de check-in")
+                    .isNotEmpty()
+                    .isSubsetOf("bookings_p202501", "bookings_p202502", "bookings_p202503");
+
+            connection.rollback();
+        }
+    }
+
+    private void assertNoSeqScanOnBookings(Connection connection, String name, String sql) throws SQLException {
+        JsonNode plan = explain(connection, sql);
+
+        LOGGER.info("Plan de {}: {}", name, plan.toPrettyString());
+
+        List<String> seqScans = new ArrayList<>();
+        collectSeqScansOnBookings(plan, seqScans);
+        Assertions.assertThat(seqScans)
+                .as("Seq Scan sobre bookings en el plan de %s", name)
+                .isEmpty();
+    }
+
+    private JsonNode explain(Connection connection, String sql) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("explain (format json) " + sql)) {
+            resultSet.next();
+            return readJson(resultSet.getString(1)).get(0).get("Plan");
+        }
+    }
+
+    private void collectSeqScansOnBookings(JsonNode node, List<String> seqScans) {
+        if ("Seq Scan".equals(node.path("Node Type").asText())
+                && isBookingsRelation(node.path("Relation Name").asText())) {
+            seqScans.add(node.toString());
+        }
+        for (JsonNode child : node.path("Plans")) {
+            collectSeqScansOnBookings(child, seqScans);
+        }
+    }
+
+    /*
+     * Relaciones de bookings (tabla padre o particiones) que el plan lee.
+     */
+    private Set<String> scannedBookingsPartitions(JsonNode plan) {
+        Set<String> relations = new TreeSet<>();
+        collectBookingsRelations(plan, relations);
+        return relations;
+    }
+
+    private void collectBookingsRelations(JsonNode node, Set<String> relations) {
+        String relation = node.path("Relation Name").asText();
+        if (isBookingsRelation(relation)) {
+            relations.add(relation);
+        }
+        for (JsonNode child : node.path("Plans")) {
+            collectBookingsRelations(child, relations);
+        }
+    }
+
+    private boolean isBookingsRelation(String relation) {
+        return relation.equals("bookings") || relation.startsWith("bookings_");
+    }
+
+    private JsonNode readJson(String json) {
+        try {
+            return objectMapper.readTree(json);
+        } catch (Exception ex) {
+            throw new IllegalStateException("No fue posible leer el plan de ejecución.", ex);
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.segurosargos.hotelbook.repository;
+
+import com.segurosargos.hotelbook.model.BookingEntity;
+import com.segurosargos.hotelbook.model.GuestEntity;
+import com.segurosargos.hotelbook.model.RoomEntity;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import org.assertj.core.api.Assertions;
+import org.hibernate.Session;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+/**
+ * Benchmark de importacion masiva de habitaciones, huespedes y reservas con @DataJpaTest.
+ * Compara la misma importacion con lotes JDBC desactivados (un INSERT por entidad, como
+ * ocurria con ids IDENTITY) contra los lotes configurados en hibernate.jdbc.batch_size,
+ * que son posibles porque los ids salen de secuencias con optimizador pooled.
+ *
+ * En H2 en memoria la diferencia de tiempo es menor que contra PostgreSQL, donde cada
+ * sentencia es un viaje de red; el numero de sentencias preparadas muestra la reduccion
+ * en ambos casos.
+ *
+ * Solo se ejecuta de forma explicita:
+ *   ./mvnw test -Dtest=BulkInsertBenchmarkTest -Dhotelbook.benchmarks=true
+ */
+@ExtendWith(SpringExtension.class)
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+@EnabledIfSystemProperty(named = "hotelbook.benchmarks", matches = "true")
+class BulkInsertBenchmarkTest {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BulkInsertBenchmarkTest.class);
+
+    private static final int[] BOOKING_COUNTS = {5_000, 20_000};
+
+    private static final int BOOKINGS_PER_ROOM = 10;
+
+    /*
+     * Multiplo de BOOKINGS_PER_ROOM: despues de cada clear se empieza una habitacion nueva.
+     */
+    private static final int FLUSH_EVERY = 50;
+
+    @Autowired
+    private TestEntityManager testEntityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    @DisplayName("La importacion masiva con lotes JDBC prepara menos sentencias que sin lotes")
+    void bulkImport_withJdbcBatching_preparesFewerStatements() {
+        SessionFactoryImplementor sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        Statistics statistics = sessionFactory.getStatistics();
+        int configuredBatchSize = sessionFactory.getSessionFactoryOptions().getJdbcBatchSize();
+        Assertions.assertThat(configuredBatchSize).isGreaterThan(1);
+
+        // Calentamiento para no medir la carga inicial de clases y metadatos.
+        importBookings("WARM", 500, configuredBatchSize, statistics);
+
+        for (int bookingCount : BOOKING_COUNTS) {
+            ImportResult unbatched = importBookings("NB" + bookingCount, bookingCount, 1, statistics);
+            ImportResult batched = importBookings("B" + bookingCount, bookingCount, configuredBatchSize, statistics);
+
+            LOGGER.info(
+                    "Benchmark importacion masiva. reservas={}, sin lotes={} ms ({} sentencias), "
+                            + "lotes de {}={} ms ({} sentencias).",
+                    bookingCount,
+                    String.format("%.1f", unbatched.nanos() / 1_000_000.0), unbatched.statements(),
+                    configuredBatchSize,
+                    String.format("%.1f", batched.nanos() / 1_000_000.0), batched.statements());
+
+            Assertions.assertThat(batched.statements()).isLessThan(unbatched.statements() / 10);
+        }
+    }
+
+    /*
+     * Inserta bookingCount reservas junto con sus habitaciones y huespedes, vaciando y
+     * limpiando el contexto de persistencia cada FLUSH_EVERY reservas.
+     */
+    private ImportResult importBookings(String prefix, int bookingCount, int jdbcBatchSize, Statistics statistics) {
+        EntityManager entityManager = testEntityManager.getEntityManager();
+        Session session = entityManager.unwrap(Session.class);
+        session.setJdbcBatchSize(jdbcBatchSize);
+        statistics.clear();
+
+        long start = System.nanoTime();
+        RoomEntity room = null;
+        GuestEntity guest = null;
+        for (int i = 0; i < bookingCount; i++) {
+            if (i % BOOKINGS_PER_ROOM == 0) {
+                room = new RoomEntity();
+                room.setCode(prefix + "-R" + i);
+                room.setName("Import Room " + i);
+                room.setCapacity(2);
+                room.setBasePricePerNight(new BigDecimal("120.00"));
+                room.setActive(true);
+                entityManager.persist(room);
+
+                guest = GuestEntity.builder()
+                        .firstName("Guest")
+                        .lastName(prefix + " " + i)
+                        .email(prefix.toLowerCase() + "." + i + "@example.com")
+                        .confirmedBookingsCount(0)
+                        .build();
+                entityManager.persist(guest);
+            }
+
+            LocalDate checkIn = LocalDate.of(2025, 1, 1).plusDays(i % BOOKINGS_PER_ROOM * 3L);
+            entityManager.persist(BookingEntity.builder()
+                    .checkInDate(checkIn)
+                    .checkOutDate(checkIn.plusDays(2))
+                    .totalPrice(new BigDecimal("240.00"))
+                    .status("CREATED")
+                    .room(room)
+                    .guest(guest)
+                    .build());
+
+            if ((i + 1) % FLUSH_EVERY == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+        long nanos = System.nanoTime() - start;
+
+        ImportResult result = new ImportResult(nanos, statistics.getPrepareStatementCount());
+        Long inserted = entityManager
+                .createQuery("select count(b) from BookingEntity b where b.room.code like :prefix", Long.class)
+                .setParameter("prefix", prefix + "-R%")
+                .getSingleResult();
+        Assertions.assertThat(inserted).isEqualTo(bookingCount);
+        return result;
+    }
+
+    private record ImportResult(long nanos, long statements) {
+    }
+}
@@ -0,0 +1,154 @@
+package com.segurosargos.hotelbook.repository;
+
+import com.segurosargos.hotelbook.model.Room;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Pruebas unitarias para CachingRoomRepository.
+ * Se usa un repositorio simulado y un reloj controlado para validar aciertos,
+ * expiracion, expulsion por tamano e invalidacion en escrituras.
+ */
+@ExtendWith(MockitoExtension.class)
+class CachingRoomRepositoryTest {
+
+    private static final Duration TTL = Duration.ofSeconds(30);
+
+    @Mock
+    private RoomRepository delegate;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private AtomicLong clock;
+
+    private CachingRoomRepository cachingRepository;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        clock = new AtomicLong();
+        cachingRepository = new CachingRoomRepository(delegate, 2, TTL, meterRegistry, clock::get);
+    }
+
+    @Test
+    @DisplayName("findById consulta el repositorio una sola vez y despues responde desde la cache")
+    void findById_whenCached_doesNotHitDelegateAgain() {
+        when(delegate.findById(1L)).thenReturn(Optional.of(room(1L, "Standard King", 0)));
+
+        cachingRepository.findById(1L);
+        Room second = cachingRepository.findById(1L).orElseThrow();
+        second.setName("Modificada fuera de la cache");
+
+        Assertions.assertThat(cachingRepository.findById(1L).orElseThrow().getName()).isEqualTo("Standard King");
+        verify(delegate, times(1)).findById(1L);
+        Assertions.assertThat(counter("cache.gets", "hit")).isEqualTo(2.0);
+        Assertions.assertThat(counter("cache.gets", "miss")).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Una entrada expirada se vuelve a cargar y cuenta como expulsion")
+    void findById_whenTtlElapsed_reloadsFromDelegate() {
+        when(delegate.findById(1L))
+                .thenReturn(Optional.of(room(1L, "Standard King", 0)))
+                .thenReturn(Optional.of(room(1L, "Standard King", 1)));
+
+        cachingRepository.findById(1L);
+        clock.addAndGet(TTL.toNanos());
+
+        Assertions.assertThat(cachingRepository.findById(1L).orElseThrow().getVersion()).isEqualTo(1);
+        verify(delegate, times(2)).findById(1L);
+        Assertions.assertThat(meterRegistry.get("cache.evictions").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Al superar el tamano maximo se expulsa la habitacion usada menos recientemente")
+    void findById_whenMaxSizeExceeded_evictsLeastRecentlyUsed() {
+        when(delegate.findById(any())).thenAnswer(invocation -> {
+            Long id = invocation.getArgument(0);
+            return Optional.of(room(id, "Room " + id, 0));
+        });
+
+        cachingRepository.findById(1L);
+        cachingRepository.findById(2L);
+        cachingRepository.findById(1L);
+        cachingRepository.findById(3L);
+        cachingRepository.findById(1L);
+        cachingRepository.findById(2L);
+
+        verify(delegate, times(1)).findById(1L);
+        verify(delegate, times(2)).findById(2L);
+        Assertions.assertThat(cachingRepository.size()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("save y deleteById invalidan la habitacion y el listado completo")
+    void saveAndDelete_invalidateCachedEntries() {
+        Room stored = room(1L, "Standard King", 0);
+        when(delegate.findById(1L)).thenReturn(Optional.of(stored));
+        when(delegate.findAll()).thenReturn(List.of(stored));
+        when(delegate.save(any(Room.class))).thenAnswer(invocation -> {
+            Room saved = invocation.getArgument(0);
+            saved.setVersion(1);
+            return saved;
+        });
+
+        cachingRepository.findById(1L);
+        cachingRepository.findAll();
+        cachingRepository.save(room(1L, "Standard King Renovada", 0));
+        cachingRepository.findById(1L);
+        cachingRepository.findAll();
+        cachingRepository.deleteById(1L);
+        cachingRepository.findById(1L);
+
+        verify(delegate, times(3)).findById(1L);
+        verify(delegate, times(2)).findAll();
+    }
+
+    @Test
+    @DisplayName("Un conflicto de version invalida la entrada para que el reintento lea la version vigente")
+    void save_whenOptimisticLockFails_invalidatesEntry() {
+        when(delegate.findById(1L)).thenReturn(Optional.of(room(1L, "Standard King", 0)));
+        when(delegate.save(any(Room.class)))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Room.class, 1L));
+
+        cachingRepository.findById(1L);
+
+        Assertions.assertThatThrownBy(() -> cachingRepository.save(room(1L, "Cambio", 0)))
+                .isInstanceOf(ObjectOptimisticLockingFailureException.class);
+
+        cachingRepository.findById(1L);
+        verify(delegate, times(2)).findById(1L);
+    }
+
+    private double counter(String name, String result) {
+        return meterRegistry.get(name).tag("result", result).counter().count();
+    }
+
+    private Room room(Long id, String name, int version) {
+        return Room.builder()
+                .id(id)
+                .code("R-" + id)
+                .name(name)
+                .capacity(2)
+                .basePricePerNight(new BigDecimal("100.00"))
+                .active(true)
+                .version(version)
+                .build();
+    }
+}
@@ -0,0 +1,73 @@
+package com.segurosargos.hotelbook.repository;
+
+import com.segurosargos.hotelbook.model.GuestEntity;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+/**
+ * Pruebas con @DataJpaTest para GuestRepository.
+ * Se valida la actualizacion atomica del contador de reservas confirmadas.
+ */
+@ExtendWith(SpringExtension.class)
+@DataJpaTest
+@ActiveProfiles("test")
+class GuestRepositoryTest {
+
+    @Autowired
+    private GuestRepository guestRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    @DisplayName("addToConfirmedBookingsCount suma el delta sin que el guardado de la entidad lo sobrescriba")
+    void addToConfirmedBookingsCount_addsDeltaAndIsNotOverwrittenBySave() {
+        GuestEntity guest = guestRepository.save(GuestEntity.builder()
+                .firstName("Ana")
+                .lastName("Lopez")
+                .email("ana.lopez@example.com")
+                .confirmedBookingsCount(3)
+                .build());
+        entityManager.flush();
+
+        Assertions.assertThat(guestRepository.addToConfirmedBookingsCount(guest.getId(), 2)).isEqualTo(1);
+
+        // La entidad en memoria conserva el valor leído antes; al guardarla no debe
+        // escribirse sobre el contador.
+        guest.setPhoneNumber("555-0100");
+        guest.setConfirmedBookingsCount(0);
+        guestRepository.save(guest);
+        entityManager.flush();
+        entityManager.clear();
+
+        GuestEntity reloaded = guestRepository.findById(guest.getId()).orElseThrow();
+
+        Assertions.assertThat(reloaded.getConfirmedBookingsCount()).isEqualTo(5);
+        Assertions.assertThat(reloaded.getPhoneNumber()).isEqualTo("555-0100");
+    }
+
+    @Test
+    @DisplayName("addToConfirmedBookingsCount no deja el contador por debajo de cero")
+    void addToConfirmedBookingsCount_whenResultWouldBeNegative_clampsToZero() {
+        GuestEntity guest = guestRepository.save(GuestEntity.builder()
+                .firstName("Luis")
+                .lastName("Perez")
+                .email("luis.perez@example.com")
+                .confirmedBookingsCount(0)
+                .build());
+        entityManager.flush();
+
+        Assertions.assertThat(guestRepository.addToConfirmedBookingsCount(guest.getId(), -1)).isEqualTo(1);
+
+        entityManager.clear();
+        Assertions.assertThat(guestRepository.findById(guest.getId()).orElseThrow().getConfirmedBookingsCount())
+                .isZero();
+    }
+}
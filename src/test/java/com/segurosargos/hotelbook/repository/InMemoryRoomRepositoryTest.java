@@ -0,0 +1,155 @@
+package com.segurosargos.hotelbook.repository;
+
+import com.segurosargos.hotelbook.model.Room;
+import java.math.BigDecimal;
+import java.util.List;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+/**
+ * Pruebas unitarias para InMemoryRoomRepository.
+ * Se valida que los indices secundarios de precio, nombre y codigo se mantengan
+ * consistentes al guardar, actualizar y eliminar habitaciones.
+ */
+class InMemoryRoomRepositoryTest {
+
+    private InMemoryRoomRepository roomRepository;
+
+    @BeforeEach
+    void setUp() {
+        roomRepository = new InMemoryRoomRepository();
+        roomRepository.save(room("STD-101", "Standard King", "100.00"));
+        roomRepository.save(room("STD-102", "Standard Twin", "120.00"));
+        roomRepository.save(room("DLX-201", "Deluxe King", "250.00"));
+    }
+
+    @Test
+    @DisplayName("findByNameContainingIgnoreCase usa el indice de trigramas y confirma el texto completo")
+    void findByNameContainingIgnoreCase_returnsOnlyRoomsContainingText() {
+        List<Room> kings = roomRepository.findByNameContainingIgnoreCase("KING");
+        List<Room> shortText = roomRepository.findByNameContainingIgnoreCase("tw");
+        List<Room> none = roomRepository.findByNameContainingIgnoreCase("kingdom");
+
+        Assertions.assertThat(kings).extracting(Room::getCode).containsExactlyInAnyOrder("STD-101", "DLX-201");
+        Assertions.assertThat(shortText).extracting(Room::getCode).containsExactly("STD-102");
+        Assertions.assertThat(none).isEmpty();
+    }
+
+    @Test
+    @DisplayName("findByBasePricePerNightBetween resuelve rangos abiertos y cerrados con el indice de precio")
+    void findByBasePricePerNightBetween_returnsRoomsInsideRange() {
+        Assertions.assertThat(roomRepository.findByBasePricePerNightBetween(
+                        new BigDecimal("100.00"), new BigDecimal("120.00")))
+                .extracting(Room::getCode).containsExactlyInAnyOrder("STD-101", "STD-102");
+        Assertions.assertThat(roomRepository.findByBasePricePerNightBetween(new BigDecimal("200"), null))
+                .extracting(Room::getCode).containsExactly("DLX-201");
+        Assertions.assertThat(roomRepository.findByBasePricePerNightBetween(null, new BigDecimal("99.99")))
+                .isEmpty();
+    }
+
+    @Test
+    @DisplayName("Al actualizar o eliminar una habitacion los indices dejan de devolver los valores anteriores")
+    void saveAndDelete_keepSecondaryIndexesInSync() {
+        Room deluxe = roomRepository.findByNameContainingIgnoreCase("deluxe").get(0);
+        deluxe.setName("Suite Ocean");
+        deluxe.setBasePricePerNight(new BigDecimal("400.00"));
+        roomRepository.save(deluxe);
+
+        Assertions.assertThat(roomRepository.findByNameContainingIgnoreCase("deluxe")).isEmpty();
+        Assertions.assertThat(roomRepository.findByNameContainingIgnoreCase("ocean")).hasSize(1);
+        Assertions.assertThat(roomRepository.findByBasePricePerNightBetween(
+                new BigDecimal("200"), new BigDecimal("300"))).isEmpty();
+
+        roomRepository.deleteById(deluxe.getId());
+
+        Assertions.assertThat(roomRepository.findByNameContainingIgnoreCase("ocean")).isEmpty();
+        Assertions.assertThat(roomRepository.findByBasePricePerNightBetween(new BigDecimal("200"), null)).isEmpty();
+        Assertions.assertThat(roomRepository.save(room("dlx-201", "Deluxe Queen", "260.00")).getId()).isNotNull();
+    }
+
+    @Test
+    @DisplayName("save rechaza un codigo repetido sin importar mayusculas y minusculas")
+    void save_whenCodeAlreadyExists_throwsDuplicateKeyException() {
+        Assertions.assertThatThrownBy(() -> roomRepository.save(room("std-101", "Otra", "90.00")))
+                .isInstanceOf(DuplicateKeyException.class);
+
+        Assertions.assertThat(roomRepository.findAll()).hasSize(3);
+    }
+
+    @Test
+    @DisplayName("Modificar una habitacion devuelta sin guardarla no altera los indices")
+    void findById_returnsDefensiveCopy() {
+        Room room = roomRepository.findByNameContainingIgnoreCase("standard king").get(0);
+        room.setBasePricePerNight(new BigDecimal("999.00"));
+
+        Assertions.assertThat(roomRepository.findById(room.getId()).orElseThrow().getBasePricePerNight())
+                .isEqualByComparingTo("100.00");
+    }
+
+    @Test
+    @DisplayName("search filtra por nombre y precio, ordena y pagina sobre las habitaciones en memoria")
+    void search_filtersSortsAndPages() {
+        RoomSearchCriteria criteria = new RoomSearchCriteria("king", new BigDecimal("90.00"), null);
+
+        Page<Room> firstPage = roomRepository.search(criteria,
+                PageRequest.of(0, 1, Sort.by(Sort.Order.desc("basePricePerNight"), Sort.Order.desc("id"))));
+
+        Assertions.assertThat(firstPage.getTotalElements()).isEqualTo(2L);
+        Assertions.assertThat(firstPage.getContent()).extracting(Room::getCode).containsExactly("DLX-201");
+        Assertions.assertThat(roomRepository.count(criteria)).isEqualTo(2L);
+    }
+
+    @Test
+    @DisplayName("search combina los candidatos de los indices de nombre y precio y confirma ambos filtros")
+    void search_withNameAndPriceRange_usesIndexesAndConfirmsBothFilters() {
+        roomRepository.save(room("STD-103", "Standard Queen", "115.00"));
+
+        Page<Room> page = roomRepository.search(
+                new RoomSearchCriteria("Standard", new BigDecimal("110.00"), new BigDecimal("130.00")),
+                PageRequest.of(0, 10, Sort.by("code")));
+
+        Assertions.assertThat(page.getContent()).extracting(Room::getCode).containsExactly("STD-102", "STD-103");
+        Assertions.assertThat(roomRepository.count(new RoomSearchCriteria("st", new BigDecimal("300.00"), null)))
+                .isZero();
+    }
+
+    @Test
+    @DisplayName("searchAfter devuelve las habitaciones posteriores al keyset en el orden indicado")
+    void searchAfter_returnsRoomsAfterKeyset() {
+        Sort nameSort = Sort.by(Sort.Order.asc("name").ignoreCase(), Sort.Order.asc("id"));
+        RoomSearchCriteria noFilters = new RoomSearchCriteria(null, null, null);
+
+        List<Room> firstPage = roomRepository.searchAfter(noFilters, null, nameSort, 2);
+        Room last = firstPage.get(firstPage.size() - 1);
+        List<Room> secondPage = roomRepository.searchAfter(noFilters,
+                new RoomKeyset("name", true, false, last.getName(), last.getId()), nameSort, 2);
+
+        Assertions.assertThat(firstPage).extracting(Room::getCode).containsExactly("DLX-201", "STD-101");
+        Assertions.assertThat(secondPage).extracting(Room::getCode).containsExactly("STD-102");
+    }
+
+    @Test
+    @DisplayName("findByNameSimilarity encuentra nombres a partir de un prefijo corto de una palabra")
+    void findByNameSimilarity_matchesWordPrefix() {
+        List<RoomNameMatchView> matches = roomRepository.findByNameSimilarity("del", 10);
+
+        Assertions.assertThat(matches).extracting(RoomNameMatchView::getCode).containsExactly("DLX-201");
+        Assertions.assertThat(matches.get(0).getScore()).isGreaterThanOrEqualTo(0.6);
+    }
+
+    private Room room(String code, String name, String price) {
+        return Room.builder()
+                .code(code)
+                .name(name)
+                .capacity(2)
+                .basePricePerNight(new BigDecimal(price))
+                .active(true)
+                .build();
+    }
+}
@@ -0,0 +1,134 @@
+package com.segurosargos.hotelbook.repository;
+
+import com.segurosargos.hotelbook.model.Room;
+import com.segurosargos.hotelbook.model.RoomEntity;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+/**
+ * Pruebas con @DataJpaTest para JpaRoomRepositoryAdapter.
+ * Se valida que la version del modelo Room llegue al campo @Version de la entidad
+ * y que el UPDATE condicionado por version detecte conflictos.
+ */
+@ExtendWith(SpringExtension.class)
+@DataJpaTest
+@ActiveProfiles("test")
+@Import(JpaRoomRepositoryAdapter.class)
+class JpaRoomRepositoryAdapterTest {
+
+    @Autowired
+    private JpaRoomRepositoryAdapter roomRepository;
+
+    @Autowired
+    private RoomJpaRepository roomJpaRepository;
+
+    @Test
+    @DisplayName("save con la version vigente actualiza y devuelve la version incrementada")
+    void save_withCurrentVersion_returnsIncrementedVersion() {
+        Room created = roomRepository.save(newRoom("OPT-101"));
+        Integer initialVersion = created.getVersion();
+
+        created.setName("Standard King Renovada");
+        Room updated = roomRepository.save(created);
+
+        Assertions.assertThat(updated.getVersion()).isEqualTo(initialVersion + 1);
+        Assertions.assertThat(roomRepository.findById(created.getId()).orElseThrow().getName())
+                .isEqualTo("Standard King Renovada");
+    }
+
+    @Test
+    @DisplayName("save con una version desactualizada lanza ObjectOptimisticLockingFailureException")
+    void save_withStaleVersion_throwsOptimisticLockingFailure() {
+        Room created = roomRepository.save(newRoom("OPT-102"));
+
+        Room stale = roomRepository.findById(created.getId()).orElseThrow();
+        stale.setName("Cambio con version vieja");
+        stale.setVersion(created.getVersion() - 1);
+
+        Assertions.assertThatThrownBy(() -> roomRepository.save(stale))
+                .isInstanceOf(ObjectOptimisticLockingFailureException.class);
+    }
+
+    @Test
+    @DisplayName("save de una habitacion existente conserva la fecha de ultima reserva")
+    void save_existingRoom_keepsLastBookingDate() {
+        Room created = roomRepository.save(newRoom("OPT-103"));
+        RoomEntity entity = roomJpaRepository.findById(created.getId()).orElseThrow();
+        entity.setLastBookingDate(LocalDate.of(2025, 5, 1));
+        roomJpaRepository.saveAndFlush(entity);
+
+        Room current = roomRepository.findById(created.getId()).orElseThrow();
+        current.setCapacity(3);
+        roomRepository.save(current);
+
+        RoomEntity reloaded = roomJpaRepository.findById(created.getId()).orElseThrow();
+        Assertions.assertThat(reloaded.getCapacity()).isEqualTo(3);
+        Assertions.assertThat(reloaded.getLastBookingDate()).isEqualTo(LocalDate.of(2025, 5, 1));
+    }
+
+    @Test
+    @DisplayName("search y searchAfter aplican los filtros, el orden y el keyset en la base de datos")
+    void searchAndSearchAfter_applyCriteriaSortAndKeyset() {
+        roomRepository.save(newRoom("SRC-101"));
+        roomRepository.save(newRoom("SRC-102"));
+        roomRepository.save(newRoom("SRC-103"));
+        RoomSearchCriteria criteria = new RoomSearchCriteria("standard", null, new BigDecimal("200.00"));
+        Sort codeSort = Sort.by(Sort.Order.asc("code").ignoreCase(), Sort.Order.asc("id"));
+
+        Page<Room> page = roomRepository.search(criteria, PageRequest.of(1, 2, codeSort));
+        List<Room> firstKeysetPage = roomRepository.searchAfter(criteria, null, codeSort, 2);
+        Room last = firstKeysetPage.get(1);
+        List<Room> secondKeysetPage = roomRepository.searchAfter(criteria,
+                new RoomKeyset("code", true, false, last.getCode(), last.getId()), codeSort, 2);
+
+        Assertions.assertThat(page.getTotalElements()).isEqualTo(3L);
+        Assertions.assertThat(page.getContent()).extracting(Room::getCode).containsExactly("SRC-103");
+        Assertions.assertThat(firstKeysetPage).extracting(Room::getCode).containsExactly("SRC-101", "SRC-102");
+        Assertions.assertThat(secondKeysetPage).extracting(Room::getCode).containsExactly("SRC-103");
+        Assertions.assertThat(roomRepository.count(criteria)).isEqualTo(3L);
+    }
+
+    @Test
+    @DisplayName("findByNameSimilarity sin pg_trgm devuelve los nombres que contienen el texto ordenados por similitud")
+    void findByNameSimilarity_withoutTrigramExtension_matchesContainedNamesRankedByScore() {
+        roomRepository.save(newRoom("SIM-101", "Zafiro Imperial"));
+        roomRepository.save(newRoom("SIM-102", "Suite Zafiro"));
+        roomRepository.save(newRoom("SIM-103", "Cuarzo Azul"));
+
+        List<RoomNameMatchView> matches = roomRepository.findByNameSimilarity("zafiro imp", 10);
+
+        Assertions.assertThat(matches).extracting(RoomNameMatchView::getCode).containsExactly("SIM-101");
+        Assertions.assertThat(roomRepository.findByNameSimilarity("zafiro", 10))
+                .extracting(RoomNameMatchView::getCode)
+                .containsExactly("SIM-101", "SIM-102");
+        Assertions.assertThat(roomRepository.findByNameSimilarity("zafiro", 1)).hasSize(1);
+    }
+
+    private Room newRoom(String code) {
+        return newRoom(code, "Standard King");
+    }
+
+    private Room newRoom(String code, String name) {
+        return Room.builder()
+                .code(code)
+                .name(name)
+                .capacity(2)
+                .basePricePerNight(new BigDecimal("100.00"))
+                .active(true)
+                .build();
+    }
+}
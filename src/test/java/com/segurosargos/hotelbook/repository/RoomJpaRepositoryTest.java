@@ -5,13 +5,18 @@ import com.segurosargos.hotelbook.model.GuestEntity;
 import com.segurosargos.hotelbook.model.RoomEntity;
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
+import javax.sql.DataSource;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
@@ -33,6 +38,9 @@ class RoomJpaRepositoryTest {
     @Autowired
     private GuestRepository guestRepository;
 
+    @Autowired
+    private DataSource dataSource;
+
     @Test
     @DisplayName("findByNameContainingIgnoreCase devuelve solo las habitaciones cuyo nombre contiene el texto indicado")
     void findByNameContainingIgnoreCase_returnsMatchingRoomsOnly() {
@@ -70,6 +78,47 @@ class RoomJpaRepositoryTest {
                 .isEqualTo("Standard King");
     }
 
+    @Test
+    @DisplayName("existsByCodeIgnoreCase encuentra el codigo sin importar mayusculas y minusculas")
+    void existsByCodeIgnoreCase_matchesCodeRegardlessOfCase() {
+        RoomEntity room = new RoomEntity();
+        room.setCode("STE-501");
+        room.setName("Suite Presidencial");
+        room.setCapacity(4);
+        room.setBasePricePerNight(new BigDecimal("900.00"));
+        room.setActive(true);
+        roomJpaRepository.save(room);
+
+        Assertions.assertThat(roomJpaRepository.existsByCodeIgnoreCase("ste-501")).isTrue();
+        Assertions.assertThat(roomJpaRepository.existsByCodeIgnoreCase("STE-502")).isFalse();
+    }
+
+    @Test
+    @DisplayName("lockAllByIdIn bloquea y devuelve las habitaciones indicadas en orden de id")
+    void lockAllByIdIn_returnsRequestedRoomsOrderedById() {
+        RoomEntity first = new RoomEntity();
+        first.setCode("LCK-101");
+        first.setName("Standard King");
+        first.setCapacity(2);
+        first.setBasePricePerNight(new BigDecimal("100.00"));
+        first.setActive(true);
+
+        RoomEntity second = new RoomEntity();
+        second.setCode("LCK-102");
+        second.setName("Standard Twin");
+        second.setCapacity(2);
+        second.setBasePricePerNight(new BigDecimal("110.00"));
+        second.setActive(true);
+
+        roomJpaRepository.save(first);
+        roomJpaRepository.save(second);
+
+        List<RoomEntity> locked = roomJpaRepository.lockAllByIdIn(List.of(second.getId(), first.getId()));
+
+        Assertions.assertThat(locked).extracting(RoomEntity::getId)
+                .containsExactly(first.getId(), second.getId());
+    }
+
     @Test
     @DisplayName("findByBasePricePerNightBetween devuelve las habitaciones dentro del rango indicado")
     void findByBasePricePerNightBetween_returnsRoomsWithinRange() {
@@ -191,4 +240,72 @@ class RoomJpaRepositoryTest {
         Assertions.assertThat(room2Summary.getRoomCode()).isEqualTo("R-302");
         Assertions.assertThat(room2Summary.getActiveBookingsCount()).isEqualTo(0L);
     }
+
+    @Test
+    @DisplayName("keysetAfter recorre todas las habitaciones por nombre sin repetir ni omitir filas con nombres iguales")
+    void keysetAfter_walksAllRoomsOrderedByNameWithTies() {
+        String[] names = {"Bravo", "alpha", "bravo", "Delta", "charlie"};
+        for (int i = 0; i < names.length; i++) {
+            RoomEntity room = new RoomEntity();
+            room.setCode("K-" + i);
+            room.setName(names[i]);
+            room.setCapacity(2);
+            room.setBasePricePerNight(new BigDecimal("100.00"));
+            room.setActive(true);
+            roomJpaRepository.save(room);
+        }
+
+        Sort sort = Sort.by(Sort.Order.asc("name").ignoreCase(), Sort.Order.asc("id"));
+        List<String> walkedNames = new ArrayList<>();
+        RoomEntity last = null;
+
+        for (int pageIndex = 0; pageIndex < 3; pageIndex++) {
+            Specification<RoomEntity> specification = RoomSpecifications.keysetAfter(
+                    "name",
+                    true,
+                    false,
+                    last == null ? null : last.getName().toLowerCase(),
+                    last == null ? null : last.getId());
+
+            List<RoomEntity> page = roomJpaRepository.findBy(specification,
+                    query -> query.sortBy(sort).limit(2).all());
+
+            page.forEach(room -> walkedNames.add(room.getName()));
+            if (!page.isEmpty()) {
+                last = page.get(page.size() - 1);
+            }
+        }
+
+        Assertions.assertThat(walkedNames)
+                .containsExactly("alpha", "Bravo", "bravo", "charlie", "Delta");
+    }
+
+    @Test
+    @DisplayName("save asigna ids consecutivos de la secuencia sin ejecutar el INSERT hasta el flush")
+    void save_assignsPooledSequenceIdsAndDefersInsertsUntilFlush() {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        Integer roomsBefore = jdbcTemplate.queryForObject("select count(*) from rooms", Integer.class);
+
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            RoomEntity room = new RoomEntity();
+            room.setCode("SEQ-" + i);
+            room.setName("Sequence Room " + i);
+            room.setCapacity(2);
+            room.setBasePricePerNight(new BigDecimal("100.00"));
+            room.setActive(true);
+            ids.add(roomJpaRepository.save(room).getId());
+        }
+
+        Assertions.assertThat(ids).doesNotContainNull();
+        Assertions.assertThat(ids.get(1)).isEqualTo(ids.get(0) + 1);
+        Assertions.assertThat(ids.get(2)).isEqualTo(ids.get(0) + 2);
+        Assertions.assertThat(jdbcTemplate.queryForObject("select count(*) from rooms", Integer.class))
+                .isEqualTo(roomsBefore);
+
+        roomJpaRepository.flush();
+
+        Assertions.assertThat(jdbcTemplate.queryForObject("select count(*) from rooms", Integer.class))
+                .isEqualTo(roomsBefore + 3);
+    }
 }
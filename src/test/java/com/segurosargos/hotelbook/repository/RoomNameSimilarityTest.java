@@ -0,0 +1,78 @@
+package com.segurosargos.hotelbook.repository;
+
+import com.segurosargos.hotelbook.model.RoomEntity;
+import java.math.BigDecimal;
+import java.util.List;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+/**
+ * Pruebas de RoomJpaRepository.findByNameSimilarity contra PostgreSQL.
+ * La consulta usa word_similarity y el operador <% de pg_trgm, que H2 no tiene, por lo
+ * que no se puede ejecutar con el perfil test. Se valida que un prefijo corto de una
+ * palabra encuentre el nombre completo y que el orden sea por similitud.
+ *
+ * Se ejecuta contra una base PostgreSQL con las migraciones aplicadas por Flyway y solo
+ * de forma explicita:
+ *   ./mvnw test -Dtest=RoomNameSimilarityTest -Dhotelbook.explain.jdbc-url=jdbc:postgresql://localhost:5432/hotelbook
+ * (usuario y password opcionales con -Dhotelbook.explain.username y -Dhotelbook.explain.password).
+ * Las habitaciones de prueba se revierten al terminar cada prueba.
+ */
+@EnabledIfSystemProperty(named = "hotelbook.explain.jdbc-url", matches = ".+")
+@ExtendWith(SpringExtension.class)
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class RoomNameSimilarityTest {
+
+    @Autowired
+    private RoomJpaRepository roomJpaRepository;
+
+    @DynamicPropertySource
+    static void postgresProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> System.getProperty("hotelbook.explain.jdbc-url"));
+        registry.add("spring.datasource.username", () -> System.getProperty("hotelbook.explain.username", "appuser"));
+        registry.add("spring.datasource.password", () -> System.getProperty("hotelbook.explain.password", "apppass"));
+    }
+
+    @Test
+    @DisplayName("findByNameSimilarity encuentra nombres a partir de un prefijo corto de una palabra")
+    void findByNameSimilarity_withShortWordPrefix_matchesRoom() {
+        RoomEntity room = roomJpaRepository.save(newRoom("SIM-901", "Zafiro Imperial"));
+
+        List<RoomNameMatchView> matches = roomJpaRepository.findByNameSimilarity("zaf", 10);
+
+        Assertions.assertThat(matches).extracting(RoomNameMatchView::getId).contains(room.getId());
+    }
+
+    @Test
+    @DisplayName("findByNameSimilarity ordena de mayor a menor similitud de palabra")
+    void findByNameSimilarity_ordersByWordSimilarity() {
+        RoomEntity exact = roomJpaRepository.save(newRoom("SIM-902", "Cuarzo Azul"));
+        RoomEntity partial = roomJpaRepository.save(newRoom("SIM-903", "Cuarzita Verde"));
+
+        List<RoomNameMatchView> matches = roomJpaRepository.findByNameSimilarity("cuarzo", 10);
+
+        Assertions.assertThat(matches).extracting(RoomNameMatchView::getId)
+                .containsSubsequence(exact.getId(), partial.getId());
+        Assertions.assertThat(matches.get(0).getScore()).isEqualTo(1.0);
+    }
+
+    private RoomEntity newRoom(String code, String name) {
+        return RoomEntity.builder()
+                .code(code)
+                .name(name)
+                .capacity(2)
+                .basePricePerNight(new BigDecimal("150.00"))
+                .active(true)
+                .build();
+    }
+}
@@ -0,0 +1,132 @@
+package com.segurosargos.hotelbook.repository;
+
+import com.segurosargos.hotelbook.model.Room;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import javax.sql.DataSource;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+/**
+ * Benchmark de paginacion de habitaciones con @DataJpaTest.
+ * Compara la latencia por pagina de la paginacion en base de datos contra la variante
+ * anterior que cargaba y ordenaba toda la tabla en memoria, a medida que crece la tabla.
+ *
+ * Solo se ejecuta de forma explicita:
+ *   ./mvnw test -Dtest=RoomPagingBenchmarkTest -Dhotelbook.benchmarks=true
+ */
+@ExtendWith(SpringExtension.class)
+@DataJpaTest
+@ActiveProfiles("test")
+@Import(JpaRoomRepositoryAdapter.class)
+@EnabledIfSystemProperty(named = "hotelbook.benchmarks", matches = "true")
+class RoomPagingBenchmarkTest {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RoomPagingBenchmarkTest.class);
+
+    private static final int[] TABLE_SIZES = {1_000, 10_000, 50_000};
+
+    private static final int PAGE_SIZE = 20;
+
+    private static final int ITERATIONS = 30;
+
+    @Autowired
+    private JpaRoomRepositoryAdapter roomRepository;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    @DisplayName("La latencia por pagina se mantiene estable al crecer la tabla de habitaciones")
+    void pagedQueries_keepPerPageLatencyFlatAsTableGrows() {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        int inserted = 0;
+
+        for (int tableSize : TABLE_SIZES) {
+            insertRooms(jdbcTemplate, inserted, tableSize);
+            inserted = tableSize;
+
+            PageRequest middlePage = PageRequest.of(tableSize / PAGE_SIZE / 2, PAGE_SIZE,
+                    Sort.by(Sort.Order.asc("name").ignoreCase(), Sort.Order.asc("id")));
+
+            // Calentamiento para no medir la compilacion de consultas.
+            roomRepository.findAll(middlePage);
+            loadAndSortInMemory(middlePage);
+            entityManager.clear();
+
+            long pagedNanos = 0L;
+            long inMemoryNanos = 0L;
+            Page<Room> page = null;
+
+            for (int i = 0; i < ITERATIONS; i++) {
+                long start = System.nanoTime();
+                page = roomRepository.findAll(middlePage);
+                pagedNanos += System.nanoTime() - start;
+
+                start = System.nanoTime();
+                loadAndSortInMemory(middlePage);
+                inMemoryNanos += System.nanoTime() - start;
+
+                // Se limpia el contexto de persistencia para que cada medicion parta del mismo estado.
+                entityManager.clear();
+            }
+
+            LOGGER.info(
+                    "Benchmark paginacion habitaciones. filas={}, paginado en BD={} ms/pagina, findAll + orden en memoria={} ms/pagina.",
+                    tableSize,
+                    String.format("%.3f", pagedNanos / (double) ITERATIONS / 1_000_000),
+                    String.format("%.3f", inMemoryNanos / (double) ITERATIONS / 1_000_000));
+
+            Assertions.assertThat(page.getContent()).hasSize(PAGE_SIZE);
+            Assertions.assertThat(page.getTotalElements()).isEqualTo(tableSize);
+        }
+    }
+
+    private void insertRooms(JdbcTemplate jdbcTemplate, int fromIndex, int toIndex) {
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = fromIndex; i < toIndex; i++) {
+            rows.add(new Object[]{
+                    "BM-" + i,
+                    "Benchmark Room " + (i * 7919 % toIndex),
+                    1 + i % 4,
+                    BigDecimal.valueOf(500 + i % 3000),
+                    true
+            });
+        }
+        jdbcTemplate.batchUpdate(
+                "insert into rooms (id, code, name, capacity, base_price_per_night, active, version) "
+                        + "values (nextval('rooms_id_seq'), ?, ?, ?, ?, ?, 0)",
+                rows);
+    }
+
+    /*
+     * Reproduce la estrategia previa: cargar todas las habitaciones, ordenar y recortar en memoria.
+     */
+    private List<Room> loadAndSortInMemory(PageRequest pageRequest) {
+        List<Room> rooms = roomRepository.findAll();
+        rooms.sort(Comparator.comparing(Room::getName, String.CASE_INSENSITIVE_ORDER)
+                .thenComparing(Room::getId));
+        int fromIndex = (int) pageRequest.getOffset();
+        return rooms.subList(fromIndex, Math.min(fromIndex + pageRequest.getPageSize(), rooms.size()));
+    }
+}
@@ -0,0 +1,267 @@
+package com.segurosargos.hotelbook.service;
+
+import com.segurosargos.hotelbook.model.BookingEventEntity;
+import com.segurosargos.hotelbook.model.BookingEventOffsetEntity;
+import com.segurosargos.hotelbook.repository.BookingEventJpaRepository;
+import com.segurosargos.hotelbook.repository.BookingEventOffsetJpaRepository;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.Pageable;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/*
+ * Pruebas unitarias para BookingEventDispatcher con repositorios simulados.
+ */
+@ExtendWith(MockitoExtension.class)
+class BookingEventDispatcherTest {
+
+    private static final Duration GAP_TIMEOUT = Duration.ofMinutes(5);
+
+    private final AtomicLong clock = new AtomicLong();
+
+    @Mock
+    private BookingEventJpaRepository bookingEventJpaRepository;
+
+    @Mock
+    private BookingEventOffsetJpaRepository bookingEventOffsetJpaRepository;
+
+    @Mock
+    private ObjectProvider<BookingEventListener> listenerProvider;
+
+    @Test
+    @DisplayName("dispatchPending entrega los eventos posteriores al offset en lotes y guarda el ultimo id")
+    void dispatchPending_deliversBatchesAfterOffsetAndStoresLastId() {
+        RecordingListener listener = new RecordingListener("occupancy");
+        BookingEventDispatcher dispatcher = dispatcherWith(listener, 2);
+
+        when(bookingEventOffsetJpaRepository.findById("occupancy@node-a"))
+                .thenReturn(Optional.of(new BookingEventOffsetEntity("occupancy@node-a", 10L, Instant.now())));
+        when(bookingEventJpaRepository.findBatchAfter(eq(10L), any(Pageable.class)))
+                .thenReturn(List.of(event(11L), event(12L)));
+        when(bookingEventJpaRepository.findBatchAfter(eq(12L), any(Pageable.class)))
+                .thenReturn(List.of(event(13L)));
+
+        dispatcher.dispatchPending();
+
+        assertThat(listener.received).extracting(BookingEventEntity::getId).containsExactly(11L, 12L, 13L);
+
+        ArgumentCaptor<BookingEventOffsetEntity> offsets = ArgumentCaptor.forClass(BookingEventOffsetEntity.class);
+        verify(bookingEventOffsetJpaRepository, times(2)).save(offsets.capture());
+        assertThat(offsets.getAllValues())
+                .extracting(BookingEventOffsetEntity::getLastEventId)
+                .containsExactly(12L, 13L);
+    }
+
+    @Test
+    @DisplayName("dispatchPending no avanza el offset cuando el consumidor falla")
+    void dispatchPending_whenListenerFails_keepsOffset() {
+        BookingEventListener listener = mock(BookingEventListener.class);
+        when(listener.consumerName()).thenReturn("stats");
+        BookingEventDispatcher dispatcher = dispatcherWith(listener, 50);
+
+        when(bookingEventOffsetJpaRepository.findById("stats@node-a"))
+                .thenReturn(Optional.of(new BookingEventOffsetEntity("stats@node-a", 0L, Instant.now())));
+        when(bookingEventJpaRepository.findBatchAfter(eq(0L), any(Pageable.class)))
+                .thenReturn(List.of(event(1L)));
+        doThrow(new IllegalStateException("Falla del consumidor")).when(listener).onBookingEvents(any());
+
+        dispatcher.dispatchPending();
+
+        verify(bookingEventOffsetJpaRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("dispatchPending entrega un id menor que aparece despues de uno mayor ya entregado")
+    void dispatchPending_whenLowerIdBecomesVisibleLater_deliversItAndThenAdvancesOffset() {
+        RecordingListener listener = new RecordingListener("occupancy");
+        BookingEventDispatcher dispatcher = dispatcherWith(listener, 50);
+
+        when(bookingEventOffsetJpaRepository.findById("occupancy@node-a"))
+                .thenReturn(Optional.of(new BookingEventOffsetEntity("occupancy@node-a", 10L, Instant.now())));
+        when(bookingEventJpaRepository.findBatchAfter(eq(10L), any(Pageable.class)))
+                .thenReturn(List.of(event(11L), event(13L)));
+        when(bookingEventJpaRepository.findBatchAfter(eq(13L), any(Pageable.class)))
+                .thenReturn(List.of());
+
+        dispatcher.dispatchPending();
+
+        when(bookingEventJpaRepository.findAllById(List.of(12L))).thenReturn(List.of(event(12L)));
+        clock.addAndGet(Duration.ofSeconds(30).toNanos());
+
+        dispatcher.dispatchPending();
+
+        assertThat(listener.received).extracting(BookingEventEntity::getId).containsExactly(11L, 13L, 12L);
+
+        ArgumentCaptor<BookingEventOffsetEntity> offsets = ArgumentCaptor.forClass(BookingEventOffsetEntity.class);
+        verify(bookingEventOffsetJpaRepository, times(2)).save(offsets.capture());
+        assertThat(offsets.getAllValues())
+                .extracting(BookingEventOffsetEntity::getLastEventId)
+                .containsExactly(11L, 13L);
+    }
+
+    @Test
+    @DisplayName("dispatchPending deja de esperar un hueco despues de gap-timeout")
+    void dispatchPending_whenGapTimesOut_advancesOffsetPastIt() {
+        RecordingListener listener = new RecordingListener("occupancy");
+        BookingEventDispatcher dispatcher = dispatcherWith(listener, 50);
+
+        when(bookingEventOffsetJpaRepository.findById("occupancy@node-a"))
+                .thenReturn(Optional.of(new BookingEventOffsetEntity("occupancy@node-a", 10L, Instant.now())));
+        when(bookingEventJpaRepository.findBatchAfter(eq(10L), any(Pageable.class)))
+                .thenReturn(List.of(event(11L), event(13L)));
+        when(bookingEventJpaRepository.findBatchAfter(eq(13L), any(Pageable.class)))
+                .thenReturn(List.of());
+
+        dispatcher.dispatchPending();
+
+        clock.addAndGet(GAP_TIMEOUT.toNanos());
+
+        dispatcher.dispatchPending();
+
+        verify(bookingEventJpaRepository, never()).findAllById(any());
+        ArgumentCaptor<BookingEventOffsetEntity> offsets = ArgumentCaptor.forClass(BookingEventOffsetEntity.class);
+        verify(bookingEventOffsetJpaRepository, times(2)).save(offsets.capture());
+        assertThat(offsets.getAllValues())
+                .extracting(BookingEventOffsetEntity::getLastEventId)
+                .containsExactly(11L, 13L);
+    }
+
+    @Test
+    @DisplayName("dispatchPending registra un consumidor nuevo desde los eventos recientes con llave por instancia")
+    void dispatchPending_withNewConsumer_startsFromRecentEventsUnderInstanceKey() {
+        RecordingListener listener = new RecordingListener("occupancy");
+        BookingEventDispatcher dispatcher = dispatcherWith(listener, 50);
+
+        when(bookingEventOffsetJpaRepository.findById("occupancy@node-a")).thenReturn(Optional.empty());
+        when(bookingEventJpaRepository.findMinIdCreatedSince(any())).thenReturn(21L);
+        when(bookingEventJpaRepository.findMaxId()).thenReturn(22L);
+        when(bookingEventJpaRepository.findBatchAfter(eq(20L), any(Pageable.class)))
+                .thenReturn(List.of(event(21L), event(22L)));
+
+        dispatcher.dispatchPending();
+
+        assertThat(listener.received).extracting(BookingEventEntity::getId).containsExactly(21L, 22L);
+
+        ArgumentCaptor<BookingEventOffsetEntity> offsets = ArgumentCaptor.forClass(BookingEventOffsetEntity.class);
+        verify(bookingEventOffsetJpaRepository, times(2)).save(offsets.capture());
+        assertThat(offsets.getAllValues())
+                .extracting(BookingEventOffsetEntity::getConsumer, BookingEventOffsetEntity::getLastEventId)
+                .containsExactly(tuple("occupancy@node-a", 20L), tuple("occupancy@node-a", 22L));
+    }
+
+    @Test
+    @DisplayName("dispatchPending renueva el offset sin cambios una vez por minuto")
+    void dispatchPending_withoutNewEvents_refreshesOffsetEveryMinute() {
+        RecordingListener listener = new RecordingListener("occupancy");
+        BookingEventDispatcher dispatcher = dispatcherWith(listener, 50);
+
+        when(bookingEventOffsetJpaRepository.findById("occupancy@node-a"))
+                .thenReturn(Optional.of(new BookingEventOffsetEntity("occupancy@node-a", 10L, Instant.now())));
+        when(bookingEventJpaRepository.findBatchAfter(eq(10L), any(Pageable.class))).thenReturn(List.of());
+
+        dispatcher.dispatchPending();
+        clock.addAndGet(Duration.ofSeconds(59).toNanos());
+        dispatcher.dispatchPending();
+        verify(bookingEventOffsetJpaRepository, never()).save(any());
+
+        clock.addAndGet(Duration.ofSeconds(1).toNanos());
+        dispatcher.dispatchPending();
+
+        ArgumentCaptor<BookingEventOffsetEntity> offsets = ArgumentCaptor.forClass(BookingEventOffsetEntity.class);
+        verify(bookingEventOffsetJpaRepository).save(offsets.capture());
+        assertThat(offsets.getValue().getLastEventId()).isEqualTo(10L);
+    }
+
+    @Test
+    @DisplayName("pruneDelivered descarta los offsets inactivos y elimina solo hasta el menor offset restante")
+    void pruneDelivered_dropsStaleOffsetsAndDeletesUpToSlowestConsumer() {
+        when(listenerProvider.orderedStream()).thenReturn(Stream.of(new RecordingListener("occupancy")));
+        BookingEventDispatcher dispatcher = new BookingEventDispatcher(
+                bookingEventJpaRepository, bookingEventOffsetJpaRepository, listenerProvider,
+                50, GAP_TIMEOUT, Duration.ofDays(7), "node-a", clock::get);
+
+        when(bookingEventOffsetJpaRepository.deleteUpdatedBefore(any())).thenReturn(1);
+        when(bookingEventOffsetJpaRepository.findMinLastEventId()).thenReturn(40L);
+
+        dispatcher.pruneDelivered();
+
+        InOrder inOrder = inOrder(bookingEventOffsetJpaRepository, bookingEventJpaRepository);
+        inOrder.verify(bookingEventOffsetJpaRepository).deleteUpdatedBefore(any());
+        inOrder.verify(bookingEventOffsetJpaRepository).findMinLastEventId();
+        inOrder.verify(bookingEventJpaRepository).deleteDeliveredBefore(eq(40L), any());
+        verify(bookingEventJpaRepository, never()).findBatchAfter(anyLong(), any(Pageable.class));
+    }
+
+    @Test
+    @DisplayName("pruneDelivered sin consumidores activos solo depura por antiguedad")
+    void pruneDelivered_withoutActiveConsumers_deletesByAgeOnly() {
+        when(listenerProvider.orderedStream()).thenReturn(Stream.empty());
+        BookingEventDispatcher dispatcher = new BookingEventDispatcher(
+                bookingEventJpaRepository, bookingEventOffsetJpaRepository, listenerProvider,
+                50, GAP_TIMEOUT, Duration.ofDays(7), "node-a", clock::get);
+
+        dispatcher.pruneDelivered();
+
+        verify(bookingEventJpaRepository).deleteDeliveredBefore(eq(Long.MAX_VALUE), any());
+    }
+
+    private BookingEventDispatcher dispatcherWith(BookingEventListener listener, int batchSize) {
+        when(listenerProvider.orderedStream()).thenReturn(Stream.of(listener));
+        return new BookingEventDispatcher(bookingEventJpaRepository, bookingEventOffsetJpaRepository,
+                listenerProvider, batchSize, GAP_TIMEOUT, Duration.ofDays(7), "node-a", clock::get);
+    }
+
+    private static BookingEventEntity event(long id) {
+        return BookingEventEntity.builder()
+                .id(id)
+                .bookingId(100L + id)
+                .newStatus("CONFIRMED")
+                .createdAt(Instant.now())
+                .build();
+    }
+
+    private static final class RecordingListener implements BookingEventListener {
+
+        private final String name;
+
+        private final List<BookingEventEntity> received = new ArrayList<>();
+
+        private RecordingListener(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public String consumerName() {
+            return name;
+        }
+
+        @Override
+        public void onBookingEvents(List<BookingEventEntity> events) {
+            received.addAll(events);
+        }
+    }
+}
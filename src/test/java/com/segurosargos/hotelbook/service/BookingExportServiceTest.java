@@ -0,0 +1,113 @@
+package com.segurosargos.hotelbook.service;
+
+import com.segurosargos.hotelbook.exception.InvalidBookingException;
+import com.segurosargos.hotelbook.model.BookingEntity;
+import com.segurosargos.hotelbook.model.GuestEntity;
+import com.segurosargos.hotelbook.model.RoomEntity;
+import com.segurosargos.hotelbook.repository.BookingJpaRepository;
+import com.segurosargos.hotelbook.repository.GuestRepository;
+import com.segurosargos.hotelbook.repository.RoomJpaRepository;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.zip.GZIPInputStream;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+/**
+ * Pruebas con @DataJpaTest para BookingExportService.
+ * En H2 se ejercita la variante con cursor JDBC, que debe producir el mismo CSV que COPY.
+ */
+@ExtendWith(SpringExtension.class)
+@DataJpaTest
+@ActiveProfiles("test")
+@Import(BookingExportService.class)
+class BookingExportServiceTest {
+
+    @Autowired
+    private BookingExportService bookingExportService;
+
+    @Autowired
+    private BookingJpaRepository bookingJpaRepository;
+
+    @Autowired
+    private RoomJpaRepository roomJpaRepository;
+
+    @Autowired
+    private GuestRepository guestRepository;
+
+    @Test
+    @DisplayName("exportBookingDetailsCsvGzip escribe un CSV gzip con encabezado y valores escapados")
+    void exportBookingDetailsCsvGzip_writesCompressedCsv() throws Exception {
+        RoomEntity room = new RoomEntity();
+        room.setCode("R-601");
+        room.setName("Suite, vista al mar");
+        room.setCapacity(2);
+        room.setBasePricePerNight(new BigDecimal("250.00"));
+        room.setActive(true);
+        room = roomJpaRepository.save(room);
+
+        GuestEntity guest = guestRepository.save(GuestEntity.builder()
+                .firstName("Ana")
+                .lastName("Lopez")
+                .email("ana.export@example.com")
+                .confirmedBookingsCount(0)
+                .build());
+
+        BookingEntity confirmed = bookingJpaRepository.save(booking(room, guest, LocalDate.of(2025, 2, 10), "CONFIRMED"));
+        bookingJpaRepository.save(booking(room, guest, LocalDate.of(2025, 2, 20), "CANCELLED"));
+        bookingJpaRepository.flush();
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        long rows = bookingExportService.exportBookingDetailsCsvGzip(
+                LocalDate.of(2025, 2, 1), LocalDate.of(2025, 2, 28), null, output);
+
+        String csv;
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(output.toByteArray()))) {
+            csv = new String(gzip.readAllBytes(), StandardCharsets.UTF_8);
+        }
+
+        Assertions.assertThat(rows).isEqualTo(1L);
+        Assertions.assertThat(csv.split("\n")).containsExactly(
+                "booking_id,room_code,room_name,guest_first_name,guest_last_name,guest_email,"
+                        + "check_in_date,check_out_date,total_price,status",
+                confirmed.getId() + ",R-601,\"Suite, vista al mar\",Ana,Lopez,ana.export@example.com,"
+                        + "2025-02-10,2025-02-12,500.00,CONFIRMED");
+    }
+
+    @Test
+    @DisplayName("exportBookingDetailsCsvGzip rechaza estatus con caracteres no permitidos")
+    void exportBookingDetailsCsvGzip_withInvalidStatus_throwsException() {
+        Assertions.assertThatThrownBy(() -> bookingExportService.exportBookingDetailsCsvGzip(
+                        LocalDate.of(2025, 2, 1), LocalDate.of(2025, 2, 28), "CONFIRMED' or '1'='1",
+                        new ByteArrayOutputStream()))
+                .isInstanceOf(InvalidBookingException.class);
+    }
+
+    @Test
+    @DisplayName("resolveExportStatus usa CONFIRMED por defecto y normaliza a mayusculas")
+    void resolveExportStatus_normalizesStatus() {
+        Assertions.assertThat(bookingExportService.resolveExportStatus(null)).isEqualTo("CONFIRMED");
+        Assertions.assertThat(bookingExportService.resolveExportStatus(" cancelled ")).isEqualTo("CANCELLED");
+    }
+
+    private BookingEntity booking(RoomEntity room, GuestEntity guest, LocalDate checkIn, String status) {
+        return BookingEntity.builder()
+                .checkInDate(checkIn)
+                .checkOutDate(checkIn.plusDays(2))
+                .totalPrice(new BigDecimal("500.00"))
+                .status(status)
+                .room(room)
+                .guest(guest)
+                .build();
+    }
+}
@@ -1,24 +1,37 @@
 package com.segurosargos.hotelbook.service;
 
 import com.segurosargos.hotelbook.dto.BookingStatusChangeResponseDto;
+import com.segurosargos.hotelbook.dto.BulkBookingStatusChangeItemDto;
+import com.segurosargos.hotelbook.dto.BulkBookingStatusChangeResponseDto;
+import com.segurosargos.hotelbook.exception.BookingConflictException;
 import com.segurosargos.hotelbook.exception.BookingNotFoundException;
 import com.segurosargos.hotelbook.exception.InvalidBookingException;
 import com.segurosargos.hotelbook.model.BookingEntity;
+import com.segurosargos.hotelbook.model.BookingEventEntity;
 import com.segurosargos.hotelbook.model.GuestEntity;
 import com.segurosargos.hotelbook.model.RoomEntity;
+import com.segurosargos.hotelbook.repository.BookingEventJpaRepository;
 import com.segurosargos.hotelbook.repository.BookingJpaRepository;
+import com.segurosargos.hotelbook.repository.GuestRepository;
+import com.segurosargos.hotelbook.repository.RoomJpaRepository;
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.List;
 import java.util.Optional;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -32,6 +45,18 @@ class BookingManagementServiceTest {
     @Mock
     private BookingJpaRepository bookingJpaRepository;
 
+    @Mock
+    private BookingMonthlyStatsService bookingMonthlyStatsService;
+
+    @Mock
+    private GuestRepository guestRepository;
+
+    @Mock
+    private BookingEventJpaRepository bookingEventJpaRepository;
+
+    @Mock
+    private RoomJpaRepository roomJpaRepository;
+
     @InjectMocks
     private BookingManagementService bookingManagementService;
 
@@ -88,6 +113,7 @@ class BookingManagementServiceTest {
 
         when(bookingJpaRepository.findById(5L)).thenReturn(Optional.of(booking));
         when(bookingJpaRepository.save(any(BookingEntity.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        stubGuestCount(3L, 1);
 
         BookingStatusChangeResponseDto response = bookingManagementService.confirmBooking(5L);
 
@@ -106,6 +132,46 @@ class BookingManagementServiceTest {
         assertThat(response.getRoomLastBookingDate()).isEqualTo(booking.getCheckInDate());
 
         verify(bookingJpaRepository).save(booking);
+        verify(guestRepository).addToConfirmedBookingsCount(3L, 1);
+        verify(bookingMonthlyStatsService).applyStatusChange(
+                LocalDate.of(2025, 3, 1), new BigDecimal("500.00"), "CREATED", "CONFIRMED");
+        ArgumentCaptor<BookingEventEntity> outboxEvent = ArgumentCaptor.forClass(BookingEventEntity.class);
+        verify(bookingEventJpaRepository).save(outboxEvent.capture());
+        assertThat(outboxEvent.getValue())
+                .extracting(BookingEventEntity::getBookingId, BookingEventEntity::getRoomId,
+                        BookingEventEntity::getPreviousStatus, BookingEventEntity::getNewStatus)
+                .containsExactly(5L, 7L, "CREATED", "CONFIRMED");
+        assertThat(outboxEvent.getValue().getCreatedAt()).isNotNull();
+    }
+
+    @Test
+    @DisplayName("confirmBooking bloquea la habitacion y rechaza un solape confirmado que solo ve la base de datos")
+    void confirmBooking_whenDatabaseHasOverlappingStay_locksRoomAndThrowsConflict() {
+        RoomEntity room = RoomEntity.builder()
+                .id(7L)
+                .code("R-101")
+                .build();
+
+        BookingEntity booking = BookingEntity.builder()
+                .id(9L)
+                .checkInDate(LocalDate.of(2025, 3, 30))
+                .checkOutDate(LocalDate.of(2025, 4, 2))
+                .totalPrice(new BigDecimal("300.00"))
+                .status("CREATED")
+                .room(room)
+                .build();
+
+        when(bookingJpaRepository.findById(9L)).thenReturn(Optional.of(booking));
+        when(bookingJpaRepository.existsOverlappingStay(
+                7L, 9L, LocalDate.of(2025, 3, 30), LocalDate.of(2025, 4, 2), "CONFIRMED")).thenReturn(true);
+
+        assertThatThrownBy(() -> bookingManagementService.confirmBooking(9L))
+                .isInstanceOf(BookingConflictException.class);
+
+        verify(roomJpaRepository).lockAllByIdIn(List.of(7L));
+        verify(bookingJpaRepository, never()).save(any(BookingEntity.class));
+        verify(bookingEventJpaRepository, never()).save(any());
+        assertThat(booking.getStatus()).isEqualTo("CREATED");
     }
 
     @Test
@@ -135,6 +201,7 @@ class BookingManagementServiceTest {
 
         when(bookingJpaRepository.findById(6L)).thenReturn(Optional.of(booking));
         when(bookingJpaRepository.save(any(BookingEntity.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        stubGuestCount(4L, 1);
 
         assertThatThrownBy(() -> bookingManagementService.confirmBookingWithSimulatedError(6L))
                 .isInstanceOf(IllegalStateException.class);
@@ -199,6 +266,7 @@ class BookingManagementServiceTest {
 
         when(bookingJpaRepository.findById(15L)).thenReturn(Optional.of(booking));
         when(bookingJpaRepository.save(any(BookingEntity.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        stubGuestCount(12L, -1);
 
         BookingStatusChangeResponseDto response = bookingManagementService.cancelBooking(15L);
 
@@ -216,5 +284,169 @@ class BookingManagementServiceTest {
         assertThat(response.getRoomLastBookingDate()).isEqualTo(room.getLastBookingDate());
 
         verify(bookingJpaRepository).save(booking);
+        verify(guestRepository).addToConfirmedBookingsCount(12L, -1);
+    }
+
+    @Test
+    @DisplayName("confirmBookings confirma las reservas validas y reporta las inexistentes, repetidas y en conflicto")
+    void confirmBookings_withMixedBookings_updatesValidOnesAndReportsTheRest() {
+        GuestEntity guest = GuestEntity.builder()
+                .id(20L)
+                .email("group@example.com")
+                .confirmedBookingsCount(0)
+                .build();
+
+        RoomEntity room = RoomEntity.builder()
+                .id(30L)
+                .code("R-301")
+                .build();
+
+        BookingEntity first = BookingEntity.builder()
+                .id(40L)
+                .checkInDate(LocalDate.of(2025, 6, 1))
+                .checkOutDate(LocalDate.of(2025, 6, 3))
+                .totalPrice(new BigDecimal("400.00"))
+                .status("CREATED")
+                .guest(guest)
+                .room(room)
+                .build();
+
+        BookingEntity second = BookingEntity.builder()
+                .id(41L)
+                .checkInDate(LocalDate.of(2025, 6, 5))
+                .checkOutDate(LocalDate.of(2025, 6, 7))
+                .totalPrice(new BigDecimal("400.00"))
+                .status("CREATED")
+                .guest(guest)
+                .room(room)
+                .build();
+
+        BookingEntity overlapping = BookingEntity.builder()
+                .id(42L)
+                .checkInDate(LocalDate.of(2025, 6, 2))
+                .checkOutDate(LocalDate.of(2025, 6, 4))
+                .totalPrice(new BigDecimal("400.00"))
+                .status("CREATED")
+                .guest(guest)
+                .room(room)
+                .build();
+
+        BookingEntity alreadyConfirmed = BookingEntity.builder()
+                .id(43L)
+                .checkInDate(LocalDate.of(2025, 7, 1))
+                .checkOutDate(LocalDate.of(2025, 7, 2))
+                .totalPrice(new BigDecimal("200.00"))
+                .status("CONFIRMED")
+                .guest(guest)
+                .room(room)
+                .build();
+
+        when(bookingJpaRepository.findAllWithRoomAndGuestByIdIn(any()))
+                .thenReturn(List.of(first, second, overlapping, alreadyConfirmed));
+        // La reserva 42 no choca en la base de datos, pero se solapa con la 40 de la misma solicitud.
+        stubGuestCount(20L, 2);
+
+        BulkBookingStatusChangeResponseDto response = bookingManagementService.confirmBookings(
+                List.of(40L, 41L, 40L, 42L, 43L, 99L));
+
+        assertThat(response.getRequested()).isEqualTo(5);
+        assertThat(response.getUpdated()).isEqualTo(2);
+        assertThat(response.getRejected()).isEqualTo(3);
+        assertThat(response.getResults())
+                .extracting(BulkBookingStatusChangeItemDto::getBookingId, BulkBookingStatusChangeItemDto::getOutcome)
+                .containsExactly(
+                        tuple(40L, "UPDATED"),
+                        tuple(41L, "UPDATED"),
+                        tuple(42L, "CONFLICT"),
+                        tuple(43L, "INVALID_STATUS"),
+                        tuple(99L, "NOT_FOUND"));
+
+        assertThat(first.getStatus()).isEqualTo("CONFIRMED");
+        assertThat(second.getStatus()).isEqualTo("CONFIRMED");
+        assertThat(overlapping.getStatus()).isEqualTo("CREATED");
+        assertThat(guest.getConfirmedBookingsCount()).isEqualTo(2);
+        assertThat(room.getLastBookingDate()).isEqualTo(second.getCheckInDate());
+        assertThat(response.getResults().get(1).getChange().getGuestConfirmedBookingsCount()).isEqualTo(2);
+
+        verify(bookingJpaRepository).flush();
+        verify(bookingJpaRepository, never()).save(any(BookingEntity.class));
+        verify(guestRepository).addToConfirmedBookingsCount(20L, 2);
+        verify(bookingEventJpaRepository, times(2)).save(any(BookingEventEntity.class));
+        verify(bookingMonthlyStatsService).applyStatusChanges(any());
+    }
+
+    @Test
+    @DisplayName("cancelBookings cancela las reservas y solo descuenta el contador de las que estaban confirmadas")
+    void cancelBookings_decrementsGuestCountOnlyForConfirmedBookings() {
+        GuestEntity guest = GuestEntity.builder()
+                .id(21L)
+                .email("tour@example.com")
+                .confirmedBookingsCount(1)
+                .build();
+
+        BookingEntity confirmed = BookingEntity.builder()
+                .id(50L)
+                .checkInDate(LocalDate.of(2025, 8, 1))
+                .checkOutDate(LocalDate.of(2025, 8, 3))
+                .totalPrice(new BigDecimal("300.00"))
+                .status("CONFIRMED")
+                .guest(guest)
+                .build();
+
+        BookingEntity created = BookingEntity.builder()
+                .id(51L)
+                .checkInDate(LocalDate.of(2025, 8, 1))
+                .checkOutDate(LocalDate.of(2025, 8, 3))
+                .totalPrice(new BigDecimal("300.00"))
+                .status("CREATED")
+                .guest(guest)
+                .build();
+
+        when(bookingJpaRepository.findAllWithRoomAndGuestByIdIn(any())).thenReturn(List.of(confirmed, created));
+        stubGuestCount(21L, -1);
+
+        BulkBookingStatusChangeResponseDto response = bookingManagementService.cancelBookings(List.of(50L, 51L));
+
+        assertThat(response.getUpdated()).isEqualTo(2);
+        assertThat(confirmed.getStatus()).isEqualTo("CANCELLED");
+        assertThat(created.getStatus()).isEqualTo("CANCELLED");
+        assertThat(guest.getConfirmedBookingsCount()).isEqualTo(0);
+        assertThat(response.getResults().get(0).getChange().getPreviousStatus()).isEqualTo("CONFIRMED");
+        assertThat(response.getResults().get(1).getChange().getPreviousStatus()).isEqualTo("CREATED");
+        verify(bookingJpaRepository).flush();
+        verify(guestRepository).addToConfirmedBookingsCount(21L, -1);
+    }
+
+    @Test
+    @DisplayName("cancelBookings no toca el contador del huesped cuando ninguna reserva estaba confirmada")
+    void cancelBookings_whenNoBookingWasConfirmed_doesNotUpdateGuestCount() {
+        GuestEntity guest = GuestEntity.builder()
+                .id(22L)
+                .email("walkin@example.com")
+                .confirmedBookingsCount(0)
+                .build();
+
+        BookingEntity created = BookingEntity.builder()
+                .id(52L)
+                .checkInDate(LocalDate.of(2025, 9, 1))
+                .checkOutDate(LocalDate.of(2025, 9, 2))
+                .totalPrice(new BigDecimal("150.00"))
+                .status("CREATED")
+                .guest(guest)
+                .build();
+
+        when(bookingJpaRepository.findAllWithRoomAndGuestByIdIn(any())).thenReturn(List.of(created));
+
+        bookingManagementService.cancelBookings(List.of(52L));
+
+        assertThat(created.getStatus()).isEqualTo("CANCELLED");
+        verify(guestRepository, never()).addToConfirmedBookingsCount(any(), anyInt());
+    }
+
+    /*
+     * Simula el UPDATE atómico del contador del huésped.
+     */
+    private void stubGuestCount(Long guestId, int delta) {
+        when(guestRepository.addToConfirmedBookingsCount(guestId, delta)).thenReturn(1);
     }
 }
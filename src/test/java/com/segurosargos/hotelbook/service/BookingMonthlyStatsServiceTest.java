@@ -0,0 +1,98 @@
+package com.segurosargos.hotelbook.service;
+
+import com.segurosargos.hotelbook.repository.BookingJpaRepository;
+import com.segurosargos.hotelbook.repository.BookingMonthlyStatsJpaRepository;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/*
+ * Pruebas unitarias para BookingMonthlyStatsService con el repositorio de agregados simulado.
+ */
+@ExtendWith(MockitoExtension.class)
+class BookingMonthlyStatsServiceTest {
+
+    @Mock
+    private BookingMonthlyStatsJpaRepository bookingMonthlyStatsJpaRepository;
+
+    @Mock
+    private BookingJpaRepository bookingJpaRepository;
+
+    private BookingMonthlyStatsService bookingMonthlyStatsService;
+
+    @BeforeEach
+    void setUp() {
+        bookingMonthlyStatsService = new BookingMonthlyStatsService(bookingMonthlyStatsJpaRepository, bookingJpaRepository);
+    }
+
+    @Test
+    @DisplayName("applyStatusChange actualiza las filas en orden de estatus sin importar la direccion del cambio")
+    void applyStatusChange_updatesRowsInFixedOrder() {
+        when(bookingMonthlyStatsJpaRepository.addToStats(anyString(), anyInt(), anyInt(), anyLong(), any()))
+                .thenReturn(1);
+        BigDecimal price = new BigDecimal("300.00");
+
+        bookingMonthlyStatsService.applyStatusChange(LocalDate.of(2025, 3, 10), price, "CONFIRMED", "CANCELLED");
+        bookingMonthlyStatsService.applyStatusChange(LocalDate.of(2025, 3, 12), price, "CANCELLED", "CONFIRMED");
+
+        InOrder inOrder = inOrder(bookingMonthlyStatsJpaRepository);
+        inOrder.verify(bookingMonthlyStatsJpaRepository).addToStats("CANCELLED", 2025, 3, 1, price);
+        inOrder.verify(bookingMonthlyStatsJpaRepository).addToStats("CONFIRMED", 2025, 3, -1, price.negate());
+        inOrder.verify(bookingMonthlyStatsJpaRepository).addToStats("CANCELLED", 2025, 3, -1, price.negate());
+        inOrder.verify(bookingMonthlyStatsJpaRepository).addToStats("CONFIRMED", 2025, 3, 1, price);
+        verify(bookingMonthlyStatsJpaRepository, never()).insertEmptyStatsIfMissing(anyString(), anyInt(), anyInt());
+    }
+
+    @Test
+    @DisplayName("applyStatusChanges acumula por fila y la actualiza en orden de mes y estatus")
+    void applyStatusChanges_updatesRowsOrderedByMonthAndStatus() {
+        when(bookingMonthlyStatsJpaRepository.addToStats(anyString(), anyInt(), anyInt(), anyLong(), any()))
+                .thenReturn(1);
+
+        bookingMonthlyStatsService.applyStatusChanges(List.of(
+                new BookingMonthlyStatsService.StatusChange(
+                        LocalDate.of(2025, 4, 1), new BigDecimal("100.00"), "CREATED", "CONFIRMED"),
+                new BookingMonthlyStatsService.StatusChange(
+                        LocalDate.of(2025, 3, 1), new BigDecimal("200.00"), "CREATED", "CONFIRMED"),
+                new BookingMonthlyStatsService.StatusChange(
+                        LocalDate.of(2025, 3, 2), new BigDecimal("50.00"), "CREATED", "CONFIRMED")));
+
+        InOrder inOrder = inOrder(bookingMonthlyStatsJpaRepository);
+        inOrder.verify(bookingMonthlyStatsJpaRepository).addToStats("CONFIRMED", 2025, 3, 2, new BigDecimal("250.00"));
+        inOrder.verify(bookingMonthlyStatsJpaRepository).addToStats("CREATED", 2025, 3, -2, new BigDecimal("-250.00"));
+        inOrder.verify(bookingMonthlyStatsJpaRepository).addToStats("CONFIRMED", 2025, 4, 1, new BigDecimal("100.00"));
+        inOrder.verify(bookingMonthlyStatsJpaRepository).addToStats("CREATED", 2025, 4, -1, new BigDecimal("-100.00"));
+    }
+
+    @Test
+    @DisplayName("Si el UPDATE no encuentra la fila se crea y se repite para no perder el delta")
+    void applyStatusChange_whenRowIsMissing_insertsAndRetries() {
+        BigDecimal price = new BigDecimal("120.00");
+        when(bookingMonthlyStatsJpaRepository.addToStats("CONFIRMED", 2025, 5, 1, price))
+                .thenReturn(0)
+                .thenReturn(1);
+
+        bookingMonthlyStatsService.applyStatusChange(LocalDate.of(2025, 5, 3), price, null, "CONFIRMED");
+
+        InOrder inOrder = inOrder(bookingMonthlyStatsJpaRepository);
+        inOrder.verify(bookingMonthlyStatsJpaRepository).addToStats("CONFIRMED", 2025, 5, 1, price);
+        inOrder.verify(bookingMonthlyStatsJpaRepository).insertEmptyStatsIfMissing(eq("CONFIRMED"), eq(2025), eq(5));
+        inOrder.verify(bookingMonthlyStatsJpaRepository).addToStats("CONFIRMED", 2025, 5, 1, price);
+    }
+}
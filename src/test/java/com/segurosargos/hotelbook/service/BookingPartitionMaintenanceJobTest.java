@@ -0,0 +1,111 @@
+package com.segurosargos.hotelbook.service;
+
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/*
+ * Pruebas unitarias para BookingPartitionMaintenanceJob.
+ * Se simula el catalogo de PostgreSQL con un mock de JdbcTemplate.
+ */
+@ExtendWith(MockitoExtension.class)
+class BookingPartitionMaintenanceJobTest {
+
+    private static final YearMonth CURRENT_MONTH = YearMonth.now();
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    @DisplayName("maintainPartitions crea las particiones faltantes y separa las que superan la retencion")
+    void maintainPartitions_createsMissingAndDetachesExpired() {
+        BookingPartitionMaintenanceJob job = new BookingPartitionMaintenanceJob(jdbcTemplate, transactionManager, 2, 6);
+        stubPartitionedTable(List.of(
+                "bookings_default",
+                BookingPartitionMaintenanceJob.partitionName(CURRENT_MONTH.minusMonths(7)),
+                BookingPartitionMaintenanceJob.partitionName(CURRENT_MONTH.minusMonths(6)),
+                BookingPartitionMaintenanceJob.partitionName(CURRENT_MONTH)));
+
+        String expiredPartition = BookingPartitionMaintenanceJob.partitionName(CURRENT_MONTH.minusMonths(7));
+        when(jdbcTemplate.queryForObject(anyString(), eq(Boolean.class), eq(expiredPartition))).thenReturn(true);
+
+        List<String> executed = new ArrayList<>();
+        when(jdbcTemplate.update(anyString())).thenReturn(0);
+        doAnswer(invocation -> executed.add(invocation.getArgument(0)))
+                .when(jdbcTemplate).execute(anyString());
+
+        job.maintainPartitions();
+
+        String nextMonth = BookingPartitionMaintenanceJob.partitionName(CURRENT_MONTH.plusMonths(1));
+        String monthAfter = BookingPartitionMaintenanceJob.partitionName(CURRENT_MONTH.plusMonths(2));
+        String expired = BookingPartitionMaintenanceJob.partitionName(CURRENT_MONTH.minusMonths(7));
+
+        assertThat(executed).contains(
+                "create table " + nextMonth + " (like bookings including defaults including constraints)",
+                "create table " + monthAfter + " (like bookings including defaults including constraints)",
+                "alter table bookings attach partition " + nextMonth + " for values from ('"
+                        + CURRENT_MONTH.plusMonths(1).atDay(1) + "') to ('" + CURRENT_MONTH.plusMonths(2).atDay(1) + "')",
+                "alter table bookings detach partition " + expired);
+        assertThat(executed).noneMatch(sql -> sql.contains("create table "
+                + BookingPartitionMaintenanceJob.partitionName(CURRENT_MONTH) + " "));
+        assertThat(executed).noneMatch(sql -> sql.contains("detach partition "
+                + BookingPartitionMaintenanceJob.partitionName(CURRENT_MONTH.minusMonths(6))));
+    }
+
+    @Test
+    @DisplayName("maintainPartitions no falla si otra instancia ya creo la particion mientras esperaba el bloqueo")
+    void maintainPartitions_whenPartitionCreatedConcurrently_skipsIt() {
+        BookingPartitionMaintenanceJob job = new BookingPartitionMaintenanceJob(jdbcTemplate, transactionManager, 1, 0);
+        stubPartitionedTable(List.of(
+                "bookings_default",
+                BookingPartitionMaintenanceJob.partitionName(CURRENT_MONTH)));
+        String nextMonth = BookingPartitionMaintenanceJob.partitionName(CURRENT_MONTH.plusMonths(1));
+        when(jdbcTemplate.queryForObject(anyString(), eq(Boolean.class), eq(nextMonth))).thenReturn(true);
+
+        job.maintainPartitions();
+
+        verify(jdbcTemplate).queryForList(startsWith("select pg_advisory_xact_lock"), any(Object[].class));
+        verify(jdbcTemplate, never()).execute(anyString());
+        verify(jdbcTemplate, never()).update(anyString());
+    }
+
+    @Test
+    @DisplayName("maintainPartitions no hace nada si la base no es PostgreSQL")
+    @SuppressWarnings("unchecked")
+    void maintainPartitions_whenNotPostgres_doesNothing() {
+        BookingPartitionMaintenanceJob job = new BookingPartitionMaintenanceJob(jdbcTemplate, transactionManager, 2, 6);
+        when(jdbcTemplate.execute(any(ConnectionCallback.class))).thenReturn("H2");
+
+        job.maintainPartitions();
+
+        verify(jdbcTemplate, never()).execute(anyString());
+        verify(jdbcTemplate, never()).queryForList(anyString(), eq(String.class));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void stubPartitionedTable(List<String> partitionNames) {
+        when(jdbcTemplate.execute(any(ConnectionCallback.class))).thenReturn("PostgreSQL");
+        when(jdbcTemplate.queryForObject(anyString(), eq(Boolean.class))).thenReturn(true);
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class))).thenReturn(partitionNames);
+    }
+}
@@ -0,0 +1,97 @@
+package com.segurosargos.hotelbook.service;
+
+import com.segurosargos.hotelbook.dto.MonthlyBookingStatsDto;
+import com.segurosargos.hotelbook.repository.BookingJpaRepository;
+import com.segurosargos.hotelbook.repository.MonthlyBookingStatsView;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/*
+ * Pruebas unitarias para BookingReportService.
+ * Se valida como se reparte el rango entre la tabla de agregados y la agregacion directa.
+ */
+@ExtendWith(MockitoExtension.class)
+class BookingReportServiceTest {
+
+    @Mock
+    private BookingJpaRepository bookingJpaRepository;
+
+    @Mock
+    private BookingMonthlyStatsService bookingMonthlyStatsService;
+
+    @InjectMocks
+    private BookingReportService bookingReportService;
+
+    @Test
+    @DisplayName("getMonthlyStats lee los meses cerrados completos de los agregados y el resto en vivo")
+    void getMonthlyStats_whenRollupReady_readsClosedMonthsFromRollup() {
+        LocalDate start = LocalDate.of(2024, 1, 15);
+        LocalDate end = YearMonth.now().atDay(10);
+        YearMonth lastClosed = YearMonth.now().minusMonths(1);
+
+        when(bookingMonthlyStatsService.isReady()).thenReturn(true);
+        when(bookingJpaRepository.findMonthlyStatsBetweenDatesAndStatus(
+                start, LocalDate.of(2024, 1, 31), "CONFIRMED"))
+                .thenReturn(List.of(stats(2024, 1, 1L)));
+        when(bookingMonthlyStatsService.findStats(YearMonth.of(2024, 2), lastClosed, "CONFIRMED"))
+                .thenReturn(List.of(stats(2024, 2, 4L)));
+        when(bookingJpaRepository.findMonthlyStatsBetweenDatesAndStatus(
+                YearMonth.now().atDay(1), end, "CONFIRMED"))
+                .thenReturn(List.of(stats(YearMonth.now().getYear(), YearMonth.now().getMonthValue(), 2L)));
+
+        List<MonthlyBookingStatsDto> result = bookingReportService.getMonthlyStats(start, end, null);
+
+        assertThat(result).extracting(MonthlyBookingStatsDto::getBookingCount).containsExactly(1L, 4L, 2L);
+    }
+
+    @Test
+    @DisplayName("getMonthlyStats usa la agregacion directa mientras los agregados no estan listos")
+    void getMonthlyStats_whenRollupNotReady_aggregatesLive() {
+        LocalDate start = LocalDate.of(2024, 1, 1);
+        LocalDate end = LocalDate.of(2024, 6, 30);
+
+        when(bookingMonthlyStatsService.isReady()).thenReturn(false);
+        when(bookingJpaRepository.findMonthlyStatsBetweenDatesAndStatus(start, end, "CONFIRMED"))
+                .thenReturn(List.of(stats(2024, 3, 5L)));
+
+        List<MonthlyBookingStatsDto> result = bookingReportService.getMonthlyStats(start, end, "CONFIRMED");
+
+        assertThat(result).hasSize(1);
+        verify(bookingJpaRepository).findMonthlyStatsBetweenDatesAndStatus(start, end, "CONFIRMED");
+    }
+
+    private MonthlyBookingStatsView stats(int year, int month, long count) {
+        return new MonthlyBookingStatsView() {
+            @Override
+            public Integer getYear() {
+                return year;
+            }
+
+            @Override
+            public Integer getMonth() {
+                return month;
+            }
+
+            @Override
+            public Long getBookingCount() {
+                return count;
+            }
+
+            @Override
+            public BigDecimal getTotalRevenue() {
+                return BigDecimal.TEN;
+            }
+        };
+    }
+}
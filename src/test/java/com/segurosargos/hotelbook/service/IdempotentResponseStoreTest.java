@@ -0,0 +1,113 @@
+package com.segurosargos.hotelbook.service;
+
+import com.segurosargos.hotelbook.exception.IdempotencyKeyReuseException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/*
+ * Pruebas unitarias para IdempotentResponseStore con un reloj controlado.
+ */
+class IdempotentResponseStoreTest {
+
+    private static final Duration TTL = Duration.ofMinutes(10);
+
+    private AtomicLong clock;
+
+    private IdempotentResponseStore store;
+
+    private AtomicInteger executions;
+
+    @BeforeEach
+    void setUp() {
+        clock = new AtomicLong();
+        store = new IdempotentResponseStore(2, TTL, clock::get);
+        executions = new AtomicInteger();
+    }
+
+    @Test
+    @DisplayName("execute devuelve la respuesta guardada sin volver a ejecutar la operacion")
+    void execute_withSameKeyAndRequest_replaysResponse() {
+        IdempotentResponseStore.IdempotentResult<String> first =
+                store.execute("staff", "confirm", "k-1", 5L, this::respond);
+        IdempotentResponseStore.IdempotentResult<String> second =
+                store.execute("staff", "confirm", "k-1", 5L, this::respond);
+
+        assertThat(first.replayed()).isFalse();
+        assertThat(second.replayed()).isTrue();
+        assertThat(second.response()).isEqualTo(first.response());
+        assertThat(executions).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("execute rechaza una llave reutilizada con otra solicitud u otra operacion")
+    void execute_withSameKeyAndDifferentRequest_throwsIdempotencyKeyReuseException() {
+        store.execute("staff", "confirm", "k-1", 5L, this::respond);
+
+        assertThatThrownBy(() -> store.execute("staff", "confirm", "k-1", 6L, this::respond))
+                .isInstanceOf(IdempotencyKeyReuseException.class);
+        assertThatThrownBy(() -> store.execute("staff", "cancel", "k-1", 5L, this::respond))
+                .isInstanceOf(IdempotencyKeyReuseException.class);
+        assertThat(executions).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("execute separa las llaves de usuarios distintos")
+    void execute_withSameKeyAndDifferentPrincipal_executesAgain() {
+        store.execute("staff", "confirm", "k-1", 5L, this::respond);
+        IdempotentResponseStore.IdempotentResult<String> other =
+                store.execute("admin", "confirm", "k-1", 5L, this::respond);
+
+        assertThat(other.replayed()).isFalse();
+        assertThat(executions).hasValue(2);
+    }
+
+    @Test
+    @DisplayName("execute no guarda las operaciones fallidas")
+    void execute_whenActionFails_releasesKey() {
+        assertThatThrownBy(() -> store.execute("staff", "confirm", "k-1", 5L, () -> {
+            throw new IllegalStateException("Falla");
+        })).isInstanceOf(IllegalStateException.class);
+
+        IdempotentResponseStore.IdempotentResult<String> retry =
+                store.execute("staff", "confirm", "k-1", 5L, this::respond);
+
+        assertThat(retry.replayed()).isFalse();
+        assertThat(executions).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("execute vuelve a ejecutar la operacion cuando la entrada expira")
+    void execute_afterTtl_executesAgain() {
+        store.execute("staff", "confirm", "k-1", 5L, this::respond);
+        clock.addAndGet(TTL.toNanos());
+
+        IdempotentResponseStore.IdempotentResult<String> afterTtl =
+                store.execute("staff", "confirm", "k-1", 5L, this::respond);
+
+        assertThat(afterTtl.replayed()).isFalse();
+        assertThat(executions).hasValue(2);
+    }
+
+    @Test
+    @DisplayName("execute desaloja la llave usada hace mas tiempo al superar el tamano maximo")
+    void execute_whenFull_evictsLeastRecentlyUsedKey() {
+        store.execute("staff", "confirm", "k-1", 1L, this::respond);
+        store.execute("staff", "confirm", "k-2", 2L, this::respond);
+        store.execute("staff", "confirm", "k-1", 1L, this::respond);
+        store.execute("staff", "confirm", "k-3", 3L, this::respond);
+
+        assertThat(store.size()).isEqualTo(2);
+        assertThat(store.execute("staff", "confirm", "k-1", 1L, this::respond).replayed()).isTrue();
+        assertThat(store.execute("staff", "confirm", "k-2", 2L, this::respond).replayed()).isFalse();
+    }
+
+    private String respond() {
+        return "respuesta-" + executions.incrementAndGet();
+    }
+}
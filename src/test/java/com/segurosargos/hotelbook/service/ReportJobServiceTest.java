@@ -0,0 +1,163 @@
+package com.segurosargos.hotelbook.service;
+
+import com.segurosargos.hotelbook.dto.BookingDetailResponseDto;
+import com.segurosargos.hotelbook.dto.ReportJobRequestDto;
+import com.segurosargos.hotelbook.dto.ReportJobResponseDto;
+import com.segurosargos.hotelbook.dto.ReportJobType;
+import com.segurosargos.hotelbook.exception.ReportJobNotFoundException;
+import com.segurosargos.hotelbook.exception.ReportJobRejectedException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/*
+ * Pruebas unitarias para ReportJobService.
+ * Se valida la union de solicitudes identicas, la reutilizacion del resultado y el
+ * rechazo cuando la cola esta llena.
+ */
+@ExtendWith(MockitoExtension.class)
+class ReportJobServiceTest {
+
+    private static final LocalDate START = LocalDate.of(2025, 1, 1);
+
+    private static final LocalDate END = LocalDate.of(2025, 1, 31);
+
+    @Mock
+    private BookingReportService bookingReportService;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private ReportJobService reportJobService;
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        if (reportJobService != null) {
+            reportJobService.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("submit une solicitudes identicas en un solo job y reutiliza su resultado")
+    void submit_whenIdenticalRequests_executesOnce() throws Exception {
+        reportJobService = new ReportJobService(bookingReportService, meterRegistry, 2, 10, Duration.ofMinutes(10), 1000);
+        when(bookingReportService.getBookingDetails(START, END, "CONFIRMED")).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return List.of(BookingDetailResponseDto.builder().bookingId(1L).build());
+        });
+
+        ReportJobResponseDto first = reportJobService.submit(request(START, END, null));
+        ReportJobResponseDto second = reportJobService.submit(request(START, END, "CONFIRMED"));
+        release.countDown();
+        awaitState(first.getJobId(), "COMPLETED");
+        ReportJobResponseDto third = reportJobService.submit(request(START, END, null));
+
+        assertThat(second.getJobId()).isEqualTo(first.getJobId());
+        assertThat(third.getJobId()).isEqualTo(first.getJobId());
+        assertThat(third.getRowCount()).isEqualTo(1);
+        assertThat(reportJobService.findJobResult(first.getJobId())).hasValueSatisfying(rows -> assertThat(rows).hasSize(1));
+        verify(bookingReportService, times(1)).getBookingDetails(START, END, "CONFIRMED");
+        assertThat(meterRegistry.counter("report.jobs.requests", "outcome", "coalesced").count()).isEqualTo(1.0);
+        assertThat(meterRegistry.counter("report.jobs.requests", "outcome", "cached").count()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("submit rechaza la solicitud cuando la cola de jobs esta llena")
+    void submit_whenQueueIsFull_throwsRejected() throws Exception {
+        reportJobService = new ReportJobService(bookingReportService, meterRegistry, 1, 1, Duration.ofMinutes(10), 1000);
+        CountDownLatch started = new CountDownLatch(1);
+        when(bookingReportService.getBookingDetails(any(), any(), any())).thenAnswer(invocation -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return List.of();
+        });
+
+        reportJobService.submit(request(START, END, null));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        reportJobService.submit(request(START, END.plusDays(1), null));
+
+        assertThatThrownBy(() -> reportJobService.submit(request(START, END.plusDays(2), null)))
+                .isInstanceOf(ReportJobRejectedException.class);
+        assertThat(meterRegistry.get("report.jobs.queue.depth").gauge().value()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("un job fallido no se reutiliza en la siguiente solicitud")
+    void submit_afterFailedJob_startsNewJob() throws Exception {
+        reportJobService = new ReportJobService(bookingReportService, meterRegistry, 1, 10, Duration.ofMinutes(10), 1000);
+        when(bookingReportService.getMonthlyStats(START, END, "CANCELLED"))
+                .thenThrow(new IllegalStateException("fallo simulado"))
+                .thenReturn(List.of());
+
+        ReportJobResponseDto failed = reportJobService.submit(monthlyRequest("CANCELLED"));
+        awaitState(failed.getJobId(), "FAILED");
+        ReportJobResponseDto retried = reportJobService.submit(monthlyRequest("CANCELLED"));
+        awaitState(retried.getJobId(), "COMPLETED");
+
+        assertThat(retried.getJobId()).isNotEqualTo(failed.getJobId());
+        assertThat(reportJobService.getJob(failed.getJobId()).getErrorMessage()).isEqualTo("fallo simulado");
+        assertThat(reportJobService.findJobResult(failed.getJobId())).isEmpty();
+    }
+
+    @Test
+    @DisplayName("al superar el limite de filas retenidas se descarta primero el resultado mas antiguo")
+    void complete_whenRetainedRowsExceedLimit_evictsOldestResult() throws Exception {
+        reportJobService = new ReportJobService(bookingReportService, meterRegistry, 1, 10, Duration.ofMinutes(10), 3);
+        when(bookingReportService.getBookingDetails(any(), any(), any())).thenAnswer(invocation -> List.of(
+                BookingDetailResponseDto.builder().bookingId(1L).build(),
+                BookingDetailResponseDto.builder().bookingId(2L).build()));
+
+        ReportJobResponseDto oldest = reportJobService.submit(request(START, END, null));
+        awaitState(oldest.getJobId(), "COMPLETED");
+        ReportJobResponseDto newest = reportJobService.submit(request(START, END.plusDays(1), null));
+        awaitState(newest.getJobId(), "COMPLETED");
+
+        assertThatThrownBy(() -> reportJobService.getJob(oldest.getJobId()))
+                .isInstanceOf(ReportJobNotFoundException.class);
+        assertThat(reportJobService.findJobResult(newest.getJobId())).hasValueSatisfying(rows -> assertThat(rows).hasSize(2));
+        assertThat(meterRegistry.counter("report.jobs.evicted").count()).isEqualTo(1.0);
+    }
+
+    private ReportJobRequestDto request(LocalDate start, LocalDate end, String status) {
+        return ReportJobRequestDto.builder()
+                .type(ReportJobType.BOOKING_DETAILS)
+                .startDate(start)
+                .endDate(end)
+                .status(status)
+                .build();
+    }
+
+    private ReportJobRequestDto monthlyRequest(String status) {
+        return ReportJobRequestDto.builder()
+                .type(ReportJobType.MONTHLY_STATS)
+                .startDate(START)
+                .endDate(END)
+                .status(status)
+                .build();
+    }
+
+    private void awaitState(String jobId, String state) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!state.equals(reportJobService.getJob(jobId).getState()) && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(reportJobService.getJob(jobId).getState()).isEqualTo(state);
+    }
+}
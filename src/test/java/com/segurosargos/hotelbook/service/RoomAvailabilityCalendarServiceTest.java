@@ -0,0 +1,113 @@
+package com.segurosargos.hotelbook.service;
+
+import com.segurosargos.hotelbook.dto.RoomAvailabilityCalendarDto;
+import com.segurosargos.hotelbook.exception.InvalidBookingException;
+import com.segurosargos.hotelbook.repository.BookingJpaRepository;
+import com.segurosargos.hotelbook.repository.BookingStayView;
+import com.segurosargos.hotelbook.repository.RoomJpaRepository;
+import com.segurosargos.hotelbook.repository.RoomLabelView;
+import java.time.LocalDate;
+import java.util.List;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.when;
+
+/*
+ * Pruebas unitarias para RoomAvailabilityCalendarService.
+ * Se simulan las habitaciones y las reservas confirmadas con mocks de los repositorios.
+ */
+@ExtendWith(MockitoExtension.class)
+class RoomAvailabilityCalendarServiceTest {
+
+    private static final LocalDate FROM = LocalDate.of(2025, 3, 1);
+
+    private static final LocalDate TO = LocalDate.of(2025, 3, 8);
+
+    @Mock
+    private RoomJpaRepository roomJpaRepository;
+
+    @Mock
+    private BookingJpaRepository bookingJpaRepository;
+
+    @InjectMocks
+    private RoomAvailabilityCalendarService calendarService;
+
+    @Test
+    @DisplayName("getAvailabilityCalendar marca las noches ocupadas recortando las estancias al rango")
+    void getAvailabilityCalendar_marksOccupiedNightsWithinRange() {
+        when(roomJpaRepository.findAllLabelsOrderByCode()).thenReturn(List.of(
+                label(1L, "R-101"),
+                label(2L, "R-102")));
+        when(bookingJpaRepository.findStaysOverlapping(FROM, TO, "CONFIRMED")).thenReturn(List.of(
+                stay(1L, LocalDate.of(2025, 2, 27), LocalDate.of(2025, 3, 3)),
+                stay(1L, LocalDate.of(2025, 3, 6), LocalDate.of(2025, 3, 12)),
+                stay(99L, LocalDate.of(2025, 3, 2), LocalDate.of(2025, 3, 4))));
+
+        RoomAvailabilityCalendarDto calendar = calendarService.getAvailabilityCalendar(FROM, TO);
+
+        assertThat(calendar.getDays()).isEqualTo(7);
+        assertThat(calendar.getRooms()).hasSize(2);
+        assertThat(calendar.getRooms().get(0).getOccupancy()).isEqualTo("1100011");
+        assertThat(calendar.getRooms().get(0).getOccupiedDays()).isEqualTo(4);
+        assertThat(calendar.getRooms().get(1).getOccupancy()).isEqualTo("0000000");
+        assertThat(calendar.getRooms().get(1).getOccupiedDays()).isZero();
+    }
+
+    @Test
+    @DisplayName("getAvailabilityCalendar rechaza rangos vacios o demasiado largos")
+    void getAvailabilityCalendar_whenRangeInvalid_throwsInvalidBookingException() {
+        assertThatThrownBy(() -> calendarService.getAvailabilityCalendar(TO, FROM))
+                .isInstanceOf(InvalidBookingException.class);
+        assertThatThrownBy(() -> calendarService.getAvailabilityCalendar(FROM, FROM.plusDays(400)))
+                .isInstanceOf(InvalidBookingException.class);
+    }
+
+    private RoomLabelView label(Long id, String code) {
+        return new RoomLabelView() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public String getCode() {
+                return code;
+            }
+
+            @Override
+            public String getName() {
+                return "Room " + code;
+            }
+        };
+    }
+
+    private BookingStayView stay(Long roomId, LocalDate checkIn, LocalDate checkOut) {
+        return new BookingStayView() {
+            @Override
+            public Long getBookingId() {
+                return null;
+            }
+
+            @Override
+            public Long getRoomId() {
+                return roomId;
+            }
+
+            @Override
+            public LocalDate getCheckInDate() {
+                return checkIn;
+            }
+
+            @Override
+            public LocalDate getCheckOutDate() {
+                return checkOut;
+            }
+        };
+    }
+}
@@ -0,0 +1,148 @@
+package com.segurosargos.hotelbook.service;
+
+import com.segurosargos.hotelbook.model.BookingEventEntity;
+import com.segurosargos.hotelbook.repository.BookingJpaRepository;
+import com.segurosargos.hotelbook.repository.BookingStayView;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/*
+ * Pruebas unitarias para RoomAvailabilityIndex.
+ * Se simulan las reservas confirmadas con un mock de BookingJpaRepository.
+ */
+@ExtendWith(MockitoExtension.class)
+class RoomAvailabilityIndexTest {
+
+    private static final LocalDate TODAY = LocalDate.now();
+
+    @Mock
+    private BookingJpaRepository bookingJpaRepository;
+
+    private RoomAvailabilityIndex availabilityIndex;
+
+    @BeforeEach
+    void setUp() {
+        availabilityIndex = new RoomAvailabilityIndex(bookingJpaRepository, 7, 60);
+    }
+
+    @Test
+    @DisplayName("findBookedRoomIds devuelve solo las habitaciones con noches ocupadas en el rango")
+    void findBookedRoomIds_returnsRoomsWithOverlappingStays() {
+        when(bookingJpaRepository.findStaysOverlapping(any(), any(), eq("CONFIRMED"))).thenReturn(List.of(
+                stay(1L, TODAY.plusDays(2), TODAY.plusDays(5)),
+                stay(2L, TODAY.plusDays(5), TODAY.plusDays(8))));
+
+        availabilityIndex.rebuild();
+
+        assertThat(availabilityIndex.findBookedRoomIds(TODAY.plusDays(4), TODAY.plusDays(5)))
+                .contains(Set.of(1L));
+        // La salida es exclusiva: la habitacion 1 queda libre la noche de su check-out.
+        assertThat(availabilityIndex.findBookedRoomIds(TODAY.plusDays(5), TODAY.plusDays(6)))
+                .contains(Set.of(2L));
+        assertThat(availabilityIndex.findBookedRoomIds(TODAY.plusDays(10), TODAY.plusDays(12)))
+                .contains(Set.of());
+    }
+
+    @Test
+    @DisplayName("findBookedRoomIds no responde fuera del horizonte ni antes de construir el indice")
+    void findBookedRoomIds_whenNotCovered_returnsEmpty() {
+        assertThat(availabilityIndex.findBookedRoomIds(TODAY, TODAY.plusDays(1))).isEmpty();
+
+        when(bookingJpaRepository.findStaysOverlapping(any(), any(), eq("CONFIRMED"))).thenReturn(List.of());
+        availabilityIndex.rebuild();
+
+        assertThat(availabilityIndex.findBookedRoomIds(TODAY.plusDays(50), TODAY.plusDays(70))).isEmpty();
+        assertThat(availabilityIndex.findBookedRoomIds(TODAY.minusDays(30), TODAY)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Confirmar ocupa los dias de la estancia y cancelar recalcula la habitacion")
+    void onBookingEvents_appliesConfirmAndCancel() {
+        when(bookingJpaRepository.findStaysOverlapping(any(), any(), eq("CONFIRMED"))).thenReturn(List.of());
+        availabilityIndex.rebuild();
+
+        availabilityIndex.onBookingEvents(List.of(event(1L, 10L, 3L, "CREATED", "CONFIRMED")));
+
+        assertThat(availabilityIndex.findBookedRoomIds(TODAY.plusDays(2), TODAY.plusDays(4)))
+                .contains(Set.of(3L));
+
+        // Otra reserva confirmada de la misma habitacion sigue ocupando el dia 2.
+        when(bookingJpaRepository.findStaysOverlappingForRoom(eq(3L), any(), any(), eq("CONFIRMED")))
+                .thenReturn(List.of(stay(3L, TODAY.plusDays(2), TODAY.plusDays(3))));
+
+        availabilityIndex.onBookingEvents(List.of(event(2L, 10L, 3L, "CONFIRMED", "CANCELLED")));
+
+        assertThat(availabilityIndex.findBookedRoomIds(TODAY.plusDays(1), TODAY.plusDays(2)))
+                .contains(Set.of());
+        assertThat(availabilityIndex.findBookedRoomIds(TODAY.plusDays(2), TODAY.plusDays(3)))
+                .isEqualTo(Optional.of(Set.of(3L)));
+    }
+
+    @Test
+    @DisplayName("Un lote con varias cancelaciones de la misma habitacion la recalcula una sola vez")
+    void onBookingEvents_withSeveralCancellationsOfSameRoom_reloadsRoomOnce() {
+        when(bookingJpaRepository.findStaysOverlapping(any(), any(), eq("CONFIRMED"))).thenReturn(List.of(
+                stay(4L, TODAY.plusDays(1), TODAY.plusDays(2)),
+                stay(4L, TODAY.plusDays(5), TODAY.plusDays(6))));
+        availabilityIndex.rebuild();
+        when(bookingJpaRepository.findStaysOverlappingForRoom(eq(4L), any(), any(), eq("CONFIRMED")))
+                .thenReturn(List.of());
+
+        availabilityIndex.onBookingEvents(List.of(
+                event(7L, 20L, 4L, "CONFIRMED", "CANCELLED"),
+                event(8L, 21L, 4L, "CONFIRMED", "CANCELLED")));
+
+        assertThat(availabilityIndex.findBookedRoomIds(TODAY, TODAY.plusDays(7))).contains(Set.of());
+        verify(bookingJpaRepository, times(1)).findStaysOverlappingForRoom(eq(4L), any(), any(), eq("CONFIRMED"));
+    }
+
+    private static BookingEventEntity event(Long id, Long bookingId, Long roomId, String previousStatus, String newStatus) {
+        return BookingEventEntity.builder()
+                .id(id)
+                .bookingId(bookingId)
+                .roomId(roomId)
+                .checkInDate(TODAY.plusDays(1))
+                .checkOutDate(TODAY.plusDays(3))
+                .previousStatus(previousStatus)
+                .newStatus(newStatus)
+                .build();
+    }
+
+    private BookingStayView stay(Long roomId, LocalDate checkIn, LocalDate checkOut) {
+        return new BookingStayView() {
+            @Override
+            public Long getBookingId() {
+                return null;
+            }
+
+            @Override
+            public Long getRoomId() {
+                return roomId;
+            }
+
+            @Override
+            public LocalDate getCheckInDate() {
+                return checkIn;
+            }
+
+            @Override
+            public LocalDate getCheckOutDate() {
+                return checkOut;
+            }
+        };
+    }
+}
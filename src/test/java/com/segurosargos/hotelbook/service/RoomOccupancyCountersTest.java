@@ -0,0 +1,124 @@
+package com.segurosargos.hotelbook.service;
+
+import com.segurosargos.hotelbook.model.BookingEventEntity;
+import com.segurosargos.hotelbook.repository.BookingJpaRepository;
+import com.segurosargos.hotelbook.repository.BookingStayView;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+/*
+ * Pruebas unitarias para RoomOccupancyCounters.
+ * Se simulan las reservas confirmadas con un mock de BookingJpaRepository.
+ */
+@ExtendWith(MockitoExtension.class)
+class RoomOccupancyCountersTest {
+
+    private static final LocalDate TODAY = LocalDate.now();
+
+    @Mock
+    private BookingJpaRepository bookingJpaRepository;
+
+    private RoomOccupancyCounters occupancyCounters;
+
+    @BeforeEach
+    void setUp() {
+        occupancyCounters = new RoomOccupancyCounters(bookingJpaRepository, 30, 60);
+    }
+
+    @Test
+    @DisplayName("rebuild cuenta las reservas confirmadas por dia y habitacion")
+    void rebuild_countsConfirmedStaysPerDayAndRoom() {
+        when(bookingJpaRepository.findStaysOverlapping(any(), any(), eq("CONFIRMED"))).thenReturn(List.of(
+                stay(1L, 1L, TODAY, TODAY.plusDays(3)),
+                stay(2L, 2L, TODAY.plusDays(2), TODAY.plusDays(4))));
+
+        occupancyCounters.rebuild();
+
+        assertThat(occupancyCounters.findCountsByRoom(TODAY)).contains(Map.of(1L, 1));
+        assertThat(occupancyCounters.findCountsByRoom(TODAY.plusDays(2))).contains(Map.of(1L, 1, 2L, 1));
+        // La salida es exclusiva.
+        assertThat(occupancyCounters.findCountsByRoom(TODAY.plusDays(3))).contains(Map.of(2L, 1));
+        assertThat(occupancyCounters.findCountsByRoom(TODAY.plusDays(120))).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Confirmar suma la estancia una sola vez y cancelar la descuenta")
+    void onBookingEvents_appliesConfirmAndCancelIdempotently() {
+        when(bookingJpaRepository.findStaysOverlapping(any(), any(), eq("CONFIRMED"))).thenReturn(List.of());
+        occupancyCounters.rebuild();
+
+        BookingEventEntity confirmed = event(1L, "CREATED", "CONFIRMED");
+        occupancyCounters.onBookingEvents(List.of(confirmed));
+        // El dispatcher puede volver a entregar un evento ya aplicado.
+        occupancyCounters.onBookingEvents(List.of(confirmed));
+
+        assertThat(occupancyCounters.findCountsByRoom(TODAY.plusDays(1))).contains(Map.of(3L, 1));
+
+        occupancyCounters.onBookingEvents(List.of(event(2L, "CONFIRMED", "CANCELLED")));
+
+        assertThat(occupancyCounters.findCountsByRoom(TODAY.plusDays(1))).contains(Map.of());
+    }
+
+    @Test
+    @DisplayName("verifyConsistency detecta diferencias con el recalculo y adopta los valores recalculados")
+    void verifyConsistency_whenCountersDrift_repairsFromRecompute() {
+        when(bookingJpaRepository.findStaysOverlapping(any(), any(), eq("CONFIRMED")))
+                .thenReturn(List.of(stay(1L, 1L, TODAY, TODAY.plusDays(2))))
+                .thenReturn(List.of(stay(1L, 1L, TODAY, TODAY.plusDays(2))))
+                .thenReturn(List.of(stay(1L, 1L, TODAY, TODAY.plusDays(2)), stay(2L, 2L, TODAY, TODAY.plusDays(1))));
+
+        occupancyCounters.rebuild();
+
+        assertThat(occupancyCounters.verifyConsistency()).isZero();
+        // Una reserva confirmada fuera de la aplicacion no genero evento.
+        assertThat(occupancyCounters.verifyConsistency()).isEqualTo(1);
+        assertThat(occupancyCounters.findCountsByRoom(TODAY)).contains(Map.of(1L, 1, 2L, 1));
+    }
+
+    private static BookingEventEntity event(Long id, String previousStatus, String newStatus) {
+        return BookingEventEntity.builder()
+                .id(id)
+                .bookingId(10L)
+                .roomId(3L)
+                .checkInDate(TODAY.plusDays(1))
+                .checkOutDate(TODAY.plusDays(2))
+                .previousStatus(previousStatus)
+                .newStatus(newStatus)
+                .build();
+    }
+
+    private BookingStayView stay(Long bookingId, Long roomId, LocalDate checkIn, LocalDate checkOut) {
+        return new BookingStayView() {
+            @Override
+            public Long getBookingId() {
+                return bookingId;
+            }
+
+            @Override
+            public Long getRoomId() {
+                return roomId;
+            }
+
+            @Override
+            public LocalDate getCheckInDate() {
+                return checkIn;
+            }
+
+            @Override
+            public LocalDate getCheckOutDate() {
+                return checkOut;
+            }
+        };
+    }
+}
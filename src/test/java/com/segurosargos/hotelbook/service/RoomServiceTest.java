@@ -2,26 +2,44 @@ package com.segurosargos.hotelbook.service;
 
 import com.segurosargos.hotelbook.dto.RoomCreateRequestDto;
 import com.segurosargos.hotelbook.dto.RoomDetailResponseDto;
+import com.segurosargos.hotelbook.dto.RoomNameSuggestionDto;
+import com.segurosargos.hotelbook.dto.RoomOccupancySummaryDto;
+import com.segurosargos.hotelbook.dto.RoomPageResultDto;
+import com.segurosargos.hotelbook.dto.RoomSearchFilterDto;
 import com.segurosargos.hotelbook.dto.RoomUpdateRequestDto;
 import com.segurosargos.hotelbook.exception.BookingNotFoundException;
 import com.segurosargos.hotelbook.exception.InvalidBookingException;
 import com.segurosargos.hotelbook.model.Room;
 import com.segurosargos.hotelbook.repository.RoomJpaRepository;
+import com.segurosargos.hotelbook.repository.RoomNameMatchView;
 import com.segurosargos.hotelbook.repository.RoomRepository;
+import com.segurosargos.hotelbook.repository.RoomSearchCriteria;
 import java.math.BigDecimal;
-import java.util.Collections;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 /*
@@ -37,6 +55,12 @@ class RoomServiceTest {
     @Mock
     private RoomJpaRepository roomJpaRepository;
 
+    @Mock
+    private RoomAvailabilityIndex roomAvailabilityIndex;
+
+    @Mock
+    private RoomOccupancyCounters roomOccupancyCounters;
+
     @InjectMocks
     private RoomService roomService;
 
@@ -50,7 +74,7 @@ class RoomServiceTest {
                 .basePricePerNight(new BigDecimal("100.00"))
                 .build();
 
-        when(roomRepository.findAll()).thenReturn(Collections.emptyList());
+        when(roomRepository.existsByCodeIgnoreCase("HB-101")).thenReturn(false);
 
         when(roomRepository.save(any(Room.class))).thenAnswer(invocation -> {
             Room room = invocation.getArgument(0);
@@ -87,19 +111,10 @@ class RoomServiceTest {
     @Test
     @DisplayName("createRoom lanza InvalidBookingException cuando el codigo ya existe")
     void createRoom_whenCodeAlreadyExists_throwsInvalidBookingException() {
-        Room existing = Room.builder()
-                .id(10L)
-                .code("HB-101")
-                .name("Existing room")
-                .capacity(2)
-                .basePricePerNight(new BigDecimal("80.00"))
-                .active(true)
-                .build();
-
-        when(roomRepository.findAll()).thenReturn(List.of(existing));
+        when(roomRepository.existsByCodeIgnoreCase("hb-101")).thenReturn(true);
 
         RoomCreateRequestDto request = RoomCreateRequestDto.builder()
-                .code("HB-101")
+                .code(" hb-101 ")
                 .name("New room")
                 .capacity(2)
                 .basePricePerNight(new BigDecimal("100.00"))
@@ -107,6 +122,9 @@ class RoomServiceTest {
 
         assertThatThrownBy(() -> roomService.createRoom(request))
                 .isInstanceOf(InvalidBookingException.class);
+
+        verify(roomRepository, never()).findAll();
+        verify(roomRepository, never()).save(any(Room.class));
     }
 
     @Test
@@ -191,4 +209,187 @@ class RoomServiceTest {
         assertThatThrownBy(() -> roomService.updateRoom(123L, request))
                 .isInstanceOf(BookingNotFoundException.class);
     }
+
+    @Test
+    @DisplayName("getRoomsPage delega la paginacion y el orden al repositorio")
+    void getRoomsPage_delegatesPagingAndSortingToRepository() {
+        Room room = Room.builder()
+                .id(21L)
+                .code("HB-121")
+                .name("Deluxe King")
+                .capacity(2)
+                .basePricePerNight(new BigDecimal("140.00"))
+                .active(true)
+                .build();
+
+        when(roomRepository.findAll(any(Pageable.class))).thenAnswer(invocation -> {
+            Pageable pageable = invocation.getArgument(0);
+            return new PageImpl<>(List.of(room), pageable, 21L);
+        });
+
+        RoomPageResultDto result = roomService.getRoomsPage(2, 10, "name", "desc");
+
+        ArgumentCaptor<Pageable> pageableCaptor = ArgumentCaptor.forClass(Pageable.class);
+        verify(roomRepository).findAll(pageableCaptor.capture());
+
+        Pageable pageable = pageableCaptor.getValue();
+        assertThat(pageable.getPageNumber()).isEqualTo(2);
+        assertThat(pageable.getPageSize()).isEqualTo(10);
+        assertThat(pageable.getSort().getOrderFor("name"))
+                .isEqualTo(Sort.Order.desc("name").ignoreCase());
+        assertThat(pageable.getSort().getOrderFor("id")).isEqualTo(Sort.Order.desc("id"));
+
+        assertThat(result.getRooms()).hasSize(1);
+        assertThat(result.getRooms().get(0).getCode()).isEqualTo("HB-121");
+        assertThat(result.getPageNumber()).isEqualTo(2);
+        assertThat(result.getTotalElements()).isEqualTo(21L);
+        assertThat(result.getTotalPages()).isEqualTo(3);
+        assertThat(result.isFirst()).isFalse();
+        assertThat(result.isLast()).isTrue();
+    }
+
+    @Test
+    @DisplayName("searchRooms con nombre y rango de precio ejecuta una sola búsqueda paginada en el repositorio")
+    void searchRooms_withNameAndPriceRange_usesSinglePagedRepositorySearch() {
+        Room suite = Room.builder()
+                .id(31L)
+                .code("HB-331")
+                .name("Suite Junior")
+                .capacity(3)
+                .basePricePerNight(new BigDecimal("220.00"))
+                .active(true)
+                .build();
+
+        RoomSearchCriteria criteria =
+                new RoomSearchCriteria("suite", new BigDecimal("100.00"), new BigDecimal("300.00"));
+        when(roomRepository.search(eq(criteria), any(Pageable.class))).thenAnswer(invocation -> {
+            Pageable pageable = invocation.getArgument(1);
+            return new PageImpl<>(List.of(suite), pageable, 1L);
+        });
+
+        RoomPageResultDto result = roomService.searchRooms(
+                "suite", new BigDecimal("100.00"), new BigDecimal("300.00"), 0, 5, "price", "asc");
+
+        ArgumentCaptor<Pageable> pageableCaptor = ArgumentCaptor.forClass(Pageable.class);
+        verify(roomRepository).search(eq(criteria), pageableCaptor.capture());
+        verify(roomRepository, never()).findByNameContainingIgnoreCase(anyString());
+        verifyNoInteractions(roomJpaRepository);
+
+        assertThat(pageableCaptor.getValue().getPageSize()).isEqualTo(5);
+        assertThat(pageableCaptor.getValue().getSort().getOrderFor("basePricePerNight"))
+                .isEqualTo(Sort.Order.asc("basePricePerNight"));
+
+        assertThat(result.getRooms()).hasSize(1);
+        assertThat(result.getRooms().get(0).getName()).isEqualTo("Suite Junior");
+        assertThat(result.getTotalElements()).isEqualTo(1L);
+    }
+
+    @Test
+    @DisplayName("searchRoomsAdvanced ejecuta la Specification paginada y ordenada en base de datos")
+    @SuppressWarnings("unchecked")
+    void searchRoomsAdvanced_executesPagedAndSortedSpecification() {
+        RoomSearchFilterDto filter = RoomSearchFilterDto.builder()
+                .minCapacity(2)
+                .onlyActive(true)
+                .availableFrom(LocalDate.of(2025, 6, 1))
+                .availableTo(LocalDate.of(2025, 6, 5))
+                .build();
+
+        when(roomAvailabilityIndex.findBookedRoomIds(LocalDate.of(2025, 6, 1), LocalDate.of(2025, 6, 5)))
+                .thenReturn(Optional.of(Set.of(3L, 4L)));
+        when(roomJpaRepository.findAll(any(Specification.class), any(Pageable.class))).thenAnswer(invocation -> {
+            Pageable pageable = invocation.getArgument(1);
+            return new PageImpl<>(List.of(), pageable, 0L);
+        });
+
+        RoomPageResultDto result = roomService.searchRoomsAdvanced(filter, 0, 10, "code", "desc");
+
+        verify(roomAvailabilityIndex).findBookedRoomIds(LocalDate.of(2025, 6, 1), LocalDate.of(2025, 6, 5));
+
+        ArgumentCaptor<Pageable> pageableCaptor = ArgumentCaptor.forClass(Pageable.class);
+        verify(roomJpaRepository).findAll(any(Specification.class), pageableCaptor.capture());
+
+        assertThat(pageableCaptor.getValue().getSort().getOrderFor("code"))
+                .isEqualTo(Sort.Order.desc("code").ignoreCase());
+        assertThat(result.getRooms()).isEmpty();
+        assertThat(result.getTotalElements()).isZero();
+        assertThat(result.getTotalPages()).isZero();
+        assertThat(result.isFirst()).isTrue();
+        assertThat(result.isLast()).isTrue();
+    }
+
+    @Test
+    @DisplayName("suggestRoomsByName devuelve las sugerencias por similitud en el orden del repositorio")
+    void suggestRoomsByName_whenQueryIsLongEnough_usesSimilarityRanking() {
+        when(roomRepository.findByNameSimilarity("deluxe", 5)).thenReturn(List.of(
+                nameMatch(3L, "DLX-301", "Deluxe King", 0.8),
+                nameMatch(7L, "DLX-302", "Deluxe Twin", 0.6)));
+
+        List<RoomNameSuggestionDto> suggestions = roomService.suggestRoomsByName("  Deluxe ", 5);
+
+        assertThat(suggestions).extracting(RoomNameSuggestionDto::getId).containsExactly(3L, 7L);
+        assertThat(suggestions.get(0).getScore()).isEqualTo(0.8);
+    }
+
+    @Test
+    @DisplayName("suggestRoomsByName con texto corto busca por nombre contenido ordenado alfabeticamente")
+    void suggestRoomsByName_whenQueryIsShort_searchesByNameContains() {
+        Sort nameSort = Sort.by(Sort.Order.asc("name").ignoreCase(), Sort.Order.asc("id"));
+        when(roomRepository.searchAfter(new RoomSearchCriteria("de", null, null), null, nameSort, 5))
+                .thenReturn(List.of(Room.builder().id(3L).code("DLX-301").name("Deluxe King").build()));
+
+        List<RoomNameSuggestionDto> suggestions = roomService.suggestRoomsByName("De", 5);
+
+        assertThat(suggestions).extracting(RoomNameSuggestionDto::getId).containsExactly(3L);
+        assertThat(suggestions.get(0).getScore()).isNull();
+        verify(roomRepository, never()).findByNameSimilarity(anyString(), anyInt());
+    }
+
+    @Test
+    @DisplayName("suggestRoomsByName con texto vacio no consulta el repositorio")
+    void suggestRoomsByName_whenQueryIsBlank_returnsEmptyList() {
+        assertThat(roomService.suggestRoomsByName("  ", 10)).isEmpty();
+
+        verify(roomRepository, never()).findByNameSimilarity(anyString(), anyInt());
+    }
+
+    @Test
+    @DisplayName("getRoomOccupancySummary usa los contadores de ocupacion sin ejecutar la consulta agrupada")
+    void getRoomOccupancySummary_whenCountersCoverDate_readsCounters() {
+        LocalDate date = LocalDate.of(2025, 3, 2);
+        when(roomOccupancyCounters.findCountsByRoom(date)).thenReturn(Optional.of(Map.of(2L, 1)));
+        when(roomRepository.findAll()).thenReturn(List.of(
+                Room.builder().id(2L).code("R-102").name("Deluxe").basePricePerNight(new BigDecimal("150.00")).build(),
+                Room.builder().id(1L).code("R-101").name("Standard").basePricePerNight(new BigDecimal("100.00")).build()));
+
+        List<RoomOccupancySummaryDto> summaries = roomService.getRoomOccupancySummary(date);
+
+        assertThat(summaries).extracting(RoomOccupancySummaryDto::getRoomCode).containsExactly("R-101", "R-102");
+        assertThat(summaries).extracting(RoomOccupancySummaryDto::getActiveBookingsCount).containsExactly(0L, 1L);
+        verify(roomJpaRepository, never()).findRoomOccupancySummaryByReferenceDate(any());
+    }
+
+    private RoomNameMatchView nameMatch(Long id, String code, String name, double score) {
+        return new RoomNameMatchView() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public String getCode() {
+                return code;
+            }
+
+            @Override
+            public String getName() {
+                return name;
+            }
+
+            @Override
+            public Double getScore() {
+                return score;
+            }
+        };
+    }
 }